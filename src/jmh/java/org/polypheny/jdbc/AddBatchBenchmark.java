@@ -0,0 +1,97 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.polypheny.jdbc;
+
+import com.google.protobuf.CodedOutputStream;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.polypheny.jdbc.types.TypedValue;
+import org.polypheny.jdbc.utils.ProtoUtils;
+import org.polypheny.prism.ExecuteIndexedStatementBatchRequest;
+import org.polypheny.prism.IndexedParameters;
+
+/**
+ * Measures adding rows of an int, a bigint, a double and a varchar parameter to a batch and encoding the batch. The
+ * typed value variant boxes each parameter into a {@link TypedValue} and builds the request messages, the columnar
+ * variant fills {@link ParameterRow} slots and encodes the {@link ParameterColumns} directly.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AddBatchBenchmark {
+
+    private static final int[] TYPES = { Types.INTEGER, Types.BIGINT, Types.DOUBLE, Types.VARCHAR };
+
+    @Param({ "1000" })
+    public int rows;
+
+    private final ParameterRow row = new ParameterRow( TYPES.length );
+    private ParameterColumns columns;
+
+
+    @Benchmark
+    public byte[] typedValues() throws SQLException {
+        List<List<TypedValue>> batch = new ArrayList<>();
+        for ( int i = 0; i < rows; i++ ) {
+            TypedValue[] parameters = new TypedValue[TYPES.length];
+            parameters[0] = TypedValue.fromInteger( i );
+            parameters[1] = TypedValue.fromLong( i * 31L );
+            parameters[2] = TypedValue.fromDouble( i * 0.5 );
+            parameters[3] = TypedValue.fromString( "name" );
+            batch.add( Arrays.asList( parameters.clone() ) );
+        }
+        ExecuteIndexedStatementBatchRequest.Builder request = ExecuteIndexedStatementBatchRequest.newBuilder();
+        for ( List<TypedValue> parameters : batch ) {
+            request.addParameters( IndexedParameters.newBuilder().addAllParameters( ProtoUtils.serializeParameterList( parameters ) ) );
+        }
+        return request.build().toByteArray();
+    }
+
+
+    @Benchmark
+    public byte[] columnar() throws SQLException, IOException {
+        if ( columns == null ) {
+            columns = new ParameterColumns( TYPES );
+        }
+        int size = 0;
+        for ( int i = 0; i < rows; i++ ) {
+            row.setInteger( 0, i );
+            row.setLong( 1, i * 31L );
+            row.setDouble( 2, i * 0.5 );
+            row.setString( 3, "name" );
+            size += columns.add( row );
+        }
+        byte[] encoded = new byte[size];
+        CodedOutputStream out = CodedOutputStream.newInstance( encoded );
+        columns.writeTo( out );
+        columns.clear();
+        return encoded;
+    }
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.polypheny.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.polypheny.jdbc.meta.PolyphenyDatabaseMetadata;
+import org.polypheny.jdbc.properties.PolyphenyConnectionProperties;
+import org.polypheny.prism.CloseResultResponse;
+import org.polypheny.prism.CloseStatementResponse;
+import org.polypheny.prism.ColumnMeta;
+import org.polypheny.prism.Frame;
+import org.polypheny.prism.ProtoInteger;
+import org.polypheny.prism.ProtoPolyType;
+import org.polypheny.prism.ProtoValue;
+import org.polypheny.prism.RelationalFrame;
+import org.polypheny.prism.Request;
+import org.polypheny.prism.Response;
+import org.polypheny.prism.Row;
+import org.polypheny.prism.StatementResponse;
+import org.polypheny.prism.StatementResult;
+import org.polypheny.prism.TypeMeta;
+
+/**
+ * Measures queries issued by several threads with a simulated round trip time. The threads either share a single
+ * connection, whose requests are multiplexed over one transport, or each use a connection of their own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ConcurrentStatementsBenchmark {
+
+    @Param({ "8" })
+    public int threads;
+
+    @Param({ "1", "8" })
+    public int connections;
+
+    @Param({ "50" })
+    public int queriesPerThread;
+
+    @Param({ "1000" })
+    public long roundTripMicros;
+
+    private final List<SimulatedTransport> transports = new ArrayList<>();
+    private final List<PolyConnection> polyConnections = new ArrayList<>();
+    private final AtomicInteger statementIds = new AtomicInteger();
+    private ExecutorService executor;
+
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        for ( int i = 0; i < connections; i++ ) {
+            SimulatedTransport transport = new SimulatedTransport( this::answer, roundTripMicros );
+            PrismInterfaceClient client = new PrismInterfaceClient( transport );
+            ConnectionString target = new ConnectionString( "jdbc:polypheny://localhost:20590/" );
+            transports.add( transport );
+            polyConnections.add( new PolyConnection(
+                    new PolyphenyConnectionProperties( target, client ),
+                    new PolyphenyDatabaseMetadata( client, target )
+            ) );
+        }
+        executor = Executors.newFixedThreadPool( threads );
+    }
+
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+        transports.forEach( SimulatedTransport::close );
+    }
+
+
+    @Benchmark
+    public int executeQueries() throws InterruptedException, ExecutionException {
+        List<Future<Integer>> results = new ArrayList<>( threads );
+        for ( int i = 0; i < threads; i++ ) {
+            PolyConnection connection = polyConnections.get( i % connections );
+            results.add( executor.submit( queries( connection ) ) );
+        }
+        int rows = 0;
+        for ( Future<Integer> result : results ) {
+            rows += result.get();
+        }
+        return rows;
+    }
+
+
+    private Callable<Integer> queries( PolyConnection connection ) {
+        return () -> {
+            int rows = 0;
+            try ( Statement statement = connection.createStatement() ) {
+                for ( int i = 0; i < queriesPerThread; i++ ) {
+                    try ( ResultSet rs = statement.executeQuery( "SELECT id FROM emps" ) ) {
+                        while ( rs.next() ) {
+                            rows++;
+                        }
+                    }
+                }
+            }
+            return rows;
+        };
+    }
+
+
+    private Response.Builder answer( Request request ) {
+        switch ( request.getTypeCase() ) {
+            case EXECUTE_UNPARAMETERIZED_STATEMENT_REQUEST:
+                RelationalFrame frame = RelationalFrame.newBuilder()
+                        .addColumnMeta( ColumnMeta.newBuilder()
+                                .setColumnIndex( 0 )
+                                .setColumnLabel( "id" )
+                                .setColumnName( "id" )
+                                .setTypeMeta( TypeMeta.newBuilder().setProtoValueType( ProtoPolyType.INTEGER ) ) )
+                        .addRows( Row.newBuilder().addValues( ProtoValue.newBuilder().setInteger( ProtoInteger.newBuilder().setInteger( 1 ) ) ) )
+                        .build();
+                StatementResponse response = StatementResponse.newBuilder()
+                        .setStatementId( statementIds.incrementAndGet() )
+                        .setResult( StatementResult.newBuilder().setFrame( Frame.newBuilder().setIsLast( true ).setRelationalFrame( frame ) ) )
+                        .build();
+                return Response.newBuilder().setStatementResponse( response );
+            case CLOSE_RESULT_REQUEST:
+                return Response.newBuilder().setCloseResultResponse( CloseResultResponse.newBuilder() );
+            case CLOSE_STATEMENT_REQUEST:
+                return Response.newBuilder().setCloseStatementResponse( CloseStatementResponse.newBuilder() );
+            default:
+                throw new IllegalArgumentException( "Unexpected request " + request.getTypeCase() );
+        }
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.polypheny.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.polypheny.jdbc.meta.PolyphenyDatabaseMetadata;
+import org.polypheny.jdbc.properties.PolyphenyConnectionProperties;
+import org.polypheny.prism.Column;
+import org.polypheny.prism.EntitiesResponse;
+import org.polypheny.prism.Entity;
+import org.polypheny.prism.Namespace;
+import org.polypheny.prism.NamespacesResponse;
+import org.polypheny.prism.Request;
+import org.polypheny.prism.Response;
+import org.polypheny.prism.Table;
+
+/**
+ * Measures {@link java.sql.DatabaseMetaData#getColumns} over many namespaces with a simulated round trip time.
+ * With a concurrency of 1 the per-namespace requests are sent one after another.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MetadataFanOutBenchmark {
+
+    @Param({ "200" })
+    public int namespaces;
+
+    @Param({ "1", "16" })
+    public int concurrency;
+
+    @Param({ "1000" })
+    public long roundTripMicros;
+
+    private SimulatedTransport transport;
+    private PolyConnection connection;
+
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        transport = new SimulatedTransport( this::answer, roundTripMicros );
+        PrismInterfaceClient client = new PrismInterfaceClient( transport );
+        ConnectionString target = new ConnectionString( "jdbc:polypheny://localhost:20590/?metaconcurrency=" + concurrency );
+        connection = new PolyConnection(
+                new PolyphenyConnectionProperties( target, client ),
+                new PolyphenyDatabaseMetadata( client, target )
+        );
+    }
+
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        transport.close();
+    }
+
+
+    @Benchmark
+    public int getColumns() throws SQLException {
+        int count = 0;
+        try ( ResultSet rs = connection.getMetaData().getColumns( null, null, null, null ) ) {
+            while ( rs.next() ) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+
+    private Response.Builder answer( Request request ) {
+        switch ( request.getTypeCase() ) {
+            case NAMESPACES_REQUEST:
+                NamespacesResponse.Builder namespacesResponse = NamespacesResponse.newBuilder();
+                for ( int i = 0; i < namespaces; i++ ) {
+                    namespacesResponse.addNamespaces( Namespace.newBuilder()
+                            .setNamespaceName( "namespace" + i )
+                            .setNamespaceType( "RELATIONAL" )
+                            .setIsCaseSensitive( false ) );
+                }
+                return Response.newBuilder().setNamespacesResponse( namespacesResponse );
+            case ENTITIES_REQUEST:
+                String namespace = request.getEntitiesRequest().getNamespaceName();
+                Table table = Table.newBuilder()
+                        .setNamespaceName( namespace )
+                        .setTableName( "emps" )
+                        .addColumns( Column.newBuilder()
+                                .setNamespaceName( namespace )
+                                .setTableName( "emps" )
+                                .setColumnName( "id" )
+                                .setTypeName( "INTEGER" )
+                                .setColumnIndex( 1 ) )
+                        .build();
+                return Response.newBuilder().setEntitiesResponse( EntitiesResponse.newBuilder().addEntities( Entity.newBuilder().setTable( table ) ) );
+            default:
+                throw new IllegalArgumentException( "Unexpected request " + request.getTypeCase() );
+        }
+    }
+
+}
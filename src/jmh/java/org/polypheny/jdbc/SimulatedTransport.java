@@ -0,0 +1,94 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.polypheny.jdbc;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.polypheny.jdbc.transport.Transport;
+import org.polypheny.prism.Request;
+import org.polypheny.prism.Response;
+
+/**
+ * In-memory transport answering each request after a fixed delay. Used to measure the effect of network latency on
+ * the driver without a running Polypheny instance.
+ */
+public class SimulatedTransport implements Transport {
+
+    private static final byte[] CLOSED = new byte[0];
+
+    private final Function<Request, Response.Builder> handler;
+    private final long delayMicros;
+    private final ScheduledExecutorService network = Executors.newSingleThreadScheduledExecutor( r -> {
+        Thread t = new Thread( r, "SimulatedNetwork" );
+        t.setDaemon( true );
+        return t;
+    } );
+    private final BlockingQueue<byte[]> responses = new LinkedBlockingQueue<>();
+
+
+    /**
+     * @param handler builds the response for a request, id and last flag are set by the transport
+     * @param delayMicros round trip time added to every request
+     */
+    public SimulatedTransport( Function<Request, Response.Builder> handler, long delayMicros ) {
+        this.handler = handler;
+        this.delayMicros = delayMicros;
+    }
+
+
+    @Override
+    public void sendMessage( byte[] message ) throws IOException {
+        Request request = Request.parseFrom( message );
+        network.schedule( () -> {
+            Response response = handler.apply( request )
+                    .setId( request.getId() )
+                    .setLast( true )
+                    .build();
+            responses.add( response.toByteArray() );
+        }, delayMicros, TimeUnit.MICROSECONDS );
+    }
+
+
+    @Override
+    public byte[] receiveMessage() throws IOException {
+        try {
+            byte[] message = responses.take();
+            if ( message == CLOSED ) {
+                throw new ClosedChannelException();
+            }
+            return message;
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new ClosedChannelException();
+        }
+    }
+
+
+    @Override
+    public void close() {
+        network.shutdownNow();
+        responses.add( CLOSED );
+    }
+
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.polypheny.jdbc;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import org.polypheny.prism.ExecuteUnparameterizedStatementRequest;
+import org.polypheny.prism.StatementBatchResponse;
+
+/**
+ * Executes an unparameterized batch as a sequence of chunks bounded in statements and bytes. Up to a fixed number of
+ * chunks are in flight at once. With a window of one chunk, the default, a chunk is only sent once its predecessor
+ * completed, so the statements run in batch order. Larger windows save round trips, but the protocol does not
+ * guarantee that the server executes the requests of a connection in the order they were sent. The update counts
+ * are merged in batch order either way.
+ * <p>
+ * The number of statements per chunk adapts to the observed latency: it grows additively while chunks are executed
+ * faster than the target latency and is halved when a chunk takes longer. If a chunk fails, no further chunks are
+ * sent, chunks already in flight are still executed by the server.
+ * <p>
+ * Without a maximum number of statements per chunk, the batch is sent as a single chunk. In auto commit mode each
+ * chunk is committed on its own, so only an unsplit batch is executed all-or-nothing.
+ */
+class BatchChunker {
+
+    static final long TARGET_LATENCY_NANOS = TimeUnit.MILLISECONDS.toNanos( 200 );
+    private static final int MIN_CHUNK_STATEMENTS = 8;
+
+    private final PrismInterfaceClient client;
+    private final List<ExecuteUnparameterizedStatementRequest> statements;
+    private final int maxChunkStatements;
+    private final int maxChunkBytes;
+    private final int maxInFlight;
+    private final int increment;
+    // continuations run here, sending from the thread reading responses could block it
+    private final Executor executor;
+
+    private final CompletableFuture<StatementBatchResponse> result = new CompletableFuture<>();
+    private final Deque<Chunk> inFlight = new ArrayDeque<>();
+    private final List<Long> updateCounts;
+    private int nextStatement;
+    private int chunkCount;
+    private int chunkStatements;
+    private long lastCompletion;
+    private int batchId = PolyphenyStatement.NO_STATEMENT_ID;
+
+
+    BatchChunker( PrismInterfaceClient client, List<ExecuteUnparameterizedStatementRequest> statements, int maxChunkStatements, int maxChunkBytes, int maxInFlight, Executor executor ) {
+        this.client = client;
+        this.statements = statements;
+        boolean isSplit = maxChunkStatements > 0;
+        this.maxChunkStatements = isSplit ? maxChunkStatements : Math.max( 1, statements.size() );
+        this.maxChunkBytes = isSplit ? Math.max( 1, maxChunkBytes ) : Integer.MAX_VALUE;
+        this.maxInFlight = Math.max( 1, maxInFlight );
+        this.increment = Math.max( 1, this.maxChunkStatements / 8 );
+        this.chunkStatements = isSplit ? Math.min( this.maxChunkStatements, Math.max( MIN_CHUNK_STATEMENTS, this.maxChunkStatements / 4 ) ) : this.maxChunkStatements;
+        this.executor = executor;
+        this.updateCounts = new ArrayList<>( statements.size() );
+    }
+
+
+    /**
+     * Starts sending the chunks. Cancelling the returned future stops sending further chunks.
+     *
+     * @return a future completed with the merged update counts and the id of the first chunk, which keeps its server
+     * state until it is closed by the caller. The state of the other chunks is released right away.
+     */
+    CompletableFuture<StatementBatchResponse> execute() {
+        result.whenComplete( ( r, e ) -> {
+            if ( e != null ) {
+                releaseBatch();
+            }
+        } );
+        synchronized ( this ) {
+            lastCompletion = System.nanoTime();
+            sendChunks();
+        }
+        return result;
+    }
+
+
+    /**
+     * @return the number of statements the next chunk may contain
+     */
+    synchronized int getChunkStatements() {
+        return chunkStatements;
+    }
+
+
+    private void sendChunks() {
+        while ( !result.isDone() && inFlight.size() < maxInFlight && nextStatement < statements.size() ) {
+            int start = nextStatement;
+            int bytes = 0;
+            while ( nextStatement < statements.size() && nextStatement - start < chunkStatements ) {
+                int size = statements.get( nextStatement ).getSerializedSize();
+                if ( nextStatement > start && bytes + size > maxChunkBytes ) {
+                    break;
+                }
+                bytes += size;
+                nextStatement++;
+            }
+            Chunk chunk = new Chunk( chunkCount++ );
+            inFlight.add( chunk );
+            client.executeUnparameterizedStatementBatchAsync( statements.subList( start, nextStatement ) )
+                    .whenCompleteAsync( ( r, e ) -> completed( chunk, r, e ), executor );
+        }
+        if ( inFlight.isEmpty() && nextStatement == statements.size() ) {
+            result.complete( StatementBatchResponse.newBuilder().setBatchId( batchId ).addAllScalars( updateCounts ).build() );
+        }
+    }
+
+
+    private synchronized void completed( Chunk chunk, StatementBatchResponse response, Throwable e ) {
+        chunk.done = true;
+        if ( response != null && !keep( chunk, response.getBatchId() ) ) {
+            client.closeStatementDeferred( response.getBatchId() );
+        }
+        if ( e != null ) {
+            result.completeExceptionally( e instanceof CompletionException ? e.getCause() : e );
+            return;
+        }
+        chunk.updateCounts = response.getScalarsList();
+        adapt( chunk );
+        while ( !inFlight.isEmpty() && inFlight.peek().done ) {
+            updateCounts.addAll( inFlight.remove().updateCounts );
+        }
+        sendChunks();
+    }
+
+
+    /**
+     * The first chunk's server state is kept as the state of the batch, unless the batch already ended.
+     */
+    private boolean keep( Chunk chunk, int id ) {
+        if ( chunk.index != 0 || result.isDone() ) {
+            return false;
+        }
+        batchId = id;
+        return true;
+    }
+
+
+    private synchronized void releaseBatch() {
+        if ( batchId != PolyphenyStatement.NO_STATEMENT_ID ) {
+            client.closeStatementDeferred( batchId );
+        }
+    }
+
+
+    private void adapt( Chunk chunk ) {
+        // Chunks in flight are executed one after the other, the time a chunk spent waiting for its predecessor is
+        // not part of its latency.
+        long now = System.nanoTime();
+        long latency = now - Math.max( lastCompletion, chunk.sentAt );
+        lastCompletion = now;
+        if ( latency <= TARGET_LATENCY_NANOS ) {
+            chunkStatements = Math.min( maxChunkStatements, chunkStatements + increment );
+        } else {
+            chunkStatements = Math.max( Math.min( MIN_CHUNK_STATEMENTS, maxChunkStatements ), chunkStatements / 2 );
+        }
+    }
+
+
+    private static class Chunk {
+
+        private final int index;
+        private final long sentAt = System.nanoTime();
+        private boolean done;
+        private List<Long> updateCounts;
+
+
+        private Chunk( int index ) {
+            this.index = index;
+        }
+
+    }
+
+}
@@ -22,7 +22,9 @@
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.StringTokenizer;
@@ -31,6 +33,7 @@
 import lombok.extern.slf4j.Slf4j;
 import org.polypheny.jdbc.properties.DriverProperties;
 import org.polypheny.jdbc.properties.PropertyUtils;
+import org.polypheny.jdbc.routing.HostAddress;
 
 @Slf4j
 public class ConnectionString {
@@ -39,6 +42,9 @@ public class ConnectionString {
     private String host;
     @Getter
     private int port;
+    // all hosts of a multi-host url, the first one is also available as host and port
+    @Getter
+    private List<HostAddress> hosts;
     private final Map<String, String> parameters;
 
 
@@ -87,11 +93,14 @@ private void parseUrl( String url ) throws SQLException {
 
         this.host = PropertyUtils.getDEFAULT_HOST();
         this.port = PropertyUtils.getDEFAULT_PORT();
+        this.hosts = null;
         url = url.substring( schemeSpecificPartStartIndex );
 
         if ( url.equals( "//" ) ) {
+            this.hosts = Collections.singletonList( new HostAddress( host, port ) );
             return;
         }
+        url = extractHosts( url );
 
         try {
             URI uri = new URI( url );
@@ -117,6 +126,37 @@ private void parseUrl( String url ) throws SQLException {
         } catch ( URISyntaxException e ) {
             throw new PrismInterfaceServiceException( e );
         }
+        if ( this.hosts == null ) {
+            this.hosts = Collections.singletonList( new HostAddress( host, port ) );
+        }
+    }
+
+
+    /**
+     * The authority of a multi-host url like {@code //user@h1:20590,h2:20590/ns} can not be parsed by {@link URI}.
+     * The host list is therefore parsed here and replaced by the first host before the url is handed to
+     * {@link URI}.
+     *
+     * @param url the url starting with the authority
+     * @return the url with at most one host
+     */
+    private String extractHosts( String url ) throws SQLException {
+        int authorityEnd = url.length();
+        for ( char delimiter : new char[]{ '/', '?', '#' } ) {
+            int index = url.indexOf( delimiter, 2 );
+            if ( index != -1 && index < authorityEnd ) {
+                authorityEnd = index;
+            }
+        }
+        String authority = url.substring( 2, authorityEnd );
+        int hostStart = authority.lastIndexOf( '@' ) + 1;
+        String hostList = authority.substring( hostStart );
+        if ( !hostList.contains( "," ) ) {
+            return url;
+        }
+        this.hosts = HostAddress.parseList( hostList, PropertyUtils.getDEFAULT_PORT() );
+        HostAddress first = hosts.get( 0 );
+        return "//" + authority.substring( 0, hostStart ) + first + url.substring( authorityEnd );
     }
 
 
@@ -145,7 +185,7 @@ private void parseParameters( String parameters ) throws SQLException {
 
 
     public String getTarget() {
-        return host + ":" + port;
+        return hosts.stream().map( HostAddress::toString ).collect( Collectors.joining( "," ) );
     }
 
 
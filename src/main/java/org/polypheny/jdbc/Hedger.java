@@ -0,0 +1,152 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.polypheny.jdbc;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import lombok.Getter;
+import org.polypheny.jdbc.routing.HedgeStatistics;
+import org.polypheny.jdbc.routing.LatencyTracker;
+
+/**
+ * Sends idempotent requests to a second server if the first one does not answer within the configured latency
+ * percentile. The first reply is used, the other one is discarded. Hedging starts once enough latencies have been
+ * observed to estimate the percentile.
+ */
+class Hedger {
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor( r -> {
+        Thread t = new Thread( r, "PrismInterfaceHedging" );
+        t.setDaemon( true );
+        return t;
+    } );
+
+    private static final int LATENCY_SAMPLES = 256;
+    private static final int MIN_LATENCY_SAMPLES = 20;
+    private static final long MIN_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos( 1 );
+
+    @Getter
+    private final PrismInterfaceClient hedgeClient;
+    private final double percentile;
+    private final HedgeStatistics statistics;
+    private final LatencyTracker latencies = new LatencyTracker( LATENCY_SAMPLES );
+
+
+    Hedger( PrismInterfaceClient hedgeClient, double percentile, HedgeStatistics statistics ) {
+        this.hedgeClient = hedgeClient;
+        this.percentile = percentile;
+        this.statistics = statistics;
+    }
+
+
+    /**
+     * @return the time in nanoseconds after which a request is hedged, -1 if not enough latencies are known yet
+     */
+    long getDelayNanos() {
+        if ( latencies.size() < MIN_LATENCY_SAMPLES ) {
+            return -1;
+        }
+        return Math.max( MIN_DELAY_NANOS, latencies.percentile( percentile ) );
+    }
+
+
+    /**
+     * Sends a request to the primary and, if it is slow, to the hedge server as well.
+     *
+     * @param primary the server the request is sent to first
+     * @param call sends the request to the given server
+     * @param discard releases the resources of the reply that arrived second
+     * @return the first successful reply together with the server it came from. Fails only if all servers the request
+     * was sent to failed.
+     */
+    <T> CompletableFuture<Outcome<T>> call( PrismInterfaceClient primary, Call<T> call, BiConsumer<PrismInterfaceClient, T> discard ) {
+        statistics.recordRequest();
+        CompletableFuture<Outcome<T>> result = new CompletableFuture<>();
+        AtomicInteger outstanding = new AtomicInteger( 1 );
+        long start = System.nanoTime();
+        call.send( primary ).whenComplete( ( value, e ) -> {
+            if ( e == null ) {
+                // the latency of the primary is recorded even if it lost, hedging must not skew the distribution
+                latencies.record( System.nanoTime() - start );
+            }
+            settle( result, outstanding, primary, value, e, discard, false );
+        } );
+        long delay = getDelayNanos();
+        if ( delay < 0 || result.isDone() || hedgeClient.isClosed() ) {
+            return result;
+        }
+        ScheduledFuture<?> timer = SCHEDULER.schedule( () -> hedge( call, result, outstanding, discard ), delay, TimeUnit.NANOSECONDS );
+        result.whenComplete( ( o, e ) -> timer.cancel( false ) );
+        return result;
+    }
+
+
+    private <T> void hedge( Call<T> call, CompletableFuture<Outcome<T>> result, AtomicInteger outstanding, BiConsumer<PrismInterfaceClient, T> discard ) {
+        if ( result.isDone() || hedgeClient.isClosed() ) {
+            return;
+        }
+        outstanding.incrementAndGet();
+        statistics.recordHedge();
+        call.send( hedgeClient ).whenComplete( ( value, e ) -> settle( result, outstanding, hedgeClient, value, e, discard, true ) );
+    }
+
+
+    private <T> void settle( CompletableFuture<Outcome<T>> result, AtomicInteger outstanding, PrismInterfaceClient client, T value, Throwable e, BiConsumer<PrismInterfaceClient, T> discard, boolean isHedge ) {
+        if ( e != null ) {
+            if ( outstanding.decrementAndGet() == 0 ) {
+                result.completeExceptionally( e );
+            }
+            return;
+        }
+        if ( !result.complete( new Outcome<>( client, value ) ) ) {
+            discard.accept( client, value );
+            return;
+        }
+        if ( isHedge ) {
+            statistics.recordHedgeWin();
+        }
+    }
+
+
+    interface Call<T> {
+
+        CompletableFuture<T> send( PrismInterfaceClient client );
+
+    }
+
+
+    @Getter
+    static class Outcome<T> {
+
+        private final PrismInterfaceClient client;
+        private final T value;
+
+
+        Outcome( PrismInterfaceClient client, T value ) {
+            this.client = client;
+            this.value = value;
+        }
+
+    }
+
+}
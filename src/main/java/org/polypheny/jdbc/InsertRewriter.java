@@ -0,0 +1,162 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.polypheny.jdbc;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import lombok.Getter;
+import org.polypheny.jdbc.utils.SqlUtils;
+
+/**
+ * Rewrites batched inserts of single rows into inserts of several rows, so the server executes one statement per
+ * group of rows instead of one per row. Only inserts of the form {@code INSERT INTO t [(columns)] VALUES (...)} are
+ * rewritten, see {@link SqlUtils#splitSingleRowInsert(String)}.
+ * <p>
+ * The update count of a rewritten insert is reported as 1 for each of its rows if it matches the number of rows,
+ * otherwise each row is reported as {@link Statement#SUCCESS_NO_INFO}.
+ */
+class InsertRewriter {
+
+    // upper bound for the rows of a rewritten insert
+    static final int MAX_ROWS = 128;
+    // upper bound for the parameters of a rewritten prepared insert
+    static final int MAX_PARAMETERS = Short.MAX_VALUE;
+
+
+    /**
+     * @param parameterCount the number of parameters of a single row
+     * @return the number of rows a rewritten prepared insert may contain
+     */
+    static int getMaxRows( int parameterCount ) {
+        if ( parameterCount == 0 ) {
+            return MAX_ROWS;
+        }
+        return Math.max( 1, Math.min( MAX_ROWS, MAX_PARAMETERS / parameterCount ) );
+    }
+
+
+    /**
+     * @param head the insert up to and including the VALUES keyword
+     * @param row the parenthesized row
+     * @return the insert of the row repeated the given number of times
+     */
+    static String repeatRow( String head, String row, int rows ) {
+        StringBuilder sql = new StringBuilder( head.length() + (row.length() + 2) * rows ).append( head ).append( ' ' ).append( row );
+        for ( int i = 1; i < rows; i++ ) {
+            sql.append( ", " ).append( row );
+        }
+        return sql.toString();
+    }
+
+
+    /**
+     * Merges consecutive single row inserts into the same table and columns.
+     *
+     * @param statements the batched statements
+     * @param maxRows the maximum number of rows of a merged insert, 1 disables rewriting
+     * @return the statements to execute
+     */
+    static Batch rewrite( List<String> statements, int maxRows ) {
+        if ( maxRows <= 1 ) {
+            return new Batch( new ArrayList<>( statements ), null );
+        }
+        List<String> rewritten = new ArrayList<>();
+        List<Integer> rows = new ArrayList<>();
+        String head = null;
+        StringBuilder merged = null;
+        int mergedRows = 0;
+        for ( String statement : statements ) {
+            String[] insert = SqlUtils.splitSingleRowInsert( statement );
+            if ( insert != null && insert[0].equals( head ) && mergedRows < maxRows ) {
+                merged.append( ", " ).append( insert[1] );
+                mergedRows++;
+                continue;
+            }
+            if ( merged != null ) {
+                rewritten.add( merged.toString() );
+                rows.add( mergedRows );
+            }
+            if ( insert == null ) {
+                rewritten.add( statement );
+                rows.add( 1 );
+                head = null;
+                merged = null;
+                continue;
+            }
+            head = insert[0];
+            merged = new StringBuilder( head ).append( ' ' ).append( insert[1] );
+            mergedRows = 1;
+        }
+        if ( merged != null ) {
+            rewritten.add( merged.toString() );
+            rows.add( mergedRows );
+        }
+        return new Batch( rewritten, rows );
+    }
+
+
+    /**
+     * Adds the update counts of the rows of a rewritten insert.
+     *
+     * @param updateCounts the list to add to
+     * @param updateCount the update count of the rewritten insert
+     * @param rows the number of rows of the rewritten insert
+     */
+    static void addUpdateCounts( List<Long> updateCounts, long updateCount, int rows ) {
+        if ( rows == 1 ) {
+            updateCounts.add( updateCount );
+            return;
+        }
+        long rowCount = updateCount == rows ? 1 : Statement.SUCCESS_NO_INFO;
+        updateCounts.addAll( Collections.nCopies( rows, rowCount ) );
+    }
+
+
+    static class Batch {
+
+        @Getter
+        private final List<String> statements;
+        // rows of each statement, null if no statement was rewritten
+        private final List<Integer> rows;
+
+
+        private Batch( List<String> statements, List<Integer> rows ) {
+            this.statements = statements;
+            this.rows = rows;
+        }
+
+
+        /**
+         * @param updateCounts the update counts of the rewritten statements
+         * @return the update counts of the original statements
+         */
+        List<Long> toOriginalUpdateCounts( List<Long> updateCounts ) {
+            if ( rows == null ) {
+                return updateCounts;
+            }
+            List<Long> original = new ArrayList<>();
+            for ( int i = 0; i < updateCounts.size(); i++ ) {
+                addUpdateCounts( original, updateCounts.get( i ), rows.get( i ) );
+            }
+            return original;
+        }
+
+    }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.polypheny.jdbc;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pings the server whenever a connection has been idle for a full interval. A connection whose ping is not answered
+ * within the network timeout, or the next interval if there is none, is aborted, so that
+ * {@link PolyConnection#isValid(int)} reports it as broken before a pool hands it out. Connections with outstanding
+ * requests are not pinged, a long-running query must not get a healthy connection aborted.
+ * <p>
+ * The keep alive stops once the connection is closed and is resumed by the {@link Reconnector} after the connection
+ * has been restored.
+ */
+@Slf4j
+class KeepAlive implements Runnable {
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor( r -> {
+        Thread t = new Thread( r, "PrismInterfaceKeepAlive" );
+        t.setDaemon( true );
+        return t;
+    } );
+
+    private final PrismInterfaceClient client;
+    private final long intervalMillis;
+    private final long pingTimeoutNanos;
+    private ScheduledFuture<?> task;
+    private CompletableFuture<Void> pendingPing;
+    private long pingSentNanos;
+
+
+    private KeepAlive( PrismInterfaceClient client, long intervalMillis, int networkTimeout ) {
+        this.client = client;
+        this.intervalMillis = intervalMillis;
+        this.pingTimeoutNanos = TimeUnit.MILLISECONDS.toNanos( networkTimeout > 0 ? networkTimeout : intervalMillis );
+    }
+
+
+    /**
+     * @param networkTimeout time in milliseconds a ping may take, 0 allows one interval
+     */
+    static KeepAlive start( PrismInterfaceClient client, long intervalMillis, int networkTimeout ) {
+        KeepAlive keepAlive = new KeepAlive( client, intervalMillis, networkTimeout );
+        keepAlive.schedule();
+        return keepAlive;
+    }
+
+
+    private void schedule() {
+        pendingPing = null;
+        task = SCHEDULER.scheduleWithFixedDelay( this, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS );
+    }
+
+
+    synchronized void stop() {
+        task.cancel( false );
+    }
+
+
+    /**
+     * Starts pinging again after the keep alive stopped because the connection was lost. Does nothing if it is
+     * still running.
+     */
+    synchronized void resume() {
+        if ( task.isDone() ) {
+            schedule();
+        }
+    }
+
+
+    @Override
+    public synchronized void run() {
+        if ( client.isClosed() ) {
+            stop();
+            return;
+        }
+        if ( pendingPing != null ) {
+            if ( !pendingPing.isDone() ) {
+                if ( System.nanoTime() - pingSentNanos < pingTimeoutNanos ) {
+                    return;
+                }
+                abort();
+                return;
+            }
+            if ( pendingPing.isCompletedExceptionally() ) {
+                abort();
+                return;
+            }
+            pendingPing = null;
+        }
+        if ( client.hasPendingRequests() || client.getMillisSinceLastResponse() < intervalMillis ) {
+            return;
+        }
+        pingSentNanos = System.nanoTime();
+        pendingPing = client.checkConnectionAsync();
+    }
+
+
+    private void abort() {
+        log.warn( "Keep alive ping failed, closing connection" );
+        stop();
+        client.abort();
+    }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.polypheny.jdbc;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts statements of a connection that became unreachable without having been closed. Obtained from
+ * {@link PolyConnection#getLeakStatistics()}.
+ */
+public class LeakStatistics {
+
+    private final AtomicLong leaked = new AtomicLong();
+    private final AtomicLong reclaimed = new AtomicLong();
+
+
+    void recordLeak() {
+        leaked.incrementAndGet();
+    }
+
+
+    void recordReclaim() {
+        reclaimed.incrementAndGet();
+    }
+
+
+    /**
+     * @return the number of statements garbage collected without having been closed
+     */
+    public long getLeaked() {
+        return leaked.get();
+    }
+
+
+    /**
+     * @return the number of leaked statements whose server side state was released
+     */
+    public long getReclaimed() {
+        return reclaimed.get();
+    }
+
+
+    @Override
+    public String toString() {
+        return "LeakStatistics{leaked=" + getLeaked() + ", reclaimed=" + getReclaimed() + "}";
+    }
+
+}
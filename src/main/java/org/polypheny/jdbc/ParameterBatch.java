@@ -0,0 +1,233 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.polypheny.jdbc;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.UnsafeByteOperations;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.polypheny.jdbc.utils.Futures;
+import org.polypheny.prism.StatementBatchResponse;
+
+/**
+ * The parameter rows of a prepared statement batch, collected in {@link ParameterColumns}. Once the encoded rows
+ * exceed the chunk size they are encoded into the wire format and sent as a sub-batch while the application keeps
+ * adding rows. At most a fixed number of sub-batches are in flight, so the memory used by a batch does not depend on
+ * the number of rows.
+ * <p>
+ * If the statement is a single row insert, the rows can be sent to statements inserting several rows at once, see
+ * {@link InsertRewriter}. Full groups are sent to the statement inserting the most rows, the remaining rows are split
+ * into groups with power of two sizes, so only a few distinct statements are prepared.
+ * <p>
+ * Rows sent as part of a sub-batch are executed by the server even if the batch is cleared afterward.
+ */
+class ParameterBatch {
+
+    private final int maxChunkBytes;
+    private final int maxInFlight;
+    private final boolean sumUpdateCounts;
+    // null if rows are not grouped
+    private final MultiRowInserts multiRowInserts;
+    private final int maxGroupSize;
+
+    private final ParameterColumns columns;
+    private int bufferedBytes;
+    private final Deque<SubBatch> inFlight = new ArrayDeque<>();
+    // update counts of the sub-batches completed so far, in order, or their sum
+    private final List<Long> updateCounts = new ArrayList<>();
+    private boolean isSent;
+
+
+    /**
+     * @param types the {@link java.sql.Types} of the parameters
+     */
+    ParameterBatch( int[] types, int maxChunkBytes, int maxInFlight ) {
+        this( types, maxChunkBytes, maxInFlight, false );
+    }
+
+
+    /**
+     * @param types the {@link java.sql.Types} of the parameters
+     * @param sumUpdateCounts if true, only the sum of the update counts is kept instead of one count per row
+     */
+    ParameterBatch( int[] types, int maxChunkBytes, int maxInFlight, boolean sumUpdateCounts ) {
+        this( types, maxChunkBytes, maxInFlight, sumUpdateCounts, null, 1 );
+    }
+
+
+    /**
+     * @param types the {@link java.sql.Types} of the parameters
+     * @param sumUpdateCounts if true, only the sum of the update counts is kept instead of one count per row
+     * @param multiRowInserts prepares the statements inserting several rows at once, null to send rows one by one
+     * @param maxGroupSize the maximum number of rows inserted at once
+     */
+    ParameterBatch( int[] types, int maxChunkBytes, int maxInFlight, boolean sumUpdateCounts, MultiRowInserts multiRowInserts, int maxGroupSize ) {
+        this.columns = new ParameterColumns( types );
+        this.maxChunkBytes = Math.max( 1, maxChunkBytes );
+        this.maxInFlight = Math.max( 1, maxInFlight );
+        this.sumUpdateCounts = sumUpdateCounts;
+        this.multiRowInserts = maxGroupSize > 1 ? multiRowInserts : null;
+        this.maxGroupSize = this.multiRowInserts == null ? 1 : maxGroupSize;
+    }
+
+
+    void add( ParameterRow row ) throws SQLException {
+        bufferedBytes += columns.add( row );
+    }
+
+
+    boolean isEmpty() {
+        return columns.getRows() == 0 && !isSent;
+    }
+
+
+    boolean isChunkFull() {
+        // sub-batches end on group boundaries, so only the last one contains smaller groups
+        return bufferedBytes >= maxChunkBytes && columns.getRows() % maxGroupSize == 0;
+    }
+
+
+    /**
+     * @return true once a sub-batch has been sent
+     */
+    boolean isSent() {
+        return isSent;
+    }
+
+
+    /**
+     * Sends the buffered rows as a sub-batch. If the maximum number of sub-batches is in flight, waits for the oldest
+     * one first.
+     *
+     * @param client the server to send to
+     * @param statementId the prepared statement
+     * @param timeout timeout in milliseconds for waiting on a sub-batch, 0 waits forever
+     * @throws SQLException if a sub-batch failed or a statement inserting several rows could not be prepared
+     */
+    void sendChunk( PrismInterfaceClient client, int statementId, int timeout ) throws SQLException {
+        int rows = columns.getRows();
+        if ( rows == 0 ) {
+            return;
+        }
+        int grouped = 0;
+        if ( maxGroupSize > 1 ) {
+            grouped = rows - rows % maxGroupSize;
+            if ( grouped > 0 ) {
+                send( client, multiRowInserts.prepare( maxGroupSize ), 0, grouped, maxGroupSize, timeout );
+            }
+        }
+        for ( int from = grouped; from < rows; ) {
+            int groupSize = maxGroupSize == 1 ? 1 : Integer.highestOneBit( rows - from );
+            int to = maxGroupSize == 1 ? rows : from + groupSize;
+            send( client, groupSize == 1 ? statementId : multiRowInserts.prepare( groupSize ), from, to, groupSize, timeout );
+            from = to;
+        }
+        columns.clear();
+        bufferedBytes = 0;
+    }
+
+
+    private void send( PrismInterfaceClient client, int statementId, int from, int to, int groupSize, int timeout ) throws PrismInterfaceServiceException {
+        while ( inFlight.size() >= maxInFlight ) {
+            SubBatch completed = inFlight.remove();
+            collect( updateCounts, Futures.await( completed.response, timeout ), completed.groupSize );
+        }
+        byte[] encoded = new byte[columns.computeSize( from, to, groupSize )];
+        try {
+            CodedOutputStream out = CodedOutputStream.newInstance( encoded );
+            columns.writeTo( out, from, to, groupSize );
+            out.checkNoSpaceLeft();
+        } catch ( IOException e ) {
+            throw new PrismInterfaceServiceException( PrismInterfaceErrors.STREAM_ERROR, "Encoding batch failed", e );
+        }
+        // the array is not modified after wrapping
+        ByteString chunk = UnsafeByteOperations.unsafeWrap( encoded );
+        isSent = true;
+        inFlight.add( new SubBatch( client.executeIndexedStatementBatchAsync( statementId, chunk ), groupSize ) );
+    }
+
+
+    /**
+     * Sends the remaining rows.
+     *
+     * @return a future completed with the update counts of all rows in the order they were added, or a single
+     * element holding their sum
+     */
+    CompletableFuture<List<Long>> finish( PrismInterfaceClient client, int statementId, int timeout ) throws SQLException {
+        sendChunk( client, statementId, timeout );
+        CompletableFuture<List<Long>> result = CompletableFuture.completedFuture( updateCounts );
+        for ( SubBatch chunk : inFlight ) {
+            result = result.thenCombine( chunk.response, ( counts, response ) -> {
+                collect( counts, response, chunk.groupSize );
+                return counts;
+            } );
+        }
+        inFlight.clear();
+        return result;
+    }
+
+
+    private void collect( List<Long> counts, StatementBatchResponse response, int groupSize ) {
+        if ( !sumUpdateCounts ) {
+            for ( long count : response.getScalarsList() ) {
+                InsertRewriter.addUpdateCounts( counts, count, groupSize );
+            }
+            return;
+        }
+        long sum = counts.isEmpty() ? 0 : counts.remove( 0 );
+        for ( long count : response.getScalarsList() ) {
+            sum += count;
+        }
+        counts.add( sum );
+    }
+
+
+    /**
+     * Prepares the statements inserting several rows at once.
+     */
+    interface MultiRowInserts {
+
+        /**
+         * @param rows the number of rows to insert at once
+         * @return the id of the prepared statement
+         */
+        int prepare( int rows ) throws SQLException;
+
+    }
+
+
+    private static class SubBatch {
+
+        private final CompletableFuture<StatementBatchResponse> response;
+        // rows per entry of the sub-batch
+        private final int groupSize;
+
+
+        private SubBatch( CompletableFuture<StatementBatchResponse> response, int groupSize ) {
+            this.response = response;
+            this.groupSize = groupSize;
+        }
+
+    }
+
+}
@@ -0,0 +1,350 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.polypheny.jdbc;
+
+import com.google.protobuf.CodedOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import org.polypheny.jdbc.types.TypedValue;
+import org.polypheny.jdbc.utils.ProtoValueWriter;
+import org.polypheny.prism.ExecuteIndexedStatementBatchRequest;
+import org.polypheny.prism.IndexedParameters;
+import org.polypheny.prism.ProtoValue;
+
+/**
+ * Parameter rows of a prepared statement batch stored column by column. Each column is typed from the parameter
+ * metadata and keeps its values in a primitive array, strings are stored encoded in UTF-8 back to back. Nulls are
+ * tracked in a bitmap. Values not matching the type of their column are kept as serialized {@link ProtoValue}s.
+ * <p>
+ * The rows are encoded directly into the wire format of {@link ExecuteIndexedStatementBatchRequest} parameters.
+ */
+class ParameterColumns {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int ROW_TAG_SIZE = CodedOutputStream.computeTagSize( ExecuteIndexedStatementBatchRequest.PARAMETERS_FIELD_NUMBER );
+
+    private final Column[] columns;
+    // size of the encoded IndexedParameters of each row
+    private int[] rowSizes = new int[INITIAL_CAPACITY];
+    private int rows;
+
+
+    /**
+     * @param types the {@link Types} of the parameters
+     */
+    ParameterColumns( int[] types ) {
+        this.columns = new Column[types.length];
+        for ( int i = 0; i < types.length; i++ ) {
+            columns[i] = new Column( columnTag( types[i] ) );
+        }
+    }
+
+
+    private static byte columnTag( int type ) {
+        switch ( type ) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+                return ParameterRow.INTEGER;
+            case Types.BIGINT:
+                return ParameterRow.LONG;
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return ParameterRow.DOUBLE;
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+                return ParameterRow.STRING;
+            default:
+                return ParameterRow.VALUE;
+        }
+    }
+
+
+    int getRows() {
+        return rows;
+    }
+
+
+    /**
+     * Appends the current values of a parameter row.
+     *
+     * @return the number of bytes the row adds to the encoded batch
+     * @throws SQLException if a parameter is not set or cannot be serialized
+     */
+    int add( ParameterRow row ) throws SQLException {
+        for ( int i = 0; i < columns.length; i++ ) {
+            if ( row.getTag( i ) == ParameterRow.UNSET ) {
+                throw new PrismInterfaceServiceException( PrismInterfaceErrors.VALUE_ILLEGAL, "Parameter " + (i + 1) + " is not set" );
+            }
+        }
+        if ( rows == rowSizes.length ) {
+            rowSizes = Arrays.copyOf( rowSizes, rows * 2 );
+        }
+        int size = 0;
+        for ( int i = 0; i < columns.length; i++ ) {
+            size += ProtoValueWriter.computeWrapperSize( IndexedParameters.PARAMETERS_FIELD_NUMBER, columns[i].add( rows, row, i ) );
+        }
+        rowSizes[rows++] = size;
+        return ROW_TAG_SIZE + CodedOutputStream.computeUInt32SizeNoTag( size ) + size;
+    }
+
+
+    /**
+     * Writes each row as an entry of the parameters field of {@link ExecuteIndexedStatementBatchRequest}.
+     */
+    void writeTo( CodedOutputStream out ) throws IOException {
+        writeTo( out, 0, rows, 1 );
+    }
+
+
+    /**
+     * Computes the size of a range of rows written by {@link #writeTo(CodedOutputStream, int, int, int)}.
+     */
+    int computeSize( int from, int to, int groupSize ) {
+        int size = 0;
+        for ( int row = from; row < to; row += groupSize ) {
+            int groupBytes = computeGroupSize( row, groupSize );
+            size += ROW_TAG_SIZE + CodedOutputStream.computeUInt32SizeNoTag( groupBytes ) + groupBytes;
+        }
+        return size;
+    }
+
+
+    /**
+     * Writes a range of rows as entries of the parameters field of {@link ExecuteIndexedStatementBatchRequest}. Each
+     * entry holds the parameters of {@code groupSize} consecutive rows, as expected by a statement inserting that many
+     * rows at once.
+     *
+     * @param from the first row
+     * @param to the row after the last row, {@code to - from} must be a multiple of {@code groupSize}
+     */
+    void writeTo( CodedOutputStream out, int from, int to, int groupSize ) throws IOException {
+        for ( int row = from; row < to; row += groupSize ) {
+            ProtoValueWriter.writeWrapper( out, ExecuteIndexedStatementBatchRequest.PARAMETERS_FIELD_NUMBER, computeGroupSize( row, groupSize ) );
+            for ( int i = row; i < row + groupSize; i++ ) {
+                for ( Column column : columns ) {
+                    ProtoValueWriter.writeWrapper( out, IndexedParameters.PARAMETERS_FIELD_NUMBER, column.computeSize( i ) );
+                    column.write( out, i );
+                }
+            }
+        }
+    }
+
+
+    private int computeGroupSize( int row, int groupSize ) {
+        int size = 0;
+        for ( int i = row; i < row + groupSize; i++ ) {
+            size += rowSizes[i];
+        }
+        return size;
+    }
+
+
+    /**
+     * Removes all rows, the allocated arrays are reused.
+     */
+    void clear() {
+        for ( Column column : columns ) {
+            column.clear( rows );
+        }
+        rows = 0;
+    }
+
+
+    private static class Column {
+
+        private final byte tag;
+        private int[] integers;
+        private long[] longs;
+        private double[] doubles;
+        // end offset of each string in utf8
+        private int[] ends;
+        private byte[] utf8;
+        private int utf8Length;
+        private long[] nulls = new long[1];
+        // values not matching the type of the column, allocated on first use
+        private ProtoValue[] values;
+
+
+        private Column( byte tag ) {
+            this.tag = tag;
+            switch ( tag ) {
+                case ParameterRow.INTEGER:
+                    integers = new int[INITIAL_CAPACITY];
+                    break;
+                case ParameterRow.LONG:
+                    longs = new long[INITIAL_CAPACITY];
+                    break;
+                case ParameterRow.DOUBLE:
+                    doubles = new double[INITIAL_CAPACITY];
+                    break;
+                case ParameterRow.STRING:
+                    ends = new int[INITIAL_CAPACITY];
+                    utf8 = new byte[INITIAL_CAPACITY * 16];
+                    break;
+            }
+        }
+
+
+        /**
+         * @return the size of the encoded value
+         */
+        private int add( int row, ParameterRow source, int index ) throws SQLException {
+            ensureCapacity( row );
+            byte sourceTag = source.getTag( index );
+            if ( sourceTag == ParameterRow.NULL ) {
+                nulls[row >>> 6] |= 1L << row;
+            } else if ( sourceTag == tag && tag != ParameterRow.VALUE ) {
+                switch ( tag ) {
+                    case ParameterRow.INTEGER:
+                        integers[row] = source.getInteger( index );
+                        break;
+                    case ParameterRow.LONG:
+                        longs[row] = source.getLong( index );
+                        break;
+                    case ParameterRow.DOUBLE:
+                        doubles[row] = source.getDouble( index );
+                        break;
+                    case ParameterRow.STRING:
+                        appendString( source.getString( index ) );
+                        break;
+                }
+            } else {
+                if ( values == null ) {
+                    values = new ProtoValue[capacity()];
+                }
+                TypedValue value = source.toTypedValue( index );
+                values[row] = value.serialize();
+            }
+            if ( tag == ParameterRow.STRING ) {
+                // rows without a string get an empty entry
+                ends[row] = utf8Length;
+            }
+            return computeSize( row );
+        }
+
+
+        private void appendString( String value ) {
+            byte[] bytes = value.getBytes( StandardCharsets.UTF_8 );
+            if ( utf8Length + bytes.length > utf8.length ) {
+                utf8 = Arrays.copyOf( utf8, Math.max( utf8.length * 2, utf8Length + bytes.length ) );
+            }
+            System.arraycopy( bytes, 0, utf8, utf8Length, bytes.length );
+            utf8Length += bytes.length;
+        }
+
+
+        private int start( int row ) {
+            return row == 0 ? 0 : ends[row - 1];
+        }
+
+
+        private boolean isNull( int row ) {
+            return (nulls[row >>> 6] & (1L << row)) != 0;
+        }
+
+
+        private int computeSize( int row ) {
+            if ( isNull( row ) ) {
+                return ProtoValueWriter.computeNullSize();
+            }
+            if ( values != null && values[row] != null ) {
+                return values[row].getSerializedSize();
+            }
+            switch ( tag ) {
+                case ParameterRow.INTEGER:
+                    return ProtoValueWriter.computeIntegerSize( integers[row] );
+                case ParameterRow.LONG:
+                    return ProtoValueWriter.computeLongSize( longs[row] );
+                case ParameterRow.DOUBLE:
+                    return ProtoValueWriter.computeDoubleSize( doubles[row] );
+                default:
+                    return ProtoValueWriter.computeStringSize( ends[row] - start( row ) );
+            }
+        }
+
+
+        private void write( CodedOutputStream out, int row ) throws IOException {
+            if ( isNull( row ) ) {
+                ProtoValueWriter.writeNull( out );
+                return;
+            }
+            if ( values != null && values[row] != null ) {
+                values[row].writeTo( out );
+                return;
+            }
+            switch ( tag ) {
+                case ParameterRow.INTEGER:
+                    ProtoValueWriter.writeInteger( out, integers[row] );
+                    return;
+                case ParameterRow.LONG:
+                    ProtoValueWriter.writeLong( out, longs[row] );
+                    return;
+                case ParameterRow.DOUBLE:
+                    ProtoValueWriter.writeDouble( out, doubles[row] );
+                    return;
+                default:
+                    int start = start( row );
+                    ProtoValueWriter.writeString( out, utf8, start, ends[row] - start );
+            }
+        }
+
+
+        private int capacity() {
+            return nulls.length * 64;
+        }
+
+
+        private void ensureCapacity( int row ) {
+            if ( row < capacity() ) {
+                return;
+            }
+            int capacity = capacity() * 2;
+            nulls = Arrays.copyOf( nulls, capacity / 64 );
+            if ( integers != null ) {
+                integers = Arrays.copyOf( integers, capacity );
+            }
+            if ( longs != null ) {
+                longs = Arrays.copyOf( longs, capacity );
+            }
+            if ( doubles != null ) {
+                doubles = Arrays.copyOf( doubles, capacity );
+            }
+            if ( ends != null ) {
+                ends = Arrays.copyOf( ends, capacity );
+            }
+            if ( values != null ) {
+                values = Arrays.copyOf( values, capacity );
+            }
+        }
+
+
+        private void clear( int rows ) {
+            Arrays.fill( nulls, 0 );
+            if ( values != null ) {
+                Arrays.fill( values, 0, rows, null );
+            }
+            utf8Length = 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.polypheny.jdbc;
+
+import com.google.protobuf.CodedOutputStream;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Arrays;
+import org.polypheny.jdbc.types.TypedValue;
+import org.polypheny.jdbc.utils.ProtoValueWriter;
+import org.polypheny.prism.IndexedParameters;
+import org.polypheny.prism.ProtoValue;
+
+/**
+ * The current parameters of a prepared statement. Integers, longs, doubles and strings are kept in typed slots instead
+ * of {@link TypedValue}s, so setting them does not allocate. All other values are kept as {@link TypedValue}s.
+ * <p>
+ * For a single execution the row is encoded straight from the slots into the outgoing request, see
+ * {@link #writeTo(CodedOutputStream)}.
+ */
+class ParameterRow {
+
+    static final byte UNSET = 0;
+    static final byte NULL = 1;
+    static final byte INTEGER = 2;
+    static final byte LONG = 3;
+    static final byte DOUBLE = 4;
+    static final byte STRING = 5;
+    static final byte VALUE = 6;
+
+    private final byte[] tags;
+    // integers, longs, the raw bits of doubles and the encoded lengths of strings
+    private final long[] primitives;
+    // strings and typed values
+    private final Object[] references;
+    // the typed values serialized by computeSize, allocated on first use
+    private ProtoValue[] serialized;
+
+
+    ParameterRow( int size ) {
+        this.tags = new byte[size];
+        this.primitives = new long[size];
+        this.references = new Object[size];
+    }
+
+
+    int size() {
+        return tags.length;
+    }
+
+
+    void clear() {
+        Arrays.fill( tags, UNSET );
+        Arrays.fill( references, null );
+        if ( serialized != null ) {
+            Arrays.fill( serialized, null );
+        }
+    }
+
+
+    void setNull( int index ) {
+        set( index, NULL, 0, null );
+    }
+
+
+    void setInteger( int index, int value ) {
+        set( index, INTEGER, value, null );
+    }
+
+
+    void setLong( int index, long value ) {
+        set( index, LONG, value, null );
+    }
+
+
+    void setDouble( int index, double value ) {
+        set( index, DOUBLE, Double.doubleToRawLongBits( value ), null );
+    }
+
+
+    void setString( int index, String value ) {
+        if ( value == null ) {
+            setNull( index );
+            return;
+        }
+        set( index, STRING, 0, value );
+    }
+
+
+    void setValue( int index, TypedValue value ) {
+        set( index, VALUE, 0, value );
+    }
+
+
+    /**
+     * Sets a value of arbitrary type, using the typed slots for integers, longs, doubles and strings. Values that are
+     * already {@link TypedValue}s are used as they are.
+     *
+     * @throws SQLException if the value cannot be converted to a {@link TypedValue}
+     */
+    void setObject( int index, Object value ) throws SQLException {
+        if ( value == null ) {
+            setNull( index );
+        } else if ( value instanceof Integer || value instanceof Short || value instanceof Byte ) {
+            setInteger( index, ((Number) value).intValue() );
+        } else if ( value instanceof Long ) {
+            setLong( index, (Long) value );
+        } else if ( value instanceof Double ) {
+            setDouble( index, (Double) value );
+        } else if ( value instanceof String ) {
+            setString( index, (String) value );
+        } else if ( value instanceof TypedValue ) {
+            setValue( index, (TypedValue) value );
+        } else {
+            setValue( index, TypedValue.fromObject( value ) );
+        }
+    }
+
+
+    private void set( int index, byte tag, long primitive, Object reference ) {
+        tags[index] = tag;
+        primitives[index] = primitive;
+        references[index] = reference;
+    }
+
+
+    byte getTag( int index ) {
+        return tags[index];
+    }
+
+
+    int getInteger( int index ) {
+        return (int) primitives[index];
+    }
+
+
+    long getLong( int index ) {
+        return primitives[index];
+    }
+
+
+    double getDouble( int index ) {
+        return Double.longBitsToDouble( primitives[index] );
+    }
+
+
+    String getString( int index ) {
+        return (String) references[index];
+    }
+
+
+    /**
+     * @return the value of the parameter, null if it is not set
+     */
+    TypedValue toTypedValue( int index ) {
+        switch ( tags[index] ) {
+            case NULL:
+                return TypedValue.fromNull();
+            case INTEGER:
+                return TypedValue.fromInteger( getInteger( index ) );
+            case LONG:
+                return TypedValue.fromLong( getLong( index ) );
+            case DOUBLE:
+                return TypedValue.fromDouble( getDouble( index ) );
+            case STRING:
+                return TypedValue.fromString( getString( index ) );
+            case VALUE:
+                return (TypedValue) references[index];
+            default:
+                return null;
+        }
+    }
+
+
+    /**
+     * Computes the size of the parameters encoded as the body of an {@link IndexedParameters} message and prepares
+     * writing them by {@link #writeTo(CodedOutputStream)}. Values kept as {@link TypedValue}s are serialized here,
+     * all others are encoded from their slots when written.
+     *
+     * @throws SQLException if a parameter is not set or cannot be serialized
+     */
+    int computeSize() throws SQLException {
+        int size = 0;
+        for ( int i = 0; i < tags.length; i++ ) {
+            size += ProtoValueWriter.computeWrapperSize( IndexedParameters.PARAMETERS_FIELD_NUMBER, computeValueSize( i ) );
+        }
+        return size;
+    }
+
+
+    private int computeValueSize( int index ) throws SQLException {
+        switch ( tags[index] ) {
+            case UNSET:
+                throw new PrismInterfaceServiceException( PrismInterfaceErrors.VALUE_ILLEGAL, "Parameter " + (index + 1) + " is not set" );
+            case NULL:
+                return ProtoValueWriter.computeNullSize();
+            case INTEGER:
+                return ProtoValueWriter.computeIntegerSize( getInteger( index ) );
+            case LONG:
+                return ProtoValueWriter.computeLongSize( getLong( index ) );
+            case DOUBLE:
+                return ProtoValueWriter.computeDoubleSize( getDouble( index ) );
+            case STRING:
+                // the slot of a string is unused otherwise, the length is needed again when writing
+                primitives[index] = ProtoValueWriter.computeUtf8Length( getString( index ) );
+                return ProtoValueWriter.computeStringSize( (int) primitives[index] );
+            default:
+                if ( serialized == null ) {
+                    serialized = new ProtoValue[tags.length];
+                }
+                serialized[index] = ((TypedValue) references[index]).serialize();
+                return serialized[index].getSerializedSize();
+        }
+    }
+
+
+    /**
+     * Writes the parameters as the body of an {@link IndexedParameters} message. Must be preceded by
+     * {@link #computeSize()}.
+     */
+    void writeTo( CodedOutputStream out ) throws IOException {
+        for ( int i = 0; i < tags.length; i++ ) {
+            writeValue( out, i );
+        }
+    }
+
+
+    private void writeValue( CodedOutputStream out, int index ) throws IOException {
+        switch ( tags[index] ) {
+            case NULL:
+                ProtoValueWriter.writeWrapper( out, IndexedParameters.PARAMETERS_FIELD_NUMBER, ProtoValueWriter.computeNullSize() );
+                ProtoValueWriter.writeNull( out );
+                return;
+            case INTEGER:
+                ProtoValueWriter.writeWrapper( out, IndexedParameters.PARAMETERS_FIELD_NUMBER, ProtoValueWriter.computeIntegerSize( getInteger( index ) ) );
+                ProtoValueWriter.writeInteger( out, getInteger( index ) );
+                return;
+            case LONG:
+                ProtoValueWriter.writeWrapper( out, IndexedParameters.PARAMETERS_FIELD_NUMBER, ProtoValueWriter.computeLongSize( getLong( index ) ) );
+                ProtoValueWriter.writeLong( out, getLong( index ) );
+                return;
+            case DOUBLE:
+                ProtoValueWriter.writeWrapper( out, IndexedParameters.PARAMETERS_FIELD_NUMBER, ProtoValueWriter.computeDoubleSize( getDouble( index ) ) );
+                ProtoValueWriter.writeDouble( out, getDouble( index ) );
+                return;
+            case STRING:
+                int length = (int) primitives[index];
+                ProtoValueWriter.writeWrapper( out, IndexedParameters.PARAMETERS_FIELD_NUMBER, ProtoValueWriter.computeStringSize( length ) );
+                ProtoValueWriter.writeString( out, getString( index ), length );
+                return;
+            default:
+                ProtoValue value = serialized[index];
+                ProtoValueWriter.writeWrapper( out, IndexedParameters.PARAMETERS_FIELD_NUMBER, value.getSerializedSize() );
+                value.writeTo( out );
+        }
+    }
+
+}
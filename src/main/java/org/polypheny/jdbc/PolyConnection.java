@@ -19,7 +19,6 @@
 import java.sql.Array;
 import java.sql.Blob;
 import java.sql.CallableStatement;
-import java.sql.ClientInfoStatus;
 import java.sql.Clob;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
@@ -33,35 +32,84 @@
 import java.sql.Savepoint;
 import java.sql.Statement;
 import java.sql.Struct;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
 import org.polypheny.jdbc.meta.PolyphenyDatabaseMetadata;
 import org.polypheny.jdbc.multimodel.PolyStatement;
 import org.polypheny.jdbc.properties.PolyphenyConnectionProperties;
 import org.polypheny.jdbc.properties.PolyphenyStatementProperties;
 import org.polypheny.jdbc.properties.PropertyUtils;
+import org.polypheny.jdbc.routing.HedgeStatistics;
+import org.polypheny.jdbc.routing.HostAddress;
 import org.polypheny.jdbc.types.PolyArray;
 import org.polypheny.jdbc.types.PolyBlob;
 import org.polypheny.jdbc.types.PolyClob;
 import org.polypheny.jdbc.types.PolyStruct;
+import org.polypheny.jdbc.utils.Futures;
 import org.polypheny.prism.PreparedStatementSignature;
 
+@Slf4j
 public class PolyConnection implements Connection {
 
     private PolyphenyConnectionProperties properties;
 
     private PolyphenyDatabaseMetadata databaseMetaData;
-    private boolean isClosed;
+    private volatile boolean isClosed;
 
-    private boolean hasRunningTransaction;
+    // Connections may be used by several threads at once, their requests are multiplexed over the same transport.
+    // Clients compare by identity, so the concurrent sets below behave like identity sets.
 
-    private Set<Statement> openStatements;
+    // servers on which statements were executed since the last commit or rollback, guarded by itself for commit and rollback
+    private final Set<PrismInterfaceClient> transactionClients = ConcurrentHashMap.newKeySet();
 
-    private Map<String, Class<?>> typeMap;
+    // connection to a replica used while the connection is read-only, null if no replicas are configured
+    private volatile PrismInterfaceClient replicaClient;
+
+    // connections slow reads are additionally sent to, see Hedger
+    private final List<PrismInterfaceClient> hedgeClients = new CopyOnWriteArrayList<>();
+    @Getter
+    private final HedgeStatistics hedgeStatistics = new HedgeStatistics();
+
+    // weak, so that statements the application did not close can be garbage collected, see StatementReaper
+    private final Set<Statement> openStatements = Collections.synchronizedSet( Collections.newSetFromMap( new WeakHashMap<>() ) );
+    @Getter
+    private final LeakStatistics leakStatistics = new LeakStatistics();
+
+    private volatile Map<String, Class<?>> typeMap;
+
+    // cached client info, loaded on first access and replaced as a whole on changes
+    private volatile Properties clientInfo;
+    private volatile long clientInfoVersion;
+    private final Map<PrismInterfaceClient, Long> syncedClientInfoVersions = new ConcurrentHashMap<>();
+
+    // one for each client of the connection: primary, replica and hedge clients
+    private final Map<PrismInterfaceClient, KeepAlive> keepAlives = new ConcurrentHashMap<>();
+
+    // takes over the connection instead of closing it, null for connections not managed by a pool
+    private volatile Predicate<PolyConnection> closeHandler;
+    // set while the connection is taken over by the close handler, only such connections can be reopened
+    private boolean isPooled;
+
+    // the statement whose updates are currently buffered, at most one at a time to keep the order of updates
+    private final AtomicReference<WriteBehind> pendingWriteBehind = new AtomicReference<>();
+    // results of sent write behind updates not yet checked, see WriteBehind
+    private final List<CompletableFuture<List<Long>>> writeBehindResults = Collections.synchronizedList( new ArrayList<>() );
 
 
     private void throwIfClosed() throws SQLException {
@@ -81,8 +129,18 @@ private void throwIfAutoCommit() throws SQLException {
     }
 
 
+    private boolean hasRunningTransaction() {
+        return !transactionClients.isEmpty();
+    }
+
+
+    boolean isInTransaction( PrismInterfaceClient client ) {
+        return transactionClients.contains( client );
+    }
+
+
     private void throwIfRunningTransaction() throws SQLException {
-        if ( hasRunningTransaction ) {
+        if ( hasRunningTransaction() ) {
             throw new PrismInterfaceServiceException( PrismInterfaceErrors.OPERATION_ILLEGAL, "Illegal operation during running transaction." );
         }
     }
@@ -92,9 +150,11 @@ public PolyConnection( PolyphenyConnectionProperties connectionProperties, Polyp
         this.properties = connectionProperties;
         databaseMetaData.setConnection( this );
         this.databaseMetaData = databaseMetaData;
-        this.openStatements = new HashSet<>();
         this.typeMap = new HashMap<>();
         this.isClosed = false;
+        enableKeepAlive( connectionProperties.getPrismInterfaceClient() );
+        enableReconnect( connectionProperties.getPrismInterfaceClient() );
+        enableHedging( connectionProperties.getPrismInterfaceClient(), connectionProperties.getHosts() );
     }
 
 
@@ -109,23 +169,335 @@ public void startTracking( Statement statement ) {
 
 
     public void endTracking( Statement statement ) {
-        if ( !openStatements.contains( statement ) ) {
-            return;
-        }
         openStatements.remove( statement );
     }
 
 
+    boolean isLeakTracing() {
+        return properties.isLeakTracing();
+    }
+
+
+    int getBatchChunkSize() {
+        return properties.getBatchChunkSize();
+    }
+
+
+    int getBatchChunkBytes() {
+        return properties.getBatchChunkBytes();
+    }
+
+
+    int getBatchWindow() {
+        return properties.getBatchWindow();
+    }
+
+
+    boolean isRewriteBatchedInserts() {
+        return properties.isRewriteBatchedInserts();
+    }
+
+
     public int getTimeout() {
         return properties.getNetworkTimeout();
     }
 
 
+    public void invalidateMetaCache() {
+        databaseMetaData.invalidateCache();
+    }
+
+
+    /**
+     * Returns the connection to the server new statements are sent to. While the connection is read-only and
+     * replicas are configured, this is the connection to a replica, otherwise the one to the primary. Statements
+     * must keep using the client they were prepared or executed on.
+     *
+     * @return the client for new statements
+     */
     public PrismInterfaceClient getPrismInterfaceClient() {
+        if ( replicaClient != null && properties.isReadOnly() ) {
+            return replicaClient;
+        }
         return properties.getPrismInterfaceClient();
     }
 
 
+    /**
+     * Opens the connection to one of the configured replicas, if any. Should the replicas be unreachable, read-only
+     * statements are executed on the primary.
+     */
+    synchronized void connectReplica() {
+        if ( replicaClient != null || properties.getReplicas().isEmpty() ) {
+            return;
+        }
+        try {
+            PrismInterfaceClient client = openClient( properties.getReplicas() );
+            client.register( properties, properties.getNetworkTimeout() );
+            properties.markSynced( client );
+            enableKeepAlive( client );
+            enableReconnect( client );
+            replicaClient = client;
+        } catch ( PrismInterfaceServiceException e ) {
+            log.warn( "Could not connect to any replica, read-only statements are executed on the primary", e );
+            return;
+        }
+        enableHedging( replicaClient, properties.getReplicas() );
+    }
+
+
+    /**
+     * Connects to one of the given hosts using the parameters of this connection. Used for connections to further
+     * servers besides the primary.
+     *
+     * @param hosts the hosts to choose from
+     * @return the new client, not yet registered
+     * @throws PrismInterfaceServiceException if none of the hosts could be reached
+     */
+    PrismInterfaceClient openClient( List<HostAddress> hosts ) throws PrismInterfaceServiceException {
+        return new PrismInterfaceClient( hosts, properties.getParameters() );
+    }
+
+
+    /**
+     * Opens a second connection to another one of the hosts, to which slow idempotent reads of the client are sent as
+     * well. Does nothing unless hedging is enabled and there is another host.
+     *
+     * @param client the client whose reads are hedged
+     * @param hosts the hosts the client was connected to
+     */
+    private void enableHedging( PrismInterfaceClient client, List<HostAddress> hosts ) {
+        if ( properties.getHedgingPercentile() <= 0 || hosts == null || client.getHost() == null ) {
+            return;
+        }
+        List<HostAddress> otherHosts = hosts.stream()
+                .filter( h -> !h.equals( client.getHost() ) )
+                .collect( Collectors.toList() );
+        if ( otherHosts.isEmpty() ) {
+            log.debug( "Hedging is enabled but there is no other host than {}", client.getHost() );
+            return;
+        }
+        try {
+            PrismInterfaceClient hedgeClient = openClient( otherHosts );
+            hedgeClient.register( properties, properties.getNetworkTimeout() );
+            properties.markSynced( hedgeClient );
+            enableKeepAlive( hedgeClient );
+            enableReconnect( hedgeClient );
+            hedgeClients.add( hedgeClient );
+            client.setHedger( new Hedger( hedgeClient, properties.getHedgingPercentile(), hedgeStatistics ) );
+        } catch ( PrismInterfaceServiceException e ) {
+            log.warn( "Could not open a second connection, requests to {} are not hedged", client.getHost(), e );
+        }
+    }
+
+
+    private void enableKeepAlive( PrismInterfaceClient client ) {
+        if ( properties.getKeepAliveInterval() > 0 ) {
+            keepAlives.put( client, KeepAlive.start( client, properties.getKeepAliveInterval(), properties.getNetworkTimeout() ) );
+        }
+    }
+
+
+    /**
+     * Pings the server again after the client has been reconnected.
+     *
+     * @param client the reconnected client
+     */
+    void resumeKeepAlive( PrismInterfaceClient client ) {
+        KeepAlive keepAlive = keepAlives.get( client );
+        if ( keepAlive != null ) {
+            keepAlive.resume();
+        }
+    }
+
+
+    private void enableReconnect( PrismInterfaceClient client ) {
+        if ( properties.isReconnect() ) {
+            client.setReconnector( new Reconnector( this, client ) );
+        }
+    }
+
+
+    /**
+     * Registers the session again after the client has been connected to a new server process. The prepared
+     * statements executed on the client are prepared again, all other server side state is gone.
+     *
+     * @param client the reconnected client
+     */
+    void restoreSession( PrismInterfaceClient client ) throws SQLException {
+        client.register( properties, properties.getNetworkTimeout() );
+        properties.markSynced( client );
+        syncedClientInfoVersions.remove( client );
+        for ( Statement statement : new ArrayList<>( openStatements ) ) {
+            if ( statement instanceof PolyphenyStatement && ((PolyphenyStatement) statement).getClient() == client ) {
+                ((PolyphenyStatement) statement).sessionRestored();
+            }
+        }
+    }
+
+
+    public void flushSessionState() throws PrismInterfaceServiceException {
+        flushSessionState( getPrismInterfaceClient() );
+    }
+
+
+    /**
+     * Sends all session state changes the server has not yet seen. Property and client info changes are not
+     * transmitted when they are made but coalesced into one update each, sent before the next statement is prepared
+     * or executed. Also reports errors of results and statements closed in the background.
+     *
+     * @param client the connection to the server
+     */
+    public void flushSessionState( PrismInterfaceClient client ) throws PrismInterfaceServiceException {
+        client.reconnectIfLost( properties.getNetworkTimeout() );
+        client.throwIfCleanupFailed();
+        properties.flush( client );
+        // the version is read first, a concurrent change is then sent again with the next statement
+        long version = clientInfoVersion;
+        Properties info = clientInfo;
+        if ( info != null && syncedClientInfoVersions.getOrDefault( client, 0L ) != version ) {
+            client.setClientInfoProperties( info, properties.getNetworkTimeout() );
+            syncedClientInfoVersions.put( client, version );
+        }
+    }
+
+
+    public void beginExecution() throws PrismInterfaceServiceException {
+        beginExecution( getPrismInterfaceClient() );
+    }
+
+
+    /**
+     * Must be called by statements right before sending a statement for execution. Flushes pending session state
+     * and keeps track of whether a transaction has been started, which allows skipping commits and rollbacks
+     * without effect.
+     *
+     * @param client the connection the statement is executed on
+     */
+    public void beginExecution( PrismInterfaceClient client ) throws PrismInterfaceServiceException {
+        awaitWriteBehindExecuted();
+        flushSessionState( client );
+        if ( !properties.isAutoCommit() ) {
+            synchronized ( transactionClients ) {
+                transactionClients.add( client );
+            }
+        }
+    }
+
+
+    /**
+     * Like {@link #beginExecution(PrismInterfaceClient)}, but the updates buffered by the given write behind are not
+     * sent. Updates buffered by other statements are sent first.
+     */
+    void beginWriteBehind( PrismInterfaceClient client, WriteBehind writeBehind ) throws PrismInterfaceServiceException {
+        WriteBehind pending = pendingWriteBehind.getAndSet( writeBehind );
+        if ( pending != null && pending != writeBehind ) {
+            pending.flush();
+            awaitWriteBehindExecuted();
+        }
+        flushSessionState( client );
+        synchronized ( transactionClients ) {
+            transactionClients.add( client );
+        }
+    }
+
+
+    boolean isWriteBehind() {
+        return properties.isWriteBehind();
+    }
+
+
+    long getWriteBehindDelay() {
+        return properties.getWriteBehindDelay();
+    }
+
+
+    /**
+     * Sends the buffered updates of a statement, if any.
+     */
+    void flushWriteBehind() {
+        WriteBehind pending = pendingWriteBehind.getAndSet( null );
+        if ( pending != null ) {
+            pending.flush();
+        }
+    }
+
+
+    /**
+     * Must be called before metadata is requested, so that it reflects the updates buffered by statements.
+     */
+    public void beginMetaRequest() throws PrismInterfaceServiceException {
+        awaitWriteBehindExecuted();
+    }
+
+
+    /**
+     * Sends the buffered updates and waits until all sent write behind updates have been executed, so that the
+     * following requests see their effects. Failures are not thrown here, they are reported at the next commit.
+     */
+    private void awaitWriteBehindExecuted() throws PrismInterfaceServiceException {
+        flushWriteBehind();
+        CompletableFuture<?>[] results;
+        synchronized ( writeBehindResults ) {
+            writeBehindResults.removeIf( r -> r.isDone() && !r.isCompletedExceptionally() );
+            if ( writeBehindResults.isEmpty() ) {
+                return;
+            }
+            results = writeBehindResults.toArray( new CompletableFuture<?>[0] );
+        }
+        Futures.await( CompletableFuture.allOf( results ).handle( ( r, e ) -> null ), getTimeout() );
+    }
+
+
+    /**
+     * Registers the result of sent write behind updates. The write behind stays pending as it might buffer further
+     * updates, flushing it without buffered updates does nothing.
+     */
+    void writeBehindSent( CompletableFuture<List<Long>> result ) {
+        writeBehindResults.removeIf( r -> r.isDone() && !r.isCompletedExceptionally() );
+        writeBehindResults.add( result );
+    }
+
+
+    /**
+     * Sends the buffered updates and waits for all sent write behind updates.
+     *
+     * @throws SQLException the failure of the first failed update, further failures are chained
+     */
+    private void awaitWriteBehind() throws SQLException {
+        flushWriteBehind();
+        List<CompletableFuture<List<Long>>> results;
+        synchronized ( writeBehindResults ) {
+            results = new ArrayList<>( writeBehindResults );
+            writeBehindResults.clear();
+        }
+        SQLException failure = null;
+        for ( CompletableFuture<List<Long>> result : results ) {
+            try {
+                Futures.await( result, getTimeout() );
+            } catch ( PrismInterfaceServiceException e ) {
+                if ( failure == null ) {
+                    failure = e;
+                } else {
+                    failure.setNextException( e );
+                }
+            }
+        }
+        if ( failure != null ) {
+            throw failure;
+        }
+    }
+
+
+    private void discardWriteBehind() {
+        WriteBehind pending = pendingWriteBehind.getAndSet( null );
+        if ( pending != null ) {
+            pending.discard();
+        }
+        writeBehindResults.clear();
+    }
+
+
     @Override
     public Statement createStatement() throws SQLException {
         throwIfClosed();
@@ -142,13 +514,14 @@ public PolyStatement createPolyStatement() {
 
     @Override
     public PreparedStatement prepareStatement( String sql ) throws SQLException {
+        flushSessionState();
         PreparedStatementSignature signature = getPrismInterfaceClient().prepareIndexedStatement(
                 properties.getNamespaceName(),
                 PropertyUtils.getSQL_LANGUAGE_NAME(),
                 sql,
                 getTimeout()
         );
-        PolyphenyPreparedStatement statement = new PolyphenyPreparedStatement( this, properties.toStatementProperties(), signature );
+        PolyphenyPreparedStatement statement = new PolyphenyPreparedStatement( this, properties.toStatementProperties(), signature, properties.getNamespaceName(), sql );
         startTracking( statement );
         return statement;
     }
@@ -169,7 +542,7 @@ public String nativeSQL( String sql ) throws SQLException {
     @Override
     public void setAutoCommit( boolean autoCommit ) throws SQLException {
         throwIfClosed();
-        if ( hasRunningTransaction ) {
+        if ( hasRunningTransaction() ) {
             commit();
         }
         properties.setAutoCommit( autoCommit );
@@ -188,8 +561,21 @@ public boolean getAutoCommit() throws SQLException {
     public void commit() throws SQLException {
         throwIfClosed();
         throwIfAutoCommit();
-        getPrismInterfaceClient().commitTransaction( getNetworkTimeout() );
-        hasRunningTransaction = false;
+        try {
+            awaitWriteBehind();
+        } catch ( SQLException e ) {
+            rollback();
+            throw new PrismInterfaceServiceException( "Deferred update failed, the transaction was rolled back: " + e.getMessage(), e.getSQLState(), e.getErrorCode(), e );
+        }
+        synchronized ( transactionClients ) {
+            try {
+                for ( PrismInterfaceClient client : transactionClients ) {
+                    client.commitTransaction( getNetworkTimeout() );
+                }
+            } finally {
+                transactionClients.clear();
+            }
+        }
     }
 
 
@@ -197,20 +583,81 @@ public void commit() throws SQLException {
     public void rollback() throws SQLException {
         throwIfClosed();
         throwIfAutoCommit();
-        getPrismInterfaceClient().rollbackTransaction( getNetworkTimeout() );
+        discardWriteBehind();
+        synchronized ( transactionClients ) {
+            try {
+                for ( PrismInterfaceClient client : transactionClients ) {
+                    client.rollbackTransaction( getNetworkTimeout() );
+                }
+            } finally {
+                transactionClients.clear();
+            }
+        }
+    }
+
+
+    /**
+     * Lets a pool take over the connection when it is closed. The handler is called once the open statements have
+     * been closed and a running transaction has been rolled back, and the connection already counts as closed. If it
+     * accepts the connection, the session to the server is kept and the connection can be handed out again using
+     * {@link #reopen()}.
+     *
+     * @param closeHandler returns true if it takes over the connection, null to close connections for good
+     */
+    public void setCloseHandler( Predicate<PolyConnection> closeHandler ) {
+        this.closeHandler = closeHandler;
+    }
+
+
+    /**
+     * Makes a connection taken over by the close handler usable again.
+     *
+     * @throws SQLException if the connection was not taken over by the close handler
+     */
+    public synchronized void reopen() throws SQLException {
+        if ( !isPooled ) {
+            throw new PrismInterfaceServiceException( PrismInterfaceErrors.OPERATION_ILLEGAL, "Only connections taken over by the close handler can be reopened." );
+        }
+        isPooled = false;
+        isClosed = false;
     }
 
 
     @Override
-    public void close() throws SQLException {
+    public synchronized void close() throws SQLException {
         if ( isClosed() ) {
             return;
         }
-        for ( Statement openStatement : new HashSet<>( openStatements ) ) {
+        for ( Statement openStatement : new ArrayList<>( openStatements ) ) {
             openStatement.close();
         }
-        getPrismInterfaceClient().unregister( properties.getNetworkTimeout() );
-        isClosed = true;
+        // uncommitted updates are rolled back
+        discardWriteBehind();
+        if ( closeHandler != null ) {
+            if ( hasRunningTransaction() ) {
+                rollback();
+            }
+            // closed before the handler makes it available to other threads
+            isClosed = true;
+            isPooled = true;
+            if ( closeHandler.test( this ) ) {
+                return;
+            }
+            isPooled = false;
+        }
+        keepAlives.values().forEach( KeepAlive::stop );
+        try {
+            for ( PrismInterfaceClient hedgeClient : hedgeClients ) {
+                hedgeClient.unregister( properties.getNetworkTimeout() );
+            }
+            if ( replicaClient != null ) {
+                replicaClient.unregister( properties.getNetworkTimeout() );
+            }
+        } finally {
+            databaseMetaData.releaseCache();
+            properties.getPrismInterfaceClient().unregister( properties.getNetworkTimeout() );
+            isClosed = true;
+        }
     }
 
 
@@ -232,6 +679,9 @@ public void setReadOnly( boolean readOnly ) throws SQLException {
         throwIfClosed();
         throwIfRunningTransaction();
         properties.setReadOnly( readOnly );
+        if ( readOnly ) {
+            connectReplica();
+        }
     }
 
 
@@ -299,13 +749,14 @@ public PreparedStatement prepareStatement( String sql, int resultSetType, int re
         throwIfClosed();
         PropertyUtils.throwIfInvalid( resultSetType, resultSetConcurrency );
         PolyphenyStatementProperties statementProperties = properties.toStatementProperties( resultSetType, resultSetConcurrency );
+        flushSessionState();
         PreparedStatementSignature signature = getPrismInterfaceClient().prepareIndexedStatement(
                 properties.getNamespaceName(),
                 PropertyUtils.getSQL_LANGUAGE_NAME(),
                 sql,
                 getTimeout()
         );
-        return new PolyphenyPreparedStatement( this, statementProperties, signature );
+        return new PolyphenyPreparedStatement( this, statementProperties, signature, properties.getNamespaceName(), sql );
     }
 
 
@@ -383,13 +834,14 @@ public PreparedStatement prepareStatement( String sql, int resultSetType, int re
         throwIfClosed();
         PropertyUtils.throwIfInvalid( resultSetType, resultSetConcurrency, resultSetHoldability );
         PolyphenyStatementProperties statementProperties = properties.toStatementProperties( resultSetType, resultSetConcurrency, resultSetHoldability );
+        flushSessionState();
         PreparedStatementSignature signature = getPrismInterfaceClient().prepareIndexedStatement(
                 properties.getNamespaceName(),
                 PropertyUtils.getSQL_LANGUAGE_NAME(),
                 sql,
                 getTimeout()
         );
-        PolyphenyPreparedStatement statement = new PolyphenyPreparedStatement( this, statementProperties, signature );
+        PolyphenyPreparedStatement statement = new PolyphenyPreparedStatement( this, statementProperties, signature, properties.getNamespaceName(), sql );
         openStatements.add( statement );
         return statement;
     }
@@ -457,31 +909,42 @@ public boolean isValid( int timeout ) throws SQLException {
         if ( timeout < 0 ) {
             throw new PrismInterfaceServiceException( PrismInterfaceErrors.VALUE_ILLEGAL, "Illegal argument for timeout" );
         }
+        if ( isClosed || getPrismInterfaceClient().isClosed() ) {
+            return false;
+        }
+        // Any message received within the validation window shows that the connection is alive.
+        long validationWindow = properties.getValidationWindow();
+        if ( validationWindow > 0 && getPrismInterfaceClient().getMillisSinceLastResponse() < validationWindow ) {
+            return true;
+        }
         // the prism-interface uses milliseconds for timeouts, jdbc uses seconds
         return getPrismInterfaceClient().checkConnection( timeout * 1000 );
     }
 
 
     @Override
-    public void setClientInfo( String name, String value ) throws SQLClientInfoException {
-        Properties clientInfoProperties = getClientInfo();
-        clientInfoProperties.setProperty( name, value );
-        try {
-            getPrismInterfaceClient().setClientInfoProperties( clientInfoProperties, properties.getNetworkTimeout() );
-        } catch ( PrismInterfaceServiceException e ) {
-            throw new SQLClientInfoException( e.getMessage(), e.getSQLState(), e.getErrorCode(), new HashMap<>(), e );
+    public synchronized void setClientInfo( String name, String value ) throws SQLClientInfoException {
+        loadClientInfo();
+        if ( Objects.equals( clientInfo.getProperty( name ), value ) ) {
+            return;
         }
+        Properties newClientInfo = new Properties();
+        newClientInfo.putAll( clientInfo );
+        newClientInfo.setProperty( name, value );
+        clientInfo = newClientInfo;
+        clientInfoVersion++;
     }
 
 
     @Override
-    public void setClientInfo( Properties clientInfoProperties ) throws SQLClientInfoException {
-        try {
-            getPrismInterfaceClient().setClientInfoProperties( clientInfoProperties, properties.getNetworkTimeout() );
-        } catch ( PrismInterfaceServiceException e ) {
-            HashMap<String, ClientInfoStatus> failedOptions = new HashMap<>();
-            throw new SQLClientInfoException( e.getMessage(), e.getSQLState(), e.getErrorCode(), new HashMap<>(), e );
+    public synchronized void setClientInfo( Properties clientInfoProperties ) throws SQLClientInfoException {
+        Properties newClientInfo = new Properties();
+        newClientInfo.putAll( clientInfoProperties );
+        if ( newClientInfo.equals( clientInfo ) ) {
+            return;
         }
+        clientInfo = newClientInfo;
+        clientInfoVersion++;
     }
 
 
@@ -493,12 +956,23 @@ public String getClientInfo( String name ) throws SQLException {
 
     @Override
     public Properties getClientInfo() throws SQLClientInfoException {
+        loadClientInfo();
+        Properties properties = new Properties();
+        properties.putAll( clientInfo );
+        return properties;
+    }
+
+
+    private synchronized void loadClientInfo() throws SQLClientInfoException {
+        if ( clientInfo != null ) {
+            return;
+        }
         try {
             Properties properties = new Properties();
             properties.putAll( getPrismInterfaceClient().getClientInfoProperties( getNetworkTimeout() ) );
-            return properties;
+            clientInfo = properties;
         } catch ( SQLException e ) {
-            throw new SQLClientInfoException();
+            throw new SQLClientInfoException( e.getMessage(), e.getSQLState(), e.getErrorCode(), new HashMap<>(), e );
         }
     }
 
@@ -559,13 +1033,21 @@ public <T> T unwrap( Class<T> aClass ) throws SQLException {
         if ( aClass.isInstance( this ) ) {
             return aClass.cast( this );
         }
+        if ( aClass == PolyphenyBulkLoader.class ) {
+            throwIfClosed();
+            return aClass.cast( new PolyphenyBulkLoader( this ) );
+        }
+        if ( aClass == PolyphenyPipeline.class ) {
+            throwIfClosed();
+            return aClass.cast( new PolyphenyPipeline( this ) );
+        }
         throw new PrismInterfaceServiceException( PrismInterfaceErrors.WRAPPER_INCORRECT_TYPE, "Not a wrapper for " + aClass );
     }
 
 
     @Override
     public boolean isWrapperFor( Class<?> aClass ) {
-        return aClass.isInstance( this );
+        return aClass.isInstance( this ) || aClass == PolyphenyBulkLoader.class || aClass == PolyphenyPipeline.class;
     }
 
 }
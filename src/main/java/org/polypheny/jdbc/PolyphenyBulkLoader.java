@@ -0,0 +1,609 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.polypheny.jdbc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ParameterMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import lombok.Getter;
+import lombok.Setter;
+import org.polypheny.jdbc.types.TypedValue;
+import org.polypheny.jdbc.utils.Futures;
+
+/**
+ * Streams rows into a table. Rows are read, parsed and converted to the types of the target columns on a worker
+ * thread, while the calling thread encodes them into sub-batches of a prepared insert statement. Sub-batches are sent
+ * as soon as they are full and several of them are kept in flight, see {@link ParameterBatch}. A loader is obtained
+ * from a connection:
+ * <pre>
+ * PolyphenyBulkLoader loader = connection.unwrap( PolyphenyBulkLoader.class );
+ * loader.setDelimiter( '\t' );
+ * PolyphenyBulkLoader.Result result = loader.loadCsv( "emps", new FileInputStream( "emps.tsv" ) );
+ * </pre>
+ * In auto commit mode rows sent before a failure stay inserted.
+ *
+ * @see PolyphenyParallelLoader
+ */
+public class PolyphenyBulkLoader {
+
+    private static final int BLOCK_ROWS = 1024;
+    private static final int QUEUED_BLOCKS = 4;
+    private static final Object[][] END = new Object[0][];
+
+    private final PolyConnection connection;
+
+    /**
+     * The separator of the fields of a CSV record, ',' by default. Use '\t' for TSV.
+     */
+    @Getter
+    @Setter
+    private char delimiter = ',';
+    /**
+     * Whether the first CSV record names the target columns, true by default.
+     */
+    @Getter
+    @Setter
+    private boolean header = true;
+    /**
+     * The target columns as SQL identifiers. If null, the columns named by the CSV header or all columns of the table in
+     * their order are used. Names from the header are quoted, so they must match the column names exactly.
+     */
+    @Getter
+    @Setter
+    private List<String> columns;
+    /**
+     * If the connection is not in auto commit mode, the transaction is committed after this many rows. 0, the
+     * default, leaves committing to the caller.
+     */
+    @Getter
+    @Setter
+    private long commitInterval;
+
+
+    PolyphenyBulkLoader( PolyConnection connection ) {
+        this.connection = connection;
+    }
+
+
+    /**
+     * Loads the records of an UTF-8 encoded CSV stream. The stream is not closed.
+     *
+     * @param table the target table, optionally qualified by its namespace
+     * @param in the CSV records
+     * @return the number of loaded rows and the load rate
+     * @throws SQLException if reading, converting or inserting a row failed
+     */
+    public Result loadCsv( String table, InputStream in ) throws SQLException {
+        return loadCsv( table, new InputStreamReader( in, StandardCharsets.UTF_8 ) );
+    }
+
+
+    /**
+     * Loads the records of a CSV reader. Fields are converted to the types of the target columns, empty unquoted fields
+     * are loaded as null. The reader is not closed.
+     *
+     * @param table the target table, optionally qualified by its namespace
+     * @param reader the CSV records
+     * @return the number of loaded rows and the load rate
+     * @throws SQLException if reading, converting or inserting a row failed
+     */
+    public Result loadCsv( String table, Reader reader ) throws SQLException {
+        CsvReader records = new CsvReader( reader, delimiter );
+        List<String> targetColumns = columns;
+        String[] first = readRecord( records );
+        if ( header && first != null ) {
+            if ( targetColumns == null ) {
+                targetColumns = quoteIdentifiers( first );
+            }
+            first = readRecord( records );
+        }
+        if ( first == null ) {
+            return new Result( 0, 0, 0 );
+        }
+        int width = targetColumns == null ? first.length : targetColumns.size();
+        return load( table, targetColumns, width, new CsvSource( records, first ) );
+    }
+
+
+    /**
+     * Loads rows given as arrays of values, the values are converted like by
+     * {@link java.sql.PreparedStatement#setObject(int, Object)}. The iterator is only used by the worker thread once
+     * the first row has been read.
+     *
+     * @param table the target table, optionally qualified by its namespace
+     * @param rows the rows to load
+     * @return the number of loaded rows and the load rate
+     * @throws SQLException if converting or inserting a row failed
+     */
+    public Result load( String table, Iterator<Object[]> rows ) throws SQLException {
+        if ( !rows.hasNext() ) {
+            return new Result( 0, 0, 0 );
+        }
+        Object[] first = rows.next();
+        int width = columns == null ? first.length : columns.size();
+        return load( table, columns, width, new IteratorSource( rows, first ) );
+    }
+
+
+    private Result load( String table, List<String> targetColumns, int width, RowSource source ) throws SQLException {
+        long start = System.nanoTime();
+        try ( PolyphenyPreparedStatement statement = (PolyphenyPreparedStatement) connection.prepareStatement( buildInsert( table, targetColumns, width ) ) ) {
+            ParameterMetaData parameterMetaData = statement.getParameterMetaData();
+            int[] types = new int[parameterMetaData.getParameterCount()];
+            for ( int i = 0; i < types.length; i++ ) {
+                types[i] = parameterMetaData.getParameterType( i + 1 );
+            }
+            Producer producer = new Producer( source, types );
+            Thread worker = new Thread( producer, "PolyphenyBulkLoader" );
+            worker.setDaemon( true );
+            worker.start();
+            try {
+                ParameterRow row = new ParameterRow( types.length );
+                ParameterBatch batch = new ParameterBatch( types, connection.getBatchChunkBytes(), connection.getBatchWindow(), true );
+                statement.beginExecution();
+                PrismInterfaceClient client = statement.getClient();
+                int timeout = statement.getTimeout();
+                boolean commits = commitInterval > 0 && !connection.getAutoCommit();
+                long rows = 0;
+                long uncommittedRows = 0;
+                long updateCount = 0;
+                for ( Object[][] block = producer.take(); block != END; block = producer.take() ) {
+                    for ( Object[] values : block ) {
+                        for ( int i = 0; i < values.length; i++ ) {
+                            row.setObject( i, values[i] );
+                        }
+                        batch.add( row );
+                        if ( batch.isChunkFull() ) {
+                            batch.sendChunk( client, statement.statementId, timeout );
+                        }
+                        if ( commits && ++uncommittedRows >= commitInterval ) {
+                            // all sub-batches must have completed before committing
+                            updateCount += sum( Futures.await( batch.finish( client, statement.statementId, timeout ), timeout ) );
+                            connection.commit();
+                            batch = new ParameterBatch( types, connection.getBatchChunkBytes(), connection.getBatchWindow(), true );
+                            statement.beginExecution();
+                            uncommittedRows = 0;
+                        }
+                    }
+                    rows += block.length;
+                }
+                updateCount += sum( Futures.await( batch.finish( client, statement.statementId, timeout ), timeout ) );
+                if ( commits && uncommittedRows > 0 ) {
+                    connection.commit();
+                }
+                return new Result( rows, updateCount, System.nanoTime() - start );
+            } finally {
+                worker.interrupt();
+            }
+        }
+    }
+
+
+    private static long sum( List<Long> updateCounts ) {
+        return updateCounts.isEmpty() ? 0 : updateCounts.get( 0 );
+    }
+
+
+    private static String buildInsert( String table, List<String> targetColumns, int width ) {
+        StringBuilder sql = new StringBuilder( "INSERT INTO " ).append( table );
+        if ( targetColumns != null ) {
+            sql.append( " (" ).append( String.join( ", ", targetColumns ) ).append( ")" );
+        }
+        sql.append( " VALUES (" ).append( String.join( ", ", Collections.nCopies( width, "?" ) ) ).append( ")" );
+        return sql.toString();
+    }
+
+
+    /**
+     * Turns the column names of a CSV header into quoted identifiers, so they can not change the insert statement.
+     */
+    static List<String> quoteIdentifiers( String[] names ) throws SQLException {
+        List<String> identifiers = new ArrayList<>( names.length );
+        for ( int i = 0; i < names.length; i++ ) {
+            if ( names[i] == null || names[i].isEmpty() ) {
+                throw new PrismInterfaceServiceException( PrismInterfaceErrors.VALUE_ILLEGAL, "Field " + (i + 1) + " of the header does not name a column" );
+            }
+            identifiers.add( "\"" + names[i].replace( "\"", "\"\"" ) + "\"" );
+        }
+        return identifiers;
+    }
+
+
+    private static String[] readRecord( CsvReader records ) throws SQLException {
+        try {
+            return records.readRecord();
+        } catch ( IOException e ) {
+            throw new PrismInterfaceServiceException( PrismInterfaceErrors.STREAM_ERROR, "Reading CSV record failed", e );
+        }
+    }
+
+
+    /**
+     * Converts a CSV field to a value accepted by {@link ParameterRow#setObject(int, Object)}.
+     */
+    static Object convert( String field, int type ) {
+        if ( field == null ) {
+            return null;
+        }
+        switch ( type ) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+                return Integer.valueOf( field.trim() );
+            case Types.BIGINT:
+                return Long.valueOf( field.trim() );
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return Double.valueOf( field.trim() );
+            case Types.REAL:
+                return TypedValue.fromFloat( Float.parseFloat( field.trim() ) );
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return TypedValue.fromBigDecimal( new BigDecimal( field.trim() ) );
+            case Types.BOOLEAN:
+            case Types.BIT:
+                return TypedValue.fromBoolean( parseBoolean( field.trim() ) );
+            case Types.DATE:
+                return TypedValue.fromDate( Date.valueOf( field.trim() ) );
+            case Types.TIME:
+                return TypedValue.fromTime( Time.valueOf( field.trim() ) );
+            case Types.TIMESTAMP:
+                return TypedValue.fromTimestamp( Timestamp.valueOf( field.trim() ) );
+            default:
+                return field;
+        }
+    }
+
+
+    private static boolean parseBoolean( String field ) {
+        if ( field.equalsIgnoreCase( "true" ) || field.equals( "1" ) ) {
+            return true;
+        }
+        if ( field.equalsIgnoreCase( "false" ) || field.equals( "0" ) ) {
+            return false;
+        }
+        throw new IllegalArgumentException( "Not a boolean: " + field );
+    }
+
+
+    /**
+     * Values are converted to {@link TypedValue}s on the worker thread unless they fit a typed slot of
+     * {@link ParameterRow}.
+     */
+    private static Object convert( Object value ) throws SQLException {
+        if ( value == null || value instanceof Integer || value instanceof Long || value instanceof Double || value instanceof String ) {
+            return value;
+        }
+        return TypedValue.fromObject( value );
+    }
+
+
+    @Getter
+    public static class Result {
+
+        /**
+         * The number of rows sent to the server.
+         */
+        private final long rows;
+        /**
+         * The sum of the update counts reported by the server.
+         */
+        private final long updateCount;
+        private final long elapsedNanos;
+
+
+        Result( long rows, long updateCount, long elapsedNanos ) {
+            this.rows = rows;
+            this.updateCount = updateCount;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+
+        public double getRowsPerSecond() {
+            if ( elapsedNanos == 0 ) {
+                return 0;
+            }
+            return rows * (double) TimeUnit.SECONDS.toNanos( 1 ) / elapsedNanos;
+        }
+
+
+        @Override
+        public String toString() {
+            return String.format( "%d rows in %d ms (%.0f rows/s)", rows, TimeUnit.NANOSECONDS.toMillis( elapsedNanos ), getRowsPerSecond() );
+        }
+
+    }
+
+
+    private interface RowSource {
+
+        /**
+         * @param types the {@link Types} of the target columns
+         * @return the next row with converted values or null if there are no more rows
+         */
+        Object[] next( int[] types ) throws IOException, SQLException;
+
+    }
+
+
+    private static class CsvSource implements RowSource {
+
+        private final CsvReader records;
+        private String[] pending;
+        private long recordNumber;
+
+
+        private CsvSource( CsvReader records, String[] first ) {
+            this.records = records;
+            this.pending = first;
+        }
+
+
+        @Override
+        public Object[] next( int[] types ) throws IOException, SQLException {
+            String[] record = pending != null ? pending : records.readRecord();
+            pending = null;
+            if ( record == null ) {
+                return null;
+            }
+            recordNumber++;
+            if ( record.length != types.length ) {
+                throw new PrismInterfaceServiceException( PrismInterfaceErrors.VALUE_ILLEGAL, "Record " + recordNumber + " has " + record.length + " fields, expected " + types.length );
+            }
+            Object[] values = new Object[types.length];
+            for ( int i = 0; i < values.length; i++ ) {
+                try {
+                    values[i] = convert( record[i], types[i] );
+                } catch ( IllegalArgumentException e ) {
+                    throw new PrismInterfaceServiceException( PrismInterfaceErrors.VALUE_ILLEGAL, "Field " + (i + 1) + " of record " + recordNumber + " is invalid: " + record[i], e );
+                }
+            }
+            return values;
+        }
+
+    }
+
+
+    private static class IteratorSource implements RowSource {
+
+        private final Iterator<Object[]> rows;
+        private Object[] pending;
+        private long rowNumber;
+
+
+        private IteratorSource( Iterator<Object[]> rows, Object[] first ) {
+            this.rows = rows;
+            this.pending = first;
+        }
+
+
+        @Override
+        public Object[] next( int[] types ) throws SQLException {
+            Object[] row = pending;
+            pending = null;
+            if ( row == null ) {
+                if ( !rows.hasNext() ) {
+                    return null;
+                }
+                row = rows.next();
+            }
+            rowNumber++;
+            if ( row.length != types.length ) {
+                throw new PrismInterfaceServiceException( PrismInterfaceErrors.VALUE_ILLEGAL, "Row " + rowNumber + " has " + row.length + " values, expected " + types.length );
+            }
+            Object[] values = new Object[row.length];
+            for ( int i = 0; i < values.length; i++ ) {
+                values[i] = convert( row[i] );
+            }
+            return values;
+        }
+
+    }
+
+
+    /**
+     * Reads rows on the worker thread and hands them to the calling thread in blocks.
+     */
+    private static class Producer implements Runnable {
+
+        private final RowSource source;
+        private final int[] types;
+        private final BlockingQueue<Object[][]> blocks = new ArrayBlockingQueue<>( QUEUED_BLOCKS );
+        private volatile SQLException error;
+
+
+        private Producer( RowSource source, int[] types ) {
+            this.source = source;
+            this.types = types;
+        }
+
+
+        @Override
+        public void run() {
+            try {
+                Object[][] block = new Object[BLOCK_ROWS][];
+                int size = 0;
+                for ( Object[] row = source.next( types ); row != null; row = source.next( types ) ) {
+                    block[size++] = row;
+                    if ( size == BLOCK_ROWS ) {
+                        blocks.put( block );
+                        block = new Object[BLOCK_ROWS][];
+                        size = 0;
+                    }
+                }
+                if ( size > 0 ) {
+                    blocks.put( Arrays.copyOf( block, size ) );
+                }
+            } catch ( InterruptedException e ) {
+                // the load was aborted by the calling thread
+                return;
+            } catch ( SQLException e ) {
+                error = e;
+            } catch ( IOException e ) {
+                error = new PrismInterfaceServiceException( PrismInterfaceErrors.STREAM_ERROR, "Reading rows failed", e );
+            } catch ( RuntimeException e ) {
+                error = new PrismInterfaceServiceException( e );
+            }
+            try {
+                blocks.put( END );
+            } catch ( InterruptedException e ) {
+                // the load was aborted by the calling thread
+            }
+        }
+
+
+        /**
+         * @return the next block of rows or {@link #END} once all rows were read
+         * @throws SQLException if reading or converting a row failed
+         */
+        private Object[][] take() throws SQLException {
+            Object[][] block;
+            try {
+                block = blocks.take();
+            } catch ( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                throw new PrismInterfaceServiceException( PrismInterfaceErrors.DRIVER_THREADING_ERROR, "Waiting for rows failed.", e );
+            }
+            if ( block == END && error != null ) {
+                throw error;
+            }
+            return block;
+        }
+
+    }
+
+
+    /**
+     * Reads records as described by RFC 4180. Fields may be quoted with double quotes, quotes inside quoted fields are
+     * escaped by doubling them. Records end with LF or CRLF.
+     */
+    static class CsvReader {
+
+        private final Reader reader;
+        private final char delimiter;
+        private final char[] buffer = new char[8192];
+        private int position;
+        private int limit;
+
+
+        CsvReader( Reader reader, char delimiter ) {
+            this.reader = reader;
+            this.delimiter = delimiter;
+        }
+
+
+        private int read() throws IOException {
+            if ( position == limit ) {
+                limit = reader.read( buffer, 0, buffer.length );
+                position = 0;
+                if ( limit <= 0 ) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[position++];
+        }
+
+
+        private int peek() throws IOException {
+            int c = read();
+            if ( c != -1 ) {
+                position--;
+            }
+            return c;
+        }
+
+
+        /**
+         * @return the fields of the next record, empty unquoted fields are null, or null at the end of the input
+         */
+        String[] readRecord() throws IOException {
+            int c = read();
+            // empty lines are skipped
+            while ( c == '\n' || (c == '\r' && peek() == '\n') ) {
+                if ( c == '\r' ) {
+                    read();
+                }
+                c = read();
+            }
+            if ( c == -1 ) {
+                return null;
+            }
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while ( true ) {
+                if ( c == '"' && field.length() == 0 && !quoted ) {
+                    quoted = true;
+                    readQuoted( field );
+                    c = read();
+                    continue;
+                }
+                if ( c == delimiter || c == '\n' || c == -1 || (c == '\r' && peek() == '\n') ) {
+                    fields.add( field.length() == 0 && !quoted ? null : field.toString() );
+                    field.setLength( 0 );
+                    quoted = false;
+                    if ( c == '\r' ) {
+                        read();
+                    }
+                    if ( c != delimiter ) {
+                        return fields.toArray( new String[0] );
+                    }
+                } else {
+                    field.append( (char) c );
+                }
+                c = read();
+            }
+        }
+
+
+        private void readQuoted( StringBuilder field ) throws IOException {
+            while ( true ) {
+                int c = read();
+                if ( c == -1 ) {
+                    throw new IOException( "Unterminated quoted field" );
+                }
+                if ( c == '"' ) {
+                    if ( peek() != '"' ) {
+                        return;
+                    }
+                    read();
+                }
+                field.append( (char) c );
+            }
+        }
+
+    }
+
+}
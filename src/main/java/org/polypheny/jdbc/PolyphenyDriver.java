@@ -50,11 +50,16 @@ public Connection connect( String url, Properties properties ) throws SQLExcepti
             return null;
         }
         ConnectionString connectionString = new ConnectionString( url, properties );
-        PrismInterfaceClient prismInterfaceClient = new PrismInterfaceClient( connectionString.getHost(), connectionString.getPort(), connectionString.getParameters() );
+        PrismInterfaceClient prismInterfaceClient = new PrismInterfaceClient( connectionString.getHosts(), connectionString.getParameters() );
         PolyphenyConnectionProperties connectionProperties = new PolyphenyConnectionProperties( connectionString, prismInterfaceClient );
-        PolyphenyDatabaseMetadata databaseMetadata = new PolyphenyDatabaseMetadata( prismInterfaceClient, connectionString );
         prismInterfaceClient.register( connectionProperties, connectionProperties.getNetworkTimeout() );
-        return new PolyConnection( connectionProperties, databaseMetadata );
+        // created after registering, so that a failed registration does not keep a shared metadata cache acquired
+        PolyphenyDatabaseMetadata databaseMetadata = new PolyphenyDatabaseMetadata( prismInterfaceClient, connectionString );
+        PolyConnection connection = new PolyConnection( connectionProperties, databaseMetadata );
+        if ( connectionProperties.isReadOnly() ) {
+            connection.connectReplica();
+        }
+        return connection;
     }
 
 
@@ -100,7 +105,7 @@ public DriverPropertyInfo[] getPropertyInfo( String url, Properties properties )
         infoProperties[3] = new DriverPropertyInfo(
                 PropertyUtils.getREAD_ONLY_KEY(),
                 readOnly == null ? String.valueOf( PropertyUtils.isDEFAULT_READ_ONLY() ) : readOnly );
-        infoProperties[3].description = "Indicates if the connection is in read-only mode. Currently ignored, reserved for future use.";
+        infoProperties[3].description = "Indicates if the connection is in read-only mode. Read-only connections are routed to the hosts given by the replicas property, if any.";
         infoProperties[3].choices = new String[]{ "true", "false" };
 
         // Holdability Property
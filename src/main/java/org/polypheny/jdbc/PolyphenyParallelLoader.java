@@ -0,0 +1,530 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.polypheny.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Loads rows into a table over several connections at once. The rows are read on the calling thread and spread over
+ * the partitions, each of which loads its rows with a {@link PolyphenyBulkLoader} on its own connection and thread.
+ * <pre>
+ * PolyphenyParallelLoader loader = new PolyphenyParallelLoader( dataSource::getConnection );
+ * loader.setParallelism( 8 );
+ * loader.setCommitStrategy( PolyphenyParallelLoader.CommitStrategy.AT_END );
+ * PolyphenyParallelLoader.Result result = loader.load( "emps", rows );
+ * </pre>
+ * If partitions fail, the remaining partitions stop loading and the failures are reported together by a single
+ * exception, the failures of further partitions are chained with {@link SQLException#setNextException}.
+ */
+@Slf4j
+public class PolyphenyParallelLoader {
+
+    private static final int BLOCK_ROWS = 1024;
+    private static final int QUEUED_BLOCKS = 4;
+    private static final Object[][] END = new Object[0][];
+    private static final long OFFER_INTERVAL_MILLIS = 100;
+
+
+    /**
+     * How rows are assigned to partitions.
+     */
+    public enum Ordering {
+        /**
+         * Blocks of rows are handed to the least busy partition. No order between rows is guaranteed.
+         */
+        NONE,
+        /**
+         * Rows with equal values in the key columns are loaded by the same partition in the order they were read.
+         */
+        PER_KEY
+    }
+
+
+    /**
+     * When the partitions commit the rows they loaded.
+     */
+    public enum CommitStrategy {
+        /**
+         * Each sub-batch is committed by itself. Rows loaded before a failure stay inserted.
+         */
+        AUTO_COMMIT,
+        /**
+         * Each partition commits after every {@link #getCommitInterval()} rows and after its last row. Rows loaded
+         * before a failure may stay inserted.
+         */
+        INTERVAL,
+        /**
+         * All partitions commit once every partition has loaded its rows. If any partition fails, all of them are
+         * rolled back. The commits of the partitions are not atomic.
+         */
+        AT_END
+    }
+
+
+    /**
+     * Opens the connections used by the partitions, e.g. {@code dataSource::getConnection}.
+     */
+    @FunctionalInterface
+    public interface ConnectionSource {
+
+        Connection getConnection() throws SQLException;
+
+    }
+
+
+    private final ConnectionSource connectionSource;
+
+    /**
+     * The number of partitions and connections, 4 by default.
+     */
+    @Getter
+    @Setter
+    private int parallelism = 4;
+    @Getter
+    @Setter
+    private Ordering ordering = Ordering.NONE;
+    /**
+     * The indexes of the key columns in the rows for {@link Ordering#PER_KEY}, starting at 0.
+     */
+    @Getter
+    @Setter
+    private int[] keyColumns = new int[]{ 0 };
+    @Getter
+    @Setter
+    private CommitStrategy commitStrategy = CommitStrategy.AUTO_COMMIT;
+    /**
+     * The number of rows after which each partition commits with {@link CommitStrategy#INTERVAL}.
+     */
+    @Getter
+    @Setter
+    private long commitInterval = 100_000;
+    /**
+     * The target columns, null to insert into all columns of the table in their order.
+     */
+    @Getter
+    @Setter
+    private List<String> columns;
+
+
+    public PolyphenyParallelLoader( ConnectionSource connectionSource ) {
+        this.connectionSource = connectionSource;
+    }
+
+
+    /**
+     * Loads the rows into the table. The values of the rows are converted like by
+     * {@link java.sql.PreparedStatement#setObject(int, Object)}.
+     *
+     * @param table the target table, optionally qualified by its namespace
+     * @param rows the rows to load, only read by the calling thread
+     * @return the number of loaded rows in total and per partition
+     * @throws SQLException if connecting, reading the rows or any of the partitions failed
+     */
+    public Result load( String table, Iterator<Object[]> rows ) throws SQLException {
+        if ( parallelism < 1 ) {
+            throw new PrismInterfaceServiceException( PrismInterfaceErrors.VALUE_ILLEGAL, "Parallelism must be positive: " + parallelism );
+        }
+        if ( commitStrategy == CommitStrategy.INTERVAL && commitInterval < 1 ) {
+            throw new PrismInterfaceServiceException( PrismInterfaceErrors.VALUE_ILLEGAL, "Commit interval must be positive: " + commitInterval );
+        }
+        long start = System.nanoTime();
+        List<Partition> partitions = new ArrayList<>( parallelism );
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool( parallelism, r -> {
+            Thread t = new Thread( r, "PolyphenyParallelLoader-" + threadNumber.incrementAndGet() );
+            t.setDaemon( true );
+            return t;
+        } );
+        try {
+            for ( int i = 0; i < parallelism; i++ ) {
+                partitions.add( new Partition( openConnection() ) );
+            }
+            List<Future<PolyphenyBulkLoader.Result>> results = new ArrayList<>( parallelism );
+            for ( Partition partition : partitions ) {
+                results.add( executor.submit( () -> {
+                    try {
+                        return partition.load( table );
+                    } catch ( SQLException | RuntimeException e ) {
+                        // the other partitions and the dispatching of rows stop as well
+                        partitions.forEach( p -> p.finish( true ) );
+                        throw e;
+                    }
+                } ) );
+            }
+            List<SQLException> failures = new ArrayList<>();
+            try {
+                dispatch( rows, partitions );
+            } catch ( RuntimeException e ) {
+                failures.add( new PrismInterfaceServiceException( PrismInterfaceErrors.STREAM_ERROR, "Reading rows failed", e ) );
+            } catch ( SQLException e ) {
+                failures.add( e );
+            } finally {
+                partitions.forEach( p -> p.finish( !failures.isEmpty() ) );
+            }
+            List<PolyphenyBulkLoader.Result> partitionResults = new ArrayList<>( parallelism );
+            for ( Future<PolyphenyBulkLoader.Result> result : results ) {
+                partitionResults.add( await( result, failures ) );
+            }
+            complete( partitions, failures );
+            if ( !failures.isEmpty() ) {
+                throw aggregate( failures );
+            }
+            return new Result( partitionResults, System.nanoTime() - start );
+        } finally {
+            executor.shutdownNow();
+            for ( Partition partition : partitions ) {
+                partition.close();
+            }
+        }
+    }
+
+
+    private Connection openConnection() throws SQLException {
+        Connection connection = connectionSource.getConnection();
+        connection.setAutoCommit( commitStrategy == CommitStrategy.AUTO_COMMIT );
+        return connection;
+    }
+
+
+    /**
+     * Reads the rows and hands them to the partitions in blocks. Stops early if a partition stopped loading.
+     */
+    private void dispatch( Iterator<Object[]> rows, List<Partition> partitions ) throws SQLException {
+        int count = partitions.size();
+        Object[][][] blocks = new Object[ordering == Ordering.PER_KEY ? count : 1][BLOCK_ROWS][];
+        int[] sizes = new int[blocks.length];
+        int next = 0;
+        while ( rows.hasNext() ) {
+            Object[] row = rows.next();
+            int target = ordering == Ordering.PER_KEY ? Math.floorMod( keyHash( row ), count ) : 0;
+            blocks[target][sizes[target]++] = row;
+            if ( sizes[target] < BLOCK_ROWS ) {
+                continue;
+            }
+            next = ordering == Ordering.PER_KEY ? put( partitions.get( target ), blocks[target], next ) : putLeastBusy( partitions, blocks[target], next );
+            if ( next == -1 ) {
+                return;
+            }
+            blocks[target] = new Object[BLOCK_ROWS][];
+            sizes[target] = 0;
+        }
+        for ( int i = 0; i < blocks.length; i++ ) {
+            if ( sizes[i] == 0 ) {
+                continue;
+            }
+            Object[][] block = Arrays.copyOf( blocks[i], sizes[i] );
+            next = ordering == Ordering.PER_KEY ? put( partitions.get( i ), block, next ) : putLeastBusy( partitions, block, next );
+            if ( next == -1 ) {
+                return;
+            }
+        }
+    }
+
+
+    private int keyHash( Object[] row ) {
+        int hash = 1;
+        for ( int column : keyColumns ) {
+            Object value = row[column];
+            hash = 31 * hash + (value == null ? 0 : value.hashCode());
+        }
+        return hash;
+    }
+
+
+    /**
+     * @return the unchanged index to start at for the next block or -1 if the partition stopped loading
+     */
+    private static int put( Partition partition, Object[][] block, int next ) throws SQLException {
+        return partition.put( block ) ? next : -1;
+    }
+
+
+    /**
+     * Hands the block to the first partition with space in its queue, starting after the partition served last.
+     *
+     * @return the index to start at for the next block or -1 if a partition stopped loading
+     */
+    private static int putLeastBusy( List<Partition> partitions, Object[][] block, int next ) throws SQLException {
+        int count = partitions.size();
+        for ( int i = 0; i < count; i++ ) {
+            int index = (next + i) % count;
+            if ( partitions.get( index ).offer( block ) ) {
+                return (index + 1) % count;
+            }
+        }
+        return partitions.get( next ).put( block ) ? (next + 1) % count : -1;
+    }
+
+
+    private static PolyphenyBulkLoader.Result await( Future<PolyphenyBulkLoader.Result> result, List<SQLException> failures ) {
+        try {
+            return result.get();
+        } catch ( ExecutionException e ) {
+            if ( isAborted( e.getCause() ) ) {
+                // the failure causing the abort is reported instead
+                return null;
+            }
+            failures.add( e.getCause() instanceof SQLException
+                    ? (SQLException) e.getCause()
+                    : new PrismInterfaceServiceException( e.getCause() ) );
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            failures.add( new PrismInterfaceServiceException( PrismInterfaceErrors.DRIVER_THREADING_ERROR, "Waiting for partition failed.", e ) );
+        }
+        return null;
+    }
+
+
+    private static boolean isAborted( Throwable failure ) {
+        for ( Throwable t = failure; t != null; t = t.getCause() ) {
+            if ( t instanceof LoadAbortedException ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    private void complete( List<Partition> partitions, List<SQLException> failures ) {
+        if ( commitStrategy == CommitStrategy.AUTO_COMMIT ) {
+            return;
+        }
+        boolean commit = failures.isEmpty();
+        for ( Partition partition : partitions ) {
+            try {
+                if ( commit && commitStrategy == CommitStrategy.AT_END ) {
+                    partition.connection.commit();
+                } else if ( !commit ) {
+                    partition.connection.rollback();
+                }
+            } catch ( SQLException e ) {
+                failures.add( e );
+                commit = false;
+            }
+        }
+    }
+
+
+    private static SQLException aggregate( List<SQLException> failures ) {
+        SQLException first = failures.get( 0 );
+        PrismInterfaceServiceException aggregated = new PrismInterfaceServiceException(
+                first.getMessage() + (failures.size() > 1 ? " (and " + (failures.size() - 1) + " more failures)" : ""),
+                first.getSQLState(),
+                first.getErrorCode(),
+                first
+        );
+        for ( SQLException failure : failures.subList( 1, failures.size() ) ) {
+            aggregated.setNextException( failure );
+        }
+        return aggregated;
+    }
+
+
+    @Getter
+    public static class Result {
+
+        /**
+         * The results of the partitions, in the order the partitions were created.
+         */
+        private final List<PolyphenyBulkLoader.Result> partitions;
+        private final long rows;
+        private final long elapsedNanos;
+
+
+        private Result( List<PolyphenyBulkLoader.Result> partitions, long elapsedNanos ) {
+            this.partitions = Collections.unmodifiableList( partitions );
+            this.rows = partitions.stream().mapToLong( PolyphenyBulkLoader.Result::getRows ).sum();
+            this.elapsedNanos = elapsedNanos;
+        }
+
+
+        public double getRowsPerSecond() {
+            if ( elapsedNanos == 0 ) {
+                return 0;
+            }
+            return rows * (double) TimeUnit.SECONDS.toNanos( 1 ) / elapsedNanos;
+        }
+
+
+        @Override
+        public String toString() {
+            return String.format( "%d rows in %d ms over %d connections (%.0f rows/s)", rows, TimeUnit.NANOSECONDS.toMillis( elapsedNanos ), partitions.size(), getRowsPerSecond() );
+        }
+
+    }
+
+
+    /**
+     * Thrown by the rows of a partition once loading was aborted, as another partition or reading the rows failed.
+     */
+    private static class LoadAbortedException extends RuntimeException {
+
+        private LoadAbortedException() {
+            super( "Loading was aborted" );
+        }
+
+    }
+
+
+    private class Partition {
+
+        private final Connection connection;
+        private final BlockingQueue<Object[][]> blocks = new ArrayBlockingQueue<>( QUEUED_BLOCKS );
+        // no more blocks are added
+        private volatile boolean isFinished;
+        // queued blocks are dropped and no more blocks are accepted
+        private volatile boolean isAborted;
+
+
+        private Partition( Connection connection ) {
+            this.connection = connection;
+        }
+
+
+        private PolyphenyBulkLoader.Result load( String table ) throws SQLException {
+            PolyphenyBulkLoader loader = connection.unwrap( PolyConnection.class ).unwrap( PolyphenyBulkLoader.class );
+            loader.setColumns( columns );
+            loader.setCommitInterval( commitStrategy == CommitStrategy.INTERVAL ? commitInterval : 0 );
+            return loader.load( table, new BlockIterator() );
+        }
+
+
+        /**
+         * @return true if the block was queued
+         */
+        private boolean offer( Object[][] block ) {
+            return !isAborted && blocks.offer( block );
+        }
+
+
+        /**
+         * Waits until the block is queued.
+         *
+         * @return false if the partition stopped loading
+         */
+        private boolean put( Object[][] block ) throws SQLException {
+            try {
+                while ( !blocks.offer( block, OFFER_INTERVAL_MILLIS, TimeUnit.MILLISECONDS ) ) {
+                    if ( isAborted ) {
+                        return false;
+                    }
+                }
+                return !isAborted;
+            } catch ( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                throw new PrismInterfaceServiceException( PrismInterfaceErrors.DRIVER_THREADING_ERROR, "Handing rows to partition failed.", e );
+            }
+        }
+
+
+        /**
+         * Marks the end of the rows of this partition.
+         *
+         * @param abort if true, rows still queued are not loaded
+         */
+        private void finish( boolean abort ) {
+            if ( abort ) {
+                isAborted = true;
+                blocks.clear();
+            }
+            isFinished = true;
+        }
+
+
+        private void close() {
+            try {
+                connection.close();
+            } catch ( SQLException e ) {
+                log.debug( "Could not close partition connection", e );
+            }
+        }
+
+
+        /**
+         * The rows of this partition, taken from its queue.
+         */
+        private class BlockIterator implements Iterator<Object[]> {
+
+            private Object[][] block = new Object[0][];
+            private int position;
+
+
+            @Override
+            public boolean hasNext() {
+                while ( position == block.length ) {
+                    if ( block == END ) {
+                        return false;
+                    }
+                    block = take();
+                    position = 0;
+                }
+                return true;
+            }
+
+
+            private Object[][] take() {
+                try {
+                    while ( !isAborted ) {
+                        // checked before polling, so a block queued right before finishing is not missed
+                        boolean wasFinished = isFinished;
+                        Object[][] next = blocks.poll( OFFER_INTERVAL_MILLIS, TimeUnit.MILLISECONDS );
+                        if ( next != null ) {
+                            return next;
+                        }
+                        if ( wasFinished ) {
+                            return END;
+                        }
+                    }
+                } catch ( InterruptedException e ) {
+                    Thread.currentThread().interrupt();
+                }
+                // ending the rows normally would let the bulk loader commit the rows it has not committed yet
+                throw new LoadAbortedException();
+            }
+
+
+            @Override
+            public Object[] next() {
+                if ( !hasNext() ) {
+                    throw new NoSuchElementException();
+                }
+                return block[position++];
+            }
+
+        }
+
+    }
+
+}
@@ -0,0 +1,328 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.polypheny.jdbc;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import org.polypheny.jdbc.utils.Futures;
+
+/**
+ * Sends many statements on a connection without waiting for their results in between. Queries, updates and
+ * executions of prepared statements are queued, sent back-to-back by {@link #flush()} and awaited by {@link #sync()}.
+ * The responses are matched to the requests by their ids, so the statements share the single connection to the
+ * server. The server does not guarantee to execute the statements sent between two sync points in the order they
+ * were queued, so a statement depending on the effects of another one has to be queued after a sync. A pipeline is
+ * obtained from a connection:
+ * <pre>
+ * PolyphenyPipeline pipeline = connection.unwrap( PolyphenyPipeline.class );
+ * PreparedStatement insert = connection.prepareStatement( "INSERT INTO emps VALUES (?, ?)" );
+ * for ( Emp emp : emps ) {
+ *     pipeline.executeUpdate( insert, emp.id, emp.name );
+ * }
+ * pipeline.sync();
+ * </pre>
+ * Once a statement failed, the rest of the pipeline is aborted until the failure is reported by the next
+ * {@link #sync()}: the futures of statements not sent yet fail without the statements being sent, and the futures of
+ * sent statements still running fail as well and their results are discarded. Aborted statements that already reached
+ * the server may be executed regardless, run the pipeline in a transaction and roll it back to undo them.
+ * <p>
+ * A prepared statement can be queued for any number of updates, but only for one query at a time, as the server
+ * keeps one result per statement. The result sets of queries are closed together with the pipeline.
+ */
+public class PolyphenyPipeline implements AutoCloseable {
+
+    private final PolyConnection connection;
+
+    // steps queued since the last flush
+    private final List<Step<?>> queued = new ArrayList<>();
+    // steps sent since the last sync, also read by the failing step to abort the others
+    private final Queue<Step<?>> sent = new ConcurrentLinkedQueue<>();
+    // statements created for unparameterized updates, closed at the next sync
+    private final List<PolyphenyStatement> updateStatements = new ArrayList<>();
+    // statements created for unparameterized queries, they own the result sets
+    private final List<PolyphenyStatement> queryStatements = new ArrayList<>();
+    // the first failure since the last sync
+    private final AtomicReference<SQLException> failure = new AtomicReference<>();
+    private boolean isClosed;
+
+
+    PolyphenyPipeline( PolyConnection connection ) {
+        this.connection = connection;
+    }
+
+
+    private void throwIfClosed() throws SQLException {
+        if ( isClosed ) {
+            throw new PrismInterfaceServiceException( PrismInterfaceErrors.OPERATION_ILLEGAL, "Illegal operation for a closed pipeline" );
+        }
+    }
+
+
+    /**
+     * Queues a query.
+     *
+     * @param sql the query
+     * @return a future completed with the result set once the query was sent and executed
+     * @throws SQLException if the pipeline is closed
+     */
+    public synchronized CompletableFuture<ResultSet> executeQuery( String sql ) throws SQLException {
+        throwIfClosed();
+        return queue( () -> newStatement( queryStatements ).executeQueryAsync( sql ) );
+    }
+
+
+    /**
+     * Queues a statement not producing a result set.
+     *
+     * @param sql the statement
+     * @return a future completed with the update count once the statement was sent and executed
+     * @throws SQLException if the pipeline is closed
+     */
+    public synchronized CompletableFuture<Long> executeUpdate( String sql ) throws SQLException {
+        throwIfClosed();
+        return queue( () -> newStatement( updateStatements ).executeUpdateAsync( sql ) );
+    }
+
+
+    /**
+     * Queues a query of a prepared statement. The parameters are converted right away like by
+     * {@link PreparedStatement#setObject(int, Object)}, the parameters set on the statement are not used.
+     *
+     * @param statement a prepared statement of the connection of the pipeline
+     * @param parameters the values of all parameters of the statement
+     * @return a future completed with the result set once the query was sent and executed
+     * @throws SQLException if the pipeline is closed, the statement belongs to another connection or the parameters do
+     * not match the statement
+     */
+    public synchronized CompletableFuture<ResultSet> executeQuery( PreparedStatement statement, Object... parameters ) throws SQLException {
+        throwIfClosed();
+        PolyphenyPreparedStatement prepared = unwrap( statement );
+        ParameterRow row = toParameterRow( prepared, parameters );
+        return queue( () -> prepared.executeQueryAsync( row ) );
+    }
+
+
+    /**
+     * Queues an update of a prepared statement, see {@link #executeQuery(PreparedStatement, Object...)}.
+     *
+     * @param statement a prepared statement of the connection of the pipeline
+     * @param parameters the values of all parameters of the statement
+     * @return a future completed with the update count once the update was sent and executed
+     * @throws SQLException if the pipeline is closed, the statement belongs to another connection or the parameters do
+     * not match the statement
+     */
+    public synchronized CompletableFuture<Long> executeUpdate( PreparedStatement statement, Object... parameters ) throws SQLException {
+        throwIfClosed();
+        PolyphenyPreparedStatement prepared = unwrap( statement );
+        ParameterRow row = toParameterRow( prepared, parameters );
+        return queue( () -> prepared.sendUpdate( row ) );
+    }
+
+
+    /**
+     * Sends the queued statements without waiting for their results.
+     *
+     * @throws SQLException if the pipeline is closed
+     */
+    public synchronized void flush() throws SQLException {
+        throwIfClosed();
+        try {
+            for ( Step<?> step : queued ) {
+                // added first, so a failure of an earlier step can abort it
+                sent.add( step );
+                step.send();
+            }
+        } finally {
+            queued.clear();
+        }
+    }
+
+
+    /**
+     * Sends the queued statements and waits for the results of all statements sent since the last sync. Afterward,
+     * the pipeline accepts statements again even if one of them failed.
+     *
+     * @throws SQLException the first failure since the last sync, statements aborted because of it are not reported
+     * separately
+     */
+    public synchronized void sync() throws SQLException {
+        flush();
+        try {
+            for ( Step<?> step : sent ) {
+                try {
+                    Futures.await( step.result, connection.getTimeout() );
+                } catch ( PrismInterfaceServiceException e ) {
+                    // failures of the steps are recorded by the steps, this catches timeouts
+                    failure.compareAndSet( null, e );
+                }
+            }
+        } finally {
+            sent.clear();
+            closeAll( updateStatements );
+        }
+        SQLException cause = failure.getAndSet( null );
+        if ( cause != null ) {
+            throw cause;
+        }
+    }
+
+
+    /**
+     * Closes the pipeline and the result sets of its queries. Statements still queued are aborted, statements already
+     * sent are not awaited.
+     */
+    @Override
+    public synchronized void close() throws SQLException {
+        if ( isClosed ) {
+            return;
+        }
+        isClosed = true;
+        PrismInterfaceServiceException closed = new PrismInterfaceServiceException( PrismInterfaceErrors.OPERATION_ILLEGAL, "Pipeline closed before the statement was sent" );
+        queued.forEach( s -> s.result.completeExceptionally( closed ) );
+        queued.clear();
+        sent.clear();
+        closeAll( updateStatements );
+        closeAll( queryStatements );
+    }
+
+
+    private <T> CompletableFuture<T> queue( Sender<T> sender ) {
+        Step<T> step = new Step<>( sender );
+        queued.add( step );
+        return step.result;
+    }
+
+
+    private PolyphenyStatement newStatement( List<PolyphenyStatement> statements ) throws SQLException {
+        PolyphenyStatement statement = (PolyphenyStatement) connection.createStatement();
+        statements.add( statement );
+        return statement;
+    }
+
+
+    private PolyphenyPreparedStatement unwrap( PreparedStatement statement ) throws SQLException {
+        PolyphenyPreparedStatement prepared = statement.unwrap( PolyphenyPreparedStatement.class );
+        if ( prepared.getConnection() != connection ) {
+            throw new PrismInterfaceServiceException( PrismInterfaceErrors.OPERATION_ILLEGAL, "The prepared statement belongs to another connection" );
+        }
+        return prepared;
+    }
+
+
+    private static ParameterRow toParameterRow( PolyphenyPreparedStatement statement, Object[] parameters ) throws SQLException {
+        ParameterRow row = statement.newParameterRow();
+        if ( parameters.length != row.size() ) {
+            throw new PrismInterfaceServiceException( PrismInterfaceErrors.PARAMETER_NOT_EXISTS, "Expected " + row.size() + " parameters, got " + parameters.length );
+        }
+        for ( int i = 0; i < parameters.length; i++ ) {
+            row.setObject( i, parameters[i] );
+        }
+        return row;
+    }
+
+
+    private static void closeAll( List<PolyphenyStatement> statements ) throws SQLException {
+        try {
+            for ( PolyphenyStatement statement : statements ) {
+                statement.close();
+            }
+        } finally {
+            statements.clear();
+        }
+    }
+
+
+    @FunctionalInterface
+    private interface Sender<T> {
+
+        CompletableFuture<T> send() throws SQLException;
+
+    }
+
+
+    private class Step<T> {
+
+        private final Sender<T> sender;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        // the execution on the server, null until sent
+        private volatile CompletableFuture<T> execution;
+
+
+        private Step( Sender<T> sender ) {
+            this.sender = sender;
+        }
+
+
+        private void send() {
+            SQLException cause = failure.get();
+            if ( cause != null ) {
+                result.completeExceptionally( new PrismInterfaceServiceException( PrismInterfaceErrors.OPERATION_ILLEGAL, "Pipeline aborted by an earlier failure", cause ) );
+                return;
+            }
+            try {
+                execution = sender.send();
+                execution.whenComplete( ( value, e ) -> {
+                    if ( e == null ) {
+                        result.complete( value );
+                    } else if ( !result.isDone() ) {
+                        fail( e instanceof CompletionException && e.getCause() != null ? e.getCause() : e );
+                    }
+                } );
+                // aborted while being sent
+                if ( result.isDone() ) {
+                    execution.cancel( false );
+                }
+            } catch ( SQLException | RuntimeException e ) {
+                fail( e );
+            }
+        }
+
+
+        private void fail( Throwable e ) {
+            SQLException exception = e instanceof SQLException ? (SQLException) e : new PrismInterfaceServiceException( e );
+            // recorded before the future fails, so later steps observing the future are aborted
+            failure.compareAndSet( null, exception );
+            result.completeExceptionally( exception );
+            for ( Step<?> step : sent ) {
+                step.abort( exception );
+            }
+        }
+
+
+        private void abort( SQLException cause ) {
+            if ( !result.completeExceptionally( new PrismInterfaceServiceException( PrismInterfaceErrors.OPERATION_ILLEGAL, "Pipeline aborted by an earlier failure", cause ) ) ) {
+                return;
+            }
+            CompletableFuture<T> e = execution;
+            if ( e != null ) {
+                // discards the result once it arrives
+                e.cancel( false );
+            }
+        }
+
+    }
+
+}
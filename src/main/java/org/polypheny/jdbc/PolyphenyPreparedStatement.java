@@ -35,31 +35,68 @@
 import java.sql.SQLXML;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Calendar;
-import java.util.LinkedList;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import org.polypheny.jdbc.meta.PolyphenyParameterMetaData;
 import org.polypheny.jdbc.properties.PolyphenyStatementProperties;
+import org.polypheny.jdbc.properties.PropertyUtils;
 import org.polypheny.jdbc.types.TypedValue;
+import org.polypheny.jdbc.utils.Futures;
+import org.polypheny.jdbc.utils.SqlUtils;
 import org.polypheny.prism.Frame;
 import org.polypheny.prism.PreparedStatementSignature;
-import org.polypheny.prism.StatementBatchResponse;
 import org.polypheny.prism.StatementResult;
 
 public class PolyphenyPreparedStatement extends PolyphenyStatement implements PreparedStatement {
 
-    private TypedValue[] parameters;
-    private List<List<TypedValue>> parameterBatch = new LinkedList<>();
+    private final ParameterRow parameters;
+    // java.sql.Types of the parameters
+    private final int[] parameterTypes;
+    // created by the first addBatch, so that single executions do not allocate a batch
+    private ParameterBatch parameterBatch;
     private final PolyphenyParameterMetaData parameterMetaData;
+    // used to prepare the statement again after a reconnect, null if unknown
+    private final String namespaceName;
+    private final String sql;
+    private final boolean isDataDefinition;
+    // the statement split by SqlUtils.splitSingleRowInsert if batches are rewritten, null otherwise
+    private final String[] singleRowInsert;
+    // ids of the statements inserting several rows at once by number of rows
+    private final Map<Integer, Integer> multiRowInsertIds = new HashMap<>();
+    private static final int DEFAULT_QUERIES_IN_FLIGHT = 32;
+
+    // buffers updates executed inside transactions, null if the connection does not use write behind
+    private final WriteBehind writeBehind;
+    // the executions started by executeQueryMany, null if there are none
+    private ResultSetIterator runningQueries;
 
 
     public PolyphenyPreparedStatement( PolyConnection connection, PolyphenyStatementProperties properties, PreparedStatementSignature statementSignature ) throws SQLException {
+        this( connection, properties, statementSignature, null, null );
+    }
+
+
+    public PolyphenyPreparedStatement( PolyConnection connection, PolyphenyStatementProperties properties, PreparedStatementSignature statementSignature, String namespaceName, String sql ) throws SQLException {
         super( connection, properties );
-        this.statementId = statementSignature.getStatementId();
+        this.namespaceName = namespaceName;
+        this.sql = sql;
+        this.isDataDefinition = SqlUtils.isDataDefinition( sql );
+        setStatementId( statementSignature.getStatementId() );
         this.parameterMetaData = new PolyphenyParameterMetaData( statementSignature );
-        this.parameters = createParameterList( statementSignature.getParameterMetasCount() );
+        this.parameters = new ParameterRow( statementSignature.getParameterMetasCount() );
+        this.parameterTypes = new int[parameterMetaData.getParameterCount()];
+        for ( int i = 0; i < parameterTypes.length; i++ ) {
+            parameterTypes[i] = parameterMetaData.getParameterType( i + 1 );
+        }
+        this.singleRowInsert = sql != null && connection.isRewriteBatchedInserts() ? SqlUtils.splitSingleRowInsert( sql ) : null;
+        this.writeBehind = connection.isWriteBehind() && SqlUtils.isDataModification( sql ) ? new WriteBehind( connection, parameterTypes, connection.getWriteBehindDelay() ) : null;
     }
 
 
@@ -71,8 +108,14 @@ private void prepareForReExecution() throws SQLException {
     }
 
 
-    private TypedValue[] createParameterList( int parameterCount ) {
-        return new TypedValue[parameterCount];
+    @Override
+    void sessionRestored() throws SQLException {
+        forgetServerState();
+        multiRowInsertIds.clear();
+        if ( sql == null ) {
+            return;
+        }
+        setStatementId( getClient().prepareIndexedStatement( namespaceName, PropertyUtils.getSQL_LANGUAGE_NAME(), sql, getTimeout() ).getStatementId() );
     }
 
 
@@ -151,13 +194,57 @@ public boolean execute( String s, String[] strings ) throws SQLException {
 
 
     @Override
-    public ResultSet executeQuery() throws SQLException {
+    public CompletableFuture<ResultSet> executeQueryAsync( String statement ) throws SQLException {
+        throw new PrismInterfaceServiceException( PrismInterfaceErrors.OPERATION_ILLEGAL, "Method should not be called on a prepared statement." );
+    }
+
+
+    @Override
+    public CompletableFuture<Long> executeUpdateAsync( String statement ) throws SQLException {
+        throw new PrismInterfaceServiceException( PrismInterfaceErrors.OPERATION_ILLEGAL, "Method should not be called on a prepared statement." );
+    }
+
+
+    private void invalidateMetaCacheIfDataDefinition() {
+        if ( isDataDefinition ) {
+            getPolyConnection().invalidateMetaCache();
+        }
+    }
+
+
+    /**
+     * Invalidates the cached metadata once an execution of a data definition statement has completed, whether it
+     * succeeded or not.
+     */
+    private <T> CompletableFuture<T> invalidatingMetaCache( CompletableFuture<T> response ) {
+        if ( !isDataDefinition ) {
+            return response;
+        }
+        return response.whenComplete( ( r, e ) -> invalidateMetaCacheIfDataDefinition() );
+    }
+
+
+    @Override
+    protected void beginExecution() throws SQLException {
+        throwIfExecuting();
+        if ( runningQueries != null ) {
+            runningQueries.close();
+        }
+        // the statement only exists on the server it was prepared on
+        ((PolyConnection) getConnection()).beginExecution( getClient() );
+    }
+
+
+    @Override
+    public synchronized ResultSet executeQuery() throws SQLException {
+        throwIfClosed();
+        throwIfExecuting();
         try {
-            throwIfClosed();
             prepareForReExecution();
+            beginExecution();
             StatementResult result = getClient().executeIndexedStatement(
                     statementId,
-                    Arrays.asList( parameters ),
+                    parameters,
                     properties.getFetchSize(),
                     getTimeout()
             );
@@ -169,20 +256,34 @@ public ResultSet executeQuery() throws SQLException {
             currentResult = new PolyphenyResultSet( this, frame, properties.toResultSetProperties() );
             return currentResult;
         } finally {
+            invalidateMetaCacheIfDataDefinition();
             clearParameters();
             clearParameterBatch();
         }
     }
 
 
+    /**
+     * With the {@code writebehind} connection property set, updates inside transactions are buffered and
+     * {@link java.sql.Statement#SUCCESS_NO_INFO} is returned, see {@link WriteBehind}. Failures of buffered updates
+     * are reported at the next commit, which then rolls back the transaction.
+     */
     @Override
-    public long executeLargeUpdate() throws SQLException {
+    public synchronized long executeLargeUpdate() throws SQLException {
+        throwIfClosed();
+        throwIfExecuting();
         try {
-            throwIfClosed();
             prepareForReExecution();
+            if ( writeBehind != null && !getPolyConnection().getAutoCommit() ) {
+                getPolyConnection().beginWriteBehind( getClient(), writeBehind );
+                writeBehind.add( parameters, getClient(), statementId );
+                currentUpdateCount = SUCCESS_NO_INFO;
+                return currentUpdateCount;
+            }
+            beginExecution();
             StatementResult result = getClient().executeIndexedStatement(
                     statementId,
-                    Arrays.asList( parameters ),
+                    parameters,
                     properties.getFetchSize(),
                     getTimeout()
             );
@@ -192,6 +293,7 @@ public long executeLargeUpdate() throws SQLException {
             currentUpdateCount = result.getScalar();
             return currentUpdateCount;
         } finally {
+            invalidateMetaCacheIfDataDefinition();
             clearParameters();
             clearParameterBatch();
         }
@@ -199,11 +301,172 @@ public long executeLargeUpdate() throws SQLException {
 
 
     @Override
-    public int executeUpdate() throws SQLException {
+    public synchronized int executeUpdate() throws SQLException {
         return longToInt( executeLargeUpdate() );
     }
 
 
+    /**
+     * Executes the query with the current parameters without blocking the calling thread, see
+     * {@link PolyphenyStatement#executeQueryAsync(String)}. The parameters are cleared once the request is sent.
+     *
+     * @return a future completed with the result set
+     * @throws SQLException if the statement is closed, still executing or the query could not be sent
+     */
+    public synchronized CompletableFuture<ResultSet> executeQueryAsync() throws SQLException {
+        throwIfClosed();
+        throwIfExecuting();
+        try {
+            return executeQueryAsync( parameters );
+        } finally {
+            clearParameters();
+            clearParameterBatch();
+        }
+    }
+
+
+    /**
+     * Executes the query with the given parameters without blocking the calling thread, see
+     * {@link #executeQueryAsync()}. The parameters of the statement are left untouched.
+     */
+    synchronized CompletableFuture<ResultSet> executeQueryAsync( ParameterRow row ) throws SQLException {
+        throwIfClosed();
+        throwIfExecuting();
+        prepareForReExecution();
+        beginExecution();
+        int id = statementId;
+        PrismInterfaceClient executedOn = getClient();
+        CompletableFuture<StatementResult> response = invalidatingMetaCache( executedOn.executeIndexedStatementAsync( id, row, properties.getFetchSize() ) );
+        return completeAsync( response, r -> {
+            if ( !r.hasFrame() ) {
+                throw new PrismInterfaceServiceException( PrismInterfaceErrors.RESULT_TYPE_INVALID, "Statement must produce a single ResultSet" );
+            }
+            Frame frame = r.getFrame();
+            throwIfNotRelational( frame );
+            currentResult = new PolyphenyResultSet( this, frame, properties.toResultSetProperties() );
+            return currentResult;
+        }, r -> {
+            if ( r.hasFrame() ) {
+                executedOn.closeResultDeferred( id );
+            }
+        } );
+    }
+
+
+    /**
+     * Sends an update with the given parameters. Unlike {@link #executeUpdateAsync()}, several updates of the
+     * statement may be in flight at once, as the update counts are not stored in the statement.
+     *
+     * @param row the parameters of the update
+     * @return a future completed with the update count on the thread reading the responses
+     * @throws SQLException if the statement is closed, executing asynchronously or the update could not be sent
+     */
+    synchronized CompletableFuture<Long> sendUpdate( ParameterRow row ) throws SQLException {
+        throwIfClosed();
+        throwIfExecuting();
+        prepareForReExecution();
+        beginExecution();
+        int id = statementId;
+        PrismInterfaceClient executedOn = getClient();
+        return invalidatingMetaCache( executedOn.executeIndexedStatementAsync( id, row, properties.getFetchSize() ) ).thenApply( r -> {
+            if ( r.hasFrame() ) {
+                executedOn.closeResultDeferred( id );
+                throw new CompletionException( new PrismInterfaceServiceException( PrismInterfaceErrors.RESULT_TYPE_INVALID, "Statement must not produce a ResultSet" ) );
+            }
+            return r.getScalar();
+        } );
+    }
+
+
+    ParameterRow newParameterRow() {
+        return new ParameterRow( parameterTypes.length );
+    }
+
+
+    /**
+     * Executes the query once per parameter set, see {@link #executeQueryMany(List, int)}. At most
+     * 32 executions are in flight at a time.
+     */
+    public ResultSetIterator executeQueryMany( List<Object[]> parameterSets ) throws SQLException {
+        return executeQueryMany( parameterSets, DEFAULT_QUERIES_IN_FLIGHT );
+    }
+
+
+    /**
+     * Executes the query once per parameter set, e.g. a point lookup for many keys. The executions are sent
+     * back-to-back while the results are consumed, so the lookups cost about one round trip plus the time the server
+     * needs. The parameters are converted right away like by {@link #setObject(int, Object)}, the parameters set on
+     * the statement are not used.
+     * <p>
+     * As the server keeps a single result per statement, a result not fitting into the first frame is only fetched
+     * completely by executing it again once the iterator reaches it. Executing the statement otherwise closes the
+     * iterator.
+     *
+     * @param parameterSets the values of all parameters for each execution
+     * @param maxInFlight the maximum number of executions sent but not yet returned by the iterator
+     * @return the result sets in the order of the parameter sets
+     * @throws SQLException if the statement is closed or the parameters do not match the statement
+     */
+    public synchronized ResultSetIterator executeQueryMany( List<Object[]> parameterSets, int maxInFlight ) throws SQLException {
+        throwIfClosed();
+        throwIfExecuting();
+        if ( maxInFlight < 1 ) {
+            throw new PrismInterfaceServiceException( PrismInterfaceErrors.VALUE_ILLEGAL, "Executions in flight must be positive: " + maxInFlight );
+        }
+        List<ParameterRow> rows = new ArrayList<>( parameterSets.size() );
+        for ( Object[] parameterSet : parameterSets ) {
+            if ( parameterSet.length != parameterTypes.length ) {
+                throw new PrismInterfaceServiceException( PrismInterfaceErrors.PARAMETER_NOT_EXISTS, "Expected " + parameterTypes.length + " parameters, got " + parameterSet.length );
+            }
+            ParameterRow row = newParameterRow();
+            for ( int i = 0; i < parameterSet.length; i++ ) {
+                row.setObject( i, parameterSet[i] );
+            }
+            rows.add( row );
+        }
+        if ( runningQueries != null ) {
+            runningQueries.close();
+        }
+        prepareForReExecution();
+        runningQueries = new ResultSetIterator( rows, maxInFlight );
+        return runningQueries;
+    }
+
+
+    /**
+     * Executes the statement with the current parameters without blocking the calling thread, see
+     * {@link PolyphenyStatement#executeQueryAsync(String)}. The parameters are cleared once the request is sent.
+     *
+     * @return a future completed with the update count
+     * @throws SQLException if the statement is closed, still executing or could not be sent
+     */
+    public synchronized CompletableFuture<Long> executeUpdateAsync() throws SQLException {
+        throwIfClosed();
+        throwIfExecuting();
+        try {
+            prepareForReExecution();
+            beginExecution();
+            int id = statementId;
+            PrismInterfaceClient executedOn = getClient();
+            CompletableFuture<StatementResult> response = invalidatingMetaCache( executedOn.executeIndexedStatementAsync( id, parameters, properties.getFetchSize() ) );
+            return completeAsync( response, r -> {
+                if ( r.hasFrame() ) {
+                    throw new PrismInterfaceServiceException( PrismInterfaceErrors.RESULT_TYPE_INVALID, "Statement must not produce a ResultSet" );
+                }
+                currentUpdateCount = r.getScalar();
+                return currentUpdateCount;
+            }, r -> {
+                if ( r.hasFrame() ) {
+                    executedOn.closeResultDeferred( id );
+                }
+            } );
+        } finally {
+            clearParameters();
+            clearParameterBatch();
+        }
+    }
+
+
     private void throwIfOutOfBounds( int parameterIndex ) throws SQLException {
         if ( parameterIndex < 1 ) {
             throw new PrismInterfaceServiceException( PrismInterfaceErrors.VALUE_ILLEGAL, "Index out of bounds." );
@@ -223,7 +486,7 @@ private int indexFromParameterIndex( int parameterIndex ) {
     public void setNull( int parameterIndex, int sqlType ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromNull();
+        parameters.setNull( indexFromParameterIndex( parameterIndex ) );
     }
 
 
@@ -231,7 +494,7 @@ public void setNull( int parameterIndex, int sqlType ) throws SQLException {
     public void setBoolean( int parameterIndex, boolean x ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromBoolean( x );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromBoolean( x ) );
     }
 
 
@@ -239,7 +502,7 @@ public void setBoolean( int parameterIndex, boolean x ) throws SQLException {
     public void setByte( int parameterIndex, byte x ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromByte( x );
+        parameters.setInteger( indexFromParameterIndex( parameterIndex ), x );
     }
 
 
@@ -247,7 +510,7 @@ public void setByte( int parameterIndex, byte x ) throws SQLException {
     public void setShort( int parameterIndex, short x ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromShort( x );
+        parameters.setInteger( indexFromParameterIndex( parameterIndex ), x );
     }
 
 
@@ -255,7 +518,7 @@ public void setShort( int parameterIndex, short x ) throws SQLException {
     public void setInt( int parameterIndex, int x ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromInteger( x );
+        parameters.setInteger( indexFromParameterIndex( parameterIndex ), x );
     }
 
 
@@ -263,7 +526,7 @@ public void setInt( int parameterIndex, int x ) throws SQLException {
     public void setLong( int parameterIndex, long x ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromLong( x );
+        parameters.setLong( indexFromParameterIndex( parameterIndex ), x );
     }
 
 
@@ -271,7 +534,7 @@ public void setLong( int parameterIndex, long x ) throws SQLException {
     public void setFloat( int parameterIndex, float x ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromFloat( x );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromFloat( x ) );
     }
 
 
@@ -279,7 +542,7 @@ public void setFloat( int parameterIndex, float x ) throws SQLException {
     public void setDouble( int parameterIndex, double x ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromDouble( x );
+        parameters.setDouble( indexFromParameterIndex( parameterIndex ), x );
     }
 
 
@@ -287,7 +550,7 @@ public void setDouble( int parameterIndex, double x ) throws SQLException {
     public void setBigDecimal( int parameterIndex, BigDecimal x ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromBigDecimal( x );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromBigDecimal( x ) );
     }
 
 
@@ -295,7 +558,7 @@ public void setBigDecimal( int parameterIndex, BigDecimal x ) throws SQLExceptio
     public void setString( int parameterIndex, String x ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromString( x );
+        parameters.setString( indexFromParameterIndex( parameterIndex ), x );
     }
 
 
@@ -303,7 +566,7 @@ public void setString( int parameterIndex, String x ) throws SQLException {
     public void setBytes( int parameterIndex, byte[] x ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromBytes( x );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromBytes( x ) );
     }
 
 
@@ -311,7 +574,7 @@ public void setBytes( int parameterIndex, byte[] x ) throws SQLException {
     public void setDate( int parameterIndex, Date x ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromDate( x );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromDate( x ) );
     }
 
 
@@ -319,7 +582,7 @@ public void setDate( int parameterIndex, Date x ) throws SQLException {
     public void setTime( int parameterIndex, Time x ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromTime( x );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromTime( x ) );
     }
 
 
@@ -327,7 +590,7 @@ public void setTime( int parameterIndex, Time x ) throws SQLException {
     public void setTimestamp( int parameterIndex, Timestamp x ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromTimestamp( x );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromTimestamp( x ) );
     }
 
 
@@ -335,7 +598,7 @@ public void setTimestamp( int parameterIndex, Timestamp x ) throws SQLException
     public void setAsciiStream( int parameterIndex, InputStream x, int length ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromAsciiStream( x, length );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromAsciiStream( x, length ) );
     }
 
 
@@ -343,7 +606,7 @@ public void setAsciiStream( int parameterIndex, InputStream x, int length ) thro
     public void setUnicodeStream( int parameterIndex, InputStream x, int length ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromUnicodeStream( x, length );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromUnicodeStream( x, length ) );
     }
 
 
@@ -351,19 +614,84 @@ public void setUnicodeStream( int parameterIndex, InputStream x, int length ) th
     public void setBinaryStream( int parameterIndex, InputStream x, int length ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromBinaryStream( x, length );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromBinaryStream( x, length ) );
     }
 
 
     @Override
-    public void clearParameters() throws SQLException {
+    public synchronized void clearParameters() throws SQLException {
         throwIfClosed();
-        parameters = createParameterList( parameterMetaData.getParameterCount() );
+        parameters.clear();
     }
 
 
     private void clearParameterBatch() {
-        parameterBatch = new LinkedList<>();
+        parameterBatch = null;
+    }
+
+
+    private ParameterBatch newParameterBatch() {
+        PolyConnection polyConnection = getPolyConnection();
+        if ( singleRowInsert == null ) {
+            return new ParameterBatch( parameterTypes, polyConnection.getBatchChunkBytes(), polyConnection.getBatchWindow() );
+        }
+        return new ParameterBatch(
+                parameterTypes,
+                polyConnection.getBatchChunkBytes(),
+                polyConnection.getBatchWindow(),
+                false,
+                this::prepareMultiRowInsert,
+                InsertRewriter.getMaxRows( parameterTypes.length )
+        );
+    }
+
+
+    /**
+     * Prepares the statement repeating the row of this insert, see {@link InsertRewriter}. Each number of rows is
+     * only prepared once.
+     */
+    private int prepareMultiRowInsert( int rows ) throws SQLException {
+        Integer id = multiRowInsertIds.get( rows );
+        if ( id == null ) {
+            String multiRowSql = InsertRewriter.repeatRow( singleRowInsert[0], singleRowInsert[1], rows );
+            id = getClient().prepareIndexedStatement( namespaceName, PropertyUtils.getSQL_LANGUAGE_NAME(), multiRowSql, getTimeout() ).getStatementId();
+            multiRowInsertIds.put( rows, id );
+        }
+        return id;
+    }
+
+
+    /**
+     * The result sets returned by a {@link ResultSetIterator} share the result on the server with the executions in
+     * flight, it is released once by the iterator.
+     */
+    @Override
+    public synchronized void notifyResultClosure() throws SQLException {
+        if ( runningQueries == null ) {
+            super.notifyResultClosure();
+            return;
+        }
+        currentResult = null;
+    }
+
+
+    @Override
+    public synchronized void close() throws SQLException {
+        if ( isClosed() ) {
+            return;
+        }
+        if ( runningQueries != null ) {
+            runningQueries.close();
+        }
+        if ( writeBehind != null ) {
+            // the updates belong to the running transaction
+            writeBehind.flush();
+        }
+        for ( int id : multiRowInsertIds.values() ) {
+            getClient().closeStatementDeferred( id );
+        }
+        multiRowInsertIds.clear();
+        super.close();
     }
 
 
@@ -371,7 +699,7 @@ private void clearParameterBatch() {
     public void setObject( int parameterIndex, Object x, int targetSqlType ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromObject( x, targetSqlType );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromObject( x, targetSqlType ) );
     }
 
 
@@ -379,18 +707,20 @@ public void setObject( int parameterIndex, Object x, int targetSqlType ) throws
     public void setObject( int parameterIndex, Object x ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromObject( x );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromObject( x ) );
     }
 
 
     @Override
-    public boolean execute() throws SQLException {
+    public synchronized boolean execute() throws SQLException {
+        throwIfClosed();
+        throwIfExecuting();
         try {
-            throwIfClosed();
             prepareForReExecution();
+            beginExecution();
             StatementResult result = getClient().executeIndexedStatement(
                     statementId,
-                    Arrays.asList( parameters ),
+                    parameters,
                     properties.getFetchSize(),
                     getTimeout()
             );
@@ -403,6 +733,7 @@ public boolean execute() throws SQLException {
             currentResult = new PolyphenyResultSet( this, frame, properties.toResultSetProperties() );
             return true;
         } finally {
+            invalidateMetaCacheIfDataDefinition();
             clearParameters();
             clearParameterBatch();
         }
@@ -410,14 +741,28 @@ public boolean execute() throws SQLException {
 
 
     @Override
-    public void addBatch() throws SQLException {
+    public synchronized void addBatch() throws SQLException {
         throwIfClosed();
-        parameterBatch.add( Arrays.asList( parameters.clone() ) );
+        try {
+            if ( parameterBatch == null ) {
+                parameterBatch = newParameterBatch();
+            }
+            parameterBatch.add( parameters );
+            if ( parameterBatch.isChunkFull() ) {
+                if ( !parameterBatch.isSent() ) {
+                    beginExecution();
+                }
+                parameterBatch.sendChunk( getClient(), statementId, getTimeout() );
+            }
+        } catch ( SQLException e ) {
+            clearParameterBatch();
+            throw e;
+        }
     }
 
 
     @Override
-    public long[] executeLargeBatch() throws SQLException {
+    public synchronized long[] executeLargeBatch() throws SQLException {
         List<Long> scalars = executeParameterizedBatch();
         long[] updateCounts = new long[scalars.size()];
         for ( int i = 0; i < scalars.size(); i++ ) {
@@ -428,7 +773,7 @@ public long[] executeLargeBatch() throws SQLException {
 
 
     @Override
-    public int[] executeBatch() throws SQLException {
+    public synchronized int[] executeBatch() throws SQLException {
         List<Long> scalars = executeParameterizedBatch();
         int[] updateCounts = new int[scalars.size()];
         for ( int i = 0; i < scalars.size(); i++ ) {
@@ -438,15 +783,47 @@ public int[] executeBatch() throws SQLException {
     }
 
 
+    /**
+     * Executes the parameter batch without blocking the calling thread, see
+     * {@link PolyphenyStatement#executeQueryAsync(String)}. The batch is cleared once the request is sent.
+     *
+     * @return a future completed with the update counts
+     * @throws SQLException if the statement is closed, still executing or the batch could not be sent
+     */
+    @Override
+    public synchronized CompletableFuture<long[]> executeBatchAsync() throws SQLException {
+        throwIfClosed();
+        throwIfExecuting();
+        try {
+            if ( parameterBatch == null || parameterBatch.isEmpty() ) {
+                return CompletableFuture.completedFuture( new long[0] );
+            }
+            if ( !parameterBatch.isSent() ) {
+                beginExecution();
+            }
+            CompletableFuture<List<Long>> response = invalidatingMetaCache( parameterBatch.finish( getClient(), statementId, getTimeout() ) );
+            return completeAsync( response, PolyphenyStatement::toLongArray, r -> {
+            } );
+        } finally {
+            clearParameters();
+            clearParameterBatch();
+        }
+    }
+
+
     private List<Long> executeParameterizedBatch() throws SQLException {
         throwIfClosed();
+        throwIfExecuting();
         try {
-            if ( parameterBatch.isEmpty() ) {
+            if ( parameterBatch == null || parameterBatch.isEmpty() ) {
                 return new ArrayList<>();
             }
-            StatementBatchResponse status = getClient().executeIndexedStatementBatch( statementId, parameterBatch, getTimeout() );
-            return status.getScalarsList();
+            if ( !parameterBatch.isSent() ) {
+                beginExecution();
+            }
+            return Futures.await( parameterBatch.finish( getClient(), statementId, getTimeout() ), getTimeout() );
         } finally {
+            invalidateMetaCacheIfDataDefinition();
             // jdbc: batch and individual parameters are always cleared even in the execution fails.
             clearParameters();
             clearParameterBatch();
@@ -465,7 +842,7 @@ public void setCharacterStream( int parameterIndex, Reader reader, int length )
     public void setRef( int parameterIndex, Ref x ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromRef( x );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromRef( x ) );
     }
 
 
@@ -473,7 +850,7 @@ public void setRef( int parameterIndex, Ref x ) throws SQLException {
     public void setBlob( int parameterIndex, Blob x ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromBlob( x );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromBlob( x ) );
     }
 
 
@@ -481,7 +858,7 @@ public void setBlob( int parameterIndex, Blob x ) throws SQLException {
     public void setClob( int parameterIndex, Clob x ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromClob( x );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromClob( x ) );
     }
 
 
@@ -489,7 +866,7 @@ public void setClob( int parameterIndex, Clob x ) throws SQLException {
     public void setArray( int parameterIndex, Array x ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromArray( x );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromArray( x ) );
     }
 
 
@@ -503,7 +880,7 @@ public ResultSetMetaData getMetaData() throws SQLException {
     public void setDate( int parameterIndex, Date x, Calendar cal ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromDate( x, cal );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromDate( x, cal ) );
     }
 
 
@@ -511,7 +888,7 @@ public void setDate( int parameterIndex, Date x, Calendar cal ) throws SQLExcept
     public void setTime( int parameterIndex, Time x, Calendar cal ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromTime( x, cal );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromTime( x, cal ) );
     }
 
 
@@ -519,7 +896,7 @@ public void setTime( int parameterIndex, Time x, Calendar cal ) throws SQLExcept
     public void setTimestamp( int parameterIndex, Timestamp x, Calendar cal ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromTimestamp( x, cal );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromTimestamp( x, cal ) );
     }
 
 
@@ -527,7 +904,7 @@ public void setTimestamp( int parameterIndex, Timestamp x, Calendar cal ) throws
     public void setNull( int parameterIndex, int sqlType, String typeName ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromNull();
+        parameters.setNull( indexFromParameterIndex( parameterIndex ) );
     }
 
 
@@ -535,7 +912,7 @@ public void setNull( int parameterIndex, int sqlType, String typeName ) throws S
     public void setURL( int parameterIndex, URL x ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromUrl( x );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromUrl( x ) );
     }
 
 
@@ -549,7 +926,7 @@ public ParameterMetaData getParameterMetaData() throws SQLException {
     public void setRowId( int parameterIndex, RowId x ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromRowId( x );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromRowId( x ) );
     }
 
 
@@ -557,7 +934,7 @@ public void setRowId( int parameterIndex, RowId x ) throws SQLException {
     public void setNString( int parameterIndex, String value ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromNString( value );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromNString( value ) );
     }
 
 
@@ -565,7 +942,7 @@ public void setNString( int parameterIndex, String value ) throws SQLException {
     public void setNCharacterStream( int parameterIndex, Reader value, long length ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromNCharacterStream( value );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromNCharacterStream( value ) );
     }
 
 
@@ -573,7 +950,7 @@ public void setNCharacterStream( int parameterIndex, Reader value, long length )
     public void setNClob( int parameterIndex, NClob value ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromNClob( value );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromNClob( value ) );
     }
 
 
@@ -581,7 +958,7 @@ public void setNClob( int parameterIndex, NClob value ) throws SQLException {
     public void setClob( int parameterIndex, Reader reader, long length ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromClob( reader, length );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromClob( reader, length ) );
     }
 
 
@@ -589,7 +966,7 @@ public void setClob( int parameterIndex, Reader reader, long length ) throws SQL
     public void setBlob( int parameterIndex, InputStream inputStream, long length ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromBlob( inputStream, length );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromBlob( inputStream, length ) );
     }
 
 
@@ -597,7 +974,7 @@ public void setBlob( int parameterIndex, InputStream inputStream, long length )
     public void setNClob( int parameterIndex, Reader reader, long length ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromNClob( reader, length );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromNClob( reader, length ) );
     }
 
 
@@ -605,7 +982,7 @@ public void setNClob( int parameterIndex, Reader reader, long length ) throws SQ
     public void setSQLXML( int parameterIndex, SQLXML xmlObject ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromSQLXML( xmlObject );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromSQLXML( xmlObject ) );
     }
 
 
@@ -613,7 +990,7 @@ public void setSQLXML( int parameterIndex, SQLXML xmlObject ) throws SQLExceptio
     public void setObject( int parameterIndex, Object x, int targetSqlType, int scaleOrLength ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromObject( x, targetSqlType, scaleOrLength );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromObject( x, targetSqlType, scaleOrLength ) );
     }
 
 
@@ -621,7 +998,7 @@ public void setObject( int parameterIndex, Object x, int targetSqlType, int scal
     public void setAsciiStream( int parameterIndex, InputStream x, long length ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromAsciiStream( x, length );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromAsciiStream( x, length ) );
     }
 
 
@@ -629,7 +1006,7 @@ public void setAsciiStream( int parameterIndex, InputStream x, long length ) thr
     public void setBinaryStream( int parameterIndex, InputStream x, long length ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromBinaryStream( x, length );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromBinaryStream( x, length ) );
     }
 
 
@@ -637,7 +1014,7 @@ public void setBinaryStream( int parameterIndex, InputStream x, long length ) th
     public void setCharacterStream( int parameterIndex, Reader reader, long length ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromCharacterStream( reader, length );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromCharacterStream( reader, length ) );
     }
 
 
@@ -645,7 +1022,7 @@ public void setCharacterStream( int parameterIndex, Reader reader, long length )
     public void setAsciiStream( int parameterIndex, InputStream x ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromAsciiStream( x );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromAsciiStream( x ) );
     }
 
 
@@ -653,7 +1030,7 @@ public void setAsciiStream( int parameterIndex, InputStream x ) throws SQLExcept
     public void setBinaryStream( int parameterIndex, InputStream x ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromBinaryStream( x );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromBinaryStream( x ) );
     }
 
 
@@ -661,7 +1038,7 @@ public void setBinaryStream( int parameterIndex, InputStream x ) throws SQLExcep
     public void setCharacterStream( int parameterIndex, Reader reader ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromCharacterStream( reader );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromCharacterStream( reader ) );
     }
 
 
@@ -669,7 +1046,7 @@ public void setCharacterStream( int parameterIndex, Reader reader ) throws SQLEx
     public void setNCharacterStream( int parameterIndex, Reader value ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromNCharacterStream( value );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromNCharacterStream( value ) );
     }
 
 
@@ -677,7 +1054,7 @@ public void setNCharacterStream( int parameterIndex, Reader value ) throws SQLEx
     public void setClob( int parameterIndex, Reader reader ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromClob( reader );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromClob( reader ) );
     }
 
 
@@ -685,7 +1062,7 @@ public void setClob( int parameterIndex, Reader reader ) throws SQLException {
     public void setBlob( int parameterIndex, InputStream inputStream ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromBlob( inputStream );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromBlob( inputStream ) );
     }
 
 
@@ -693,7 +1070,104 @@ public void setBlob( int parameterIndex, InputStream inputStream ) throws SQLExc
     public void setNClob( int parameterIndex, Reader reader ) throws SQLException {
         throwIfClosed();
         throwIfOutOfBounds( parameterIndex );
-        parameters[indexFromParameterIndex( parameterIndex )] = TypedValue.fromNClob( reader );
+        parameters.setValue( indexFromParameterIndex( parameterIndex ), TypedValue.fromNClob( reader ) );
+    }
+
+
+    /**
+     * The results of {@link #executeQueryMany(List, int)}. A result set stays open until the next one is requested or
+     * the iterator is closed.
+     */
+    public class ResultSetIterator implements AutoCloseable {
+
+        private final List<ParameterRow> rows;
+        private final int maxInFlight;
+        private final Deque<CompletableFuture<StatementResult>> inFlight = new ArrayDeque<>();
+        private int sentRows;
+        private int returnedRows;
+        private boolean isClosed;
+
+
+        private ResultSetIterator( List<ParameterRow> rows, int maxInFlight ) {
+            this.rows = rows;
+            this.maxInFlight = maxInFlight;
+        }
+
+
+        public boolean hasNext() {
+            return !isClosed && returnedRows < rows.size();
+        }
+
+
+        /**
+         * Closes the previous result set and returns the next one.
+         *
+         * @return the result of the next parameter set
+         * @throws SQLException if there is no further result or the execution failed
+         */
+        public ResultSet next() throws SQLException {
+            synchronized ( PolyphenyPreparedStatement.this ) {
+                throwIfClosed();
+                if ( !hasNext() ) {
+                    throw new PrismInterfaceServiceException( PrismInterfaceErrors.OPERATION_ILLEGAL, "No further results" );
+                }
+                prepareForReExecution();
+                send();
+                ParameterRow row = rows.get( returnedRows++ );
+                StatementResult result = Futures.await( inFlight.poll(), getTimeout() );
+                if ( result.hasFrame() && !result.getFrame().getIsLast() ) {
+                    // later executions replace the result on the server, so it is executed again once they are done
+                    for ( CompletableFuture<StatementResult> pending : inFlight ) {
+                        Futures.await( pending, getTimeout() );
+                    }
+                    result = getClient().executeIndexedStatement( statementId, row, properties.getFetchSize(), getTimeout() );
+                }
+                if ( !result.hasFrame() ) {
+                    throw new PrismInterfaceServiceException( PrismInterfaceErrors.RESULT_TYPE_INVALID, "Statement must produce a single ResultSet" );
+                }
+                Frame frame = result.getFrame();
+                throwIfNotRelational( frame );
+                currentResult = new PolyphenyResultSet( PolyphenyPreparedStatement.this, frame, properties.toResultSetProperties() );
+                return currentResult;
+            }
+        }
+
+
+        private void send() throws SQLException {
+            if ( sentRows == rows.size() || inFlight.size() >= maxInFlight ) {
+                return;
+            }
+            throwIfExecuting();
+            getPolyConnection().beginExecution( getClient() );
+            while ( sentRows < rows.size() && inFlight.size() < maxInFlight ) {
+                inFlight.add( getClient().executeIndexedStatementAsync( statementId, rows.get( sentRows++ ), properties.getFetchSize() ) );
+            }
+        }
+
+
+        /**
+         * Closes the current result set and releases the result on the server once the executions still in flight
+         * have returned.
+         */
+        @Override
+        public void close() throws SQLException {
+            synchronized ( PolyphenyPreparedStatement.this ) {
+                if ( isClosed ) {
+                    return;
+                }
+                isClosed = true;
+                prepareForReExecution();
+                runningQueries = null;
+                if ( sentRows == 0 ) {
+                    return;
+                }
+                PrismInterfaceClient executedOn = getClient();
+                int id = statementId;
+                CompletableFuture.allOf( inFlight.toArray( new CompletableFuture[0] ) ).whenComplete( ( r, e ) -> executedOn.closeResultDeferred( id ) );
+                inFlight.clear();
+            }
+        }
+
     }
 
 }
@@ -24,11 +24,18 @@
 import java.sql.Statement;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import lombok.Getter;
 import org.polypheny.jdbc.properties.PolyphenyStatementProperties;
 import org.polypheny.jdbc.properties.PropertyUtils;
 import org.polypheny.jdbc.utils.CallbackQueue;
+import org.polypheny.jdbc.utils.Futures;
+import org.polypheny.jdbc.utils.SqlUtils;
 import org.polypheny.prism.ExecuteUnparameterizedStatementRequest;
 import org.polypheny.prism.Frame;
 import org.polypheny.prism.Frame.ResultCase;
@@ -38,14 +45,25 @@
 
 public class PolyphenyStatement implements Statement {
 
+    // completes asynchronous executions, keeping the processing of results off the thread reading responses
+    private static final ExecutorService ASYNC_COMPLETION = Executors.newCachedThreadPool( r -> {
+        Thread t = new Thread( r, "PolyphenyAsyncCompletion" );
+        t.setDaemon( true );
+        return t;
+    } );
+
     @Getter
     private PolyConnection polyConnection;
+    // the connection to the server the statement was last executed on
+    private volatile PrismInterfaceClient client;
     protected ResultSet currentResult;
     protected long currentUpdateCount;
+    // Executions of a statement are serialized, different statements of a connection run concurrently.
+    // The statement id is replaced concurrently when the session is restored after a reconnect.
     @Getter
-    protected int statementId;
+    protected volatile int statementId;
 
-    private boolean isClosed;
+    private volatile boolean isClosed;
     protected PolyphenyStatementProperties properties;
 
     // Value used to represent that no value is set for the update count according to JDBC.
@@ -54,14 +72,22 @@ public class PolyphenyStatement implements Statement {
 
     protected List<String> statementBatch;
 
+    // releases the server side state should the statement be garbage collected without having been closed
+    private final StatementReaper.Handle leakHandle;
+
+    // the last asynchronous execution, a statement runs one execution at a time
+    private volatile CompletableFuture<?> asyncExecution;
+
 
     public PolyphenyStatement( PolyConnection connection, PolyphenyStatementProperties properties ) throws SQLException {
         this.polyConnection = connection;
+        this.client = connection.getPrismInterfaceClient();
         this.properties = properties;
         this.isClosed = false;
         this.statementBatch = new LinkedList<>();
         this.properties.setPolyphenyStatement( this );
-        this.statementId = NO_STATEMENT_ID;
+        this.leakHandle = StatementReaper.register( this, connection.getLeakStatistics(), connection.isLeakTracing() );
+        setStatementId( NO_STATEMENT_ID );
         this.currentResult = null;
     }
 
@@ -72,7 +98,13 @@ public boolean hasStatementId() {
 
 
     protected PrismInterfaceClient getClient() {
-        return polyConnection.getPrismInterfaceClient();
+        return client;
+    }
+
+
+    protected void setStatementId( int statementId ) {
+        this.statementId = statementId;
+        leakHandle.update( client, statementId );
     }
 
 
@@ -87,15 +119,22 @@ private void prepareForReExecution() throws SQLException {
         }
         currentUpdateCount = NO_UPDATE_COUNT;
         if ( statementId != NO_STATEMENT_ID ) {
-            getClient().closeStatement( statementId, getTimeout() );
-            statementId = NO_STATEMENT_ID;
+            getClient().closeStatementDeferred( statementId );
+            setStatementId( NO_STATEMENT_ID );
         }
     }
 
 
-    public void notifyResultClosure() throws SQLException {
+    private void invalidateMetaCacheIfDataDefinition( String statement ) {
+        if ( SqlUtils.isDataDefinition( statement ) ) {
+            polyConnection.invalidateMetaCache();
+        }
+    }
+
+
+    public synchronized void notifyResultClosure() throws SQLException {
         this.currentResult = null;
-        getClient().closeResult( statementId, getTimeout() );
+        getClient().closeResultDeferred( statementId );
         if ( isCloseOnCompletion() ) {
             close();
         }
@@ -103,21 +142,105 @@ public void notifyResultClosure() throws SQLException {
 
 
     @Override
-    public void close() throws SQLException {
+    public synchronized void close() throws SQLException {
         if ( isClosed ) {
             return;
         }
         polyConnection.endTracking( this );
         prepareForReExecution();
+        leakHandle.closed();
         isClosed = true;
     }
 
 
+    /**
+     * Must be called right before a statement is sent. The statement is executed on the server new statements of the
+     * connection are currently sent to and is bound to it until it is executed again.
+     */
+    protected void beginExecution() throws SQLException {
+        throwIfExecuting();
+        client = polyConnection.getPrismInterfaceClient();
+        polyConnection.beginExecution( client );
+    }
+
+
+    /**
+     * Called after the connection to the server the statement is bound to has been restored. The statement is
+     * unknown to the new server process.
+     */
+    void sessionRestored() throws SQLException {
+        forgetServerState();
+    }
+
+
+    protected void forgetServerState() {
+        currentResult = null;
+        currentUpdateCount = NO_UPDATE_COUNT;
+        setStatementId( NO_STATEMENT_ID );
+    }
+
+
     protected int getTimeout() throws SQLException {
         return Math.min( getConnection().getNetworkTimeout(), properties.getQueryTimeoutSeconds() * 1000 );
     }
 
 
+    protected void throwIfExecuting() throws SQLException {
+        CompletableFuture<?> running = asyncExecution;
+        if ( running != null && !running.isDone() ) {
+            throw new PrismInterfaceServiceException( PrismInterfaceErrors.OPERATION_ILLEGAL, "Statement is still executing asynchronously" );
+        }
+    }
+
+
+    /**
+     * Completes the future of an asynchronous execution once the response has arrived. The response is processed
+     * with the statement locked, on a driver thread other than the one reading responses. A response arriving after
+     * the future was cancelled or the statement was closed is discarded.
+     *
+     * @param response the pending response
+     * @param onResponse turns the response into the result of the execution
+     * @param discard releases the server side state of a discarded response
+     * @return the future of the execution
+     */
+    protected <R, T> CompletableFuture<T> completeAsync( CompletableFuture<R> response, AsyncStep<R, T> onResponse, Consumer<R> discard ) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        asyncExecution = result;
+        response.whenCompleteAsync( ( r, e ) -> {
+            if ( e != null ) {
+                result.completeExceptionally( e instanceof CompletionException && e.getCause() != null ? e.getCause() : e );
+                return;
+            }
+            T value;
+            synchronized ( this ) {
+                if ( result.isDone() || isClosed ) {
+                    discard.accept( r );
+                    // does nothing if the future was cancelled
+                    result.completeExceptionally( new PrismInterfaceServiceException( PrismInterfaceErrors.OPERATION_ILLEGAL, "Statement closed during execution" ) );
+                    return;
+                }
+                try {
+                    value = onResponse.apply( r );
+                } catch ( SQLException | RuntimeException ex ) {
+                    result.completeExceptionally( ex );
+                    return;
+                }
+            }
+            result.complete( value );
+        }, ASYNC_COMPLETION );
+        return result;
+    }
+
+
+    protected static long[] toLongArray( List<Long> values ) {
+        long[] array = new long[values.size()];
+        for ( int i = 0; i < values.size(); i++ ) {
+            array[i] = values.get( i );
+        }
+        return array;
+    }
+
+
     protected void throwIfClosed() throws SQLException {
         if ( isClosed ) {
             throw new PrismInterfaceServiceException( PrismInterfaceErrors.OPERATION_ILLEGAL, "Illegal operation for a closed statement" );
@@ -134,63 +257,220 @@ protected void throwIfNotRelational( Frame frame ) throws SQLException {
 
 
     @Override
-    public ResultSet executeQuery( String statement ) throws SQLException {
+    public synchronized ResultSet executeQuery( String statement ) throws SQLException {
         throwIfClosed();
+        throwIfExecuting();
         clearBatch();
         prepareForReExecution();
-        CallbackQueue<StatementResponse> callback = new CallbackQueue<>( Response::getStatementResponse );
         String namespaceName = getConnection().getSchema();
+        try {
+            if ( canHedge() ) {
+                return executeQueryHedged( namespaceName, statement );
+            }
+            beginExecution();
+            int generation = getClient().getGeneration();
+            try {
+                return executeQueryOnce( namespaceName, statement );
+            } catch ( PrismInterfaceServiceException e ) {
+                // Read-only queries outside of transactions can safely be repeated once the connection is restored.
+                if ( !polyConnection.isReadOnly() || !polyConnection.getAutoCommit() || !getClient().awaitReconnect( generation, getTimeout() ) ) {
+                    throw e;
+                }
+                forgetServerState();
+                beginExecution();
+                return executeQueryOnce( namespaceName, statement );
+            }
+        } finally {
+            invalidateMetaCacheIfDataDefinition( statement );
+        }
+    }
+
+
+    private ResultSet executeQueryOnce( String namespaceName, String statement ) throws SQLException {
+        CallbackQueue<StatementResponse> callback = new CallbackQueue<>( Response::getStatementResponse );
         getClient().executeUnparameterizedStatement( namespaceName, PropertyUtils.getSQL_LANGUAGE_NAME(), statement, callback, getTimeout() );
+        StatementResponse response = takeResult( callback );
+        if ( !response.getResult().hasFrame() ) {
+            throw new PrismInterfaceServiceException( PrismInterfaceErrors.RESULT_TYPE_INVALID, "Statement must produce a single ResultSet" );
+        }
+        Frame frame = response.getResult().getFrame();
+        throwIfNotRelational( frame );
+        currentResult = new PolyphenyResultSet( this, frame, properties.toResultSetProperties() );
+        return currentResult;
+    }
+
+
+    /**
+     * Waits for the response carrying the result of an execution. The result set is built from the first frame right
+     * away, messages the server sends after the result are consumed by the queue in the background. As nothing reads
+     * the queue afterward, an error response arriving after the result is dropped silently; the execution has already
+     * succeeded from the point of view of the caller.
+     */
+    private StatementResponse takeResult( CallbackQueue<StatementResponse> callback ) throws PrismInterfaceServiceException {
         while ( true ) {
             StatementResponse response = callback.takeNext();
             if ( !hasStatementId() ) {
-                statementId = response.getStatementId();
+                setStatementId( response.getStatementId() );
             }
-            if ( !response.hasResult() ) {
-                continue;
+            if ( response.hasResult() ) {
+                return response;
             }
-            try {
-                callback.awaitCompletion();
-            } catch ( InterruptedException e ) {
-                throw new PrismInterfaceServiceException( PrismInterfaceErrors.DRIVER_THREADING_ERROR, "Awaiting completion of api call failed.", e );
-            }
-            if ( !response.getResult().hasFrame() ) {
+        }
+    }
+
+
+    /**
+     * Executes a query without blocking the calling thread. As requests are multiplexed over the connection, a single
+     * thread can keep many queries in flight using one statement per query. The future completes on a driver thread
+     * and may be cancelled, in which case the result is released on the server once it arrives. The query timeout
+     * does not apply, use {@link CompletableFuture#get(long, java.util.concurrent.TimeUnit)} instead.
+     *
+     * @param statement the query
+     * @return a future completed with the result set
+     * @throws SQLException if the statement is closed, still executing or the query could not be sent
+     */
+    public synchronized CompletableFuture<ResultSet> executeQueryAsync( String statement ) throws SQLException {
+        throwIfClosed();
+        throwIfExecuting();
+        clearBatch();
+        prepareForReExecution();
+        String namespaceName = getConnection().getSchema();
+        beginExecution();
+        PrismInterfaceClient executedOn = getClient();
+        // the schema might have changed even if the execution failed or its result is discarded
+        CompletableFuture<StatementResponse> response = executedOn.executeUnparameterizedStatementAsync( namespaceName, PropertyUtils.getSQL_LANGUAGE_NAME(), statement )
+                .whenComplete( ( r, e ) -> invalidateMetaCacheIfDataDefinition( statement ) );
+        return completeAsync( response, r -> {
+            setStatementId( r.getStatementId() );
+            if ( !r.getResult().hasFrame() ) {
                 throw new PrismInterfaceServiceException( PrismInterfaceErrors.RESULT_TYPE_INVALID, "Statement must produce a single ResultSet" );
             }
-            Frame frame = response.getResult().getFrame();
+            Frame frame = r.getResult().getFrame();
             throwIfNotRelational( frame );
             currentResult = new PolyphenyResultSet( this, frame, properties.toResultSetProperties() );
             return currentResult;
-        }
+        }, r -> executedOn.closeStatementDeferred( r.getStatementId() ) );
     }
 
 
-    @Override
-    public int executeUpdate( String statement ) throws SQLException {
+    /**
+     * Executes a statement not producing a result set without blocking the calling thread, see
+     * {@link #executeQueryAsync(String)}.
+     *
+     * @param statement the statement
+     * @return a future completed with the update count
+     * @throws SQLException if the statement is closed, still executing or could not be sent
+     */
+    public synchronized CompletableFuture<Long> executeUpdateAsync( String statement ) throws SQLException {
         throwIfClosed();
+        throwIfExecuting();
         clearBatch();
         prepareForReExecution();
-        CallbackQueue<StatementResponse> callback = new CallbackQueue<>( Response::getStatementResponse );
         String namespaceName = getConnection().getSchema();
-        getClient().executeUnparameterizedStatement( namespaceName, PropertyUtils.getSQL_LANGUAGE_NAME(), statement, callback, getTimeout() );
-        while ( true ) {
-            StatementResponse response = callback.takeNext();
-            if ( !hasStatementId() ) {
-                statementId = response.getStatementId();
+        beginExecution();
+        PrismInterfaceClient executedOn = getClient();
+        // the schema might have changed even if the execution failed or its result is discarded
+        CompletableFuture<StatementResponse> response = executedOn.executeUnparameterizedStatementAsync( namespaceName, PropertyUtils.getSQL_LANGUAGE_NAME(), statement )
+                .whenComplete( ( r, e ) -> invalidateMetaCacheIfDataDefinition( statement ) );
+        return completeAsync( response, r -> {
+            setStatementId( r.getStatementId() );
+            if ( r.getResult().hasFrame() ) {
+                throw new PrismInterfaceServiceException( PrismInterfaceErrors.RESULT_TYPE_INVALID, "Statement must not produce a ResultSet" );
             }
-            if ( !response.hasResult() ) {
-                continue;
+            currentUpdateCount = r.getResult().getScalar();
+            return currentUpdateCount;
+        }, r -> executedOn.closeStatementDeferred( r.getStatementId() ) );
+    }
+
+
+    /**
+     * Executes the batch without blocking the calling thread, see {@link #executeQueryAsync(String)}.
+     *
+     * @return a future completed with the update counts
+     * @throws SQLException if the statement is closed, still executing or the batch could not be sent
+     */
+    public synchronized CompletableFuture<long[]> executeBatchAsync() throws SQLException {
+        throwIfClosed();
+        throwIfExecuting();
+        prepareForReExecution();
+        boolean isDataDefinition = statementBatch.stream().anyMatch( SqlUtils::isDataDefinition );
+        InsertRewriter.Batch batch = rewriteBatch();
+        List<ExecuteUnparameterizedStatementRequest> requests = buildBatchRequest( batch.getStatements() );
+        clearBatch();
+        beginExecution();
+        PrismInterfaceClient executedOn = getClient();
+        CompletableFuture<StatementBatchResponse> response = newBatchChunker( requests ).execute().whenComplete( ( r, e ) -> {
+            if ( isDataDefinition ) {
+                polyConnection.invalidateMetaCache();
             }
-            try {
-                callback.awaitCompletion();
-            } catch ( InterruptedException e ) {
-                throw new PrismInterfaceServiceException( PrismInterfaceErrors.DRIVER_THREADING_ERROR, "Awaiting completion of api call failed.", e );
+        } );
+        return completeAsync( response, r -> {
+            setStatementId( r.getBatchId() );
+            return toLongArray( batch.toOriginalUpdateCounts( r.getScalarsList() ) );
+        }, r -> {
+            if ( r.getBatchId() != NO_STATEMENT_ID ) {
+                executedOn.closeStatementDeferred( r.getBatchId() );
             }
+        } );
+    }
+
+
+    private BatchChunker newBatchChunker( List<ExecuteUnparameterizedStatementRequest> requests ) {
+        return new BatchChunker( getClient(), requests, polyConnection.getBatchChunkSize(), polyConnection.getBatchChunkBytes(), polyConnection.getBatchWindow(), ASYNC_COMPLETION );
+    }
+
+
+    /**
+     * Read-only queries outside of transactions are idempotent and may be executed on two servers, see {@link Hedger}.
+     */
+    private boolean canHedge() throws SQLException {
+        return polyConnection.isReadOnly() && polyConnection.getAutoCommit() && polyConnection.getPrismInterfaceClient().getHedger() != null;
+    }
+
+
+    private ResultSet executeQueryHedged( String namespaceName, String statement ) throws SQLException {
+        beginExecution();
+        polyConnection.flushSessionState( client.getHedger().getHedgeClient() );
+        CompletableFuture<Hedger.Outcome<StatementResponse>> future = client.executeQueryHedged( namespaceName, PropertyUtils.getSQL_LANGUAGE_NAME(), statement );
+        Hedger.Outcome<StatementResponse> outcome;
+        try {
+            outcome = Futures.await( future, getTimeout() );
+        } catch ( PrismInterfaceServiceException e ) {
+            // a reply arriving after the timeout is not used
+            future.thenAccept( o -> o.getClient().closeStatementDeferred( o.getValue().getStatementId() ) );
+            throw e;
+        }
+        client = outcome.getClient();
+        setStatementId( outcome.getValue().getStatementId() );
+        if ( !outcome.getValue().getResult().hasFrame() ) {
+            throw new PrismInterfaceServiceException( PrismInterfaceErrors.RESULT_TYPE_INVALID, "Statement must produce a single ResultSet" );
+        }
+        Frame frame = outcome.getValue().getResult().getFrame();
+        throwIfNotRelational( frame );
+        currentResult = new PolyphenyResultSet( this, frame, properties.toResultSetProperties() );
+        return currentResult;
+    }
+
+
+    @Override
+    public synchronized int executeUpdate( String statement ) throws SQLException {
+        throwIfClosed();
+        throwIfExecuting();
+        clearBatch();
+        prepareForReExecution();
+        CallbackQueue<StatementResponse> callback = new CallbackQueue<>( Response::getStatementResponse );
+        String namespaceName = getConnection().getSchema();
+        try {
+            beginExecution();
+            getClient().executeUnparameterizedStatement( namespaceName, PropertyUtils.getSQL_LANGUAGE_NAME(), statement, callback, getTimeout() );
+            StatementResponse response = takeResult( callback );
             if ( response.getResult().hasFrame() ) {
                 throw new PrismInterfaceServiceException( PrismInterfaceErrors.RESULT_TYPE_INVALID, "Statement must not produce a ResultSet" );
             }
             currentUpdateCount = response.getResult().getScalar();
             return longToInt( currentUpdateCount );
+        } finally {
+            invalidateMetaCacheIfDataDefinition( statement );
         }
     }
 
@@ -286,26 +566,17 @@ public void setCursorName( String s ) throws SQLException {
 
 
     @Override
-    public boolean execute( String statement ) throws SQLException {
+    public synchronized boolean execute( String statement ) throws SQLException {
         throwIfClosed();
+        throwIfExecuting();
         clearBatch();
         prepareForReExecution();
         CallbackQueue<StatementResponse> callback = new CallbackQueue<>( Response::getStatementResponse );
         String namespaceName = getConnection().getSchema();
-        getClient().executeUnparameterizedStatement( namespaceName, PropertyUtils.getSQL_LANGUAGE_NAME(), statement, callback, getTimeout() );
-        while ( true ) {
-            StatementResponse response = callback.takeNext();
-            if ( !hasStatementId() ) {
-                statementId = response.getStatementId();
-            }
-            if ( !response.hasResult() ) {
-                continue;
-            }
-            try {
-                callback.awaitCompletion();
-            } catch ( InterruptedException e ) {
-                throw new PrismInterfaceServiceException( PrismInterfaceErrors.DRIVER_THREADING_ERROR, "Awaiting completion of api call failed.", e );
-            }
+        try {
+            beginExecution();
+            getClient().executeUnparameterizedStatement( namespaceName, PropertyUtils.getSQL_LANGUAGE_NAME(), statement, callback, getTimeout() );
+            StatementResponse response = takeResult( callback );
             if ( !response.getResult().hasFrame() ) {
                 currentUpdateCount = longToInt( response.getResult().getScalar() );
                 return false;
@@ -314,6 +585,8 @@ public boolean execute( String statement ) throws SQLException {
             throwIfNotRelational( frame );
             currentResult = new PolyphenyResultSet( this, frame, properties.toResultSetProperties() );
             return true;
+        } finally {
+            invalidateMetaCacheIfDataDefinition( statement );
         }
     }
 
@@ -390,14 +663,14 @@ public int getResultSetType() throws SQLException {
 
 
     @Override
-    public void addBatch( String sql ) throws SQLException {
+    public synchronized void addBatch( String sql ) throws SQLException {
         throwIfClosed();
         statementBatch.add( sql );
     }
 
 
     @Override
-    public void clearBatch() throws SQLException {
+    public synchronized void clearBatch() throws SQLException {
         if ( statementBatch.isEmpty() ) {
             return;
         }
@@ -406,7 +679,7 @@ public void clearBatch() throws SQLException {
 
 
     @Override
-    public long[] executeLargeBatch() throws SQLException {
+    public synchronized long[] executeLargeBatch() throws SQLException {
         List<Long> scalars = executeUnparameterizedBatch();
         long[] updateCounts = new long[scalars.size()];
         for ( int i = 0; i < scalars.size(); i++ ) {
@@ -417,7 +690,7 @@ public long[] executeLargeBatch() throws SQLException {
 
 
     @Override
-    public int[] executeBatch() throws SQLException {
+    public synchronized int[] executeBatch() throws SQLException {
         List<Long> scalars = executeUnparameterizedBatch();
         int[] updateCounts = new int[scalars.size()];
         for ( int i = 0; i < scalars.size(); i++ ) {
@@ -428,37 +701,47 @@ public int[] executeBatch() throws SQLException {
 
 
     private List<Long> executeUnparameterizedBatch() throws SQLException {
+        throwIfClosed();
+        throwIfExecuting();
+        boolean isDataDefinition = statementBatch.stream().anyMatch( SqlUtils::isDataDefinition );
         try {
-            throwIfClosed();
             prepareForReExecution();
-            CallbackQueue<StatementBatchResponse> callback = new CallbackQueue<>( Response::getStatementBatchResponse );
-            List<ExecuteUnparameterizedStatementRequest> requests = buildBatchRequest();
+            InsertRewriter.Batch batch = rewriteBatch();
+            List<ExecuteUnparameterizedStatementRequest> requests = buildBatchRequest( batch.getStatements() );
             clearBatch();
-            getClient().executeUnparameterizedStatementBatch( requests, callback, getTimeout() );
-            while ( true ) {
-                StatementBatchResponse status = callback.takeNext();
-                if ( !hasStatementId() ) {
-                    statementId = status.getBatchId();
-                }
-                if ( status.getScalarsCount() == 0 ) {
-                    continue;
-                }
-                try {
-                    callback.awaitCompletion();
-                } catch ( InterruptedException e ) {
-                    throw new PrismInterfaceServiceException( PrismInterfaceErrors.DRIVER_THREADING_ERROR, "Awaiting completion of api call failed.", e );
-                }
-                return status.getScalarsList();
+            beginExecution();
+            CompletableFuture<StatementBatchResponse> future = newBatchChunker( requests ).execute();
+            StatementBatchResponse response;
+            try {
+                response = Futures.await( future, getTimeout() );
+            } catch ( PrismInterfaceServiceException e ) {
+                // stops sending the remaining chunks
+                future.cancel( false );
+                throw e;
             }
+            setStatementId( response.getBatchId() );
+            return batch.toOriginalUpdateCounts( response.getScalarsList() );
         } finally {
             clearBatch();
+            if ( isDataDefinition ) {
+                polyConnection.invalidateMetaCache();
+            }
         }
     }
 
 
-    List<ExecuteUnparameterizedStatementRequest> buildBatchRequest() throws SQLException {
+    /**
+     * With {@code rewritebatchedinserts} enabled, consecutive single row inserts are merged, see
+     * {@link InsertRewriter}.
+     */
+    private InsertRewriter.Batch rewriteBatch() {
+        return InsertRewriter.rewrite( statementBatch, polyConnection.isRewriteBatchedInserts() ? InsertRewriter.MAX_ROWS : 1 );
+    }
+
+
+    List<ExecuteUnparameterizedStatementRequest> buildBatchRequest( List<String> statements ) throws SQLException {
         String namespaceName = getConnection().getSchema();
-        return statementBatch.stream()
+        return statements.stream()
                 .map(
                         s -> {
                             ExecuteUnparameterizedStatementRequest.Builder builder = ExecuteUnparameterizedStatementRequest.newBuilder()
@@ -612,4 +895,14 @@ public boolean isWrapperFor( Class<?> aClass ) {
         return aClass.isInstance( this );
     }
 
+
+    /**
+     * Processes the response of an asynchronous execution.
+     */
+    protected interface AsyncStep<R, T> {
+
+        T apply( R response ) throws SQLException;
+
+    }
+
 }
@@ -16,17 +16,30 @@
 
 package org.polypheny.jdbc;
 
+import com.google.protobuf.ByteString;
 import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
 import org.polypheny.jdbc.properties.PolyphenyConnectionProperties;
+import org.polypheny.jdbc.properties.PropertyUtils;
+import org.polypheny.jdbc.routing.HostAddress;
+import org.polypheny.jdbc.routing.HostSelector;
+import org.polypheny.jdbc.routing.HostStats;
 import org.polypheny.jdbc.transport.PlainTransport;
 import org.polypheny.jdbc.transport.Transport;
 import org.polypheny.jdbc.types.TypedValue;
 import org.polypheny.jdbc.utils.CallbackQueue;
+import org.polypheny.jdbc.utils.Futures;
 import org.polypheny.jdbc.utils.ProtoUtils;
 import org.polypheny.jdbc.utils.VersionUtil;
 import org.polypheny.prism.ClientInfoProperties;
@@ -44,9 +57,9 @@
 import org.polypheny.prism.DefaultNamespaceRequest;
 import org.polypheny.prism.DisconnectRequest;
 import org.polypheny.prism.EntitiesRequest;
+import org.polypheny.prism.EntitiesResponse;
 import org.polypheny.prism.Entity;
 import org.polypheny.prism.ExecuteIndexedStatementBatchRequest;
-import org.polypheny.prism.ExecuteIndexedStatementRequest;
 import org.polypheny.prism.ExecuteUnparameterizedStatementBatchRequest;
 import org.polypheny.prism.ExecuteUnparameterizedStatementRequest;
 import org.polypheny.prism.FetchRequest;
@@ -76,22 +89,182 @@
 
 public class PrismInterfaceClient {
 
-    private final Transport con;
-    private final RpcService rpc;
+    private final List<HostAddress> hosts;
+    private final Map<String, String> parameters;
+    // replaced when reconnecting
+    private volatile RpcService rpc;
+    @Getter
+    private volatile HostAddress host;
+    // incremented whenever the connection is replaced
+    @Getter
+    private volatile int generation;
+    // restores the session once the connection is lost, null if reconnecting is disabled
+    @Setter(AccessLevel.PACKAGE)
+    private Reconnector reconnector;
+    // sends slow idempotent reads to a second server as well, null if hedging is disabled
+    @Getter(AccessLevel.PACKAGE)
+    @Setter(AccessLevel.PACKAGE)
+    private Hedger hedger;
 
 
     public PrismInterfaceClient( String host, int port, Map<String, String> parameters ) throws PrismInterfaceServiceException {
-        try {
-            String transport = parameters.getOrDefault( "transport", "plain" );
-            if ( transport.equals( "plain" ) ) {
-                con = new PlainTransport( host, port );
-            } else {
-                throw new PrismInterfaceServiceException( "Unknown transport " + transport );
+        this( Collections.singletonList( new HostAddress( host, port ) ), parameters );
+    }
+
+
+    /**
+     * Connects to one of several hosts. The hosts are tried in the order chosen by the load balancing strategy
+     * until a connection succeeds. Connecting to a host fails after the connect and handshake timeouts. Hosts whose
+     * circuit breaker is open, because they recently could not be reached, are skipped without any attempt. If the
+     * circuit breakers of all hosts are open, connecting fails immediately.
+     *
+     * @param hosts the hosts to choose from
+     * @param parameters the connection parameters
+     * @throws PrismInterfaceServiceException if none of the hosts could be reached
+     */
+    public PrismInterfaceClient( List<HostAddress> hosts, Map<String, String> parameters ) throws PrismInterfaceServiceException {
+        this.hosts = hosts;
+        this.parameters = parameters;
+        open();
+    }
+
+
+    private void open() throws PrismInterfaceServiceException {
+        String transport = parameters.getOrDefault( "transport", "plain" );
+        if ( !transport.equals( "plain" ) ) {
+            throw new PrismInterfaceServiceException( "Unknown transport " + transport );
+        }
+        HostSelector.Strategy strategy = HostSelector.Strategy.fromName( parameters.getOrDefault( PropertyUtils.getLOAD_BALANCING_KEY(), PropertyUtils.getDEFAULT_LOAD_BALANCING() ) );
+        int connectTimeout = Integer.parseInt( parameters.getOrDefault( PropertyUtils.getCONNECT_TIMEOUT_KEY(), String.valueOf( PropertyUtils.getDEFAULT_CONNECT_TIMEOUT_MILLIS() ) ) );
+        int handshakeTimeout = Integer.parseInt( parameters.getOrDefault( PropertyUtils.getHANDSHAKE_TIMEOUT_KEY(), String.valueOf( PropertyUtils.getDEFAULT_HANDSHAKE_TIMEOUT_MILLIS() ) ) );
+        Transport connection = null;
+        HostStats connected = null;
+        IOException lastError = null;
+        boolean attempted = false;
+        for ( HostStats candidate : new HostSelector( hosts, strategy ).candidates() ) {
+            if ( !candidate.getCircuitBreaker().tryAcquire() ) {
+                continue;
+            }
+            attempted = true;
+            try {
+                connection = connect( candidate, connectTimeout, handshakeTimeout );
+                connected = candidate;
+                break;
+            } catch ( IOException e ) {
+                lastError = e;
             }
-            rpc = new RpcService( con );
+        }
+        if ( !attempted ) {
+            throw new PrismInterfaceServiceException( PrismInterfaceErrors.CONNECTION_LOST, "The circuit breakers of all hosts " + hosts + " are open" );
+        }
+        if ( connection == null ) {
+            throw new PrismInterfaceServiceException( PrismInterfaceErrors.CONNECTION_LOST, "Could not connect to any of the hosts " + hosts, lastError );
+        }
+        this.host = connected.getAddress();
+        this.rpc = new RpcService( connection, connected, this::connectionLost );
+    }
+
+
+    private static Transport connect( HostStats candidate, int connectTimeout, int handshakeTimeout ) throws IOException {
+        try {
+            Transport connection = new PlainTransport( candidate.getAddress().getHost(), candidate.getAddress().getPort(), connectTimeout, handshakeTimeout );
+            candidate.markHealthy();
+            return connection;
         } catch ( IOException e ) {
-            throw new PrismInterfaceServiceException( e );
+            candidate.markUnhealthy();
+            throw e;
+        }
+    }
+
+
+    PrismInterfaceClient( Transport transport ) {
+        this.hosts = null;
+        this.parameters = null;
+        this.host = null;
+        this.rpc = new RpcService( transport, null, this::connectionLost );
+    }
+
+
+    private void connectionLost() {
+        Reconnector r = reconnector;
+        if ( r != null ) {
+            r.connectionLost();
+        }
+    }
+
+
+    /**
+     * Replaces the lost connection by a new one to one of the hosts. The session must be registered again
+     * afterwards, server side state like prepared statements is gone.
+     */
+    synchronized void reconnect() throws PrismInterfaceServiceException {
+        if ( hosts == null ) {
+            throw new PrismInterfaceServiceException( PrismInterfaceErrors.CONNECTION_LOST, "Connection can not be reestablished" );
+        }
+        RpcService lost = rpc;
+        open();
+        generation++;
+        lost.close();
+    }
+
+
+    /**
+     * Restores a lost connection before a new request is sent. Does nothing unless reconnecting is enabled.
+     *
+     * @param timeout timeout in milliseconds, 0 waits forever
+     */
+    public void reconnectIfLost( int timeout ) throws PrismInterfaceServiceException {
+        Reconnector r = reconnector;
+        if ( r != null && rpc.isClosed() ) {
+            r.ensureConnected( timeout );
+        }
+    }
+
+
+    /**
+     * Waits until a connection lost while a request was running has been restored, so that the request can be
+     * repeated. Must only be used for requests that are safe to repeat.
+     *
+     * @param generation the generation of the connection the request was sent on
+     * @param timeout timeout in milliseconds, 0 waits forever
+     * @return false if the connection was not lost or reconnecting is disabled
+     */
+    public boolean awaitReconnect( int generation, int timeout ) throws PrismInterfaceServiceException {
+        Reconnector r = reconnector;
+        if ( r == null || (generation == this.generation && !rpc.isClosed()) ) {
+            return false;
+        }
+        r.ensureConnected( timeout );
+        return true;
+    }
+
+
+    private <T> T idempotent( RpcCall<T> call, int timeout ) throws PrismInterfaceServiceException {
+        int usedGeneration = generation;
+        try {
+            return call.run( rpc );
+        } catch ( PrismInterfaceServiceException e ) {
+            if ( !awaitReconnect( usedGeneration, timeout ) ) {
+                throw e;
+            }
+            return call.run( rpc );
+        }
+    }
+
+
+    private <T> CompletableFuture<T> idempotentAsync( Hedger.Call<T> call ) {
+        Reconnector r = reconnector;
+        int usedGeneration = generation;
+        CompletableFuture<T> f = call.send( this );
+        if ( r == null ) {
+            return f;
         }
+        return f.handle( ( v, e ) -> {
+            if ( e == null || (usedGeneration == generation && !rpc.isClosed()) ) {
+                return f;
+            }
+            return r.whenConnected().thenCompose( x -> call.send( this ) );
+        } ).thenCompose( x -> x );
     }
 
 
@@ -107,6 +280,40 @@ public boolean checkConnection( int timeout ) {
     }
 
 
+    public CompletableFuture<Void> checkConnectionAsync() {
+        return rpc.checkConnectionAsync( ConnectionCheckRequest.newBuilder().build() ).thenApply( r -> null );
+    }
+
+
+    /**
+     * @return the time in milliseconds since the server last sent a message on this connection
+     */
+    public long getMillisSinceLastResponse() {
+        return rpc.getMillisSinceLastResponse();
+    }
+
+
+    public boolean isClosed() {
+        return rpc.isClosed();
+    }
+
+
+    /**
+     * @return whether requests sent on this connection are waiting for a response
+     */
+    public boolean hasPendingRequests() {
+        return rpc.hasPendingRequests();
+    }
+
+
+    /**
+     * Closes the underlying connection without notifying the server. Used once the connection is known to be dead.
+     */
+    public void abort() {
+        rpc.close();
+    }
+
+
     public ConnectionResponse register( PolyphenyConnectionProperties connectionProperties, int timeout ) throws PrismInterfaceServiceException {
         ConnectionRequest.Builder requestBuilder = ConnectionRequest.newBuilder();
         Optional.ofNullable( connectionProperties.getUsername() ).ifPresent( requestBuilder::setUsername );
@@ -144,19 +351,61 @@ public void unregister( int timeout ) throws PrismInterfaceServiceException {
     }
 
 
-    public void executeUnparameterizedStatement( String namespaceName, String languageName, String statement, CallbackQueue<StatementResponse> callback, int timeout ) throws PrismInterfaceServiceException {
+    private static ExecuteUnparameterizedStatementRequest buildUnparameterizedRequest( String namespaceName, String languageName, String statement ) {
         ExecuteUnparameterizedStatementRequest.Builder requestBuilder = ExecuteUnparameterizedStatementRequest.newBuilder();
         if ( namespaceName != null ) {
             requestBuilder.setNamespaceName( namespaceName );
         }
-        ExecuteUnparameterizedStatementRequest request = requestBuilder
+        return requestBuilder
                 .setLanguageName( languageName )
                 .setStatement( statement )
                 .build();
+    }
+
+
+    public void executeUnparameterizedStatement( String namespaceName, String languageName, String statement, CallbackQueue<StatementResponse> callback, int timeout ) throws PrismInterfaceServiceException {
+        ExecuteUnparameterizedStatementRequest request = buildUnparameterizedRequest( namespaceName, languageName, statement );
         rpc.executeUnparameterizedStatement( request, callback ); // TODO timeout
     }
 
 
+    /**
+     * Executes a statement without waiting for the result. Any number of these requests can be in flight at the same
+     * time.
+     *
+     * @return a future completed with the response carrying the result
+     */
+    public CompletableFuture<StatementResponse> executeUnparameterizedStatementAsync( String namespaceName, String languageName, String statement ) {
+        return rpc.executeUnparameterizedStatementAsync( buildUnparameterizedRequest( namespaceName, languageName, statement ) );
+    }
+
+
+    /**
+     * Executes a query that may be hedged, i.e. also sent to a second server if this one is slow. Must only be used
+     * for read-only statements outside of transactions. The statement of the reply that arrived second is closed.
+     *
+     * @return the response carrying the result and the client of the server it came from
+     */
+    CompletableFuture<Hedger.Outcome<StatementResponse>> executeQueryHedged( String namespaceName, String languageName, String statement ) {
+        ExecuteUnparameterizedStatementRequest request = buildUnparameterizedRequest( namespaceName, languageName, statement );
+        return hedge( c -> c.rpc.executeUnparameterizedStatementAsync( request ), ( c, r ) -> c.closeStatementDeferred( r.getStatementId() ) );
+    }
+
+
+    private <T> CompletableFuture<Hedger.Outcome<T>> hedge( Hedger.Call<T> call, BiConsumer<PrismInterfaceClient, T> discard ) {
+        if ( hedger == null ) {
+            return call.send( this ).thenApply( v -> new Hedger.Outcome<>( this, v ) );
+        }
+        return hedger.call( this, call, discard );
+    }
+
+
+    private <T> CompletableFuture<T> hedge( Hedger.Call<T> call ) {
+        return hedge( call, ( c, v ) -> {
+        } ).thenApply( Hedger.Outcome::getValue );
+    }
+
+
     public void executeUnparameterizedStatementBatch( List<ExecuteUnparameterizedStatementRequest> requests, CallbackQueue<StatementBatchResponse> updateCallback, int timeout ) throws PrismInterfaceServiceException {
         ExecuteUnparameterizedStatementBatchRequest request = ExecuteUnparameterizedStatementBatchRequest.newBuilder()
                 .addAllStatements( requests )
@@ -165,6 +414,14 @@ public void executeUnparameterizedStatementBatch( List<ExecuteUnparameterizedSta
     }
 
 
+    public CompletableFuture<StatementBatchResponse> executeUnparameterizedStatementBatchAsync( List<ExecuteUnparameterizedStatementRequest> requests ) {
+        ExecuteUnparameterizedStatementBatchRequest request = ExecuteUnparameterizedStatementBatchRequest.newBuilder()
+                .addAllStatements( requests )
+                .build();
+        return rpc.executeUnparameterizedStatementBatchAsync( request );
+    }
+
+
     public PreparedStatementSignature prepareIndexedStatement( String namespaceName, String languageName, String statement, int timeout ) throws PrismInterfaceServiceException {
         PrepareStatementRequest.Builder requestBuilder = PrepareStatementRequest.newBuilder();
         if ( namespaceName != null ) {
@@ -179,34 +436,74 @@ public PreparedStatementSignature prepareIndexedStatement( String namespaceName,
     }
 
 
-    public StatementResult executeIndexedStatement( int statementId, List<TypedValue> values, int fetchSize, int timeout ) throws PrismInterfaceServiceException {
-        IndexedParameters parameters = IndexedParameters.newBuilder()
-                .addAllParameters( ProtoUtils.serializeParameterList( values ) )
-                .build();
-        ExecuteIndexedStatementRequest request = ExecuteIndexedStatementRequest.newBuilder()
-                .setStatementId( statementId )
-                .setParameters( parameters )
-                .setFetchSize( fetchSize )
-                .build();
-
-        return rpc.executeIndexedStatement( request, timeout );
-    }
-
-
-    public StatementBatchResponse executeIndexedStatementBatch( int statementId, List<List<TypedValue>> parameterBatch, int timeout ) throws PrismInterfaceServiceException {
+    private static ExecuteIndexedStatementBatchRequest buildIndexedBatchRequest( int statementId, List<List<TypedValue>> parameterBatch ) {
         List<IndexedParameters> parameters = parameterBatch.stream()
                 .map( ProtoUtils::serializeParameterList )
                 .map( p -> IndexedParameters.newBuilder().addAllParameters( p ).build() )
                 .collect( Collectors.toList() );
-        ExecuteIndexedStatementBatchRequest request = ExecuteIndexedStatementBatchRequest.newBuilder()
+        return ExecuteIndexedStatementBatchRequest.newBuilder()
                 .setStatementId( statementId )
                 .addAllParameters( parameters )
                 .build();
+    }
+
+
+    /**
+     * Executes a prepared statement with parameters encoded straight from their slots, see
+     * {@link RpcService#encodeIndexedStatement(int, ParameterRow, int)}.
+     *
+     * @throws SQLException if a parameter is not set or cannot be serialized, or the execution failed
+     */
+    StatementResult executeIndexedStatement( int statementId, ParameterRow parameters, int fetchSize, int timeout ) throws SQLException {
+        RpcService r = rpc;
+        RpcService.EncodedRequest request = r.encodeIndexedStatement( statementId, parameters, fetchSize );
+        r.awaitDeferred( statementId, timeout );
+        return r.executeIndexedStatement( request, timeout );
+    }
 
+
+    /**
+     * Asynchronous variant of {@link #executeIndexedStatement(int, ParameterRow, int, int)}. The parameters are
+     * encoded right away and may change once this method returns. The request is sent once cleanup requests queued
+     * for the statement have been processed.
+     *
+     * @return a future completed with the result
+     * @throws SQLException if a parameter is not set or cannot be serialized
+     */
+    CompletableFuture<StatementResult> executeIndexedStatementAsync( int statementId, ParameterRow parameters, int fetchSize ) throws SQLException {
+        RpcService r = rpc;
+        RpcService.EncodedRequest request = r.encodeIndexedStatement( statementId, parameters, fetchSize );
+        return r.afterDeferred( statementId ).thenCompose( v -> r.executeIndexedStatementAsync( request ) );
+    }
+
+
+    public StatementBatchResponse executeIndexedStatementBatch( int statementId, List<List<TypedValue>> parameterBatch, int timeout ) throws PrismInterfaceServiceException {
+        ExecuteIndexedStatementBatchRequest request = buildIndexedBatchRequest( statementId, parameterBatch );
+
+        rpc.awaitDeferred( statementId, timeout );
         return rpc.executeIndexedStatementBatch( request, timeout );
     }
 
 
+    public CompletableFuture<StatementBatchResponse> executeIndexedStatementBatchAsync( int statementId, List<List<TypedValue>> parameterBatch ) {
+        ExecuteIndexedStatementBatchRequest request = buildIndexedBatchRequest( statementId, parameterBatch );
+        RpcService r = rpc;
+        return r.afterDeferred( statementId ).thenCompose( v -> r.executeIndexedStatementBatchAsync( request ) );
+    }
+
+
+    /**
+     * Executes a batch whose parameter rows were encoded by a {@link ParameterBatch}. The request is sent once cleanup
+     * requests queued for the statement have been processed.
+     *
+     * @return a future completed with the update counts
+     */
+    public CompletableFuture<StatementBatchResponse> executeIndexedStatementBatchAsync( int statementId, ByteString encodedParameters ) {
+        RpcService r = rpc;
+        return r.afterDeferred( statementId ).thenCompose( v -> r.executeIndexedStatementBatchAsync( statementId, encodedParameters ) );
+    }
+
+
     public void commitTransaction( int timeout ) throws PrismInterfaceServiceException {
         CommitRequest commitRequest = CommitRequest.newBuilder().build();
 
@@ -239,6 +536,36 @@ public void closeResult( int statementId, int timeout ) throws PrismInterfaceSer
     }
 
 
+    /**
+     * Closes a statement without waiting for the server. The request is sent together with the next request on
+     * this connection. Errors are reported by {@link #throwIfCleanupFailed()}.
+     */
+    public void closeStatementDeferred( int statementId ) {
+        CloseStatementRequest request = CloseStatementRequest.newBuilder()
+                .setStatementId( statementId )
+                .build();
+
+        rpc.closeStatementDeferred( request );
+    }
+
+
+    /**
+     * Closes the result of a statement without waiting for the server. See {@link #closeStatementDeferred(int)}.
+     */
+    public void closeResultDeferred( int statementId ) {
+        CloseResultRequest resultCloseRequest = CloseResultRequest.newBuilder()
+                .setStatementId( statementId )
+                .build();
+
+        rpc.closeResultDeferred( resultCloseRequest );
+    }
+
+
+    public void throwIfCleanupFailed() throws PrismInterfaceServiceException {
+        rpc.throwIfDeferredFailed();
+    }
+
+
     public Frame fetchResult( int statementId, int fetchSize, int timeout ) throws PrismInterfaceServiceException {
         FetchRequest fetchRequest = FetchRequest.newBuilder()
                 .setFetchSize( fetchSize )
@@ -262,42 +589,42 @@ private static String getClientApiVersionString() {
     public DbmsVersionResponse getDbmsVersion( int timeout ) throws PrismInterfaceServiceException {
         DbmsVersionRequest dbmsVersionRequest = DbmsVersionRequest.newBuilder().build();
 
-        return rpc.getDbmsVersion( dbmsVersionRequest, timeout );
+        return idempotent( r -> r.getDbmsVersion( dbmsVersionRequest, timeout ), timeout );
     }
 
 
     public String getDefaultNamespace( int timeout ) throws PrismInterfaceServiceException {
-        return rpc.defaultNamespaceRequest( DefaultNamespaceRequest.newBuilder().build(), timeout ).getDefaultNamespace();
+        return idempotent( r -> r.defaultNamespaceRequest( DefaultNamespaceRequest.newBuilder().build(), timeout ), timeout ).getDefaultNamespace();
     }
 
 
     public List<Type> getTypes( int timeout ) throws PrismInterfaceServiceException {
-        return rpc.getTypes( TypesRequest.newBuilder().build(), timeout ).getTypesList();
+        return idempotent( r -> r.getTypes( TypesRequest.newBuilder().build(), timeout ), timeout ).getTypesList();
     }
 
 
     public String getSqlStringFunctions( int timeout ) throws PrismInterfaceServiceException {
-        return rpc.getSqlStringFunctions( SqlStringFunctionsRequest.newBuilder().build(), timeout ).getString();
+        return idempotent( r -> r.getSqlStringFunctions( SqlStringFunctionsRequest.newBuilder().build(), timeout ), timeout ).getString();
     }
 
 
     public String getSqlSystemFunctions( int timeout ) throws PrismInterfaceServiceException {
-        return rpc.getSqlSystemFunctions( SqlSystemFunctionsRequest.newBuilder().build(), timeout ).getString();
+        return idempotent( r -> r.getSqlSystemFunctions( SqlSystemFunctionsRequest.newBuilder().build(), timeout ), timeout ).getString();
     }
 
 
     public String getSqlTimeDateFunctions( int timeout ) throws PrismInterfaceServiceException {
-        return rpc.getSqlTimeDateFunctions( SqlTimeDateFunctionsRequest.newBuilder().build(), timeout ).getString();
+        return idempotent( r -> r.getSqlTimeDateFunctions( SqlTimeDateFunctionsRequest.newBuilder().build(), timeout ), timeout ).getString();
     }
 
 
     public String getSqlNumericFunctions( int timeout ) throws PrismInterfaceServiceException {
-        return rpc.getSqlNumericFunctions( SqlNumericFunctionsRequest.newBuilder().build(), timeout ).getString();
+        return idempotent( r -> r.getSqlNumericFunctions( SqlNumericFunctionsRequest.newBuilder().build(), timeout ), timeout ).getString();
     }
 
 
     public String getSqlKeywords( int timeout ) throws PrismInterfaceServiceException {
-        return rpc.getSqlKeywords( SqlKeywordsRequest.newBuilder().build(), timeout ).getString();
+        return idempotent( r -> r.getSqlKeywords( SqlKeywordsRequest.newBuilder().build(), timeout ), timeout ).getString();
     }
 
 
@@ -313,12 +640,12 @@ public List<Procedure> searchProcedures( String languageName, String procedureNa
         ProceduresRequest.Builder requestBuilder = ProceduresRequest.newBuilder();
         requestBuilder.setLanguage( languageName );
         Optional.ofNullable( procedureNamePattern ).ifPresent( requestBuilder::setProcedureNamePattern );
-        return rpc.searchProcedures( requestBuilder.build(), timeout ).getProceduresList();
+        return idempotent( r -> r.searchProcedures( requestBuilder.build(), timeout ), timeout ).getProceduresList();
     }
 
 
     public Map<String, String> getClientInfoProperties( int timeout ) throws PrismInterfaceServiceException {
-        return rpc.getClientInfoProperties( ClientInfoPropertiesRequest.newBuilder().build(), timeout ).getPropertiesMap();
+        return idempotent( r -> r.getClientInfoProperties( ClientInfoPropertiesRequest.newBuilder().build(), timeout ), timeout ).getPropertiesMap();
     }
 
 
@@ -327,7 +654,11 @@ public List<Namespace> searchNamespaces( String schemaPattern, String protoNames
         Optional.ofNullable( schemaPattern ).ifPresent( requestBuilder::setNamespacePattern );
         Optional.ofNullable( protoNamespaceType ).ifPresent( requestBuilder::setNamespaceType );
 
-        return rpc.searchNamespaces( requestBuilder.build(), timeout ).getNamespacesList();
+        NamespacesRequest request = requestBuilder.build();
+        if ( hedger == null ) {
+            return idempotent( r -> r.searchNamespaces( request, timeout ), timeout ).getNamespacesList();
+        }
+        return Futures.await( idempotentAsync( c -> c.hedge( h -> h.rpc.searchNamespacesAsync( request ) ) ), timeout ).getNamespacesList();
     }
 
 
@@ -336,12 +667,22 @@ public List<Entity> searchEntities( String namespace, String entityNamePattern,
         requestBuilder.setNamespaceName( namespace );
         Optional.ofNullable( entityNamePattern ).ifPresent( requestBuilder::setEntityPattern );
 
-        return rpc.searchEntities( requestBuilder.build(), timeout ).getEntitiesList();
+        return idempotent( r -> r.searchEntities( requestBuilder.build(), timeout ), timeout ).getEntitiesList();
+    }
+
+
+    public CompletableFuture<List<Entity>> searchEntitiesAsync( String namespace, String entityNamePattern ) {
+        EntitiesRequest.Builder requestBuilder = EntitiesRequest.newBuilder();
+        requestBuilder.setNamespaceName( namespace );
+        Optional.ofNullable( entityNamePattern ).ifPresent( requestBuilder::setEntityPattern );
+
+        EntitiesRequest request = requestBuilder.build();
+        return idempotentAsync( c -> c.hedge( h -> h.rpc.searchEntitiesAsync( request ) ) ).thenApply( EntitiesResponse::getEntitiesList );
     }
 
 
     public List<TableType> getTablesTypes( int timeout ) throws PrismInterfaceServiceException {
-        return rpc.getTableTypes( TableTypesRequest.newBuilder().build(), timeout ).getTableTypesList();
+        return idempotent( r -> r.getTableTypes( TableTypesRequest.newBuilder().build(), timeout ), timeout ).getTableTypesList();
     }
 
 
@@ -358,7 +699,14 @@ public List<Function> searchFunctions( String languageName, String functionCateg
                 .setFunctionCategory( functionCategory )
                 .build();
 
-        return rpc.searchFunctions( functionsRequest, timeout ).getFunctionsList();
+        return idempotent( r -> r.searchFunctions( functionsRequest, timeout ), timeout ).getFunctionsList();
+    }
+
+
+    private interface RpcCall<T> {
+
+        T run( RpcService rpc ) throws PrismInterfaceServiceException;
+
     }
 
 }
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.polypheny.jdbc;
+
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.extern.slf4j.Slf4j;
+import org.polypheny.jdbc.utils.Futures;
+
+/**
+ * Reestablishes the connection of a client once it is lost. The transport is replaced in the background, then the
+ * session is registered again with the current connection properties and the prepared statements of the connection
+ * are prepared again. A connection lost during a transaction is not restored until the transaction has ended, as the
+ * work done in it is gone.
+ */
+@Slf4j
+class Reconnector {
+
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool( r -> {
+        Thread t = new Thread( r, "PrismInterfaceReconnect" );
+        t.setDaemon( true );
+        return t;
+    } );
+
+    private final PolyConnection connection;
+    private final PrismInterfaceClient client;
+    // the running or last reconnect attempt
+    private CompletableFuture<Void> pending = CompletableFuture.completedFuture( null );
+
+
+    Reconnector( PolyConnection connection, PrismInterfaceClient client ) {
+        this.connection = connection;
+        this.client = client;
+    }
+
+
+    /**
+     * Called by the response handler of the client when the connection fails.
+     */
+    synchronized void connectionLost() {
+        if ( !pending.isDone() ) {
+            return;
+        }
+        if ( connection.isInTransaction( client ) ) {
+            log.warn( "Connection to {} lost during a transaction, reconnecting once the transaction has ended", client.getHost() );
+            return;
+        }
+        pending = CompletableFuture.runAsync( this::restore, EXECUTOR );
+    }
+
+
+    /**
+     * @return a future completed once the running reconnect attempt has finished
+     */
+    synchronized CompletableFuture<Void> whenConnected() {
+        return pending;
+    }
+
+
+    /**
+     * Waits until the connection has been restored, starting a new attempt if the last one failed.
+     *
+     * @param timeout timeout in milliseconds, 0 waits forever
+     * @throws PrismInterfaceServiceException if the connection could not be restored or a transaction is running
+     */
+    void ensureConnected( int timeout ) throws PrismInterfaceServiceException {
+        CompletableFuture<Void> attempt;
+        synchronized ( this ) {
+            if ( pending.isDone() && client.isClosed() ) {
+                if ( connection.isInTransaction( client ) ) {
+                    throw new PrismInterfaceServiceException( PrismInterfaceErrors.CONNECTION_LOST, "Connection lost during a running transaction" );
+                }
+                pending = CompletableFuture.runAsync( this::restore, EXECUTOR );
+            }
+            attempt = pending;
+        }
+        Futures.await( attempt, timeout );
+    }
+
+
+    private void restore() {
+        try {
+            client.reconnect();
+        } catch ( SQLException e ) {
+            log.warn( "Reconnecting failed", e );
+            throw new CompletionException( e );
+        }
+        try {
+            connection.restoreSession( client );
+            connection.resumeKeepAlive( client );
+            log.info( "Reconnected to {}", client.getHost() );
+        } catch ( SQLException e ) {
+            // the next attempt must start over with a new connection
+            client.abort();
+            log.warn( "Reconnecting failed", e );
+            throw new CompletionException( e );
+        }
+    }
+
+}
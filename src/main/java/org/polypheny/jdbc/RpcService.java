@@ -16,20 +16,30 @@
 
 package org.polypheny.jdbc;
 
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.net.SocketException;
 import java.nio.channels.ClosedChannelException;
+import java.sql.SQLException;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import lombok.extern.slf4j.Slf4j;
+import org.polypheny.jdbc.routing.HostStats;
 import org.polypheny.jdbc.transport.Transport;
 import org.polypheny.jdbc.utils.CallbackQueue;
+import org.polypheny.jdbc.utils.ProtoValueWriter;
 import org.polypheny.prism.ClientInfoProperties;
 import org.polypheny.prism.ClientInfoPropertiesRequest;
 import org.polypheny.prism.ClientInfoPropertiesResponse;
@@ -92,15 +102,35 @@ public class RpcService {
     private final AtomicLong idCounter = new AtomicLong( 1 );
     private final Transport con;
     private final Thread service;
-    private boolean closed = false;
+    private volatile boolean closed = false;
+    private volatile long lastResponseNanos = System.nanoTime();
     private boolean disconnectSent = false;
     private IOException error = null;
     private final Map<Long, CompletableFuture<Response>> callbacks = new ConcurrentHashMap<>();
     private final Map<Long, CallbackQueue<?>> callbackQueues = new ConcurrentHashMap<>();
+    // Load and latency tracking for host selection, null if not connected through a host list.
+    private final HostStats hostStats;
+    private final Map<Long, Long> sentAt = new ConcurrentHashMap<>();
+    // Cleanup requests not yet sent. They are sent ahead of the next regular request.
+    private static final int MAX_DEFERRED_REQUESTS = 64;
+    private final Queue<Request> deferred = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger deferredCount = new AtomicInteger();
+    private final Map<Integer, CompletableFuture<Response>> deferredByStatement = new ConcurrentHashMap<>();
+    private final AtomicReference<PrismInterfaceServiceException> deferredError = new AtomicReference<>();
+    // notified once the connection fails without having been closed by the client, may be null
+    private final Runnable connectionLostListener;
+    private volatile boolean closedByClient = false;
 
 
-    RpcService( Transport con ) {
+    RpcService( Transport con, HostStats hostStats ) {
+        this( con, hostStats, null );
+    }
+
+
+    RpcService( Transport con, HostStats hostStats, Runnable connectionLostListener ) {
         this.con = con;
+        this.hostStats = hostStats;
+        this.connectionLostListener = connectionLostListener;
         this.service = new Thread( this::readResponses, "PrismInterfaceResponseHandler" );
         this.service.start();
     }
@@ -108,6 +138,7 @@ public class RpcService {
 
     void close() {
         closed = true;
+        closedByClient = true;
         con.close();
         try {
             service.join();
@@ -117,6 +148,27 @@ void close() {
     }
 
 
+    boolean isClosed() {
+        return closed;
+    }
+
+
+    /**
+     * @return the time in milliseconds since the last message was received from the server
+     */
+    long getMillisSinceLastResponse() {
+        return TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - lastResponseNanos );
+    }
+
+
+    /**
+     * @return whether requests are waiting for a response
+     */
+    boolean hasPendingRequests() {
+        return !callbacks.isEmpty() || !callbackQueues.isEmpty();
+    }
+
+
     private Request.Builder newMessage() {
         long id = idCounter.getAndIncrement();
         return Request.newBuilder().setId( id );
@@ -124,6 +176,22 @@ private Request.Builder newMessage() {
 
 
     private void sendMessage( Request req ) throws IOException {
+        sendMessage( req.getId(), req.toByteArray() );
+    }
+
+
+    private void sendMessage( long id, byte[] message ) throws IOException {
+        flushDeferred();
+        send( id, message );
+    }
+
+
+    private void send( Request req ) throws IOException {
+        send( req.getId(), req.toByteArray() );
+    }
+
+
+    private void send( long id, byte[] message ) throws IOException {
         if ( this.error != null ) {
             synchronized ( this ) {
                 IOException e = this.error;
@@ -134,7 +202,61 @@ private void sendMessage( Request req ) throws IOException {
         if ( this.closed ) {
             throw new IOException( "Connection is closed" );
         }
-        con.sendMessage( req.toByteArray() );
+        if ( hostStats != null ) {
+            sentAt.put( id, System.nanoTime() );
+            hostStats.requestStarted();
+        }
+        try {
+            con.sendMessage( message );
+        } catch ( IOException e ) {
+            abandon( id );
+            throw e;
+        }
+    }
+
+
+    private void finished( Response resp ) {
+        if ( hostStats == null || !(resp.getLast() || resp.hasErrorResponse()) ) {
+            return;
+        }
+        Long start = sentAt.remove( resp.getId() );
+        if ( start != null ) {
+            hostStats.requestFinished( System.nanoTime() - start );
+        }
+    }
+
+
+    private void abandon( long id ) {
+        if ( hostStats != null && sentAt.remove( id ) != null ) {
+            hostStats.requestAbandoned();
+        }
+    }
+
+
+    /**
+     * @param isFailure whether the connection failed without the client asking for it, only then the host is
+     * reported as unhealthy
+     */
+    private void abandonAll( boolean isFailure ) {
+        if ( hostStats == null ) {
+            return;
+        }
+        sentAt.keySet().forEach( this::abandon );
+        if ( isFailure ) {
+            hostStats.markUnhealthy();
+        }
+    }
+
+
+    private void notifyConnectionLost() {
+        if ( disconnectSent || closedByClient || connectionLostListener == null ) {
+            return;
+        }
+        try {
+            connectionLostListener.run();
+        } catch ( RuntimeException e ) {
+            log.warn( "Connection lost listener failed", e );
+        }
     }
 
 
@@ -147,6 +269,8 @@ private void readResponses() {
         try {
             while ( true ) {
                 Response resp = receiveMessage();
+                lastResponseNanos = System.nanoTime();
+                finished( resp );
                 if ( resp.getId() == 0 ) {
                     throw new RuntimeException( "Invalid message id" );
                 }
@@ -178,10 +302,14 @@ private void readResponses() {
             }
         } catch ( EOFException | ClosedChannelException e ) {
             this.closed = true;
+            abandonAll( !disconnectSent && !closedByClient );
+            notifyConnectionLost();
             callbacks.forEach( ( id, c ) -> c.completeExceptionally( e ) );
             callbackQueues.forEach( ( id, cq ) -> cq.onError( e ) );
         } catch ( IOException e ) { // Communicate this to ProtoInterfaceClient
             this.closed = true;
+            abandonAll( !disconnectSent && !closedByClient );
+            notifyConnectionLost();
             callbacks.forEach( ( id, c ) -> c.completeExceptionally( e ) );
             callbackQueues.forEach( ( id, cq ) -> cq.onError( e ) );
             /* For Windows */
@@ -198,6 +326,8 @@ private void readResponses() {
             throw new RuntimeException( e );
         } catch ( Throwable t ) {
             this.closed = true;
+            abandonAll( !closedByClient );
+            notifyConnectionLost();
             callbacks.forEach( ( id, c ) -> c.completeExceptionally( t ) );
             callbackQueues.forEach( ( id, cq ) -> cq.onError( t ) );
             log.error( "Unhandled exception", t );
@@ -220,13 +350,18 @@ private Response waitForCompletion( CompletableFuture<Response> f, int timeout )
 
 
     private Response completeSynchronously( Request.Builder req, int timeout ) throws PrismInterfaceServiceException {
+        if ( req.getTypeCase() == TypeCase.DISCONNECT_REQUEST ) {
+            disconnectSent = true;
+        }
+        return completeSynchronously( req.getId(), req.build().toByteArray(), timeout );
+    }
+
+
+    private Response completeSynchronously( long id, byte[] message, int timeout ) throws PrismInterfaceServiceException {
         try {
             CompletableFuture<Response> f = new CompletableFuture<>();
-            callbacks.put( req.getId(), f );
-            if ( req.getTypeCase() == TypeCase.DISCONNECT_REQUEST ) {
-                disconnectSent = true;
-            }
-            sendMessage( req.build() );
+            callbacks.put( id, f );
+            sendMessage( id, message );
             Response resp = waitForCompletion( f, timeout );
             if ( resp.hasErrorResponse() ) {
                 throw new PrismInterfaceServiceException( resp.getErrorResponse().getMessage() );
@@ -238,6 +373,43 @@ private Response completeSynchronously( Request.Builder req, int timeout ) throw
     }
 
 
+    /**
+     * Sends a request without waiting for the response. As responses are matched by id, any number of these requests
+     * can be in flight at the same time.
+     *
+     * @param req the request to send
+     * @return a future completed with the response or exceptionally with a {@link PrismInterfaceServiceException}
+     */
+    private CompletableFuture<Response> completeAsynchronously( Request.Builder req ) {
+        return completeAsynchronously( req.getId(), req.build().toByteArray() );
+    }
+
+
+    private CompletableFuture<Response> completeAsynchronously( long id, byte[] message ) {
+        CompletableFuture<Response> f = new CompletableFuture<>();
+        callbacks.put( id, f );
+        try {
+            sendMessage( id, message );
+        } catch ( IOException e ) {
+            callbacks.remove( id );
+            f.completeExceptionally( new PrismInterfaceServiceException( e ) );
+        }
+        return f.thenApply( resp -> {
+            if ( resp.hasErrorResponse() ) {
+                throw new CompletionException( new PrismInterfaceServiceException( resp.getErrorResponse().getMessage() ) );
+            }
+            return resp;
+        } );
+    }
+
+
+    CompletableFuture<ConnectionCheckResponse> checkConnectionAsync( ConnectionCheckRequest msg ) {
+        Request.Builder req = newMessage();
+        req.setConnectionCheckRequest( msg );
+        return completeAsynchronously( req ).thenApply( Response::getConnectionCheckResponse );
+    }
+
+
     ConnectionResponse connect( ConnectionRequest msg, int timeout ) throws PrismInterfaceServiceException {
         Request.Builder req = newMessage();
         req.setConnectionRequest( msg );
@@ -308,6 +480,13 @@ NamespacesResponse searchNamespaces( NamespacesRequest msg, int timeout ) throws
     }
 
 
+    CompletableFuture<NamespacesResponse> searchNamespacesAsync( NamespacesRequest msg ) {
+        Request.Builder req = newMessage();
+        req.setNamespacesRequest( msg );
+        return completeAsynchronously( req ).thenApply( Response::getNamespacesResponse );
+    }
+
+
     EntitiesResponse searchEntities( EntitiesRequest msg, int timeout ) throws PrismInterfaceServiceException {
         Request.Builder req = newMessage();
         req.setEntitiesRequest( msg );
@@ -315,6 +494,13 @@ EntitiesResponse searchEntities( EntitiesRequest msg, int timeout ) throws Prism
     }
 
 
+    CompletableFuture<EntitiesResponse> searchEntitiesAsync( EntitiesRequest msg ) {
+        Request.Builder req = newMessage();
+        req.setEntitiesRequest( msg );
+        return completeAsynchronously( req ).thenApply( Response::getEntitiesResponse );
+    }
+
+
     ClientInfoPropertiesResponse setClientInfoProperties( ClientInfoProperties msg, int timeout ) throws PrismInterfaceServiceException {
         Request.Builder req = newMessage();
         req.setSetClientInfoPropertiesRequest( msg );
@@ -405,6 +591,46 @@ void executeUnparameterizedStatement( ExecuteUnparameterizedStatementRequest msg
     }
 
 
+    /**
+     * Executes a statement without blocking a thread while waiting for the result.
+     *
+     * @param msg the statement to execute
+     * @return a future completed with the response carrying the result
+     */
+    CompletableFuture<StatementResponse> executeUnparameterizedStatementAsync( ExecuteUnparameterizedStatementRequest msg ) {
+        Request.Builder req = newMessage();
+        req.setExecuteUnparameterizedStatementRequest( msg );
+        CompletableFuture<StatementResponse> f = new CompletableFuture<>();
+        callbackQueues.put( req.getId(), new CallbackQueue<StatementResponse>( Response::getStatementResponse ) {
+            @Override
+            public void onNext( Response message ) {
+                if ( message.getStatementResponse().hasResult() ) {
+                    f.complete( message.getStatementResponse() );
+                }
+            }
+
+
+            @Override
+            public void onError( Throwable e ) {
+                f.completeExceptionally( e instanceof PrismInterfaceServiceException ? e : new PrismInterfaceServiceException( e ) );
+            }
+
+
+            @Override
+            public void onCompleted() {
+                f.completeExceptionally( new PrismInterfaceServiceException( PrismInterfaceErrors.RESULT_TYPE_INVALID, "Statement did not produce a result" ) );
+            }
+        } );
+        try {
+            sendMessage( req.build() );
+        } catch ( IOException e ) {
+            callbackQueues.remove( req.getId() );
+            f.completeExceptionally( new PrismInterfaceServiceException( e ) );
+        }
+        return f;
+    }
+
+
     void executeUnparameterizedStatementBatch( ExecuteUnparameterizedStatementBatchRequest msg, CallbackQueue<StatementBatchResponse> callback ) throws PrismInterfaceServiceException {
         Request.Builder req = newMessage();
         req.setExecuteUnparameterizedStatementBatchRequest( msg );
@@ -417,6 +643,53 @@ void executeUnparameterizedStatementBatch( ExecuteUnparameterizedStatementBatchR
     }
 
 
+    /**
+     * Executes a batch without blocking a thread while waiting for the update counts.
+     *
+     * @param msg the statements to execute
+     * @return a future completed with the response carrying the update counts
+     */
+    CompletableFuture<StatementBatchResponse> executeUnparameterizedStatementBatchAsync( ExecuteUnparameterizedStatementBatchRequest msg ) {
+        Request.Builder req = newMessage();
+        req.setExecuteUnparameterizedStatementBatchRequest( msg );
+        CompletableFuture<StatementBatchResponse> f = new CompletableFuture<>();
+        callbackQueues.put( req.getId(), new CallbackQueue<StatementBatchResponse>( Response::getStatementBatchResponse ) {
+            private StatementBatchResponse last;
+
+
+            @Override
+            public void onNext( Response message ) {
+                last = message.getStatementBatchResponse();
+                if ( last.getScalarsCount() > 0 ) {
+                    f.complete( last );
+                }
+            }
+
+
+            @Override
+            public void onError( Throwable e ) {
+                f.completeExceptionally( e instanceof PrismInterfaceServiceException ? e : new PrismInterfaceServiceException( e ) );
+            }
+
+
+            @Override
+            public void onCompleted() {
+                if ( last != null ) {
+                    f.complete( last );
+                }
+                f.completeExceptionally( new PrismInterfaceServiceException( PrismInterfaceErrors.RESULT_TYPE_INVALID, "Batch did not produce update counts" ) );
+            }
+        } );
+        try {
+            sendMessage( req.build() );
+        } catch ( IOException e ) {
+            callbackQueues.remove( req.getId() );
+            f.completeExceptionally( new PrismInterfaceServiceException( e ) );
+        }
+        return f;
+    }
+
+
     PreparedStatementSignature prepareIndexedStatement( PrepareStatementRequest msg, int timeout ) throws PrismInterfaceServiceException {
         Request.Builder req = newMessage();
         req.setPrepareIndexedStatementRequest( msg );
@@ -424,10 +697,46 @@ PreparedStatementSignature prepareIndexedStatement( PrepareStatementRequest msg,
     }
 
 
-    StatementResult executeIndexedStatement( ExecuteIndexedStatementRequest msg, int timeout ) throws PrismInterfaceServiceException {
+    /**
+     * Encodes a request executing a prepared statement with the parameters of a row. The parameters are written from
+     * the slots of the row as a second occurrence of the request field, which the parser merges with the first one,
+     * so apart from the message no objects are created for them.
+     *
+     * @param statementId the prepared statement to execute
+     * @param parameters the parameters of the execution, they may change once the request is encoded
+     * @param fetchSize the number of rows of the first frame
+     * @return the encoded request
+     * @throws SQLException if a parameter is not set or cannot be serialized
+     */
+    EncodedRequest encodeIndexedStatement( int statementId, ParameterRow parameters, int fetchSize ) throws SQLException {
         Request.Builder req = newMessage();
-        req.setExecuteIndexedStatementRequest( msg );
-        return completeSynchronously( req, timeout ).getStatementResult();
+        req.setExecuteIndexedStatementRequest( ExecuteIndexedStatementRequest.newBuilder().setStatementId( statementId ).setFetchSize( fetchSize ) );
+        Request head = req.build();
+        int field = Request.EXECUTE_INDEXED_STATEMENT_REQUEST_FIELD_NUMBER;
+        int parametersSize = parameters.computeSize();
+        int requestSize = ProtoValueWriter.computeWrapperSize( ExecuteIndexedStatementRequest.PARAMETERS_FIELD_NUMBER, parametersSize );
+        byte[] message = new byte[head.getSerializedSize() + ProtoValueWriter.computeWrapperSize( field, requestSize )];
+        try {
+            CodedOutputStream out = CodedOutputStream.newInstance( message );
+            head.writeTo( out );
+            ProtoValueWriter.writeWrapper( out, field, requestSize );
+            ProtoValueWriter.writeWrapper( out, ExecuteIndexedStatementRequest.PARAMETERS_FIELD_NUMBER, parametersSize );
+            parameters.writeTo( out );
+            out.checkNoSpaceLeft();
+        } catch ( IOException e ) {
+            throw new PrismInterfaceServiceException( e );
+        }
+        return new EncodedRequest( head.getId(), message );
+    }
+
+
+    StatementResult executeIndexedStatement( EncodedRequest req, int timeout ) throws PrismInterfaceServiceException {
+        return completeSynchronously( req.id, req.message, timeout ).getStatementResult();
+    }
+
+
+    CompletableFuture<StatementResult> executeIndexedStatementAsync( EncodedRequest req ) {
+        return completeAsynchronously( req.id, req.message ).thenApply( Response::getStatementResult );
     }
 
 
@@ -438,6 +747,41 @@ StatementBatchResponse executeIndexedStatementBatch( ExecuteIndexedStatementBatc
     }
 
 
+    CompletableFuture<StatementBatchResponse> executeIndexedStatementBatchAsync( ExecuteIndexedStatementBatchRequest msg ) {
+        Request.Builder req = newMessage();
+        req.setExecuteIndexedStatementBatchRequest( msg );
+        return completeAsynchronously( req ).thenApply( Response::getStatementBatchResponse );
+    }
+
+
+    /**
+     * Executes a batch whose parameters are already encoded, see {@link ParameterBatch}. The parser merges a message
+     * field occurring several times, so the encoded parameters are appended to the request without decoding them.
+     *
+     * @param statementId the prepared statement to execute
+     * @param encodedParameters the parameters field of an {@link ExecuteIndexedStatementBatchRequest}, once per row
+     * @return a future completed with the update counts
+     */
+    CompletableFuture<StatementBatchResponse> executeIndexedStatementBatchAsync( int statementId, ByteString encodedParameters ) {
+        Request.Builder req = newMessage();
+        req.setExecuteIndexedStatementBatchRequest( ExecuteIndexedStatementBatchRequest.newBuilder().setStatementId( statementId ) );
+        Request head = req.build();
+        int field = Request.EXECUTE_INDEXED_STATEMENT_BATCH_REQUEST_FIELD_NUMBER;
+        byte[] message = new byte[head.getSerializedSize() + CodedOutputStream.computeBytesSize( field, encodedParameters )];
+        try {
+            CodedOutputStream out = CodedOutputStream.newInstance( message );
+            head.writeTo( out );
+            out.writeBytes( field, encodedParameters );
+            out.checkNoSpaceLeft();
+        } catch ( IOException e ) {
+            CompletableFuture<StatementBatchResponse> f = new CompletableFuture<>();
+            f.completeExceptionally( new PrismInterfaceServiceException( e ) );
+            return f;
+        }
+        return completeAsynchronously( head.getId(), message ).thenApply( Response::getStatementBatchResponse );
+    }
+
+
     Frame fetchResult( FetchRequest msg, int timeout ) throws PrismInterfaceServiceException {
         Request.Builder req = newMessage();
         req.setFetchRequest( msg );
@@ -445,6 +789,115 @@ Frame fetchResult( FetchRequest msg, int timeout ) throws PrismInterfaceServiceE
     }
 
 
+    /**
+     * Queues a request whose response nobody waits for. Queued requests are sent in front of the next regular
+     * request or once {@value #MAX_DEFERRED_REQUESTS} of them are pending. A failure is recorded and reported by
+     * {@link #throwIfDeferredFailed()}.
+     *
+     * @param req the request to queue
+     * @param statementId the statement the request refers to
+     */
+    private void defer( Request.Builder req, int statementId ) {
+        CompletableFuture<Response> f = new CompletableFuture<>();
+        callbacks.put( req.getId(), f );
+        deferredByStatement.put( statementId, f );
+        f.whenComplete( ( resp, e ) -> {
+            deferredByStatement.remove( statementId, f );
+            if ( e != null ) {
+                deferredError.compareAndSet( null, new PrismInterfaceServiceException( e ) );
+            } else if ( resp.hasErrorResponse() ) {
+                deferredError.compareAndSet( null, new PrismInterfaceServiceException( resp.getErrorResponse().getMessage() ) );
+            }
+        } );
+        deferred.add( req.build() );
+        if ( deferredCount.incrementAndGet() >= MAX_DEFERRED_REQUESTS ) {
+            flushDeferred();
+        }
+    }
+
+
+    /**
+     * Sends all queued cleanup requests without waiting for their responses.
+     */
+    void flushDeferred() {
+        Request req;
+        while ( (req = deferred.poll()) != null ) {
+            deferredCount.decrementAndGet();
+            try {
+                send( req );
+            } catch ( IOException e ) {
+                CompletableFuture<Response> f = callbacks.remove( req.getId() );
+                if ( f != null ) {
+                    f.completeExceptionally( e );
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Waits until a cleanup request queued for the statement has been processed by the server. Must be called before
+     * a statement id is used again, as the server might otherwise apply the cleanup to the new execution.
+     *
+     * @param statementId the statement about to be used
+     * @param timeout timeout in milliseconds, 0 waits forever
+     */
+    void awaitDeferred( int statementId, int timeout ) throws PrismInterfaceServiceException {
+        CompletableFuture<Response> f = deferredByStatement.get( statementId );
+        if ( f == null ) {
+            return;
+        }
+        flushDeferred();
+        try {
+            waitForCompletion( f, timeout );
+        } catch ( PrismInterfaceServiceException e ) {
+            // the failure itself is reported by throwIfDeferredFailed
+        }
+    }
+
+
+    /**
+     * Asynchronous variant of {@link #awaitDeferred(int, int)}.
+     *
+     * @param statementId the statement about to be used
+     * @return a future completed once a cleanup request queued for the statement has been processed
+     */
+    CompletableFuture<Void> afterDeferred( int statementId ) {
+        CompletableFuture<Response> f = deferredByStatement.get( statementId );
+        if ( f == null ) {
+            return CompletableFuture.completedFuture( null );
+        }
+        flushDeferred();
+        // the failure itself is reported by throwIfDeferredFailed
+        return f.handle( ( r, e ) -> null );
+    }
+
+
+    /**
+     * Throws the first error a cleanup request ran into since the last call.
+     */
+    void throwIfDeferredFailed() throws PrismInterfaceServiceException {
+        PrismInterfaceServiceException e = deferredError.getAndSet( null );
+        if ( e != null ) {
+            throw e;
+        }
+    }
+
+
+    void closeStatementDeferred( CloseStatementRequest msg ) {
+        Request.Builder req = newMessage();
+        req.setCloseStatementRequest( msg );
+        defer( req, msg.getStatementId() );
+    }
+
+
+    void closeResultDeferred( CloseResultRequest msg ) {
+        Request.Builder req = newMessage();
+        req.setCloseResultRequest( msg );
+        defer( req, msg.getStatementId() );
+    }
+
+
     CloseStatementResponse closeStatement( CloseStatementRequest msg, int timeout ) throws PrismInterfaceServiceException {
         Request.Builder req = newMessage();
         req.setCloseStatementRequest( msg );
@@ -458,4 +911,21 @@ CloseResultResponse closeResult( CloseResultRequest msg, int timeout ) throws Pr
         return completeSynchronously( req, timeout ).getCloseResultResponse();
     }
 
+
+    /**
+     * A request encoded ahead of sending it, see {@link #encodeIndexedStatement(int, ParameterRow, int)}.
+     */
+    static class EncodedRequest {
+
+        private final long id;
+        private final byte[] message;
+
+
+        private EncodedRequest( long id, byte[] message ) {
+            this.id = id;
+            this.message = message;
+        }
+
+    }
+
 }
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.polypheny.jdbc;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Releases the server side state of statements that become unreachable without having been closed. Closing a
+ * statement on the server also closes its open result, so leaked result sets are released together with their
+ * statement. The close requests are deferred and sent ahead of the next request on the connection.
+ * <p>
+ * Statements are tracked by phantom references polled by a single daemon thread, as {@code java.lang.ref.Cleaner}
+ * is not available on Java 8.
+ */
+@Slf4j
+class StatementReaper {
+
+    private static final ReferenceQueue<PolyphenyStatement> QUEUE = new ReferenceQueue<>();
+    // phantom references must stay reachable themselves until they are enqueued
+    private static final Set<Handle> HANDLES = ConcurrentHashMap.newKeySet();
+
+
+    static {
+        Thread reaper = new Thread( StatementReaper::reap, "PolyphenyStatementReaper" );
+        reaper.setDaemon( true );
+        reaper.start();
+    }
+
+
+    private StatementReaper() {
+    }
+
+
+    /**
+     * Starts tracking a statement.
+     *
+     * @param statement the new statement
+     * @param statistics counters of the connection the statement belongs to
+     * @param traceLeaks records where the statement was created, which is logged if it leaks
+     * @return the handle the statement reports its server side state to
+     */
+    static Handle register( PolyphenyStatement statement, LeakStatistics statistics, boolean traceLeaks ) {
+        Handle handle = new Handle( statement, statistics, traceLeaks ? new Throwable( "Statement created here" ) : null );
+        HANDLES.add( handle );
+        return handle;
+    }
+
+
+    private static void reap() {
+        while ( true ) {
+            try {
+                ((Handle) QUEUE.remove()).reclaim();
+            } catch ( InterruptedException e ) {
+                return;
+            } catch ( RuntimeException e ) {
+                log.warn( "Releasing a leaked statement failed", e );
+            }
+        }
+    }
+
+
+    static class Handle extends PhantomReference<PolyphenyStatement> {
+
+        private final LeakStatistics statistics;
+        // null unless leak tracing is enabled
+        private final Throwable creationSite;
+        private volatile PrismInterfaceClient client;
+        private volatile int statementId = PolyphenyStatement.NO_STATEMENT_ID;
+
+
+        private Handle( PolyphenyStatement statement, LeakStatistics statistics, Throwable creationSite ) {
+            super( statement, QUEUE );
+            this.statistics = statistics;
+            this.creationSite = creationSite;
+        }
+
+
+        void update( PrismInterfaceClient client, int statementId ) {
+            this.client = client;
+            this.statementId = statementId;
+        }
+
+
+        /**
+         * Stops tracking a statement that was closed properly.
+         */
+        void closed() {
+            HANDLES.remove( this );
+            clear();
+        }
+
+
+        private void reclaim() {
+            HANDLES.remove( this );
+            if ( creationSite != null ) {
+                log.warn( "Statement was not closed", creationSite );
+            }
+            PrismInterfaceClient c = client;
+            int id = statementId;
+            if ( id != PolyphenyStatement.NO_STATEMENT_ID && c != null && !c.isClosed() ) {
+                c.closeStatementDeferred( id );
+                statistics.recordReclaim();
+            }
+            statistics.recordLeak();
+        }
+
+    }
+
+}
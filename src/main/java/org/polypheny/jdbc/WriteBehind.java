@@ -0,0 +1,130 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.polypheny.jdbc;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffers the updates of a prepared statement executed inside a transaction and sends them as a batch, see the
+ * {@code writebehind} connection property. The buffered updates are sent once a sub-batch is full, once the delay has
+ * passed since the first buffered update, or before the connection executes anything else.
+ * <p>
+ * The updates are not awaited when they are sent. Their results are handed to the connection, which waits for them
+ * before sending the next statement or metadata request, so the server sees all statements in the order they were
+ * executed, and reports failures at the next commit.
+ * <p>
+ * The delayed flush is started by a timer shared by all connections and runs on a thread of its own, as sending may
+ * wait for sub-batches in flight.
+ */
+class WriteBehind {
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor( r -> {
+        Thread t = new Thread( r, "PolyphenyWriteBehind" );
+        t.setDaemon( true );
+        return t;
+    } );
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool( r -> {
+        Thread t = new Thread( r, "PolyphenyWriteBehindFlush" );
+        t.setDaemon( true );
+        return t;
+    } );
+
+    private final PolyConnection connection;
+    private final int[] types;
+    private final long delayMillis;
+
+    // buffered updates, null if nothing is buffered
+    private ParameterBatch batch;
+    private PrismInterfaceClient client;
+    private int statementId;
+    private ScheduledFuture<?> scheduledFlush;
+
+
+    /**
+     * @param types the {@link java.sql.Types} of the parameters of the statement
+     */
+    WriteBehind( PolyConnection connection, int[] types, long delayMillis ) {
+        this.connection = connection;
+        this.types = types;
+        this.delayMillis = delayMillis;
+    }
+
+
+    /**
+     * Buffers an update. Must be called after {@link PolyConnection#beginWriteBehind(PrismInterfaceClient, WriteBehind)}.
+     *
+     * @param row the parameters of the update
+     * @param client the server the statement is prepared on
+     * @param statementId the prepared statement
+     * @throws SQLException if the parameters are invalid or a sub-batch sent before failed
+     */
+    synchronized void add( ParameterRow row, PrismInterfaceClient client, int statementId ) throws SQLException {
+        if ( batch != null && (this.client != client || this.statementId != statementId) ) {
+            flush();
+        }
+        if ( batch == null ) {
+            batch = new ParameterBatch( types, connection.getBatchChunkBytes(), connection.getBatchWindow() );
+            this.client = client;
+            this.statementId = statementId;
+            scheduledFlush = SCHEDULER.schedule( () -> EXECUTOR.execute( this::flush ), delayMillis, TimeUnit.MILLISECONDS );
+        }
+        batch.add( row );
+        if ( batch.isChunkFull() ) {
+            batch.sendChunk( client, statementId, connection.getTimeout() );
+        }
+    }
+
+
+    /**
+     * Sends the buffered updates without waiting for them.
+     */
+    synchronized void flush() {
+        if ( batch == null ) {
+            return;
+        }
+        scheduledFlush.cancel( false );
+        CompletableFuture<List<Long>> result;
+        try {
+            result = batch.finish( client, statementId, connection.getTimeout() );
+        } catch ( SQLException e ) {
+            result = new CompletableFuture<>();
+            result.completeExceptionally( e );
+        }
+        batch = null;
+        connection.writeBehindSent( result );
+    }
+
+
+    /**
+     * Drops the buffered updates, e.g. because the transaction is rolled back.
+     */
+    synchronized void discard() {
+        if ( batch == null ) {
+            return;
+        }
+        scheduledFlush.cancel( false );
+        batch = null;
+    }
+
+}
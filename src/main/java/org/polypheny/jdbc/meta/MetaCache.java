@@ -0,0 +1,217 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.polypheny.jdbc.meta;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import lombok.Getter;
+import org.polypheny.jdbc.PrismInterfaceClient;
+import org.polypheny.jdbc.PrismInterfaceServiceException;
+import org.polypheny.jdbc.utils.Futures;
+import org.polypheny.prism.Namespace;
+import org.polypheny.prism.Table;
+
+/**
+ * Snapshot of the namespaces and tables known to the server. Snapshots are fetched unfiltered and the JDBC search
+ * patterns are resolved against them on the client. Entries expire after the configured ttl or as soon as
+ * {@link #invalidate()} is called, e.g. because a statement changed the schema.
+ */
+public class MetaCache {
+
+    private static final String ALL_NAMESPACE_TYPES = "";
+    // caches used by open connections, an entry is removed once its last connection released it
+    private static final Map<String, MetaCache> SHARED_CACHES = new HashMap<>();
+
+    @Getter
+    private final long ttlMillis;
+    // key of a shared cache, null if the cache belongs to a single connection
+    private final String sharedKey;
+    // connections using a shared cache, guarded by SHARED_CACHES
+    private int users;
+    private final AtomicLong epoch = new AtomicLong();
+    private final Map<String, Snapshot<List<Namespace>>> namespaces = new ConcurrentHashMap<>();
+    private final Map<String, Snapshot<List<Table>>> tables = new ConcurrentHashMap<>();
+
+
+    public MetaCache( long ttlMillis ) {
+        this( ttlMillis, null );
+    }
+
+
+    private MetaCache( long ttlMillis, String sharedKey ) {
+        this.ttlMillis = ttlMillis;
+        this.sharedKey = sharedKey;
+    }
+
+
+    /**
+     * Returns the cache shared by all connections using the same key. The ttl of the first connection creating the
+     * shared cache is used. Each connection must call {@link #release()} once it is closed.
+     *
+     * @param key identifies the server and user the cached metadata belongs to
+     * @param ttlMillis time after which cached entries are reloaded
+     * @return the shared cache
+     */
+    public static MetaCache getShared( String key, long ttlMillis ) {
+        synchronized ( SHARED_CACHES ) {
+            MetaCache cache = SHARED_CACHES.computeIfAbsent( key, k -> new MetaCache( ttlMillis, k ) );
+            cache.users++;
+            return cache;
+        }
+    }
+
+
+    /**
+     * Called by a connection using the cache once it is closed. A shared cache is dropped once the last of its
+     * connections released it.
+     */
+    public void release() {
+        if ( sharedKey == null ) {
+            return;
+        }
+        synchronized ( SHARED_CACHES ) {
+            if ( --users == 0 ) {
+                SHARED_CACHES.remove( sharedKey );
+            }
+        }
+    }
+
+
+    public void invalidate() {
+        epoch.incrementAndGet();
+        namespaces.clear();
+        tables.clear();
+    }
+
+
+    public List<Namespace> getNamespaces( PrismInterfaceClient client, String namespacePattern, String namespaceType, int timeout ) throws PrismInterfaceServiceException {
+        String key = namespaceType == null ? ALL_NAMESPACE_TYPES : namespaceType;
+        Snapshot<List<Namespace>> snapshot = namespaces.get( key );
+        if ( !isValid( snapshot ) ) {
+            long loadEpoch = epoch.get();
+            snapshot = new Snapshot<>( client.searchNamespaces( null, namespaceType, timeout ), loadEpoch );
+            store( namespaces, key, snapshot );
+        }
+        Pattern caseSensitive = MetaUtils.compilePattern( namespacePattern, true );
+        Pattern caseInsensitive = MetaUtils.compilePattern( namespacePattern, false );
+        return snapshot.value.stream()
+                .filter( n -> MetaUtils.matchesPattern( n.getNamespaceName(), n.getIsCaseSensitive() ? caseSensitive : caseInsensitive ) )
+                .collect( Collectors.toList() );
+    }
+
+
+    public List<Table> getTables( PrismInterfaceClient client, Namespace namespace, String tablePattern, int timeout ) throws PrismInterfaceServiceException {
+        return getTables( client, Collections.singletonList( namespace ), tablePattern, 1, timeout ).get( 0 );
+    }
+
+
+    /**
+     * Returns the tables matching the pattern for each of the given namespaces. Snapshots missing in the cache are
+     * loaded concurrently.
+     *
+     * @param client the client used to load missing snapshots
+     * @param namespaces the namespaces to search
+     * @param tablePattern JDBC pattern for the table names
+     * @param maxInFlight maximum number of concurrent requests for missing snapshots
+     * @param timeout timeout in milliseconds for each request
+     * @return the matching tables, one list per namespace in the order of the namespaces
+     */
+    public List<List<Table>> getTables( PrismInterfaceClient client, List<Namespace> namespaces, String tablePattern, int maxInFlight, int timeout ) throws PrismInterfaceServiceException {
+        List<Snapshot<List<Table>>> snapshots = new ArrayList<>( namespaces.size() );
+        List<Namespace> missing = new ArrayList<>();
+        for ( Namespace namespace : namespaces ) {
+            Snapshot<List<Table>> snapshot = tables.get( namespace.getNamespaceName() );
+            if ( !isValid( snapshot ) ) {
+                snapshot = null;
+                missing.add( namespace );
+            }
+            snapshots.add( snapshot );
+        }
+        if ( !missing.isEmpty() ) {
+            long loadEpoch = epoch.get();
+            List<List<Table>> loaded = Futures.fanOut(
+                    missing,
+                    n -> client.searchEntitiesAsync( n.getNamespaceName(), null ).thenApply( MetaUtils::getTables ),
+                    maxInFlight,
+                    timeout
+            );
+            int loadedIndex = 0;
+            for ( int i = 0; i < snapshots.size(); i++ ) {
+                if ( snapshots.get( i ) != null ) {
+                    continue;
+                }
+                Snapshot<List<Table>> snapshot = new Snapshot<>( loaded.get( loadedIndex++ ), loadEpoch );
+                store( tables, namespaces.get( i ).getNamespaceName(), snapshot );
+                snapshots.set( i, snapshot );
+            }
+        }
+        Pattern caseSensitive = MetaUtils.compilePattern( tablePattern, true );
+        Pattern caseInsensitive = MetaUtils.compilePattern( tablePattern, false );
+        List<List<Table>> result = new ArrayList<>( namespaces.size() );
+        for ( int i = 0; i < namespaces.size(); i++ ) {
+            Pattern pattern = namespaces.get( i ).getIsCaseSensitive() ? caseSensitive : caseInsensitive;
+            result.add( snapshots.get( i ).value.stream()
+                    .filter( t -> MetaUtils.matchesPattern( t.getTableName(), pattern ) )
+                    .collect( Collectors.toList() ) );
+        }
+        return result;
+    }
+
+
+    private boolean isValid( Snapshot<?> snapshot ) {
+        if ( snapshot == null ) {
+            return false;
+        }
+        if ( snapshot.epoch != epoch.get() ) {
+            return false;
+        }
+        return System.currentTimeMillis() - snapshot.loadedAt < ttlMillis;
+    }
+
+
+    private <T> void store( Map<String, Snapshot<T>> snapshots, String key, Snapshot<T> snapshot ) {
+        // A snapshot loaded before an invalidation must not be cached as it might miss the changes.
+        if ( snapshot.epoch != epoch.get() ) {
+            return;
+        }
+        snapshots.put( key, snapshot );
+    }
+
+
+    private static class Snapshot<T> {
+
+        private final T value;
+        private final long epoch;
+        private final long loadedAt;
+
+
+        private Snapshot( T value, long epoch ) {
+            this.value = value;
+            this.epoch = epoch;
+            this.loadedAt = System.currentTimeMillis();
+        }
+
+    }
+
+}
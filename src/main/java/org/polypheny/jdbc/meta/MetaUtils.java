@@ -17,9 +17,12 @@
 package org.polypheny.jdbc.meta;
 
 import java.util.List;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import org.polypheny.prism.ColumnMeta;
+import org.polypheny.prism.Entity;
 import org.polypheny.prism.ParameterMeta;
+import org.polypheny.prism.Table;
 
 public class MetaUtils {
 
@@ -33,6 +36,11 @@ public static List<PolyphenyParameterMeta> buildParameterMetas( List<ParameterMe
     }
 
 
+    public static List<Table> getTables( List<Entity> entities ) {
+        return entities.stream().filter( Entity::hasTable ).map( Entity::getTable ).collect( Collectors.toList() );
+    }
+
+
     public enum NamespaceTypes {
         RELATIONAL,
         GRAPH,
@@ -44,4 +52,77 @@ public static String convertToRegex( String jdbcPattern ) {
         return jdbcPattern.replace( "_", "(.)" ).replace( "%", "(.*)" );
     }
 
+
+    /**
+     * Compiles a JDBC search pattern into a regex matching names the same way the server does. In contrast to
+     * {@link #convertToRegex(String)}, all characters except the wildcards are matched literally and the search
+     * string escape character ({@code \}) is respected.
+     *
+     * @param jdbcPattern the pattern as passed to the {@link java.sql.DatabaseMetaData} methods
+     * @param isCaseSensitive whether the comparison should be case-sensitive
+     * @return the compiled pattern, null if the JDBC pattern is null and matches everything
+     */
+    public static Pattern compilePattern( String jdbcPattern, boolean isCaseSensitive ) {
+        if ( jdbcPattern == null ) {
+            return null;
+        }
+        int flags = isCaseSensitive ? 0 : Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+        return Pattern.compile( toLiteralRegex( jdbcPattern ), flags );
+    }
+
+
+    /**
+     * Matches a name against a pattern compiled by {@link #compilePattern(String, boolean)}.
+     *
+     * @param name the name to test
+     * @param pattern the compiled pattern, {@code null} matches everything
+     * @return true if the name matches the pattern
+     */
+    public static boolean matchesPattern( String name, Pattern pattern ) {
+        if ( pattern == null ) {
+            return true;
+        }
+        return name != null && pattern.matcher( name ).matches();
+    }
+
+
+    private static String toLiteralRegex( String jdbcPattern ) {
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        boolean isEscaped = false;
+        for ( char c : jdbcPattern.toCharArray() ) {
+            if ( isEscaped ) {
+                literal.append( c );
+                isEscaped = false;
+                continue;
+            }
+            switch ( c ) {
+                case '\\':
+                    isEscaped = true;
+                    break;
+                case '%':
+                    appendLiteral( regex, literal );
+                    regex.append( ".*" );
+                    break;
+                case '_':
+                    appendLiteral( regex, literal );
+                    regex.append( '.' );
+                    break;
+                default:
+                    literal.append( c );
+            }
+        }
+        appendLiteral( regex, literal );
+        return regex.toString();
+    }
+
+
+    private static void appendLiteral( StringBuilder regex, StringBuilder literal ) {
+        if ( literal.length() == 0 ) {
+            return;
+        }
+        regex.append( Pattern.quote( literal.toString() ) );
+        literal.setLength( 0 );
+    }
+
 }
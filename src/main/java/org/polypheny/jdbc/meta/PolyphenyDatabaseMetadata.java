@@ -22,10 +22,12 @@
 import java.sql.RowIdLifetime;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -36,6 +38,7 @@
 import org.polypheny.jdbc.PrismInterfaceServiceException;
 import org.polypheny.jdbc.properties.DriverProperties;
 import org.polypheny.jdbc.properties.PropertyUtils;
+import org.polypheny.jdbc.utils.Futures;
 import org.polypheny.prism.Column;
 import org.polypheny.prism.DbmsVersionResponse;
 import org.polypheny.prism.Entity;
@@ -65,6 +68,9 @@ public class PolyphenyDatabaseMetadata implements DatabaseMetaData {
     private int databaseMinorVersion = NO_VERSION;
     private int databaseMajorVersion = NO_VERSION;
 
+    private final MetaCache metaCache;
+    private final int metadataConcurrency;
+
 
     private enum NullSorting {
         START,
@@ -74,10 +80,119 @@ private enum NullSorting {
     }
 
 
-    public PolyphenyDatabaseMetadata( PrismInterfaceClient prismInterfaceClient, ConnectionString target ) {
+    public PolyphenyDatabaseMetadata( PrismInterfaceClient prismInterfaceClient, ConnectionString target ) throws PrismInterfaceServiceException {
         this.prismInterfaceClient = prismInterfaceClient;
         this.connectionString = target;
         this.nullSorting = NullSorting.END;
+        this.metaCache = buildMetaCache( target );
+        this.metadataConcurrency = getMetadataConcurrency( target );
+    }
+
+
+    private static int getMetadataConcurrency( ConnectionString target ) throws PrismInterfaceServiceException {
+        if ( target == null || target.getParameter( PropertyUtils.getMETADATA_CONCURRENCY_KEY() ) == null ) {
+            return PropertyUtils.getDEFAULT_METADATA_CONCURRENCY();
+        }
+        long concurrency = parseNumber( PropertyUtils.getMETADATA_CONCURRENCY_KEY(), target.getParameter( PropertyUtils.getMETADATA_CONCURRENCY_KEY() ) );
+        if ( concurrency < 1 || concurrency > Integer.MAX_VALUE ) {
+            throw new PrismInterfaceServiceException( PrismInterfaceErrors.VALUE_ILLEGAL, "Illegal value for " + PropertyUtils.getMETADATA_CONCURRENCY_KEY() + ": " + concurrency );
+        }
+        return (int) concurrency;
+    }
+
+
+    private static long parseNumber( String key, String value ) throws PrismInterfaceServiceException {
+        try {
+            return Long.parseLong( value.trim() );
+        } catch ( NumberFormatException e ) {
+            throw new PrismInterfaceServiceException( PrismInterfaceErrors.VALUE_ILLEGAL, "Illegal value for " + key + ": " + value, e );
+        }
+    }
+
+
+    private static MetaCache buildMetaCache( ConnectionString target ) throws PrismInterfaceServiceException {
+        if ( target == null ) {
+            return null;
+        }
+        Map<String, String> parameters = target.getParameters();
+        long ttl = PropertyUtils.getDEFAULT_METADATA_CACHE_TTL_MILLIS();
+        boolean isShared = PropertyUtils.isDEFAULT_METADATA_CACHE_SHARED();
+        if ( parameters.containsKey( PropertyUtils.getMETADATA_CACHE_TTL_KEY() ) ) {
+            ttl = parseNumber( PropertyUtils.getMETADATA_CACHE_TTL_KEY(), parameters.get( PropertyUtils.getMETADATA_CACHE_TTL_KEY() ) );
+        }
+        if ( parameters.containsKey( PropertyUtils.getMETADATA_CACHE_SHARED_KEY() ) ) {
+            isShared = Boolean.parseBoolean( parameters.get( PropertyUtils.getMETADATA_CACHE_SHARED_KEY() ) );
+        }
+        if ( ttl <= 0 ) {
+            return null;
+        }
+        if ( isShared ) {
+            return MetaCache.getShared( target.getTarget() + "/" + target.getUser(), ttl );
+        }
+        return new MetaCache( ttl );
+    }
+
+
+    /**
+     * Drops all cached namespaces and tables. Called whenever the connection executed a statement that might have
+     * changed the schema.
+     */
+    public void invalidateCache() {
+        if ( metaCache == null ) {
+            return;
+        }
+        metaCache.invalidate();
+    }
+
+
+    /**
+     * Releases the metadata cache, called once the connection is closed for good.
+     */
+    public void releaseCache() {
+        if ( metaCache == null ) {
+            return;
+        }
+        metaCache.release();
+    }
+
+
+    private List<Namespace> searchNamespaces( String namespacePattern, String namespaceType ) throws SQLException {
+        int timeout = getConnection().getNetworkTimeout();
+        PrismInterfaceClient client = getClient();
+        if ( metaCache == null ) {
+            return client.searchNamespaces( namespacePattern, namespaceType, timeout );
+        }
+        return metaCache.getNamespaces( client, namespacePattern, namespaceType, timeout );
+    }
+
+
+    /**
+     * Searches the tables of multiple namespaces. The requests for the individual namespaces are pipelined over the
+     * connection with at most {@code metadataConcurrency} of them in flight.
+     *
+     * @return the matching tables, one list per namespace in the order of the namespaces
+     */
+    private List<List<Table>> searchTables( List<Namespace> namespaces, String tablePattern ) throws SQLException {
+        int timeout = getConnection().getNetworkTimeout();
+        PrismInterfaceClient client = getClient();
+        if ( metaCache == null ) {
+            return Futures.fanOut(
+                    namespaces,
+                    n -> client.searchEntitiesAsync( n.getNamespaceName(), tablePattern ).thenApply( MetaUtils::getTables ),
+                    metadataConcurrency,
+                    timeout
+            );
+        }
+        return metaCache.getTables( client, namespaces, tablePattern, metadataConcurrency, timeout );
+    }
+
+
+    /**
+     * @return the client metadata is requested from, once the updates the connection buffered have been executed
+     */
+    private PrismInterfaceClient getClient() throws SQLException {
+        polyConnection.beginMetaRequest();
+        return prismInterfaceClient;
     }
 
 
@@ -95,7 +210,7 @@ public void setConnection( PolyConnection connection ) {
 
 
     private void fetchDbmsVersionInfo() throws SQLException {
-        DbmsVersionResponse response = prismInterfaceClient.getDbmsVersion( getConnection().getNetworkTimeout() );
+        DbmsVersionResponse response = getClient().getDbmsVersion( getConnection().getNetworkTimeout() );
         productName = response.getDbmsName();
         productVersion = response.getVersionName();
         databaseMinorVersion = response.getMinorVersion();
@@ -273,31 +388,31 @@ public String getIdentifierQuoteString() throws SQLException {
 
     @Override
     public String getSQLKeywords() throws SQLException {
-        return prismInterfaceClient.getSqlKeywords( getConnection().getNetworkTimeout() );
+        return getClient().getSqlKeywords( getConnection().getNetworkTimeout() );
     }
 
 
     @Override
     public String getNumericFunctions() throws SQLException {
-        return prismInterfaceClient.getSqlNumericFunctions( getConnection().getNetworkTimeout() );
+        return getClient().getSqlNumericFunctions( getConnection().getNetworkTimeout() );
     }
 
 
     @Override
     public String getStringFunctions() throws SQLException {
-        return prismInterfaceClient.getSqlStringFunctions( getConnection().getNetworkTimeout() );
+        return getClient().getSqlStringFunctions( getConnection().getNetworkTimeout() );
     }
 
 
     @Override
     public String getSystemFunctions() throws SQLException {
-        return prismInterfaceClient.getSqlSystemFunctions( getConnection().getNetworkTimeout() );
+        return getClient().getSqlSystemFunctions( getConnection().getNetworkTimeout() );
     }
 
 
     @Override
     public String getTimeDateFunctions() throws SQLException {
-        return prismInterfaceClient.getSqlTimeDateFunctions( getConnection().getNetworkTimeout() );
+        return getClient().getSqlTimeDateFunctions( getConnection().getNetworkTimeout() );
     }
 
 
@@ -833,7 +948,7 @@ public boolean dataDefinitionIgnoredInTransactions() throws SQLException {
     @Override
     public ResultSet getProcedures( String catalog, String schemaPattern, String procedureNamePattern ) throws SQLException {
         throwNotSupportedIfStrict();
-        List<Procedure> procedures = prismInterfaceClient.searchProcedures( "sql", procedureNamePattern, getConnection().getNetworkTimeout() );
+        List<Procedure> procedures = getClient().searchProcedures( "sql", procedureNamePattern, getConnection().getNetworkTimeout() );
         return MetaResultSetBuilder.buildFromProcedures( procedures );
     }
 
@@ -871,47 +986,38 @@ public ResultSet getSchemas() throws SQLException {
 
     @Override
     public ResultSet getCatalogs() throws SQLException {
-        String defaultNamespace = prismInterfaceClient.getDefaultNamespace( getConnection().getNetworkTimeout() );
+        String defaultNamespace = getClient().getDefaultNamespace( getConnection().getNetworkTimeout() );
         return MetaResultSetBuilder.buildFromDatabases( defaultNamespace );
     }
 
 
     @Override
     public ResultSet getTableTypes() throws SQLException {
-        List<TableType> tableTypes = prismInterfaceClient.getTablesTypes( getConnection().getNetworkTimeout() );
+        List<TableType> tableTypes = getClient().getTablesTypes( getConnection().getNetworkTimeout() );
         return MetaResultSetBuilder.buildFromTableTypes( tableTypes );
     }
 
 
     @Override
     public ResultSet getColumns( String catalog, String schemaPattern, String tableNamePattern, String columnNamePattern ) throws SQLException {
-        List<Column> columns = prismInterfaceClient.searchNamespaces( schemaPattern, MetaUtils.NamespaceTypes.RELATIONAL.name(), getConnection().getNetworkTimeout() )
-                .stream()
-                .map( n -> {
-                    try {
-                        return getMatchingColumns( n, tableNamePattern, columnNamePattern );
-                    } catch ( SQLException e ) {
-                        throw new RuntimeException( e );
-                    }
-                } )
-                .flatMap( List::stream )
-                .collect( Collectors.toList() );
+        List<Column> columns = getMatchingColumns( schemaPattern, tableNamePattern, columnNamePattern );
         return MetaResultSetBuilder.buildFromColumns( columns );
     }
 
 
-    private List<Column> getMatchingColumns( Namespace namespace, String tableNamePattern, String columnNamePattern ) throws SQLException {
-        Stream<Column> columnStream = prismInterfaceClient.searchEntities( namespace.getNamespaceName(), tableNamePattern, getConnection().getNetworkTimeout() ).stream()
-                .filter( Entity::hasTable )
-                .map( Entity::getTable )
-                .map( Table::getColumnsList )
-                .flatMap( List::stream );
-        if ( columnNamePattern == null ) {
-            return columnStream.collect( Collectors.toList() );
+    private List<Column> getMatchingColumns( String namespacePattern, String tableNamePattern, String columnNamePattern ) throws SQLException {
+        List<Namespace> namespaces = searchNamespaces( namespacePattern, MetaUtils.NamespaceTypes.RELATIONAL.name() );
+        List<List<Table>> tables = searchTables( namespaces, tableNamePattern );
+        List<Column> columns = new ArrayList<>();
+        for ( int i = 0; i < namespaces.size(); i++ ) {
+            Namespace namespace = namespaces.get( i );
+            tables.get( i ).stream()
+                    .map( Table::getColumnsList )
+                    .flatMap( List::stream )
+                    .filter( c -> columnNamePattern == null || columnMatchesPattern( namespace, c, columnNamePattern ) )
+                    .forEach( columns::add );
         }
-        return columnStream
-                .filter( c -> columnMatchesPattern( namespace, c, columnNamePattern ) )
-                .collect( Collectors.toList() );
+        return columns;
     }
 
 
@@ -933,17 +1039,7 @@ public ResultSet getColumnPrivileges( String catalog, String schemaPattern, Stri
          * For proper implementation a dedicated api call should be used the result of witch should be passed to the MetaResultSet builder.
          */
         throwNotSupportedIfStrict();
-        List<Column> columns = prismInterfaceClient.searchNamespaces( schemaPattern, MetaUtils.NamespaceTypes.RELATIONAL.name(), getConnection().getNetworkTimeout() )
-                .stream()
-                .map( n -> {
-                    try {
-                        return getMatchingColumns( n, tableNamePattern, columnNamePattern );
-                    } catch ( SQLException e ) {
-                        throw new RuntimeException( e );
-                    }
-                } )
-                .flatMap( List::stream )
-                .collect( Collectors.toList() );
+        List<Column> columns = getMatchingColumns( schemaPattern, tableNamePattern, columnNamePattern );
         return MetaResultSetBuilder.buildFromColumnPrivileges( columns, getUserName() );
     }
 
@@ -1015,19 +1111,8 @@ public ResultSet getExportedKeys( String catalog, String schema, String table )
 
 
     private Stream<Table> getTableStream( String namespace, String table ) throws SQLException {
-        return prismInterfaceClient.searchNamespaces( namespace, MetaUtils.NamespaceTypes.RELATIONAL.name(), getConnection().getNetworkTimeout() )
-                .stream()
-                .map( Namespace::getNamespaceName )
-                .map( name -> {
-                    try {
-                        return prismInterfaceClient.searchEntities( name, table, getConnection().getNetworkTimeout() );
-                    } catch ( SQLException e ) {
-                        throw new RuntimeException( e );
-                    }
-                } )
-                .flatMap( List::stream )
-                .filter( Entity::hasTable )
-                .map( Entity::getTable );
+        List<Namespace> namespaces = searchNamespaces( namespace, MetaUtils.NamespaceTypes.RELATIONAL.name() );
+        return searchTables( namespaces, table ).stream().flatMap( List::stream );
     }
 
 
@@ -1062,7 +1147,7 @@ private boolean referencesTable( ForeignKey foreignKey, Table table ) {
 
     @Override
     public ResultSet getTypeInfo() throws SQLException {
-        List<Type> types = prismInterfaceClient.getTypes( getConnection().getNetworkTimeout() );
+        List<Type> types = getClient().getTypes( getConnection().getNetworkTimeout() );
         return MetaResultSetBuilder.buildFromTypes( types );
     }
 
@@ -1281,7 +1366,7 @@ public RowIdLifetime getRowIdLifetime() throws SQLException {
     @Override
     public ResultSet getSchemas( String catalog, String schemaPattern ) throws SQLException {
         // TODO: Always search all namespace types?
-        List<Namespace> namespaces = prismInterfaceClient.searchNamespaces( schemaPattern, null, getConnection().getNetworkTimeout() );
+        List<Namespace> namespaces = searchNamespaces( schemaPattern, null );
         return MetaResultSetBuilder.buildFromNamespaces( namespaces );
     }
 
@@ -1308,7 +1393,7 @@ public ResultSet getClientInfoProperties() throws SQLException {
 
     @Override
     public ResultSet getFunctions( String catalog, String schemaPattern, String functionNamePattern ) throws SQLException {
-        List<Function> functions = prismInterfaceClient.searchFunctions( "sql", "SYSTEM", getConnection().getNetworkTimeout() )
+        List<Function> functions = getClient().searchFunctions( "sql", "SYSTEM", getConnection().getNetworkTimeout() )
                 .stream()
                 .filter( f -> f.getName().matches( MetaUtils.convertToRegex( functionNamePattern ) ) )
                 .collect( Collectors.toList() );
@@ -1325,16 +1410,7 @@ public ResultSet getFunctionColumns( String s, String s1, String s2, String s3 )
 
     @Override
     public ResultSet getPseudoColumns( String catalog, String schemaPattern, String tableNamePattern, String columnNamePattern ) throws SQLException {
-        List<Column> columns = prismInterfaceClient.searchNamespaces( schemaPattern, MetaUtils.NamespaceTypes.RELATIONAL.name(), getConnection().getNetworkTimeout() )
-                .stream()
-                .map( n -> {
-                    try {
-                        return getMatchingColumns( n, tableNamePattern, columnNamePattern );
-                    } catch ( SQLException e ) {
-                        throw new RuntimeException( e );
-                    }
-                } )
-                .flatMap( List::stream )
+        List<Column> columns = getMatchingColumns( schemaPattern, tableNamePattern, columnNamePattern ).stream()
                 .filter( Column::getIsHidden )
                 .collect( Collectors.toList() );
         return MetaResultSetBuilder.buildFromPseudoColumns( columns );
@@ -49,7 +49,8 @@ private void throwIfOutOfBounds( int param ) throws SQLException {
 
     private PolyphenyParameterMeta getMeta( int param ) throws SQLException {
         throwIfOutOfBounds( param );
-        return parameterMetas.get( param );
+        /* jdbc indexes start with 1 */
+        return parameterMetas.get( param - 1 );
     }
 
 
@@ -72,7 +72,7 @@ private PolyConnection getPolyphenyConnection() {
 
 
     private PrismInterfaceClient getPrismInterfaceClient() {
-        return getPolyphenyConnection().getPrismInterfaceClient();
+        return polyStatement.getClient();
     }
 
 
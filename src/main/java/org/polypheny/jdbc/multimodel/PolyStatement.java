@@ -21,7 +21,9 @@
 import org.polypheny.jdbc.PrismInterfaceClient;
 import org.polypheny.jdbc.PrismInterfaceErrors;
 import org.polypheny.jdbc.PrismInterfaceServiceException;
+import org.polypheny.jdbc.properties.PropertyUtils;
 import org.polypheny.jdbc.utils.CallbackQueue;
+import org.polypheny.jdbc.utils.SqlUtils;
 import org.polypheny.prism.Frame;
 import org.polypheny.prism.Response;
 import org.polypheny.prism.StatementResponse;
@@ -34,25 +36,19 @@ public class PolyStatement {
     private final PolyConnection connection;
     @Getter
     private int statementId;
+    // the connection to the server the statement was last executed on
+    @Getter
+    private PrismInterfaceClient client;
 
 
     private void resetStatement() {
         if ( statementId != NO_STATEMENT_ID ) {
-            try {
-                getPrismInterfaceClient().closeStatement( statementId, 0 );
-            } catch ( PrismInterfaceServiceException e ) {
-                // Ignore cleanup errors
-            }
+            client.closeStatementDeferred( statementId );
             statementId = NO_STATEMENT_ID;
         }
     }
 
 
-    private PrismInterfaceClient getPrismInterfaceClient() {
-        return connection.getPrismInterfaceClient();
-    }
-
-
     private Result getResultFromFrame( Frame frame ) throws PrismInterfaceServiceException {
         switch ( frame.getResultCase() ) {
             case RELATIONAL_FRAME:
@@ -73,30 +69,38 @@ public Result execute( String namespaceName, String languageName, String stateme
         resetStatement();
         CallbackQueue<StatementResponse> callback = new CallbackQueue<>( Response::getStatementResponse );
         int timeout = connection.getTimeout();
-        getPrismInterfaceClient().executeUnparameterizedStatement(
-                namespaceName,
-                languageName,
-                statement,
-                callback,
-                timeout
-        );
-        while ( true ) {
-            StatementResponse response = callback.takeNext();
-            if ( statementId == NO_STATEMENT_ID ) {
-                statementId = response.getStatementId();
-            }
-            if ( !response.hasResult() ) {
-                continue;
-            }
-            try {
-                callback.awaitCompletion();
-            } catch ( InterruptedException e ) {
-                throw new PrismInterfaceServiceException( PrismInterfaceErrors.DRIVER_THREADING_ERROR, "Awaiting completion of api call failed.", e );
+        try {
+            client = connection.getPrismInterfaceClient();
+            connection.beginExecution( client );
+            client.executeUnparameterizedStatement(
+                    namespaceName,
+                    languageName,
+                    statement,
+                    callback,
+                    timeout
+            );
+            while ( true ) {
+                StatementResponse response = callback.takeNext();
+                if ( statementId == NO_STATEMENT_ID ) {
+                    statementId = response.getStatementId();
+                }
+                if ( !response.hasResult() ) {
+                    continue;
+                }
+                try {
+                    callback.awaitCompletion();
+                } catch ( InterruptedException e ) {
+                    throw new PrismInterfaceServiceException( PrismInterfaceErrors.DRIVER_THREADING_ERROR, "Awaiting completion of api call failed.", e );
+                }
+                if ( !response.getResult().hasFrame() ) {
+                    return new ScalarResult( response.getResult().getScalar() );
+                }
+                return getResultFromFrame( response.getResult().getFrame() );
             }
-            if ( !response.getResult().hasFrame() ) {
-                return new ScalarResult( response.getResult().getScalar() );
+        } finally {
+            if ( PropertyUtils.getSQL_LANGUAGE_NAME().equals( languageName ) && SqlUtils.isDataDefinition( statement ) ) {
+                connection.invalidateMetaCache();
             }
-            return getResultFromFrame( response.getResult().getFrame() );
         }
     }
 
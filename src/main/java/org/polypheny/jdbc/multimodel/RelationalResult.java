@@ -71,7 +71,7 @@ private PolyConnection getPolyphenyConnection() {
 
 
     private PrismInterfaceClient getPrismInterfaceClient() {
-        return getPolyphenyConnection().getPrismInterfaceClient();
+        return polyStatement.getClient();
     }
 
 
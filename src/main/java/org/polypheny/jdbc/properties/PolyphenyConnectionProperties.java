@@ -20,15 +20,20 @@
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.Getter;
 import org.polypheny.jdbc.ConnectionString;
 import org.polypheny.jdbc.PrismInterfaceClient;
 import org.polypheny.jdbc.PrismInterfaceErrors;
 import org.polypheny.jdbc.PrismInterfaceServiceException;
+import org.polypheny.jdbc.routing.HostAddress;
 
 public class PolyphenyConnectionProperties {
 
@@ -42,8 +47,22 @@ public PolyphenyConnectionProperties( ConnectionString connectionString, PrismIn
         this.calendar = Calendar.getInstance( DriverProperties.getDEFAULT_TIMEZONE(), Locale.ROOT );
         this.catalogName = null;
         this.isStrict = true;
+        this.hosts = connectionString.getHosts();
+        this.replicas = Collections.emptyList();
+        this.hedgingPercentile = PropertyUtils.getDEFAULT_HEDGING_PERCENTILE();
+        this.isReconnect = PropertyUtils.isDEFAULT_RECONNECT();
+        this.isLeakTracing = PropertyUtils.isDEFAULT_LEAK_TRACING();
+        this.batchChunkSize = PropertyUtils.getDEFAULT_BATCH_CHUNK_SIZE();
+        this.batchChunkBytes = PropertyUtils.getDEFAULT_BATCH_CHUNK_BYTES();
+        this.batchWindow = PropertyUtils.getDEFAULT_BATCH_WINDOW();
+        this.isRewriteBatchedInserts = PropertyUtils.isDEFAULT_REWRITE_BATCHED_INSERTS();
+        this.isWriteBehind = PropertyUtils.isDEFAULT_WRITE_BEHIND();
+        this.writeBehindDelay = PropertyUtils.getDEFAULT_WRITE_BEHIND_DELAY_MILLIS();
+        this.validationWindow = PropertyUtils.getDEFAULT_VALIDATION_WINDOW_MILLIS();
+        this.keepAliveInterval = PropertyUtils.getDEFAULT_KEEP_ALIVE_INTERVAL_MILLIS();
 
         Map<String, String> parameters = connectionString.getParameters();
+        this.parameters = parameters;
         Optional.ofNullable( parameters.get( PropertyUtils.getUSERNAME_KEY() ) ).ifPresent( p -> this.username = p );
         Optional.ofNullable( parameters.get( PropertyUtils.getPASSWORD_KEY() ) ).ifPresent( p -> this.password = p );
         Optional.ofNullable( parameters.get( PropertyUtils.getAUTOCOMMIT_KEY() ) ).ifPresent( p -> this.isAutoCommit = Boolean.parseBoolean( p ) );
@@ -52,6 +71,29 @@ public PolyphenyConnectionProperties( ConnectionString connectionString, PrismIn
         Optional.ofNullable( parameters.get( PropertyUtils.getNAMESPACE_KEY() ) ).ifPresent( p -> this.namespaceName = p );
         Optional.ofNullable( parameters.get( PropertyUtils.getTIMEZONE_KEY() ) ).ifPresent( p -> this.calendar = Calendar.getInstance( TimeZone.getTimeZone( p ), Locale.ROOT ) );
         Optional.ofNullable( parameters.get( PropertyUtils.getSTRICT_MODE_KEY() ) ).ifPresent( p -> this.isStrict = Boolean.parseBoolean( p ) );
+        Optional.ofNullable( parameters.get( PropertyUtils.getVALIDATION_WINDOW_KEY() ) ).ifPresent( p -> this.validationWindow = Long.parseLong( p ) );
+        Optional.ofNullable( parameters.get( PropertyUtils.getKEEP_ALIVE_INTERVAL_KEY() ) ).ifPresent( p -> this.keepAliveInterval = Long.parseLong( p ) );
+        Optional.ofNullable( parameters.get( PropertyUtils.getRECONNECT_KEY() ) ).ifPresent( p -> this.isReconnect = Boolean.parseBoolean( p ) );
+        Optional.ofNullable( parameters.get( PropertyUtils.getLEAK_TRACING_KEY() ) ).ifPresent( p -> this.isLeakTracing = Boolean.parseBoolean( p ) );
+        Optional.ofNullable( parameters.get( PropertyUtils.getBATCH_CHUNK_SIZE_KEY() ) ).ifPresent( p -> this.batchChunkSize = Integer.parseInt( p ) );
+        Optional.ofNullable( parameters.get( PropertyUtils.getBATCH_CHUNK_BYTES_KEY() ) ).ifPresent( p -> this.batchChunkBytes = Integer.parseInt( p ) );
+        Optional.ofNullable( parameters.get( PropertyUtils.getBATCH_WINDOW_KEY() ) ).ifPresent( p -> this.batchWindow = Integer.parseInt( p ) );
+        Optional.ofNullable( parameters.get( PropertyUtils.getREWRITE_BATCHED_INSERTS_KEY() ) ).ifPresent( p -> this.isRewriteBatchedInserts = Boolean.parseBoolean( p ) );
+        Optional.ofNullable( parameters.get( PropertyUtils.getWRITE_BEHIND_KEY() ) ).ifPresent( p -> this.isWriteBehind = Boolean.parseBoolean( p ) );
+        Optional.ofNullable( parameters.get( PropertyUtils.getWRITE_BEHIND_DELAY_KEY() ) ).ifPresent( p -> this.writeBehindDelay = Long.parseLong( p ) );
+        if ( writeBehindDelay < 0 ) {
+            throw new PrismInterfaceServiceException( PrismInterfaceErrors.VALUE_ILLEGAL, "Write behind delay must not be negative: " + writeBehindDelay );
+        }
+        if ( batchChunkSize < 0 || batchChunkBytes < 1 || batchWindow < 1 ) {
+            throw new PrismInterfaceServiceException( PrismInterfaceErrors.VALUE_ILLEGAL, "Batch chunk size must not be negative, chunk bytes and window must be positive" );
+        }
+        Optional.ofNullable( parameters.get( PropertyUtils.getHEDGING_KEY() ) ).ifPresent( p -> this.hedgingPercentile = Double.parseDouble( p ) );
+        if ( hedgingPercentile < 0 || hedgingPercentile >= 100 ) {
+            throw new PrismInterfaceServiceException( PrismInterfaceErrors.VALUE_ILLEGAL, "Hedging percentile must be between 0 and 100: " + hedgingPercentile );
+        }
+        if ( parameters.containsKey( PropertyUtils.getREPLICAS_KEY() ) ) {
+            this.replicas = HostAddress.parseList( parameters.get( PropertyUtils.getREPLICAS_KEY() ), PropertyUtils.getDEFAULT_PORT() );
+        }
 
         if ( parameters.containsKey( PropertyUtils.getRESULT_SET_HOLDABILITY_KEY() ) ) {
             int resultSetHoldability = parseResultSetHoldability( parameters.get( PropertyUtils.getRESULT_SET_HOLDABILITY_KEY() ) );
@@ -103,35 +145,86 @@ private int parseResultSetHoldability( String string ) throws SQLException {
     @Getter
     private String password;
     @Getter
-    private boolean isAutoCommit;
+    private volatile boolean isAutoCommit;
     @Getter
-    private boolean isReadOnly;
+    private volatile boolean isReadOnly;
     @Getter
     private int resultSetHoldability;
     @Getter
-    private int networkTimeout;
+    private volatile int networkTimeout;
     @Getter
-    private int transactionIsolation;
+    private volatile int transactionIsolation;
     @Getter
     // not transmitted to server
     private String catalogName;
     @Getter
-    private String namespaceName;
+    private volatile String namespaceName;
     @Getter
     private Calendar calendar;
     @Getter
     private boolean isStrict;
+    @Getter
+    // not transmitted to server
+    private long validationWindow;
+    @Getter
+    // not transmitted to server
+    private long keepAliveInterval;
+    @Getter
+    // not transmitted to server
+    private List<HostAddress> hosts;
+    @Getter
+    // not transmitted to server
+    private List<HostAddress> replicas;
+    @Getter
+    // not transmitted to server
+    private double hedgingPercentile;
+    @Getter
+    // not transmitted to server
+    private boolean isReconnect;
+    @Getter
+    // not transmitted to server
+    private boolean isLeakTracing;
+    @Getter
+    // not transmitted to server
+    private int batchChunkSize;
+    @Getter
+    // not transmitted to server
+    private int batchChunkBytes;
+    @Getter
+    // not transmitted to server
+    private int batchWindow;
+    @Getter
+    // not transmitted to server
+    private boolean isRewriteBatchedInserts;
+    @Getter
+    // not transmitted to server
+    private boolean isWriteBehind;
+    @Getter
+    // not transmitted to server
+    private long writeBehindDelay;
+    @Getter
+    private Map<String, String> parameters;
+    // incremented on every change, compared to the version last transmitted to each server
+    private volatile long version;
+    // clients compare by identity
+    private final Map<PrismInterfaceClient, Long> syncedVersions = new ConcurrentHashMap<>();
 
 
-    public void setAutoCommit( boolean isAutoCommit ) throws PrismInterfaceServiceException {
+    public synchronized void setAutoCommit( boolean isAutoCommit ) {
+        if ( this.isAutoCommit == isAutoCommit ) {
+            return;
+        }
         this.isAutoCommit = isAutoCommit;
-        sync();
+        version++;
     }
 
 
-    public void setReadOnly( boolean isReadOnly ) throws PrismInterfaceServiceException {
+    public synchronized void setReadOnly( boolean isReadOnly ) {
+        if ( this.isReadOnly == isReadOnly ) {
+            return;
+        }
         this.isReadOnly = isReadOnly;
-        sync();
+        version++;
     }
 
 
@@ -140,39 +233,83 @@ public void setResultSetHoldability( int resultSetHoldability ) throws SQLExcept
             throw new PrismInterfaceServiceException( PrismInterfaceErrors.VALUE_ILLEGAL, "Invalid value for result set holdability" );
         }
         this.resultSetHoldability = resultSetHoldability;
-        // not transmitted to server -> no sync()
+        // not transmitted to server -> not marked dirty
     }
 
 
-    public void setNetworkTimeout( int networkTimeout ) throws PrismInterfaceServiceException {
+    public synchronized void setNetworkTimeout( int networkTimeout ) {
+        if ( this.networkTimeout == networkTimeout ) {
+            return;
+        }
         this.networkTimeout = networkTimeout;
-        sync();
+        version++;
     }
 
 
-    public void setTransactionIsolation( int transactionIsolation ) throws SQLException {
+    public synchronized void setTransactionIsolation( int transactionIsolation ) throws SQLException {
         if ( !PropertyUtils.isValidIsolationLevel( transactionIsolation ) ) {
             throw new PrismInterfaceServiceException( PrismInterfaceErrors.VALUE_ILLEGAL, "Invalid value for transaction isolation" );
         }
+        if ( this.transactionIsolation == transactionIsolation ) {
+            return;
+        }
         this.transactionIsolation = transactionIsolation;
-        sync();
+        version++;
     }
 
 
     public void setCatalogName( String catalogName ) {
         this.catalogName = catalogName;
-        // not transmitted to server -> no sync()
+        // not transmitted to server -> not marked dirty
     }
 
 
-    public void setNamespaceName( String namespaceName ) throws PrismInterfaceServiceException {
+    public synchronized void setNamespaceName( String namespaceName ) {
+        if ( Objects.equals( this.namespaceName, namespaceName ) ) {
+            return;
+        }
         this.namespaceName = namespaceName;
-        sync();
+        version++;
+    }
+
+
+    public boolean isDirty() {
+        return isDirty( prismInterfaceClient );
+    }
+
+
+    public boolean isDirty( PrismInterfaceClient client ) {
+        return syncedVersions.getOrDefault( client, 0L ) != version;
+    }
+
+
+    public void flush() throws PrismInterfaceServiceException {
+        flush( prismInterfaceClient );
+    }
+
+
+    /**
+     * Transmits the properties to a server if any of them changed since they were last transmitted to it. Changes are
+     * collected locally and sent in a single update right before the next statement is prepared or executed.
+     *
+     * @param client the connection to the server
+     */
+    public void flush( PrismInterfaceClient client ) throws PrismInterfaceServiceException {
+        // the version is read first, a concurrent change is then sent again with the next statement
+        long current = version;
+        if ( syncedVersions.getOrDefault( client, 0L ) == current ) {
+            return;
+        }
+        client.setConnectionProperties( this, getNetworkTimeout() );
+        syncedVersions.put( client, current );
     }
 
 
-    private void sync() throws PrismInterfaceServiceException {
-        prismInterfaceClient.setConnectionProperties( this, getNetworkTimeout() );
+    /**
+     * Records that a server received the current properties, e.g. as part of the connection request.
+     */
+    public void markSynced( PrismInterfaceClient client ) {
+        syncedVersions.put( client, version );
     }
 
 
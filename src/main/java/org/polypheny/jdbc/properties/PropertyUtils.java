@@ -74,6 +74,51 @@ public class PropertyUtils {
     private static final int DEFAULT_PORT = 20590;
     @Getter
     private static final String SQL_LANGUAGE_NAME = "sql";
+    @Getter
+    // Metadata caching is disabled unless a ttl is specified.
+    private static final long DEFAULT_METADATA_CACHE_TTL_MILLIS = 0;
+    @Getter
+    private static final boolean DEFAULT_METADATA_CACHE_SHARED = false;
+    @Getter
+    private static final int DEFAULT_METADATA_CONCURRENCY = 8;
+    @Getter
+    // isValid always sends a ping unless a validation window is specified.
+    private static final long DEFAULT_VALIDATION_WINDOW_MILLIS = 0;
+    @Getter
+    // No keep alive pings are sent unless an interval is specified.
+    private static final long DEFAULT_KEEP_ALIVE_INTERVAL_MILLIS = 0;
+    @Getter
+    private static final String DEFAULT_LOAD_BALANCING = "leastoutstanding";
+    @Getter
+    // Percentile of the observed latency after which read requests are sent to a second host. 0 disables hedging.
+    private static final double DEFAULT_HEDGING_PERCENTILE = 0;
+    @Getter
+    private static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 10000;
+    @Getter
+    private static final int DEFAULT_HANDSHAKE_TIMEOUT_MILLIS = 10000;
+    @Getter
+    private static final boolean DEFAULT_RECONNECT = false;
+    @Getter
+    private static final boolean DEFAULT_LEAK_TRACING = false;
+    @Getter
+    // Upper bounds for the chunks large unparameterized batches are split into. A chunk size of 0 sends each batch
+    // as one request. Splitting is opt-in, as chunks are committed one by one in auto commit mode.
+    private static final int DEFAULT_BATCH_CHUNK_SIZE = 0;
+    @Getter
+    private static final int DEFAULT_BATCH_CHUNK_BYTES = 4 * 1024 * 1024;
+    @Getter
+    // Number of batch chunks sent before the first one completed. Larger windows assume the server executes the
+    // requests of a connection in the order they were sent.
+    private static final int DEFAULT_BATCH_WINDOW = 1;
+    @Getter
+    // Whether batches of single row inserts are sent as multi row inserts.
+    private static final boolean DEFAULT_REWRITE_BATCHED_INSERTS = false;
+    @Getter
+    // Whether updates of prepared statements inside transactions are buffered and sent as batches.
+    private static final boolean DEFAULT_WRITE_BEHIND = false;
+    @Getter
+    // Time after which buffered updates are sent at the latest.
+    private static final long DEFAULT_WRITE_BEHIND_DELAY_MILLIS = 10;
     // Keys for properties
     @Getter
     private static final String USERNAME_KEY = "user";
@@ -100,6 +145,44 @@ public class PropertyUtils {
     private static final String TIMEZONE_KEY = "timezone";
     @Getter
     private static final String STRICT_MODE_KEY = "strict";
+    @Getter
+    private static final String METADATA_CACHE_TTL_KEY = "metacachettl";
+    @Getter
+    private static final String METADATA_CACHE_SHARED_KEY = "metacacheshared";
+    @Getter
+    private static final String METADATA_CONCURRENCY_KEY = "metaconcurrency";
+    @Getter
+    private static final String VALIDATION_WINDOW_KEY = "validationwindow";
+    @Getter
+    private static final String KEEP_ALIVE_INTERVAL_KEY = "keepalive";
+    @Getter
+    private static final String LOAD_BALANCING_KEY = "loadbalancing";
+    @Getter
+    private static final String REPLICAS_KEY = "replicas";
+    @Getter
+    private static final String HEDGING_KEY = "hedging";
+    @Getter
+    private static final String SHARD_KEY_KEY = "shardkey";
+    @Getter
+    private static final String CONNECT_TIMEOUT_KEY = "connecttimeout";
+    @Getter
+    private static final String HANDSHAKE_TIMEOUT_KEY = "handshaketimeout";
+    @Getter
+    private static final String RECONNECT_KEY = "reconnect";
+    @Getter
+    private static final String LEAK_TRACING_KEY = "leaktracing";
+    @Getter
+    private static final String BATCH_CHUNK_SIZE_KEY = "batchchunksize";
+    @Getter
+    private static final String BATCH_CHUNK_BYTES_KEY = "batchchunkbytes";
+    @Getter
+    private static final String BATCH_WINDOW_KEY = "batchwindow";
+    @Getter
+    private static final String REWRITE_BATCHED_INSERTS_KEY = "rewritebatchedinserts";
+    @Getter
+    private static final String WRITE_BEHIND_KEY = "writebehind";
+    @Getter
+    private static final String WRITE_BEHIND_DELAY_KEY = "writebehinddelay";
 
 
     public static String getHoldabilityName( int resultSetHoldability ) throws PrismInterfaceServiceException {
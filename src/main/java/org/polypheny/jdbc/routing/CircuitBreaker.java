@@ -0,0 +1,131 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.polypheny.jdbc.routing;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Stops connection attempts to a host that is known to be down. After {@value #FAILURE_THRESHOLD} consecutive
+ * failures the breaker opens and rejects attempts for a while. Then a single trial attempt is let through (half open):
+ * if it succeeds the breaker closes, otherwise it opens again for twice as long, up to a maximum.
+ * <p>
+ * The breaker is consulted on every connect, so its state is an immutable snapshot replaced by compare and set and
+ * no method takes a lock.
+ */
+public class CircuitBreaker {
+
+    static final int FAILURE_THRESHOLD = 2;
+    private static final long INITIAL_OPEN_NANOS = TimeUnit.SECONDS.toNanos( 5 );
+    private static final long MAX_OPEN_NANOS = TimeUnit.SECONDS.toNanos( 60 );
+
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>( Snapshot.CLOSED );
+
+
+    public State getState() {
+        return snapshot.get().state;
+    }
+
+
+    /**
+     * Checks without side effects whether {@link #tryAcquire()} would currently allow an attempt.
+     */
+    public boolean allowsAttempt() {
+        Snapshot current = snapshot.get();
+        return current.state == State.CLOSED || System.nanoTime() - current.retryAt >= 0;
+    }
+
+
+    /**
+     * Must be called before connecting to the host. The outcome of an allowed attempt must be reported using
+     * {@link #recordSuccess()} or {@link #recordFailure()}.
+     *
+     * @return false if the breaker is open or another trial attempt is running
+     */
+    public boolean tryAcquire() {
+        while ( true ) {
+            Snapshot current = snapshot.get();
+            if ( current.state == State.CLOSED ) {
+                return true;
+            }
+            long now = System.nanoTime();
+            if ( now - current.retryAt < 0 ) {
+                return false;
+            }
+            // Either the open period is over or a trial did not report back in time, the next trial is let through.
+            Snapshot trial = new Snapshot( State.HALF_OPEN, current.failures, current.openNanos, now + current.openNanos );
+            if ( snapshot.compareAndSet( current, trial ) ) {
+                return true;
+            }
+        }
+    }
+
+
+    public void recordSuccess() {
+        snapshot.set( Snapshot.CLOSED );
+    }
+
+
+    public void recordFailure() {
+        while ( true ) {
+            Snapshot current = snapshot.get();
+            int failures = current.failures + 1;
+            Snapshot next;
+            if ( current.state == State.CLOSED && failures < FAILURE_THRESHOLD ) {
+                next = new Snapshot( State.CLOSED, failures, current.openNanos, 0 );
+            } else {
+                long openNanos = current.state == State.HALF_OPEN ? Math.min( 2 * current.openNanos, MAX_OPEN_NANOS ) : current.openNanos;
+                next = new Snapshot( State.OPEN, failures, openNanos, System.nanoTime() + openNanos );
+            }
+            if ( snapshot.compareAndSet( current, next ) ) {
+                return;
+            }
+        }
+    }
+
+
+    private static class Snapshot {
+
+        private static final Snapshot CLOSED = new Snapshot( State.CLOSED, 0, INITIAL_OPEN_NANOS, 0 );
+
+        private final State state;
+        // consecutive failures
+        private final int failures;
+        private final long openNanos;
+        // the next attempt is allowed once System.nanoTime() has passed this point
+        private final long retryAt;
+
+
+        private Snapshot( State state, int failures, long openNanos, long retryAt ) {
+            this.state = state;
+            this.failures = failures;
+            this.openNanos = openNanos;
+            this.retryAt = retryAt;
+        }
+
+    }
+
+}
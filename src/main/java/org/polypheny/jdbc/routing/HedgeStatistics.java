@@ -0,0 +1,96 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.polypheny.jdbc.routing;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts how often requests of a connection were hedged, i.e. sent to a second server because the first one was
+ * slow, and how often the second server answered first. Obtained from
+ * {@link org.polypheny.jdbc.PolyConnection#getHedgeStatistics()}.
+ */
+public class HedgeStatistics {
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+
+
+    public void recordRequest() {
+        requests.incrementAndGet();
+    }
+
+
+    public void recordHedge() {
+        hedges.incrementAndGet();
+    }
+
+
+    public void recordHedgeWin() {
+        hedgeWins.incrementAndGet();
+    }
+
+
+    /**
+     * @return the number of requests eligible for hedging
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+
+    /**
+     * @return the number of requests sent to a second server
+     */
+    public long getHedges() {
+        return hedges.get();
+    }
+
+
+    /**
+     * @return the number of hedged requests answered first by the second server
+     */
+    public long getHedgeWins() {
+        return hedgeWins.get();
+    }
+
+
+    /**
+     * @return the share of eligible requests that were hedged
+     */
+    public double getHedgeRate() {
+        long total = requests.get();
+        return total == 0 ? 0 : (double) hedges.get() / total;
+    }
+
+
+    /**
+     * @return the share of hedged requests answered first by the second server
+     */
+    public double getWinRate() {
+        long total = hedges.get();
+        return total == 0 ? 0 : (double) hedgeWins.get() / total;
+    }
+
+
+    @Override
+    public String toString() {
+        return "HedgeStatistics{requests=" + getRequests() + ", hedges=" + getHedges() + ", hedgeWins=" + getHedgeWins() + "}";
+    }
+
+}
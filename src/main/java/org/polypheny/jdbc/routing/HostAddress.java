@@ -0,0 +1,100 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.polypheny.jdbc.routing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import lombok.Getter;
+import org.polypheny.jdbc.PrismInterfaceErrors;
+import org.polypheny.jdbc.PrismInterfaceServiceException;
+
+public class HostAddress {
+
+    @Getter
+    private final String host;
+    @Getter
+    private final int port;
+
+
+    public HostAddress( String host, int port ) {
+        this.host = host;
+        this.port = port;
+    }
+
+
+    /**
+     * Parses a comma separated list of hosts as used in connection urls, e.g. {@code h1:20590,h2,[::1]:20591}.
+     *
+     * @param hosts the list to parse
+     * @param defaultPort port used for entries without a port
+     * @return the hosts in the order of the list
+     * @throws PrismInterfaceServiceException if an entry is empty or has an invalid port
+     */
+    public static List<HostAddress> parseList( String hosts, int defaultPort ) throws PrismInterfaceServiceException {
+        List<HostAddress> addresses = new ArrayList<>();
+        for ( String entry : hosts.split( ",", -1 ) ) {
+            addresses.add( parse( entry.trim(), defaultPort ) );
+        }
+        return Collections.unmodifiableList( addresses );
+    }
+
+
+    private static HostAddress parse( String entry, int defaultPort ) throws PrismInterfaceServiceException {
+        if ( entry.isEmpty() ) {
+            throw new PrismInterfaceServiceException( PrismInterfaceErrors.URL_PARSING_INVALID, "Empty host in host list." );
+        }
+        // IPv6 literals are enclosed in brackets
+        int portSeparator = entry.startsWith( "[" ) ? entry.indexOf( ':', entry.indexOf( ']' ) ) : entry.indexOf( ':' );
+        if ( portSeparator == -1 ) {
+            return new HostAddress( entry, defaultPort );
+        }
+        try {
+            return new HostAddress( entry.substring( 0, portSeparator ), Integer.parseInt( entry.substring( portSeparator + 1 ) ) );
+        } catch ( NumberFormatException e ) {
+            throw new PrismInterfaceServiceException( PrismInterfaceErrors.URL_PARSING_INVALID, "Invalid port in host list: " + entry, e );
+        }
+    }
+
+
+    @Override
+    public boolean equals( Object o ) {
+        if ( this == o ) {
+            return true;
+        }
+        if ( !(o instanceof HostAddress) ) {
+            return false;
+        }
+        HostAddress that = (HostAddress) o;
+        return port == that.port && host.equals( that.host );
+    }
+
+
+    @Override
+    public int hashCode() {
+        return Objects.hash( host, port );
+    }
+
+
+    @Override
+    public String toString() {
+        return host + ":" + port;
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.polypheny.jdbc.routing;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.polypheny.jdbc.PrismInterfaceErrors;
+import org.polypheny.jdbc.PrismInterfaceServiceException;
+
+/**
+ * Decides which of several hosts a new connection is opened to. Selection is lock-free, it only reads the
+ * {@link HostStats} of the hosts and increments a counter.
+ */
+public class HostSelector {
+
+    public enum Strategy {
+        ROUND_ROBIN,
+        LEAST_OUTSTANDING;
+
+
+        public static Strategy fromName( String name ) throws PrismInterfaceServiceException {
+            switch ( name.toLowerCase( Locale.ROOT ) ) {
+                case "roundrobin":
+                    return ROUND_ROBIN;
+                case "leastoutstanding":
+                    return LEAST_OUTSTANDING;
+            }
+            throw new PrismInterfaceServiceException( PrismInterfaceErrors.VALUE_ILLEGAL, "Unknown load balancing strategy: " + name );
+        }
+    }
+
+
+    // Shared by all selectors so that consecutive connections start at different hosts.
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+
+    private final List<HostStats> hosts;
+    private final Strategy strategy;
+
+
+    public HostSelector( List<HostAddress> hosts, Strategy strategy ) {
+        this.hosts = new ArrayList<>( hosts.size() );
+        for ( HostAddress host : hosts ) {
+            this.hosts.add( HostStats.of( host ) );
+        }
+        this.strategy = strategy;
+    }
+
+
+    /**
+     * Returns all hosts in the order they should be tried. Healthy hosts come first, ordered by the strategy, followed
+     * by the unhealthy ones as a last resort.
+     *
+     * @return the hosts in order of preference
+     */
+    public List<HostStats> candidates() {
+        int size = hosts.size();
+        if ( size == 1 ) {
+            return hosts;
+        }
+        int offset = Math.floorMod( COUNTER.getAndIncrement(), size );
+        List<HostStats> healthy = new ArrayList<>( size );
+        List<HostStats> unhealthy = new ArrayList<>();
+        for ( int i = 0; i < size; i++ ) {
+            HostStats host = hosts.get( (offset + i) % size );
+            if ( host.isHealthy() ) {
+                healthy.add( host );
+            } else {
+                unhealthy.add( host );
+            }
+        }
+        if ( strategy == Strategy.LEAST_OUTSTANDING ) {
+            // stable sort, hosts with equal load keep their round robin order
+            healthy.sort( Comparator.comparingInt( HostStats::getOutstandingRequests ).thenComparingDouble( HostStats::getLatency ) );
+        }
+        healthy.addAll( unhealthy );
+        return healthy;
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.polypheny.jdbc.routing;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Getter;
+
+/**
+ * Health and load of a single host, shared by all connections of this driver to the host. All methods used on every
+ * request are lock-free.
+ */
+public class HostStats {
+
+    private static final Map<HostAddress, HostStats> STATS = new ConcurrentHashMap<>();
+
+    // Weight of the latest sample in the moving average of the latency.
+    private static final double LATENCY_SMOOTHING = 0.2;
+
+    @Getter
+    private final HostAddress address;
+    private final AtomicInteger outstandingRequests = new AtomicInteger();
+    // Double bits of the moving average of the latency in nanoseconds, 0 until the first sample.
+    private final AtomicLong latencyBits = new AtomicLong();
+    @Getter
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+
+    private HostStats( HostAddress address ) {
+        this.address = address;
+    }
+
+
+    public static HostStats of( HostAddress address ) {
+        HostStats stats = STATS.get( address );
+        if ( stats != null ) {
+            return stats;
+        }
+        return STATS.computeIfAbsent( address, HostStats::new );
+    }
+
+
+    public int getOutstandingRequests() {
+        return outstandingRequests.get();
+    }
+
+
+    /**
+     * @return the moving average of the response latency in nanoseconds, 0 if no request has been answered yet
+     */
+    public double getLatency() {
+        return Double.longBitsToDouble( latencyBits.get() );
+    }
+
+
+    public boolean isHealthy() {
+        return circuitBreaker.allowsAttempt();
+    }
+
+
+    /**
+     * Opens the circuit breaker of the host, e.g. because connecting to it failed.
+     */
+    public void markUnhealthy() {
+        circuitBreaker.recordFailure();
+    }
+
+
+    public void markHealthy() {
+        circuitBreaker.recordSuccess();
+    }
+
+
+    public void requestStarted() {
+        outstandingRequests.incrementAndGet();
+    }
+
+
+    public void requestFinished( long latencyNanos ) {
+        outstandingRequests.decrementAndGet();
+        long current;
+        long updated;
+        do {
+            current = latencyBits.get();
+            double average = Double.longBitsToDouble( current );
+            double next = average == 0 ? latencyNanos : average + LATENCY_SMOOTHING * (latencyNanos - average);
+            updated = Double.doubleToLongBits( next );
+        } while ( !latencyBits.compareAndSet( current, updated ) );
+    }
+
+
+    /**
+     * Must be called for requests that will never be answered, e.g. because the connection was lost.
+     */
+    public void requestAbandoned() {
+        outstandingRequests.decrementAndGet();
+    }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.polypheny.jdbc.routing;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the latencies of the most recent requests to estimate latency percentiles. Older samples are overwritten,
+ * so the estimate follows changes of the load.
+ */
+public class LatencyTracker {
+
+    private final long[] samples;
+    private int next;
+    private int count;
+
+
+    public LatencyTracker( int capacity ) {
+        this.samples = new long[capacity];
+    }
+
+
+    public synchronized void record( long nanos ) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        count = Math.min( count + 1, samples.length );
+    }
+
+
+    public synchronized int size() {
+        return count;
+    }
+
+
+    /**
+     * Returns the latency below which the given share of the recorded requests finished.
+     *
+     * @param percentile the percentile between 0 and 100
+     * @return the latency in nanoseconds or -1 if no latency has been recorded
+     */
+    public long percentile( double percentile ) {
+        long[] sorted;
+        synchronized ( this ) {
+            if ( count == 0 ) {
+                return -1;
+            }
+            sorted = Arrays.copyOf( samples, count );
+        }
+        Arrays.sort( sorted );
+        int index = (int) Math.ceil( percentile / 100 * sorted.length ) - 1;
+        return sorted[Math.max( 0, Math.min( sorted.length - 1, index ) )];
+    }
+
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.polypheny.jdbc.sharding;
+
+/**
+ * Distributes shard keys evenly by hashing their string representation. The string is used instead of
+ * {@link Object#hashCode()}, as the routing must not differ between JVMs.
+ */
+public class HashShardingStrategy implements ShardingStrategy {
+
+    @Override
+    public int getShard( Object shardKey, int shardCount ) {
+        int hash = shardKey.toString().hashCode();
+        // spread the bits, consecutive keys are common for tenant ids
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        return Math.floorMod( hash, shardCount );
+    }
+
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.polypheny.jdbc.sharding;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+import lombok.Getter;
+import lombok.Setter;
+import org.polypheny.jdbc.ConnectionString;
+import org.polypheny.jdbc.PolyConnection;
+import org.polypheny.jdbc.PrismInterfaceErrors;
+import org.polypheny.jdbc.PrismInterfaceServiceException;
+import org.polypheny.jdbc.properties.PropertyUtils;
+
+/**
+ * Data source for data partitioned across several independent Polypheny instances. Each connection is opened to the
+ * instance holding the data of a shard key, so all statements, prepared statements and
+ * {@link org.polypheny.jdbc.multimodel.PolyStatement}s created from it are executed there. The key is passed to
+ * {@link #getConnection(Object)}, set as the {@code shardkey} property of {@link #getConnection(Properties)} or
+ * supplied by a {@link ShardHint}.
+ * <p>
+ * Connections are pooled per shard. Closing a connection returns it to the pool of its shard.
+ */
+public class PolyphenyShardedDataSource implements DataSource, AutoCloseable {
+
+    private static final int DEFAULT_MAX_IDLE_PER_SHARD = 8;
+
+    @Getter
+    private final List<String> shardUrls;
+    private final ShardingStrategy strategy;
+    private final Properties properties;
+    private final Map<List<Object>, ShardPool> pools = new ConcurrentHashMap<>();
+    @Getter
+    @Setter
+    private int maxIdlePerShard = DEFAULT_MAX_IDLE_PER_SHARD;
+    private PrintWriter logWriter;
+    private int loginTimeout;
+
+
+    /**
+     * @param shardUrls the urls of the instances, the index in this list is the shard index returned by the strategy
+     * @param strategy maps shard keys to shards
+     * @param properties connection properties used for all shards, e.g. the credentials
+     */
+    public PolyphenyShardedDataSource( List<String> shardUrls, ShardingStrategy strategy, Properties properties ) throws SQLException {
+        if ( shardUrls.isEmpty() ) {
+            throw new PrismInterfaceServiceException( PrismInterfaceErrors.VALUE_ILLEGAL, "At least one shard is required" );
+        }
+        for ( String url : shardUrls ) {
+            // fail on invalid urls now instead of on first use
+            new ConnectionString( url );
+        }
+        this.shardUrls = new ArrayList<>( shardUrls );
+        this.strategy = strategy;
+        this.properties = properties == null ? new Properties() : properties;
+    }
+
+
+    /**
+     * @param shardKey the key whose shard is looked up
+     * @return the index of the shard holding the data of the key
+     */
+    public int getShard( Object shardKey ) throws SQLException {
+        if ( shardKey == null ) {
+            throw new PrismInterfaceServiceException( PrismInterfaceErrors.VALUE_ILLEGAL, "No shard key given" );
+        }
+        int shard = strategy.getShard( shardKey, shardUrls.size() );
+        if ( shard < 0 || shard >= shardUrls.size() ) {
+            throw new PrismInterfaceServiceException( PrismInterfaceErrors.VALUE_ILLEGAL, "Sharding strategy returned invalid shard " + shard );
+        }
+        return shard;
+    }
+
+
+    /**
+     * Returns a connection to the shard holding the data of the key.
+     *
+     * @param shardKey the shard key
+     * @return a pooled connection
+     */
+    public PolyConnection getConnection( Object shardKey ) throws SQLException {
+        return getConnection( shardKey, properties );
+    }
+
+
+    /**
+     * Returns a connection to the shard given by the {@code shardkey} property or, if it is not set, by the current
+     * {@link ShardHint}. The other properties override the ones of the data source.
+     *
+     * @param info connection properties
+     * @return a pooled connection
+     */
+    public PolyConnection getConnection( Properties info ) throws SQLException {
+        Properties merged = new Properties();
+        merged.putAll( properties );
+        merged.putAll( info );
+        Object shardKey = merged.remove( PropertyUtils.getSHARD_KEY_KEY() );
+        return getConnection( shardKey == null ? ShardHint.current() : shardKey, merged );
+    }
+
+
+    private PolyConnection getConnection( Object shardKey, Properties info ) throws SQLException {
+        int shard = getShard( shardKey );
+        List<Object> poolKey = Arrays.asList( shard, info.getProperty( PropertyUtils.getUSERNAME_KEY() ), info.getProperty( PropertyUtils.getPASSWORD_KEY() ) );
+        return pools.computeIfAbsent( poolKey, k -> new ShardPool( shardUrls.get( shard ), info, maxIdlePerShard ) ).borrow();
+    }
+
+
+    /**
+     * Returns a connection to the shard of the current {@link ShardHint}.
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getConnection( new Properties() );
+    }
+
+
+    @Override
+    public Connection getConnection( String username, String password ) throws SQLException {
+        Properties info = new Properties();
+        info.setProperty( PropertyUtils.getUSERNAME_KEY(), username );
+        info.setProperty( PropertyUtils.getPASSWORD_KEY(), password );
+        return getConnection( info );
+    }
+
+
+    /**
+     * Closes all idle connections. Connections in use are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        pools.values().forEach( ShardPool::close );
+        pools.clear();
+    }
+
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return logWriter;
+    }
+
+
+    @Override
+    public void setLogWriter( PrintWriter out ) {
+        this.logWriter = out;
+    }
+
+
+    @Override
+    public void setLoginTimeout( int seconds ) {
+        this.loginTimeout = seconds;
+    }
+
+
+    @Override
+    public int getLoginTimeout() {
+        return loginTimeout;
+    }
+
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+
+    @Override
+    public <T> T unwrap( Class<T> aClass ) throws SQLException {
+        if ( aClass.isInstance( this ) ) {
+            return aClass.cast( this );
+        }
+        throw new PrismInterfaceServiceException( PrismInterfaceErrors.WRAPPER_INCORRECT_TYPE, "Not a wrapper for " + aClass );
+    }
+
+
+    @Override
+    public boolean isWrapperFor( Class<?> aClass ) {
+        return aClass.isInstance( this );
+    }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.polypheny.jdbc.sharding;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.polypheny.jdbc.PrismInterfaceErrors;
+import org.polypheny.jdbc.PrismInterfaceServiceException;
+
+/**
+ * Assigns ranges of shard keys to the shards. Shard {@code i} holds the keys below the {@code i}-th bound that are not
+ * held by a previous shard, the last shard holds all keys greater than or equal to the last bound.
+ *
+ * @param <K> the type of the shard keys
+ */
+public class RangeShardingStrategy<K extends Comparable<K>> implements ShardingStrategy {
+
+    private final List<K> upperBounds;
+
+
+    /**
+     * @param upperBounds the exclusive upper bounds of all shards except the last one in ascending order
+     */
+    public RangeShardingStrategy( List<K> upperBounds ) throws PrismInterfaceServiceException {
+        for ( int i = 1; i < upperBounds.size(); i++ ) {
+            if ( upperBounds.get( i - 1 ).compareTo( upperBounds.get( i ) ) >= 0 ) {
+                throw new PrismInterfaceServiceException( PrismInterfaceErrors.VALUE_ILLEGAL, "Range bounds must be in ascending order" );
+            }
+        }
+        this.upperBounds = new ArrayList<>( upperBounds );
+    }
+
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int getShard( Object shardKey, int shardCount ) {
+        if ( upperBounds.size() != shardCount - 1 ) {
+            throw new IllegalStateException( upperBounds.size() + " range bounds do not match " + shardCount + " shards" );
+        }
+        K key = (K) shardKey;
+        int low = 0;
+        int high = upperBounds.size();
+        while ( low < high ) {
+            int middle = (low + high) >>> 1;
+            if ( key.compareTo( upperBounds.get( middle ) ) < 0 ) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+}
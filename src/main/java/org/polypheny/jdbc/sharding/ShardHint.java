@@ -0,0 +1,67 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.polypheny.jdbc.sharding;
+
+/**
+ * Supplies the shard key to {@link PolyphenyShardedDataSource#getConnection()} for code that obtains its connections
+ * through the plain {@link javax.sql.DataSource} interface. The key applies to the current thread until the hint is
+ * closed:
+ *
+ * <pre>{@code
+ * try ( ShardHint hint = ShardHint.of( tenantId ); Connection connection = dataSource.getConnection() ) {
+ *     ...
+ * }
+ * }</pre>
+ */
+public class ShardHint implements AutoCloseable {
+
+    private static final ThreadLocal<Object> CURRENT = new ThreadLocal<>();
+
+    private final Object previous;
+
+
+    private ShardHint( Object previous ) {
+        this.previous = previous;
+    }
+
+
+    public static ShardHint of( Object shardKey ) {
+        ShardHint hint = new ShardHint( CURRENT.get() );
+        CURRENT.set( shardKey );
+        return hint;
+    }
+
+
+    /**
+     * @return the shard key of the current thread or null if none is set
+     */
+    public static Object current() {
+        return CURRENT.get();
+    }
+
+
+    @Override
+    public void close() {
+        if ( previous == null ) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set( previous );
+        }
+    }
+
+}
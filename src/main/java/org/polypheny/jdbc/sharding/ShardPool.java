@@ -0,0 +1,153 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.polypheny.jdbc.sharding;
+
+import java.sql.SQLException;
+import java.util.Deque;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.polypheny.jdbc.PolyConnection;
+import org.polypheny.jdbc.PolyphenyDriver;
+
+/**
+ * Idle connections to a single shard. Connections taken from the pool are reset to the session settings they were
+ * opened with, so the next user does not inherit changes like a different auto commit mode.
+ */
+@Slf4j
+class ShardPool {
+
+    private static final PolyphenyDriver DRIVER = new PolyphenyDriver();
+
+    private final String url;
+    private final Properties properties;
+    private final int maxIdle;
+    // most recently returned first, so that surplus connections are the ones timing out on the server
+    private final Deque<PolyConnection> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private volatile boolean isClosed;
+
+    // settings of fresh connections, restored when a connection is taken from the pool
+    private boolean autoCommit;
+    private boolean readOnly;
+    private int transactionIsolation;
+    private String schema;
+    private int holdability;
+    private int networkTimeout;
+    private Properties clientInfo;
+
+
+    ShardPool( String url, Properties properties, int maxIdle ) {
+        this.url = url;
+        this.properties = properties;
+        this.maxIdle = maxIdle;
+    }
+
+
+    PolyConnection borrow() throws SQLException {
+        PolyConnection connection;
+        while ( (connection = idle.pollFirst()) != null ) {
+            idleCount.decrementAndGet();
+            if ( !connection.getPrismInterfaceClient().isClosed() ) {
+                try {
+                    connection.reopen();
+                    reset( connection );
+                    return connection;
+                } catch ( SQLException e ) {
+                    log.debug( "Could not reset connection, closing it", e );
+                }
+            }
+            discard( connection );
+        }
+        return open();
+    }
+
+
+    private PolyConnection open() throws SQLException {
+        PolyConnection connection = (PolyConnection) DRIVER.connect( url, properties );
+        synchronized ( this ) {
+            autoCommit = connection.getAutoCommit();
+            readOnly = connection.isReadOnly();
+            transactionIsolation = connection.getTransactionIsolation();
+            schema = connection.getSchema();
+            holdability = connection.getHoldability();
+            networkTimeout = connection.getNetworkTimeout();
+            // loads the client info once per connection, later comparisons use the cached copy
+            clientInfo = connection.getClientInfo();
+        }
+        connection.setCloseHandler( this::release );
+        return connection;
+    }
+
+
+    /**
+     * Restores the settings of fresh connections. Only called by the thread that took the connection from the pool,
+     * so that no other thread can use it while it is reset.
+     */
+    private void reset( PolyConnection connection ) throws SQLException {
+        synchronized ( this ) {
+            // changed settings are only sent to the server once the connection is used again
+            connection.setAutoCommit( autoCommit );
+            connection.setReadOnly( readOnly );
+            connection.setTransactionIsolation( transactionIsolation );
+            connection.setSchema( schema );
+            connection.setHoldability( holdability );
+            connection.setNetworkTimeout( null, networkTimeout );
+            if ( !connection.getClientInfo().equals( clientInfo ) ) {
+                connection.setClientInfo( clientInfo );
+            }
+        }
+        connection.clearWarnings();
+    }
+
+
+    private boolean release( PolyConnection connection ) {
+        if ( isClosed || idleCount.get() >= maxIdle ) {
+            return false;
+        }
+        idleCount.incrementAndGet();
+        idle.offerFirst( connection );
+        return true;
+    }
+
+
+    private void discard( PolyConnection connection ) {
+        connection.setCloseHandler( null );
+        try {
+            // connections whose reset failed have already been reopened
+            if ( connection.isClosed() ) {
+                connection.reopen();
+            }
+            connection.close();
+        } catch ( SQLException e ) {
+            log.debug( "Could not close pooled connection", e );
+        }
+    }
+
+
+    void close() {
+        isClosed = true;
+        PolyConnection connection;
+        while ( (connection = idle.pollFirst()) != null ) {
+            idleCount.decrementAndGet();
+            discard( connection );
+        }
+    }
+
+}
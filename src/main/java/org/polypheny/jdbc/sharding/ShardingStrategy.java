@@ -0,0 +1,33 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.polypheny.jdbc.sharding;
+
+/**
+ * Maps shard keys to the index of the shard holding the data of the key. Implementations must be deterministic, as
+ * the same key must always be routed to the same shard.
+ */
+public interface ShardingStrategy {
+
+    /**
+     * @param shardKey the key to route, never null
+     * @param shardCount the number of shards
+     * @return the index of the shard between 0 and {@code shardCount - 1}
+     */
+    int getShard( Object shardKey, int shardCount );
+
+}
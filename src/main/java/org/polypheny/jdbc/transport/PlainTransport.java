@@ -19,12 +19,16 @@
 import java.io.EOFException;
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
 import java.net.StandardSocketOptions;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -37,22 +41,118 @@ public class PlainTransport implements Transport {
 
 
     public PlainTransport( String host, int port ) throws IOException {
-        con = SocketChannel.open( new InetSocketAddress( host, port ) );
-        con.setOption( StandardSocketOptions.TCP_NODELAY, true );
-        exchangeVersion();
+        this( host, port, 0, 0 );
     }
 
 
-    private void exchangeVersion() throws IOException {
+    /**
+     * Connects to the server and exchanges the protocol version. Both steps fail with a
+     * {@link SocketTimeoutException} if they do not finish in time, so that a hanging server can not block the
+     * connecting thread.
+     *
+     * @param connectTimeoutMillis time allowed for establishing the connection, 0 waits forever
+     * @param handshakeTimeoutMillis time allowed for the version exchange, 0 waits forever
+     */
+    public PlainTransport( String host, int port, int connectTimeoutMillis, int handshakeTimeoutMillis ) throws IOException {
+        con = SocketChannel.open();
+        try {
+            if ( connectTimeoutMillis <= 0 && handshakeTimeoutMillis <= 0 ) {
+                con.connect( new InetSocketAddress( host, port ) );
+                con.setOption( StandardSocketOptions.TCP_NODELAY, true );
+                exchangeVersion( null, 0 );
+            } else {
+                connectWithDeadlines( new InetSocketAddress( host, port ), connectTimeoutMillis, handshakeTimeoutMillis );
+            }
+        } catch ( IOException e ) {
+            close();
+            throw e;
+        }
+    }
+
+
+    private void connectWithDeadlines( InetSocketAddress address, int connectTimeoutMillis, int handshakeTimeoutMillis ) throws IOException {
+        con.configureBlocking( false );
+        try ( Selector selector = Selector.open() ) {
+            SelectionKey key = con.register( selector, 0 );
+            long deadline = deadline( connectTimeoutMillis );
+            if ( !con.connect( address ) ) {
+                while ( !con.finishConnect() ) {
+                    await( key, SelectionKey.OP_CONNECT, deadline, "Connecting to " + address );
+                }
+            }
+            con.setOption( StandardSocketOptions.TCP_NODELAY, true );
+            exchangeVersion( key, deadline( handshakeTimeoutMillis ) );
+        }
+        // closing the selector has deregistered the channel
+        con.configureBlocking( true );
+    }
+
+
+    private static long deadline( int timeoutMillis ) {
+        return timeoutMillis <= 0 ? 0 : System.nanoTime() + TimeUnit.MILLISECONDS.toNanos( timeoutMillis );
+    }
+
+
+    private void await( SelectionKey key, int operation, long deadline, String action ) throws IOException {
+        long timeoutMillis = 0;
+        if ( deadline != 0 ) {
+            long remaining = deadline - System.nanoTime();
+            if ( remaining <= 0 ) {
+                throw new SocketTimeoutException( action + " timed out" );
+            }
+            timeoutMillis = Math.max( 1, TimeUnit.NANOSECONDS.toMillis( remaining ) );
+        }
+        key.interestOps( operation );
+        key.selector().select( timeoutMillis );
+        key.selector().selectedKeys().clear();
+    }
+
+
+    /**
+     * Reads during the version exchange. Without a selection key the channel is in blocking mode and no deadline
+     * applies.
+     */
+    private void readHandshake( ByteBuffer bb, SelectionKey key, long deadline ) throws IOException {
+        if ( key == null ) {
+            readEntireBuffer( bb );
+            return;
+        }
+        while ( bb.remaining() > 0 ) {
+            int i = con.read( bb );
+            if ( i == -1 ) {
+                throw new EOFException();
+            }
+            if ( i == 0 ) {
+                await( key, SelectionKey.OP_READ, deadline, "Version exchange" );
+            }
+        }
+        bb.rewind();
+    }
+
+
+    private void writeHandshake( ByteBuffer bb, SelectionKey key, long deadline ) throws IOException {
+        if ( key == null ) {
+            writeEntireBuffer( bb );
+            return;
+        }
+        while ( bb.remaining() > 0 ) {
+            if ( con.write( bb ) == 0 ) {
+                await( key, SelectionKey.OP_WRITE, deadline, "Version exchange" );
+            }
+        }
+    }
+
+
+    private void exchangeVersion( SelectionKey key, long deadline ) throws IOException {
         ByteBuffer length = ByteBuffer.allocate( 1 );
-        readEntireBuffer( length );
+        readHandshake( length, key, deadline );
         byte len = length.get();
         if ( len <= 0 ) {
             throw new IOException( "Invalid version length" );
         }
         ByteBuffer response = ByteBuffer.allocate( 1 + len ); // Leading size
         response.put( len );
-        readEntireBuffer( response );
+        readHandshake( response, key, deadline );
         byte[] remoteVersion = new byte[len - 1]; // trailing newline
         response.position( 1 );
         response.get( remoteVersion );
@@ -68,7 +168,7 @@ private void exchangeVersion() throws IOException {
             throw new IOException( "Invalid version message" );
         }
         response.rewind();
-        writeEntireBuffer( response );
+        writeHandshake( response, key, deadline );
     }
 
 
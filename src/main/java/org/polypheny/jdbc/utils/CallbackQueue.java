@@ -44,25 +44,32 @@ public CallbackQueue( Function<Response, T> extractResponse ) {
 
     public void awaitCompletion() throws InterruptedException {
         queueLock.lock();
-        while ( !bIsCompleted ) {
-            isCompleted.await();
+        try {
+            // a failed call is never completed
+            while ( !bIsCompleted && propagatedException == null ) {
+                isCompleted.await();
+            }
+        } finally {
+            queueLock.unlock();
         }
     }
 
 
     public T takeNext() throws PrismInterfaceServiceException {
         queueLock.lock();
-        while ( messageQueue.isEmpty() ) {
-            try {
-                hasNext.await();
-            } catch ( InterruptedException e ) {
-                throw new PrismInterfaceServiceException( PrismInterfaceErrors.DRIVER_THREADING_ERROR, "Awaiting next response failed.", e );
+        try {
+            while ( messageQueue.isEmpty() ) {
+                throwReceivedException();
+                try {
+                    hasNext.await();
+                } catch ( InterruptedException e ) {
+                    throw new PrismInterfaceServiceException( PrismInterfaceErrors.DRIVER_THREADING_ERROR, "Awaiting next response failed.", e );
+                }
             }
-            throwReceivedException();
+            return messageQueue.remove();
+        } finally {
+            queueLock.unlock();
         }
-        T message = messageQueue.remove();
-        queueLock.unlock();
-        return message;
     }
 
 
@@ -85,6 +92,7 @@ public void onError( Throwable propagatedException ) {
         queueLock.lock();
         this.propagatedException = new PrismInterfaceServiceException( propagatedException );
         hasNext.signal();
+        isCompleted.signal();
         queueLock.unlock();
     }
 
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.polypheny.jdbc.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import org.polypheny.jdbc.PrismInterfaceErrors;
+import org.polypheny.jdbc.PrismInterfaceServiceException;
+
+public class Futures {
+
+    /**
+     * Waits for a future returned by an asynchronous api call.
+     *
+     * @param future the future to wait for
+     * @param timeout timeout in milliseconds, 0 waits forever
+     * @return the result of the future
+     * @throws PrismInterfaceServiceException if the call failed, timed out or the thread was interrupted
+     */
+    public static <T> T await( CompletableFuture<T> future, int timeout ) throws PrismInterfaceServiceException {
+        try {
+            if ( timeout == 0 ) {
+                return future.get();
+            }
+            return future.get( timeout, TimeUnit.MILLISECONDS );
+        } catch ( ExecutionException e ) {
+            if ( e.getCause() instanceof PrismInterfaceServiceException ) {
+                throw (PrismInterfaceServiceException) e.getCause();
+            }
+            throw new PrismInterfaceServiceException( e.getCause() );
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new PrismInterfaceServiceException( PrismInterfaceErrors.DRIVER_THREADING_ERROR, "Awaiting response failed.", e );
+        } catch ( TimeoutException e ) {
+            throw new PrismInterfaceServiceException( e );
+        }
+    }
+
+
+    /**
+     * Issues one asynchronous request per source while keeping at most {@code maxInFlight} of them outstanding.
+     * The results are returned in the order of the sources.
+     *
+     * @param sources the inputs of the requests
+     * @param request issues the request for a single source
+     * @param maxInFlight upper bound on the number of outstanding requests, at least 1
+     * @param timeout timeout in milliseconds applied to each individual request, 0 waits forever
+     * @return the results in the order of the sources
+     * @throws PrismInterfaceServiceException if any of the requests failed
+     */
+    public static <S, T> List<T> fanOut( List<S> sources, Function<S, CompletableFuture<T>> request, int maxInFlight, int timeout ) throws PrismInterfaceServiceException {
+        int window = Math.max( 1, maxInFlight );
+        List<CompletableFuture<T>> futures = new ArrayList<>( sources.size() );
+        List<T> results = new ArrayList<>( sources.size() );
+        try {
+            for ( S source : sources ) {
+                if ( futures.size() - results.size() >= window ) {
+                    results.add( await( futures.get( results.size() ), timeout ) );
+                }
+                futures.add( request.apply( source ) );
+            }
+            while ( results.size() < futures.size() ) {
+                results.add( await( futures.get( results.size() ), timeout ) );
+            }
+        } catch ( PrismInterfaceServiceException e ) {
+            futures.forEach( f -> f.cancel( false ) );
+            throw e;
+        }
+        return results;
+    }
+
+}
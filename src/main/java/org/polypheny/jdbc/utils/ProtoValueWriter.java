@@ -0,0 +1,270 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.polypheny.jdbc.utils;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.Descriptors.Descriptor;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.WireFormat;
+import java.io.IOException;
+import org.polypheny.prism.ProtoDouble;
+import org.polypheny.prism.ProtoInteger;
+import org.polypheny.prism.ProtoLong;
+import org.polypheny.prism.ProtoString;
+import org.polypheny.prism.ProtoValue;
+
+/**
+ * Writes {@link ProtoValue}s holding primitives directly to a {@link CodedOutputStream}. The bytes written are the ones
+ * the serialized message would consist of, but no message objects are created. The wire types of the wrapped fields
+ * are taken from the message descriptors.
+ * <p>
+ * Each value is written as the body of a {@code ProtoValue}, without tag and length. The {@code compute...Size}
+ * methods return the size of that body.
+ */
+public class ProtoValueWriter {
+
+    private static final Scalar INTEGER = new Scalar( ProtoInteger.getDescriptor(), ProtoInteger.INTEGER_FIELD_NUMBER );
+    private static final Scalar LONG = new Scalar( ProtoLong.getDescriptor(), ProtoLong.LONG_FIELD_NUMBER );
+    private static final Scalar DOUBLE = new Scalar( ProtoDouble.getDescriptor(), ProtoDouble.DOUBLE_FIELD_NUMBER );
+    private static final Scalar STRING = new Scalar( ProtoString.getDescriptor(), ProtoString.STRING_FIELD_NUMBER );
+
+
+    public static int computeIntegerSize( int value ) {
+        return computeWrapperSize( ProtoValue.INTEGER_FIELD_NUMBER, INTEGER.computeIntegralSize( value ) );
+    }
+
+
+    public static void writeInteger( CodedOutputStream out, int value ) throws IOException {
+        writeWrapper( out, ProtoValue.INTEGER_FIELD_NUMBER, INTEGER.computeIntegralSize( value ) );
+        INTEGER.writeIntegral( out, value );
+    }
+
+
+    public static int computeLongSize( long value ) {
+        return computeWrapperSize( ProtoValue.LONG_FIELD_NUMBER, LONG.computeIntegralSize( value ) );
+    }
+
+
+    public static void writeLong( CodedOutputStream out, long value ) throws IOException {
+        writeWrapper( out, ProtoValue.LONG_FIELD_NUMBER, LONG.computeIntegralSize( value ) );
+        LONG.writeIntegral( out, value );
+    }
+
+
+    public static int computeDoubleSize( double value ) {
+        return computeWrapperSize( ProtoValue.DOUBLE_FIELD_NUMBER, DOUBLE.computeDoubleSize( value ) );
+    }
+
+
+    public static void writeDouble( CodedOutputStream out, double value ) throws IOException {
+        writeWrapper( out, ProtoValue.DOUBLE_FIELD_NUMBER, DOUBLE.computeDoubleSize( value ) );
+        DOUBLE.writeDouble( out, value );
+    }
+
+
+    /**
+     * @param length the length of the string encoded in UTF-8
+     */
+    public static int computeStringSize( int length ) {
+        return computeWrapperSize( ProtoValue.STRING_FIELD_NUMBER, STRING.computeUtf8Size( length ) );
+    }
+
+
+    /**
+     * Writes a string already encoded in UTF-8.
+     */
+    public static void writeString( CodedOutputStream out, byte[] utf8, int offset, int length ) throws IOException {
+        writeWrapper( out, ProtoValue.STRING_FIELD_NUMBER, STRING.computeUtf8Size( length ) );
+        STRING.writeUtf8( out, utf8, offset, length );
+    }
+
+
+    /**
+     * Returns the length of a string encoded in UTF-8 the way protobuf encodes it, without encoding it.
+     */
+    public static int computeUtf8Length( String value ) {
+        // protobuf only exposes the length together with its varint prefix
+        int total = CodedOutputStream.computeStringSizeNoTag( value );
+        int length = total - 1;
+        while ( CodedOutputStream.computeUInt32SizeNoTag( length ) + length != total ) {
+            length--;
+        }
+        return length;
+    }
+
+
+    /**
+     * Writes a string, encoding it straight into the output.
+     *
+     * @param utf8Length the length of the string encoded in UTF-8, see {@link #computeUtf8Length(String)}
+     */
+    public static void writeString( CodedOutputStream out, String value, int utf8Length ) throws IOException {
+        writeWrapper( out, ProtoValue.STRING_FIELD_NUMBER, STRING.computeUtf8Size( utf8Length ) );
+        STRING.writeString( out, value, utf8Length );
+    }
+
+
+    public static int computeNullSize() {
+        return computeWrapperSize( ProtoValue.NULL_FIELD_NUMBER, 0 );
+    }
+
+
+    public static void writeNull( CodedOutputStream out ) throws IOException {
+        writeWrapper( out, ProtoValue.NULL_FIELD_NUMBER, 0 );
+    }
+
+
+    /**
+     * @return the size of a length delimited field with the given content size, including tag and length
+     */
+    public static int computeWrapperSize( int fieldNumber, int contentSize ) {
+        return CodedOutputStream.computeTagSize( fieldNumber ) + CodedOutputStream.computeUInt32SizeNoTag( contentSize ) + contentSize;
+    }
+
+
+    /**
+     * Writes tag and length of a length delimited field, the content has to be written next.
+     */
+    public static void writeWrapper( CodedOutputStream out, int fieldNumber, int contentSize ) throws IOException {
+        out.writeTag( fieldNumber, WireFormat.WIRETYPE_LENGTH_DELIMITED );
+        out.writeUInt32NoTag( contentSize );
+    }
+
+
+    /**
+     * A scalar field wrapped by one of the value messages.
+     */
+    private static class Scalar {
+
+        private final int number;
+        private final FieldDescriptor.Type type;
+        // fields without presence are not written if they hold the default value
+        private final boolean hasPresence;
+
+
+        private Scalar( Descriptor message, int number ) {
+            FieldDescriptor field = message.findFieldByNumber( number );
+            this.number = number;
+            this.type = field.getType();
+            this.hasPresence = field.hasPresence();
+        }
+
+
+        private int computeIntegralSize( long value ) {
+            if ( value == 0 && !hasPresence ) {
+                return 0;
+            }
+            switch ( type ) {
+                case INT32:
+                    return CodedOutputStream.computeInt32Size( number, (int) value );
+                case SINT32:
+                    return CodedOutputStream.computeSInt32Size( number, (int) value );
+                case UINT32:
+                    return CodedOutputStream.computeUInt32Size( number, (int) value );
+                case FIXED32:
+                case SFIXED32:
+                    return CodedOutputStream.computeFixed32Size( number, (int) value );
+                case SINT64:
+                    return CodedOutputStream.computeSInt64Size( number, value );
+                case UINT64:
+                    return CodedOutputStream.computeUInt64Size( number, value );
+                case FIXED64:
+                case SFIXED64:
+                    return CodedOutputStream.computeFixed64Size( number, value );
+                default:
+                    return CodedOutputStream.computeInt64Size( number, value );
+            }
+        }
+
+
+        private void writeIntegral( CodedOutputStream out, long value ) throws IOException {
+            if ( value == 0 && !hasPresence ) {
+                return;
+            }
+            switch ( type ) {
+                case INT32:
+                    out.writeInt32( number, (int) value );
+                    return;
+                case SINT32:
+                    out.writeSInt32( number, (int) value );
+                    return;
+                case UINT32:
+                    out.writeUInt32( number, (int) value );
+                    return;
+                case FIXED32:
+                case SFIXED32:
+                    out.writeFixed32( number, (int) value );
+                    return;
+                case SINT64:
+                    out.writeSInt64( number, value );
+                    return;
+                case UINT64:
+                    out.writeUInt64( number, value );
+                    return;
+                case FIXED64:
+                case SFIXED64:
+                    out.writeFixed64( number, value );
+                    return;
+                default:
+                    out.writeInt64( number, value );
+            }
+        }
+
+
+        private int computeDoubleSize( double value ) {
+            if ( Double.doubleToRawLongBits( value ) == 0 && !hasPresence ) {
+                return 0;
+            }
+            return CodedOutputStream.computeDoubleSize( number, value );
+        }
+
+
+        private void writeDouble( CodedOutputStream out, double value ) throws IOException {
+            if ( Double.doubleToRawLongBits( value ) == 0 && !hasPresence ) {
+                return;
+            }
+            out.writeDouble( number, value );
+        }
+
+
+        private int computeUtf8Size( int length ) {
+            if ( length == 0 && !hasPresence ) {
+                return 0;
+            }
+            return computeWrapperSize( number, length );
+        }
+
+
+        private void writeUtf8( CodedOutputStream out, byte[] utf8, int offset, int length ) throws IOException {
+            if ( length == 0 && !hasPresence ) {
+                return;
+            }
+            writeWrapper( out, number, length );
+            out.writeRawBytes( utf8, offset, length );
+        }
+
+
+        private void writeString( CodedOutputStream out, String value, int length ) throws IOException {
+            if ( length == 0 && !hasPresence ) {
+                return;
+            }
+            out.writeString( number, value );
+        }
+
+    }
+
+}
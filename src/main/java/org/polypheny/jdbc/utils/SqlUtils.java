@@ -0,0 +1,235 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.polypheny.jdbc.utils;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+public class SqlUtils {
+
+    private static final Set<String> DATA_DEFINITION_KEYWORDS = new HashSet<>( Arrays.asList(
+            "CREATE",
+            "ALTER",
+            "DROP",
+            "TRUNCATE",
+            "RENAME",
+            "COMMENT"
+    ) );
+    private static final Set<String> DATA_MODIFICATION_KEYWORDS = new HashSet<>( Arrays.asList(
+            "INSERT",
+            "UPDATE",
+            "DELETE",
+            "MERGE",
+            "UPSERT"
+    ) );
+
+
+    /**
+     * Checks whether the first keyword of a sql statement indicates a statement changing the schema.
+     * Leading whitespace and comments are skipped.
+     *
+     * @param statement the sql statement to check
+     * @return true if the statement is a data definition statement
+     */
+    public static boolean isDataDefinition( String statement ) {
+        String keyword = getFirstKeyword( statement );
+        return keyword != null && DATA_DEFINITION_KEYWORDS.contains( keyword );
+    }
+
+
+    /**
+     * Checks whether the first keyword of a sql statement indicates a statement modifying rows.
+     *
+     * @param statement the sql statement to check
+     * @return true if the statement is a data modification statement
+     */
+    public static boolean isDataModification( String statement ) {
+        String keyword = getFirstKeyword( statement );
+        return keyword != null && DATA_MODIFICATION_KEYWORDS.contains( keyword );
+    }
+
+
+    /**
+     * Returns the first keyword of a sql statement in upper case or null if the statement does not contain one.
+     *
+     * @param statement the sql statement
+     * @return the first keyword
+     */
+    public static String getFirstKeyword( String statement ) {
+        if ( statement == null ) {
+            return null;
+        }
+        int start = skipWhitespaceAndComments( statement, 0 );
+        int end = start;
+        while ( end < statement.length() && Character.isLetter( statement.charAt( end ) ) ) {
+            end++;
+        }
+        if ( start == end ) {
+            return null;
+        }
+        return statement.substring( start, end ).toUpperCase( Locale.ROOT );
+    }
+
+
+    public static int skipWhitespaceAndComments( String statement, int position ) {
+        int length = statement.length();
+        while ( position < length ) {
+            char c = statement.charAt( position );
+            if ( Character.isWhitespace( c ) ) {
+                position++;
+            } else if ( statement.startsWith( "--", position ) ) {
+                int lineEnd = statement.indexOf( '\n', position );
+                position = lineEnd == -1 ? length : lineEnd + 1;
+            } else if ( statement.startsWith( "/*", position ) ) {
+                int commentEnd = statement.indexOf( "*/", position + 2 );
+                position = commentEnd == -1 ? length : commentEnd + 2;
+            } else {
+                break;
+            }
+        }
+        return position;
+    }
+
+
+    /**
+     * Splits an insert of a single row of the form {@code INSERT INTO t [(columns)] VALUES (...)} into the part up to
+     * and including the VALUES keyword and the parenthesized row. Other statements, e.g. inserts of several rows or of
+     * the result of a query, are not split.
+     *
+     * @param statement the sql statement
+     * @return the part before the row and the row, or null if the statement is not a single row insert
+     */
+    public static String[] splitSingleRowInsert( String statement ) {
+        if ( !"INSERT".equals( getFirstKeyword( statement ) ) ) {
+            return null;
+        }
+        int length = statement.length();
+        int depth = 0;
+        int position = skipWhitespaceAndComments( statement, 0 );
+        while ( position < length ) {
+            char c = statement.charAt( position );
+            if ( c == '\'' || c == '"' ) {
+                position = skipQuoted( statement, position );
+            } else if ( statement.startsWith( "--", position ) || statement.startsWith( "/*", position ) ) {
+                position = skipWhitespaceAndComments( statement, position );
+            } else if ( c == '(' ) {
+                depth++;
+                position++;
+            } else if ( c == ')' ) {
+                depth--;
+                position++;
+            } else if ( depth == 0 && isKeywordAt( statement, position, "VALUES" ) ) {
+                break;
+            } else {
+                position++;
+            }
+        }
+        if ( position == length ) {
+            return null;
+        }
+        String head = statement.substring( 0, position + "VALUES".length() );
+        int rowStart = skipWhitespaceAndComments( statement, position + "VALUES".length() );
+        int rowEnd = skipParenthesized( statement, rowStart );
+        if ( rowEnd == -1 ) {
+            return null;
+        }
+        int end = skipWhitespaceAndComments( statement, rowEnd );
+        if ( end < length && statement.charAt( end ) == ';' ) {
+            end = skipWhitespaceAndComments( statement, end + 1 );
+        }
+        if ( end < length ) {
+            return null;
+        }
+        return new String[]{ head.trim(), statement.substring( rowStart, rowEnd ) };
+    }
+
+
+    private static boolean isKeywordAt( String statement, int position, String keyword ) {
+        int end = position + keyword.length();
+        if ( !statement.regionMatches( true, position, keyword, 0, keyword.length() ) ) {
+            return false;
+        }
+        if ( position > 0 && isIdentifierPart( statement.charAt( position - 1 ) ) ) {
+            return false;
+        }
+        return end == statement.length() || !isIdentifierPart( statement.charAt( end ) );
+    }
+
+
+    private static boolean isIdentifierPart( char c ) {
+        return Character.isLetterOrDigit( c ) || c == '_' || c == '$';
+    }
+
+
+    /**
+     * @param position the position of the opening quote
+     * @return the position after the closing quote, quotes inside are escaped by doubling them
+     */
+    private static int skipQuoted( String statement, int position ) {
+        char quote = statement.charAt( position );
+        int length = statement.length();
+        position++;
+        while ( position < length ) {
+            if ( statement.charAt( position ) == quote ) {
+                if ( position + 1 < length && statement.charAt( position + 1 ) == quote ) {
+                    position += 2;
+                    continue;
+                }
+                return position + 1;
+            }
+            position++;
+        }
+        return length;
+    }
+
+
+    /**
+     * @param position the position of the opening parenthesis
+     * @return the position after the matching closing parenthesis or -1 if there is none
+     */
+    private static int skipParenthesized( String statement, int position ) {
+        int length = statement.length();
+        if ( position >= length || statement.charAt( position ) != '(' ) {
+            return -1;
+        }
+        int depth = 0;
+        while ( position < length ) {
+            char c = statement.charAt( position );
+            if ( c == '\'' || c == '"' ) {
+                position = skipQuoted( statement, position );
+                continue;
+            }
+            if ( statement.startsWith( "--", position ) || statement.startsWith( "/*", position ) ) {
+                position = skipWhitespaceAndComments( statement, position );
+                continue;
+            }
+            if ( c == '(' ) {
+                depth++;
+            } else if ( c == ')' ) {
+                depth--;
+                if ( depth == 0 ) {
+                    return position + 1;
+                }
+            }
+            position++;
+        }
+        return -1;
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.polypheny.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.polypheny.jdbc.properties.PolyphenyStatementProperties;
+import org.polypheny.prism.PreparedStatementSignature;
+import org.polypheny.prism.StatementResponse;
+import org.polypheny.prism.StatementResult;
+
+public class AsyncExecutionTest {
+
+    private PrismInterfaceClient client;
+    private PolyConnection connection;
+    private CompletableFuture<StatementResponse> pending;
+    private PolyphenyStatement statement;
+
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        client = mock( PrismInterfaceClient.class );
+        pending = new CompletableFuture<>();
+        when( client.executeUnparameterizedStatementAsync( any(), any(), any() ) ).thenReturn( pending );
+        connection = mock( PolyConnection.class );
+        when( connection.getPrismInterfaceClient() ).thenReturn( client );
+        when( connection.getLeakStatistics() ).thenReturn( new LeakStatistics() );
+        statement = new PolyphenyStatement( connection, new PolyphenyStatementProperties() );
+    }
+
+
+    private static StatementResponse updateCount( int statementId, long count ) {
+        return StatementResponse.newBuilder()
+                .setStatementId( statementId )
+                .setResult( StatementResult.newBuilder().setScalar( count ) )
+                .build();
+    }
+
+
+    @Test
+    public void updateCompletesOnResponse() throws SQLException, InterruptedException, ExecutionException, TimeoutException {
+        CompletableFuture<Long> count = statement.executeUpdateAsync( "DELETE FROM emps" );
+
+        pending.complete( updateCount( 3, 42 ) );
+        assertEquals( 42L, count.get( 5, TimeUnit.SECONDS ) );
+        assertEquals( 3, statement.getStatementId() );
+    }
+
+
+    @Test
+    public void statementRunsOneExecutionAtATime() throws SQLException {
+        statement.executeUpdateAsync( "DELETE FROM emps" );
+
+        assertThrows( PrismInterfaceServiceException.class, () -> statement.executeUpdateAsync( "DELETE FROM depts" ) );
+        assertThrows( PrismInterfaceServiceException.class, () -> statement.executeUpdate( "DELETE FROM depts" ) );
+    }
+
+
+    @Test
+    public void rejectedExecutionLeavesStatementUntouched() throws SQLException, InterruptedException, ExecutionException, TimeoutException {
+        CompletableFuture<Long> count = statement.executeUpdateAsync( "DELETE FROM emps" );
+        statement.addBatch( "INSERT INTO emps VALUES (1)" );
+
+        assertThrows( PrismInterfaceServiceException.class, () -> statement.executeQueryAsync( "SELECT * FROM emps" ) );
+        assertThrows( PrismInterfaceServiceException.class, () -> statement.executeBatchAsync() );
+        assertThrows( PrismInterfaceServiceException.class, () -> statement.execute( "DELETE FROM depts" ) );
+        assertEquals( 1, statement.statementBatch.size() );
+
+        pending.complete( updateCount( 3, 42 ) );
+        assertEquals( 42L, count.get( 5, TimeUnit.SECONDS ) );
+        assertEquals( 3, statement.getStatementId() );
+        assertEquals( 42, statement.getUpdateCount() );
+        verify( client, never() ).closeStatementDeferred( anyInt() );
+    }
+
+
+    @Test
+    public void resultOfCancelledExecutionIsReleased() throws SQLException {
+        CompletableFuture<Long> count = statement.executeUpdateAsync( "DELETE FROM emps" );
+        count.cancel( false );
+
+        pending.complete( updateCount( 7, 1 ) );
+        verify( client, timeout( 5000 ) ).closeStatementDeferred( 7 );
+    }
+
+
+    @Test
+    public void failedDataDefinitionInvalidatesMetaCache() throws SQLException {
+        statement.executeUpdateAsync( "CREATE TABLE emps (id INTEGER)" );
+
+        pending.completeExceptionally( new PrismInterfaceServiceException( "Table exists" ) );
+        verify( connection, timeout( 5000 ) ).invalidateMetaCache();
+    }
+
+
+    @Test
+    public void preparedDataDefinitionInvalidatesMetaCache() throws SQLException {
+        when( client.executeIndexedStatement( anyInt(), any( ParameterRow.class ), anyInt(), anyInt() ) ).thenReturn( StatementResult.newBuilder().setScalar( 0 ).build() );
+        PreparedStatementSignature signature = PreparedStatementSignature.newBuilder().setStatementId( 4 ).build();
+        PolyphenyPreparedStatement prepared = new PolyphenyPreparedStatement( connection, new PolyphenyStatementProperties(), signature, "public", "ALTER TABLE emps ADD COLUMN name VARCHAR(20)" );
+
+        prepared.executeUpdate();
+        verify( connection ).invalidateMetaCache();
+    }
+
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.polypheny.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+import org.polypheny.prism.ExecuteUnparameterizedStatementRequest;
+import org.polypheny.prism.StatementBatchResponse;
+
+public class BatchChunkerTest {
+
+    private final List<Integer> chunkSizes = new ArrayList<>();
+
+
+    private static List<ExecuteUnparameterizedStatementRequest> statements( int count ) {
+        return IntStream.range( 0, count )
+                .mapToObj( i -> ExecuteUnparameterizedStatementRequest.newBuilder().setLanguageName( "sql" ).setStatement( String.valueOf( i ) ).build() )
+                .collect( Collectors.toList() );
+    }
+
+
+    /**
+     * Answers each chunk with the statements as update counts and the number of the chunk as batch id.
+     */
+    private PrismInterfaceClient echoClient() {
+        PrismInterfaceClient client = mock( PrismInterfaceClient.class );
+        when( client.executeUnparameterizedStatementBatchAsync( anyList() ) ).thenAnswer( i -> {
+            List<ExecuteUnparameterizedStatementRequest> chunk = i.getArgument( 0 );
+            chunkSizes.add( chunk.size() );
+            return CompletableFuture.completedFuture( StatementBatchResponse.newBuilder()
+                    .setBatchId( chunkSizes.size() )
+                    .addAllScalars( chunk.stream().map( s -> Long.parseLong( s.getStatement() ) ).collect( Collectors.toList() ) )
+                    .build() );
+        } );
+        return client;
+    }
+
+
+    @Test
+    public void chunksAreMergedInOrder() throws ExecutionException, InterruptedException {
+        PrismInterfaceClient client = echoClient();
+
+        StatementBatchResponse response = new BatchChunker( client, statements( 100 ), 16, Integer.MAX_VALUE, 2, Runnable::run ).execute().get();
+
+        assertEquals( LongStream.range( 0, 100 ).boxed().collect( Collectors.toList() ), response.getScalarsList() );
+        assertEquals( 1, response.getBatchId() );
+        assertTrue( chunkSizes.size() > 1 );
+        assertTrue( chunkSizes.stream().allMatch( s -> s <= 16 ) );
+        // only the first chunk keeps its server state
+        verify( client, never() ).closeStatementDeferred( 1 );
+        verify( client, times( chunkSizes.size() - 1 ) ).closeStatementDeferred( anyInt() );
+    }
+
+
+    @Test
+    public void batchIsNotSplitWithoutChunkSize() throws ExecutionException, InterruptedException {
+        PrismInterfaceClient client = echoClient();
+
+        StatementBatchResponse response = new BatchChunker( client, statements( 1000 ), 0, 16, 2, Runnable::run ).execute().get();
+
+        assertEquals( 1000, response.getScalarsCount() );
+        assertEquals( Collections.singletonList( 1000 ), chunkSizes );
+        verify( client, never() ).closeStatementDeferred( anyInt() );
+    }
+
+
+    @Test
+    public void firstChunkKeepsItsStateWhenCompletingLast() throws ExecutionException, InterruptedException {
+        PrismInterfaceClient client = mock( PrismInterfaceClient.class );
+        CompletableFuture<StatementBatchResponse> first = new CompletableFuture<>();
+        CompletableFuture<StatementBatchResponse> second = new CompletableFuture<>();
+        when( client.executeUnparameterizedStatementBatchAsync( anyList() ) ).thenReturn( first, second );
+
+        CompletableFuture<StatementBatchResponse> response = new BatchChunker( client, statements( 16 ), 8, Integer.MAX_VALUE, 2, Runnable::run ).execute();
+        second.complete( StatementBatchResponse.newBuilder().setBatchId( 2 ).addAllScalars( LongStream.range( 8, 16 ).boxed().collect( Collectors.toList() ) ).build() );
+        first.complete( StatementBatchResponse.newBuilder().setBatchId( 1 ).addAllScalars( LongStream.range( 0, 8 ).boxed().collect( Collectors.toList() ) ).build() );
+
+        assertEquals( LongStream.range( 0, 16 ).boxed().collect( Collectors.toList() ), response.get().getScalarsList() );
+        assertEquals( 1, response.get().getBatchId() );
+        verify( client, never() ).closeStatementDeferred( 1 );
+        verify( client ).closeStatementDeferred( 2 );
+    }
+
+
+    @Test
+    public void chunksAreBoundedInBytes() throws ExecutionException, InterruptedException {
+        PrismInterfaceClient client = echoClient();
+        int size = statements( 1 ).get( 0 ).getSerializedSize();
+
+        StatementBatchResponse response = new BatchChunker( client, statements( 10 ), 16, 2 * size, 2, Runnable::run ).execute().get();
+
+        assertEquals( 10, response.getScalarsCount() );
+        assertTrue( chunkSizes.stream().allMatch( s -> s <= 2 ) );
+    }
+
+
+    @Test
+    public void failedChunkStopsTheBatch() {
+        PrismInterfaceClient client = mock( PrismInterfaceClient.class );
+        CompletableFuture<StatementBatchResponse> failed = new CompletableFuture<>();
+        failed.completeExceptionally( new PrismInterfaceServiceException( "syntax error" ) );
+        when( client.executeUnparameterizedStatementBatchAsync( anyList() ) ).thenReturn( failed );
+
+        CompletableFuture<StatementBatchResponse> response = new BatchChunker( client, statements( 100 ), 8, Integer.MAX_VALUE, 1, Runnable::run ).execute();
+
+        ExecutionException e = assertThrows( ExecutionException.class, response::get );
+        assertTrue( e.getCause() instanceof PrismInterfaceServiceException );
+        verify( client, times( 1 ) ).executeUnparameterizedStatementBatchAsync( anyList() );
+    }
+
+}
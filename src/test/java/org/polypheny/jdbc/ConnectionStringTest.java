@@ -282,4 +282,26 @@ public void connectionString_String__Ipv6() throws SQLException {
         assertEquals( port, cs.getPort() );
     }
 
+
+    @Test
+    public void connectionString_String__MultipleHosts() throws SQLException {
+        final String url = "jdbc:polypheny://username:password@h1:20590,h2,[::1]:20591/database?k1=v1";
+        final ConnectionString cs = new ConnectionString( url );
+
+        assertEquals( "h1:20590,h2:20590,[::1]:20591", cs.getTarget() );
+        assertEquals( 3, cs.getHosts().size() );
+        assertEquals( "h1", cs.getHost() );
+        assertEquals( 20590, cs.getPort() );
+        assertEquals( "username", cs.getUser() );
+        assertEquals( "database", cs.getParameter( PropertyUtils.getNAMESPACE_KEY() ) );
+        assertEquals( "v1", cs.getParameter( "k1" ) );
+    }
+
+
+    @Test
+    public void connectionString_String__EmptyHostInList() {
+        final String url = "jdbc:polypheny://h1,,h2/database";
+        assertThrows( SQLException.class, () -> new ConnectionString( url ) );
+    }
+
 }
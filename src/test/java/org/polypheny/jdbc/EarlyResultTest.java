@@ -0,0 +1,104 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.polypheny.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.polypheny.jdbc.properties.PolyphenyStatementProperties;
+import org.polypheny.jdbc.utils.CallbackQueue;
+import org.polypheny.prism.Frame;
+import org.polypheny.prism.RelationalFrame;
+import org.polypheny.prism.Response;
+import org.polypheny.prism.StatementResponse;
+import org.polypheny.prism.StatementResult;
+
+public class EarlyResultTest {
+
+    // the queues of all executions, the server never completes them
+    private final List<CallbackQueue<StatementResponse>> callbacks = new ArrayList<>();
+    private PolyphenyStatement statement;
+
+
+    private static Response message( int statementId, StatementResult result ) {
+        StatementResponse.Builder response = StatementResponse.newBuilder().setStatementId( statementId );
+        if ( result != null ) {
+            response.setResult( result );
+        }
+        return Response.newBuilder().setStatementResponse( response ).build();
+    }
+
+
+    private static StatementResult frame() {
+        return StatementResult.newBuilder()
+                .setFrame( Frame.newBuilder().setIsLast( true ).setRelationalFrame( RelationalFrame.newBuilder() ) )
+                .build();
+    }
+
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        PrismInterfaceClient client = mock( PrismInterfaceClient.class );
+        doAnswer( i -> {
+            CallbackQueue<StatementResponse> callback = i.getArgument( 3 );
+            int statementId = callbacks.size() + 1;
+            callbacks.add( callback );
+            // the statement id is sent first, the result follows in a second message
+            callback.onNext( message( statementId, null ) );
+            callback.onNext( message( statementId, i.<String>getArgument( 2 ).startsWith( "SELECT" ) ? frame() : StatementResult.newBuilder().setScalar( 3 ).build() ) );
+            return null;
+        } ).when( client ).executeUnparameterizedStatement( any(), any(), any(), any(), anyInt() );
+        PolyConnection connection = mock( PolyConnection.class );
+        when( connection.getPrismInterfaceClient() ).thenReturn( client );
+        when( connection.getLeakStatistics() ).thenReturn( new LeakStatistics() );
+        statement = new PolyphenyStatement( connection, new PolyphenyStatementProperties() );
+    }
+
+
+    @Test
+    public void executionReturnsBeforeCompletion() throws SQLException {
+        assertNotNull( statement.executeQuery( "SELECT * FROM emps" ) );
+        assertEquals( 1, statement.getStatementId() );
+
+        assertFalse( statement.execute( "DELETE FROM emps" ) );
+        assertEquals( 3, statement.getUpdateCount() );
+        assertEquals( 2, statement.getStatementId() );
+    }
+
+
+    @Test
+    public void lateMessagesDoNotAffectTheNextExecution() throws SQLException {
+        statement.executeQuery( "SELECT * FROM emps" );
+        callbacks.get( 0 ).onNext( message( 1, null ) );
+        callbacks.get( 0 ).onError( new PrismInterfaceServiceException( "late failure" ) );
+
+        assertNotNull( statement.executeQuery( "SELECT * FROM depts" ) );
+        assertEquals( 2, statement.getStatementId() );
+    }
+
+}
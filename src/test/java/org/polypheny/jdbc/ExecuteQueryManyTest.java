@@ -0,0 +1,127 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.polypheny.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.polypheny.jdbc.PolyphenyPreparedStatement.ResultSetIterator;
+import org.polypheny.jdbc.properties.PolyphenyStatementProperties;
+import org.polypheny.prism.Frame;
+import org.polypheny.prism.ParameterMeta;
+import org.polypheny.prism.PreparedStatementSignature;
+import org.polypheny.prism.RelationalFrame;
+import org.polypheny.prism.StatementResult;
+
+public class ExecuteQueryManyTest {
+
+    private static final int STATEMENT_ID = 5;
+    // keys whose result does not fit into the first frame
+    private static final int PARTIAL_KEY = 2;
+
+    private final List<Integer> sentKeys = new ArrayList<>();
+    private PrismInterfaceClient client;
+    private PolyphenyPreparedStatement statement;
+
+
+    private static StatementResult result( boolean isLast ) {
+        return StatementResult.newBuilder()
+                .setFrame( Frame.newBuilder().setIsLast( isLast ).setRelationalFrame( RelationalFrame.newBuilder() ) )
+                .build();
+    }
+
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        client = mock( PrismInterfaceClient.class );
+        when( client.executeIndexedStatementAsync( eq( STATEMENT_ID ), any( ParameterRow.class ), anyInt() ) ).thenAnswer( i -> {
+            int key = i.<ParameterRow>getArgument( 1 ).getInteger( 0 );
+            sentKeys.add( key );
+            return CompletableFuture.completedFuture( result( key != PARTIAL_KEY ) );
+        } );
+        when( client.executeIndexedStatement( eq( STATEMENT_ID ), any( ParameterRow.class ), anyInt(), anyInt() ) ).thenReturn( result( true ) );
+        PolyConnection connection = mock( PolyConnection.class );
+        when( connection.getPrismInterfaceClient() ).thenReturn( client );
+        when( connection.getLeakStatistics() ).thenReturn( new LeakStatistics() );
+        PreparedStatementSignature signature = PreparedStatementSignature.newBuilder()
+                .setStatementId( STATEMENT_ID )
+                .addParameterMetas( ParameterMeta.newBuilder().setTypeName( "INTEGER" ) )
+                .build();
+        statement = new PolyphenyPreparedStatement( connection, new PolyphenyStatementProperties(), signature );
+    }
+
+
+    @Test
+    public void executionsAreSentAheadOfTheResults() throws SQLException {
+        ResultSetIterator results = statement.executeQueryMany( Arrays.asList( new Object[]{ 1 }, new Object[]{ 2 }, new Object[]{ 3 }, new Object[]{ 4 } ), 3 );
+        assertTrue( sentKeys.isEmpty() );
+
+        assertNotNull( results.next() );
+        assertEquals( Arrays.asList( 1, 2, 3 ), sentKeys );
+        assertNotNull( results.next() );
+        assertEquals( Arrays.asList( 1, 2, 3, 4 ), sentKeys );
+        // the partial result of key 2 is executed again to fetch it completely
+        verify( client, times( 1 ) ).executeIndexedStatement( eq( STATEMENT_ID ), any( ParameterRow.class ), anyInt(), anyInt() );
+        assertNotNull( results.next() );
+        assertNotNull( results.next() );
+        assertFalse( results.hasNext() );
+        assertThrows( SQLException.class, results::next );
+
+        verify( client, never() ).closeResultDeferred( STATEMENT_ID );
+        results.close();
+        verify( client, times( 1 ) ).closeResultDeferred( STATEMENT_ID );
+    }
+
+
+    @Test
+    public void parametersMustMatchTheStatement() {
+        assertThrows( SQLException.class, () -> statement.executeQueryMany( Arrays.asList( new Object[]{ 1 }, new Object[]{ 1, 2 } ) ) );
+        assertThrows( SQLException.class, () -> statement.executeQueryMany( Arrays.asList( new Object[]{ 1 } ), 0 ) );
+    }
+
+
+    @Test
+    public void executingTheStatementClosesTheIterator() throws SQLException {
+        ResultSetIterator results = statement.executeQueryMany( Arrays.asList( new Object[]{ 1 }, new Object[]{ 3 } ) );
+        results.next();
+
+        statement.setInt( 1, 7 );
+        statement.executeQueryAsync();
+        assertFalse( results.hasNext() );
+        verify( client, times( 1 ) ).closeResultDeferred( STATEMENT_ID );
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.polypheny.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.polypheny.jdbc.routing.HedgeStatistics;
+import org.polypheny.jdbc.routing.LatencyTracker;
+
+public class HedgerTest {
+
+    private final PrismInterfaceClient primary = mock( PrismInterfaceClient.class );
+    private final PrismInterfaceClient secondary = mock( PrismInterfaceClient.class );
+    private final HedgeStatistics statistics = new HedgeStatistics();
+    private final Hedger hedger = new Hedger( secondary, 90, statistics );
+
+
+    private void warmUp() throws Exception {
+        for ( int i = 0; i < 20; i++ ) {
+            hedger.call( primary, c -> CompletableFuture.completedFuture( "fast" ), ( c, v ) -> {
+            } ).get();
+        }
+    }
+
+
+    @Test
+    public void notHedgedWithoutLatencies() throws Exception {
+        warmUp();
+        assertEquals( 20, statistics.getRequests() );
+        assertEquals( 0, statistics.getHedges() );
+    }
+
+
+    @Test
+    public void slowRequestIsHedged() throws Exception {
+        warmUp();
+        CompletableFuture<String> slow = new CompletableFuture<>();
+        List<PrismInterfaceClient> discarded = new ArrayList<>();
+        Hedger.Outcome<String> outcome = hedger.call(
+                primary,
+                c -> c == primary ? slow : CompletableFuture.completedFuture( "hedge" ),
+                ( c, v ) -> discarded.add( c )
+        ).get( 5, TimeUnit.SECONDS );
+
+        assertSame( secondary, outcome.getClient() );
+        assertEquals( "hedge", outcome.getValue() );
+        assertEquals( 1, statistics.getHedges() );
+        assertEquals( 1.0, statistics.getWinRate() );
+
+        slow.complete( "late" );
+        assertEquals( 1, discarded.size() );
+        assertSame( primary, discarded.get( 0 ) );
+    }
+
+
+    @Test
+    public void percentileOfRecentLatencies() {
+        LatencyTracker tracker = new LatencyTracker( 10 );
+        assertEquals( -1, tracker.percentile( 50 ) );
+        for ( int i = 1; i <= 20; i++ ) {
+            tracker.record( i );
+        }
+        assertEquals( 10, tracker.size() );
+        assertEquals( 15, tracker.percentile( 50 ) );
+        assertEquals( 20, tracker.percentile( 99 ) );
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.polypheny.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.sql.Statement;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.polypheny.jdbc.utils.SqlUtils;
+
+public class InsertRewriterTest {
+
+    @Test
+    public void singleRowInsertsAreSplit() {
+        assertArrayEquals( new String[]{ "INSERT INTO t VALUES", "(?, ?)" }, SqlUtils.splitSingleRowInsert( "INSERT INTO t VALUES (?, ?)" ) );
+        assertArrayEquals( new String[]{ "insert into t (a, \"values\") values", "(1, 'x)'' VALUES (2)')" }, SqlUtils.splitSingleRowInsert( "insert into t (a, \"values\") values (1, 'x)'' VALUES (2)');" ) );
+        assertArrayEquals( new String[]{ "INSERT INTO t VALUES", "(f(1), 2)" }, SqlUtils.splitSingleRowInsert( "INSERT INTO t VALUES (f(1), 2) -- comment" ) );
+    }
+
+
+    @Test
+    public void otherStatementsAreNotSplit() {
+        assertNull( SqlUtils.splitSingleRowInsert( "INSERT INTO t VALUES (1), (2)" ) );
+        assertNull( SqlUtils.splitSingleRowInsert( "INSERT INTO t SELECT * FROM (VALUES (1))" ) );
+        assertNull( SqlUtils.splitSingleRowInsert( "UPDATE t SET a = 1" ) );
+        assertNull( SqlUtils.splitSingleRowInsert( "INSERT INTO t VALUES (1" ) );
+        assertNull( SqlUtils.splitSingleRowInsert( "INSERT INTO t_values (a) SELECT 1" ) );
+    }
+
+
+    @Test
+    public void consecutiveInsertsAreMerged() {
+        InsertRewriter.Batch batch = InsertRewriter.rewrite( Arrays.asList(
+                "INSERT INTO t VALUES (1)",
+                "INSERT INTO t VALUES (2)",
+                "INSERT INTO t VALUES (3)",
+                "UPDATE t SET a = 0",
+                "INSERT INTO u VALUES (4)",
+                "INSERT INTO t VALUES (5)"
+        ), 2 );
+
+        assertEquals( Arrays.asList(
+                "INSERT INTO t VALUES (1), (2)",
+                "INSERT INTO t VALUES (3)",
+                "UPDATE t SET a = 0",
+                "INSERT INTO u VALUES (4)",
+                "INSERT INTO t VALUES (5)"
+        ), batch.getStatements() );
+        assertEquals( Arrays.asList( 1L, 1L, 1L, 7L, 0L, 1L ), batch.toOriginalUpdateCounts( Arrays.asList( 2L, 1L, 7L, 0L, 1L ) ) );
+        long noInfo = Statement.SUCCESS_NO_INFO;
+        assertEquals( Arrays.asList( noInfo, noInfo, 1L, 7L, 0L, 1L ), batch.toOriginalUpdateCounts( Arrays.asList( 1L, 1L, 7L, 0L, 1L ) ) );
+    }
+
+
+    @Test
+    public void rowsAreRepeated() {
+        assertEquals( "INSERT INTO t VALUES (?, ?), (?, ?), (?, ?)", InsertRewriter.repeatRow( "INSERT INTO t VALUES", "(?, ?)", 3 ) );
+        assertEquals( 128, InsertRewriter.getMaxRows( 2 ) );
+        assertEquals( 1, InsertRewriter.getMaxRows( 40000 ) );
+    }
+
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.polypheny.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.protobuf.ByteString;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+import org.polypheny.prism.ExecuteIndexedStatementBatchRequest;
+import org.polypheny.prism.IndexedParameters;
+import org.polypheny.prism.StatementBatchResponse;
+
+public class ParameterBatchTest {
+
+    private final List<Integer> chunkSizes = new ArrayList<>();
+
+
+    /**
+     * Answers each sub-batch with the values of its rows as update counts.
+     */
+    private PrismInterfaceClient echoClient() {
+        PrismInterfaceClient client = mock( PrismInterfaceClient.class );
+        when( client.executeIndexedStatementBatchAsync( eq( 3 ), any( ByteString.class ) ) ).thenAnswer( i -> {
+            ExecuteIndexedStatementBatchRequest chunk = ExecuteIndexedStatementBatchRequest.parseFrom( i.<ByteString>getArgument( 1 ) );
+            chunkSizes.add( chunk.getParametersCount() );
+            StatementBatchResponse.Builder response = StatementBatchResponse.newBuilder();
+            for ( IndexedParameters row : chunk.getParametersList() ) {
+                response.addScalars( row.getParameters( 0 ).getInteger().getInteger() );
+            }
+            return CompletableFuture.completedFuture( response.build() );
+        } );
+        return client;
+    }
+
+
+    @Test
+    public void fullChunksAreSentInOrder() throws Exception {
+        PrismInterfaceClient client = echoClient();
+        ParameterBatch batch = new ParameterBatch( new int[]{ Types.INTEGER }, 64, 2 );
+        ParameterRow row = new ParameterRow( 1 );
+        assertTrue( batch.isEmpty() );
+
+        for ( int i = 0; i < 100; i++ ) {
+            row.setInteger( 0, i );
+            batch.add( row );
+            if ( batch.isChunkFull() ) {
+                batch.sendChunk( client, 3, 0 );
+            }
+        }
+        assertTrue( batch.isSent() );
+        List<Long> updateCounts = batch.finish( client, 3, 0 ).get();
+
+        assertEquals( LongStream.range( 0, 100 ).boxed().collect( Collectors.toList() ), updateCounts );
+        assertTrue( chunkSizes.size() > 1 );
+        assertEquals( 100, chunkSizes.stream().mapToInt( Integer::intValue ).sum() );
+    }
+
+
+    @Test
+    public void updateCountsCanBeSummed() throws Exception {
+        PrismInterfaceClient client = echoClient();
+        ParameterBatch batch = new ParameterBatch( new int[]{ Types.INTEGER }, 64, 2, true );
+        ParameterRow row = new ParameterRow( 1 );
+
+        for ( int i = 0; i < 100; i++ ) {
+            row.setInteger( 0, i );
+            batch.add( row );
+            if ( batch.isChunkFull() ) {
+                batch.sendChunk( client, 3, 0 );
+            }
+        }
+
+        assertEquals( Collections.singletonList( 4950L ), batch.finish( client, 3, 0 ).get() );
+    }
+
+
+    @Test
+    public void rowsAreGroupedForMultiRowInserts() throws Exception {
+        PrismInterfaceClient client = mock( PrismInterfaceClient.class );
+        List<Integer> statementIds = new ArrayList<>();
+        when( client.executeIndexedStatementBatchAsync( anyInt(), any( ByteString.class ) ) ).thenAnswer( i -> {
+            ExecuteIndexedStatementBatchRequest chunk = ExecuteIndexedStatementBatchRequest.parseFrom( i.<ByteString>getArgument( 1 ) );
+            int rows = i.<Integer>getArgument( 0 ) == 3 ? 1 : i.<Integer>getArgument( 0 );
+            statementIds.add( i.getArgument( 0 ) );
+            StatementBatchResponse.Builder response = StatementBatchResponse.newBuilder();
+            for ( IndexedParameters group : chunk.getParametersList() ) {
+                assertEquals( rows * 2, group.getParametersCount() );
+                response.addScalars( rows );
+            }
+            return CompletableFuture.completedFuture( response.build() );
+        } );
+        // the statement inserting n rows has the id n
+        ParameterBatch batch = new ParameterBatch( new int[]{ Types.INTEGER, Types.VARCHAR }, Integer.MAX_VALUE, 2, false, rows -> rows, 8 );
+        ParameterRow row = new ParameterRow( 2 );
+
+        for ( int i = 0; i < 23; i++ ) {
+            row.setInteger( 0, i );
+            row.setString( 1, "row " + i );
+            batch.add( row );
+        }
+        List<Long> updateCounts = batch.finish( client, 3, 0 ).get();
+
+        assertEquals( Collections.nCopies( 23, 1L ), updateCounts );
+        // 16 rows in groups of 8, then 4, 2 and 1 rows
+        assertEquals( Arrays.asList( 8, 4, 2, 3 ), statementIds );
+    }
+
+
+    @Test
+    public void unsetParameterIsRejected() {
+        ParameterBatch batch = new ParameterBatch( new int[]{ Types.INTEGER, Types.INTEGER }, 64, 2 );
+        ParameterRow row = new ParameterRow( 2 );
+        row.setInteger( 0, 1 );
+
+        assertThrows( PrismInterfaceServiceException.class, () -> batch.add( row ) );
+        assertFalse( batch.isSent() );
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.polypheny.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.google.protobuf.CodedOutputStream;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.polypheny.jdbc.types.TypedValue;
+import org.polypheny.prism.ExecuteIndexedStatementBatchRequest;
+import org.polypheny.prism.IndexedParameters;
+
+public class ParameterColumnsTest {
+
+    private static final int[] TYPES = { Types.INTEGER, Types.BIGINT, Types.DOUBLE, Types.VARCHAR, Types.BOOLEAN };
+
+
+    private static ExecuteIndexedStatementBatchRequest encode( ParameterColumns columns, int size ) throws Exception {
+        byte[] encoded = new byte[size];
+        CodedOutputStream out = CodedOutputStream.newInstance( encoded );
+        columns.writeTo( out );
+        out.checkNoSpaceLeft();
+        return ExecuteIndexedStatementBatchRequest.parseFrom( encoded );
+    }
+
+
+    private static IndexedParameters serialize( ParameterRow row ) throws SQLException {
+        IndexedParameters.Builder parameters = IndexedParameters.newBuilder();
+        for ( int i = 0; i < row.size(); i++ ) {
+            parameters.addParameters( row.toTypedValue( i ).serialize() );
+        }
+        return parameters.build();
+    }
+
+
+    @Test
+    public void rowsAreEncodedLikeSerializedValues() throws Exception {
+        ParameterColumns columns = new ParameterColumns( TYPES );
+        ParameterRow row = new ParameterRow( TYPES.length );
+        List<IndexedParameters> expected = new ArrayList<>();
+        int size = 0;
+        for ( int i = -100; i < 100; i++ ) {
+            row.setInteger( 0, i * 100_003 );
+            row.setLong( 1, i * 10_000_000_019L );
+            row.setDouble( 2, i / 7.0 );
+            row.setString( 3, i % 3 == 0 ? "" : "välü€ " + i );
+            row.setValue( 4, TypedValue.fromBoolean( i % 2 == 0 ) );
+            if ( i % 5 == 0 ) {
+                row.setNull( i % 10 == 0 ? 0 : 3 );
+            }
+            if ( i % 7 == 0 ) {
+                // does not match the column type and is kept as serialized value
+                row.setLong( 0, i );
+            }
+            size += columns.add( row );
+            expected.add( serialize( row ) );
+        }
+
+        assertEquals( expected, encode( columns, size ).getParametersList() );
+    }
+
+
+    @Test
+    public void columnsAreReusedAfterClear() throws Exception {
+        ParameterColumns columns = new ParameterColumns( TYPES );
+        ParameterRow row = new ParameterRow( TYPES.length );
+        row.setInteger( 0, 1 );
+        row.setLong( 1, 2 );
+        row.setDouble( 2, 3 );
+        row.setString( 3, "four" );
+        row.setNull( 4 );
+        columns.add( row );
+        columns.clear();
+
+        row.setString( 3, "five" );
+        int size = columns.add( row );
+
+        assertEquals( 1, columns.getRows() );
+        assertEquals( serialize( row ), encode( columns, size ).getParameters( 0 ) );
+    }
+
+}
@@ -17,8 +17,12 @@
 package org.polypheny.jdbc;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -104,4 +108,77 @@ public void setAutoCommitToFalse() throws PrismInterfaceServiceException {
         verify( properties, times( 1 ) ).setAutoCommit( false );
     }
 
+
+    @Test
+    public void commitWithoutExecutionIsSkipped() throws SQLException {
+        properties = mock( PolyphenyConnectionProperties.class );
+        PrismInterfaceClient prismInterfaceClient = mock( PrismInterfaceClient.class );
+        when( properties.getPrismInterfaceClient() ).thenReturn( prismInterfaceClient );
+        when( properties.isAutoCommit() ).thenReturn( false );
+        databaseMetaData = mock( PolyphenyDatabaseMetadata.class );
+        connection = new PolyConnection( properties, databaseMetaData );
+
+        connection.commit();
+        connection.rollback();
+        verify( prismInterfaceClient, never() ).commitTransaction( anyInt() );
+        verify( prismInterfaceClient, never() ).rollbackTransaction( anyInt() );
+
+        connection.beginExecution();
+        connection.commit();
+        connection.commit();
+        verify( properties, times( 1 ) ).flush();
+        verify( prismInterfaceClient, times( 1 ) ).commitTransaction( anyInt() );
+    }
+
+
+    @Test
+    public void isValidTrustsRecentTraffic() throws SQLException {
+        properties = mock( PolyphenyConnectionProperties.class );
+        PrismInterfaceClient prismInterfaceClient = mock( PrismInterfaceClient.class );
+        when( properties.getPrismInterfaceClient() ).thenReturn( prismInterfaceClient );
+        when( properties.getValidationWindow() ).thenReturn( 1000L );
+        when( prismInterfaceClient.checkConnection( anyInt() ) ).thenReturn( true );
+        databaseMetaData = mock( PolyphenyDatabaseMetadata.class );
+        connection = new PolyConnection( properties, databaseMetaData );
+
+        when( prismInterfaceClient.getMillisSinceLastResponse() ).thenReturn( 10L );
+        assertTrue( connection.isValid( 1 ) );
+        verify( prismInterfaceClient, never() ).checkConnection( anyInt() );
+
+        when( prismInterfaceClient.getMillisSinceLastResponse() ).thenReturn( 5000L );
+        assertTrue( connection.isValid( 1 ) );
+        verify( prismInterfaceClient, times( 1 ) ).checkConnection( 1000 );
+
+        when( prismInterfaceClient.isClosed() ).thenReturn( true );
+        assertFalse( connection.isValid( 1 ) );
+    }
+
+
+    @Test
+    public void onlyConnectionsTakenOverByTheCloseHandlerCanBeReopened() throws SQLException {
+        properties = mock( PolyphenyConnectionProperties.class );
+        PrismInterfaceClient prismInterfaceClient = mock( PrismInterfaceClient.class );
+        when( properties.getPrismInterfaceClient() ).thenReturn( prismInterfaceClient );
+        databaseMetaData = mock( PolyphenyDatabaseMetadata.class );
+        connection = new PolyConnection( properties, databaseMetaData );
+
+        assertThrows( SQLException.class, () -> connection.reopen() );
+
+        connection.setCloseHandler( c -> {
+            // the connection must already be closed once another thread can take it
+            assertTrue( c.isClosed() );
+            return true;
+        } );
+        connection.close();
+        verify( prismInterfaceClient, never() ).unregister( anyInt() );
+        connection.reopen();
+        assertFalse( connection.isClosed() );
+        assertThrows( SQLException.class, () -> connection.reopen() );
+
+        connection.setCloseHandler( c -> false );
+        connection.close();
+        verify( prismInterfaceClient, times( 1 ) ).unregister( anyInt() );
+        assertThrows( SQLException.class, () -> connection.reopen() );
+    }
+
 }
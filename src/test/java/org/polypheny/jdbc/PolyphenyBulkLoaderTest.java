@@ -0,0 +1,94 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.polypheny.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.polypheny.jdbc.PolyphenyBulkLoader.CsvReader;
+import org.polypheny.jdbc.types.TypedValue;
+
+public class PolyphenyBulkLoaderTest {
+
+    @Test
+    public void csvRecordsAreSplit() throws IOException {
+        CsvReader reader = new CsvReader( new StringReader( "id,name\r\n1,\"a, \"\"b\"\"\"\n\n2,,\"\"\n3,\"multi\nline\"" ), ',' );
+
+        assertArrayEquals( new String[]{ "id", "name" }, reader.readRecord() );
+        assertArrayEquals( new String[]{ "1", "a, \"b\"" }, reader.readRecord() );
+        assertArrayEquals( new String[]{ "2", null, "" }, reader.readRecord() );
+        assertArrayEquals( new String[]{ "3", "multi\nline" }, reader.readRecord() );
+        assertNull( reader.readRecord() );
+    }
+
+
+    @Test
+    public void tabSeparatedRecordsAreSplit() throws IOException {
+        CsvReader reader = new CsvReader( new StringReader( "1\ta,b\n" ), '\t' );
+
+        assertArrayEquals( new String[]{ "1", "a,b" }, reader.readRecord() );
+        assertNull( reader.readRecord() );
+    }
+
+
+    @Test
+    public void unterminatedQuoteIsRejected() {
+        CsvReader reader = new CsvReader( new StringReader( "1,\"abc" ), ',' );
+
+        assertThrows( IOException.class, reader::readRecord );
+    }
+
+
+    @Test
+    public void fieldsAreConvertedToColumnTypes() {
+        assertEquals( 42, PolyphenyBulkLoader.convert( " 42", Types.INTEGER ) );
+        assertEquals( 42L, PolyphenyBulkLoader.convert( "42", Types.BIGINT ) );
+        assertEquals( 1.5, PolyphenyBulkLoader.convert( "1.5", Types.DOUBLE ) );
+        assertEquals( "x", PolyphenyBulkLoader.convert( "x", Types.VARCHAR ) );
+        assertNull( PolyphenyBulkLoader.convert( null, Types.INTEGER ) );
+        assertTrue( PolyphenyBulkLoader.convert( "2024-01-31", Types.DATE ) instanceof TypedValue );
+        assertThrows( NumberFormatException.class, () -> PolyphenyBulkLoader.convert( "x", Types.INTEGER ) );
+    }
+
+
+    @Test
+    public void booleansMustBeTrueFalseOneOrZero() throws SQLException {
+        assertTrue( ((TypedValue) PolyphenyBulkLoader.convert( "TRUE", Types.BOOLEAN )).asBoolean() );
+        assertTrue( ((TypedValue) PolyphenyBulkLoader.convert( "1", Types.BOOLEAN )).asBoolean() );
+        assertFalse( ((TypedValue) PolyphenyBulkLoader.convert( "false", Types.BOOLEAN )).asBoolean() );
+        assertFalse( ((TypedValue) PolyphenyBulkLoader.convert( " 0", Types.BOOLEAN )).asBoolean() );
+        assertThrows( IllegalArgumentException.class, () -> PolyphenyBulkLoader.convert( "yes", Types.BOOLEAN ) );
+    }
+
+
+    @Test
+    public void headerNamesAreQuoted() throws SQLException {
+        assertEquals( Arrays.asList( "\"id\"", "\"a\"\"); DROP TABLE t; --\"" ), PolyphenyBulkLoader.quoteIdentifiers( new String[]{ "id", "a\"); DROP TABLE t; --" } ) );
+        assertThrows( SQLException.class, () -> PolyphenyBulkLoader.quoteIdentifiers( new String[]{ "id", null } ) );
+    }
+
+}
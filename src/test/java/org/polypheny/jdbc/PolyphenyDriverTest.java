@@ -93,7 +93,7 @@ public void getPropertyInfoWithValidUrlAndProperties() {
 
             assertEquals( "readonly", propertyInfo[3].name );
             assertEquals( "false", propertyInfo[3].value );
-            assertEquals( "Indicates if the connection is in read-only mode. Currently ignored, reserved for future use.", propertyInfo[3].description );
+            assertEquals( "Indicates if the connection is in read-only mode. Read-only connections are routed to the hosts given by the replicas property, if any.", propertyInfo[3].description );
             assertArrayEquals( new String[]{ "true", "false" }, propertyInfo[3].choices );
 
             assertEquals( "holdability", propertyInfo[4].name );
@@ -143,7 +143,7 @@ public void getPropertyInfoWithDefaultValuesWhenPropertiesNotProvided() {
 
             assertEquals( PropertyUtils.getREAD_ONLY_KEY(), infoProperties[3].name );
             assertEquals( String.valueOf( PropertyUtils.isDEFAULT_READ_ONLY() ), infoProperties[3].value );
-            assertEquals( "Indicates if the connection is in read-only mode. Currently ignored, reserved for future use.", infoProperties[3].description );
+            assertEquals( "Indicates if the connection is in read-only mode. Read-only connections are routed to the hosts given by the replicas property, if any.", infoProperties[3].description );
             assertArrayEquals( new String[]{ "true", "false" }, infoProperties[3].choices );
 
             assertEquals( PropertyUtils.getRESULT_SET_HOLDABILITY_KEY(), infoProperties[4].name );
@@ -200,7 +200,7 @@ public void getPropertyInfoWithUserSpecifiedValuesWhenPropertiesProvided() {
 
             assertEquals( "readonly", propertyInfo[3].name );
             assertEquals( "true", propertyInfo[3].value );
-            assertEquals( "Indicates if the connection is in read-only mode. Currently ignored, reserved for future use.", propertyInfo[3].description );
+            assertEquals( "Indicates if the connection is in read-only mode. Read-only connections are routed to the hosts given by the replicas property, if any.", propertyInfo[3].description );
             assertArrayEquals( new String[]{ "true", "false" }, propertyInfo[3].choices );
 
             assertEquals( "holdability", propertyInfo[4].name );
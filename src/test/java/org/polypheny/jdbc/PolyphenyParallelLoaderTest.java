@@ -0,0 +1,157 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.polypheny.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.polypheny.jdbc.PolyphenyParallelLoader.CommitStrategy;
+import org.polypheny.jdbc.PolyphenyParallelLoader.Ordering;
+
+public class PolyphenyParallelLoaderTest {
+
+    private final List<PolyConnection> connections = new ArrayList<>();
+    // rows received by the partition of each connection
+    private final List<List<Object[]>> received = new ArrayList<>();
+    // loaders that reached the end of their rows
+    private final AtomicInteger completed = new AtomicInteger();
+
+
+    /**
+     * Opens connections whose loaders record the rows they receive. The loader of the connection with the given index
+     * fails after receiving its first row.
+     */
+    private PolyphenyParallelLoader.ConnectionSource connectionSource( int failing ) {
+        return () -> {
+            PolyConnection connection = mock( PolyConnection.class );
+            PolyphenyBulkLoader loader = mock( PolyphenyBulkLoader.class );
+            List<Object[]> rows = new ArrayList<>();
+            boolean fails = connections.size() == failing;
+            when( connection.unwrap( PolyConnection.class ) ).thenReturn( connection );
+            when( connection.unwrap( PolyphenyBulkLoader.class ) ).thenReturn( loader );
+            when( loader.load( anyString(), any() ) ).thenAnswer( i -> {
+                Iterator<Object[]> iterator = i.getArgument( 1 );
+                while ( iterator.hasNext() ) {
+                    rows.add( iterator.next() );
+                    if ( fails ) {
+                        throw new PrismInterfaceServiceException( PrismInterfaceErrors.VALUE_ILLEGAL, "Invalid row" );
+                    }
+                }
+                completed.incrementAndGet();
+                return new PolyphenyBulkLoader.Result( rows.size(), rows.size(), 1 );
+            } );
+            connections.add( connection );
+            received.add( rows );
+            return connection;
+        };
+    }
+
+
+    private static Iterator<Object[]> rows( int count ) {
+        return IntStream.range( 0, count ).mapToObj( i -> new Object[]{ i % 7, i } ).iterator();
+    }
+
+
+    @Test
+    public void rowsWithEqualKeysStayInOrder() throws SQLException {
+        PolyphenyParallelLoader loader = new PolyphenyParallelLoader( connectionSource( -1 ) );
+        loader.setParallelism( 3 );
+        loader.setOrdering( Ordering.PER_KEY );
+
+        PolyphenyParallelLoader.Result result = loader.load( "t", rows( 10_000 ) );
+
+        assertEquals( 10_000, result.getRows() );
+        assertEquals( 3, result.getPartitions().size() );
+        Map<Object, Integer> partitionOfKey = new HashMap<>();
+        for ( int i = 0; i < received.size(); i++ ) {
+            int partition = i;
+            Map<Object, Integer> lastOfKey = new HashMap<>();
+            for ( Object[] row : received.get( partition ) ) {
+                assertEquals( partition, partitionOfKey.computeIfAbsent( row[0], k -> partition ) );
+                assertTrue( lastOfKey.getOrDefault( row[0], -1 ) < (Integer) row[1] );
+                lastOfKey.put( row[0], (Integer) row[1] );
+            }
+        }
+        for ( PolyConnection connection : connections ) {
+            verify( connection ).setAutoCommit( true );
+            verify( connection ).close();
+        }
+    }
+
+
+    @Test
+    public void allRowsAreLoadedWithoutOrdering() throws SQLException {
+        PolyphenyParallelLoader loader = new PolyphenyParallelLoader( connectionSource( -1 ) );
+        loader.setParallelism( 4 );
+
+        PolyphenyParallelLoader.Result result = loader.load( "t", rows( 10_000 ) );
+
+        assertEquals( 10_000, result.getRows() );
+        List<Object> loaded = received.stream().flatMap( List::stream ).map( r -> r[1] ).sorted().collect( Collectors.toList() );
+        assertEquals( IntStream.range( 0, 10_000 ).boxed().collect( Collectors.toList() ), loaded );
+    }
+
+
+    @Test
+    public void failingPartitionRollsBackAllPartitions() throws SQLException {
+        PolyphenyParallelLoader loader = new PolyphenyParallelLoader( connectionSource( 1 ) );
+        loader.setParallelism( 3 );
+        loader.setCommitStrategy( CommitStrategy.AT_END );
+
+        SQLException e = assertThrows( SQLException.class, () -> loader.load( "t", rows( 100_000 ) ) );
+
+        assertEquals( "Invalid row", e.getMessage() );
+        for ( PolyConnection connection : connections ) {
+            verify( connection ).setAutoCommit( false );
+            verify( connection ).rollback();
+            verify( connection, never() ).commit();
+            verify( connection ).close();
+        }
+    }
+
+
+    @Test
+    public void abortedPartitionsDoNotReachTheEndOfTheirRows() {
+        PolyphenyParallelLoader loader = new PolyphenyParallelLoader( connectionSource( 1 ) );
+        loader.setParallelism( 3 );
+        loader.setCommitStrategy( CommitStrategy.INTERVAL );
+
+        SQLException e = assertThrows( SQLException.class, () -> loader.load( "t", rows( 10_000_000 ) ) );
+
+        assertEquals( "Invalid row", e.getMessage() );
+        // otherwise the bulk loaders would commit the rows received since their last commit
+        assertEquals( 0, completed.get() );
+    }
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.polypheny.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class PolyphenyPipelineTest {
+
+    private final SQLException failure = new PrismInterfaceServiceException( "Table does not exist" );
+    private final CompletableFuture<Long> slow = new CompletableFuture<>();
+    private PolyConnection connection;
+    private PolyphenyStatement statement;
+    private PolyphenyPipeline pipeline;
+
+
+    private static <T> CompletableFuture<T> failed( Throwable e ) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally( e );
+        return future;
+    }
+
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        statement = mock( PolyphenyStatement.class );
+        when( statement.executeUpdateAsync( "a" ) ).thenReturn( CompletableFuture.completedFuture( 1L ) );
+        when( statement.executeUpdateAsync( "b" ) ).thenReturn( CompletableFuture.completedFuture( 2L ) );
+        when( statement.executeUpdateAsync( "bad" ) ).thenReturn( failed( failure ) );
+        when( statement.executeUpdateAsync( "slow" ) ).thenReturn( slow );
+        connection = mock( PolyConnection.class );
+        when( connection.createStatement() ).thenReturn( statement );
+        pipeline = new PolyphenyPipeline( connection );
+    }
+
+
+    @Test
+    public void statementsAreSentOnFlush() throws Exception {
+        CompletableFuture<Long> a = pipeline.executeUpdate( "a" );
+        CompletableFuture<Long> b = pipeline.executeUpdate( "b" );
+        verify( statement, never() ).executeUpdateAsync( "a" );
+
+        pipeline.sync();
+        assertEquals( 1L, a.get() );
+        assertEquals( 2L, b.get() );
+        // the statements of updates are closed at the sync point
+        verify( statement, times( 2 ) ).close();
+    }
+
+
+    @Test
+    public void failureAbortsRemainingStatementsUntilSync() throws Exception {
+        CompletableFuture<Long> a = pipeline.executeUpdate( "a" );
+        CompletableFuture<Long> bad = pipeline.executeUpdate( "bad" );
+        CompletableFuture<Long> b = pipeline.executeUpdate( "b" );
+
+        assertSame( failure, assertThrows( SQLException.class, pipeline::sync ) );
+        assertEquals( 1L, a.get() );
+        assertSame( failure, assertThrows( ExecutionException.class, bad::get ).getCause() );
+        assertTrue( b.isCompletedExceptionally() );
+        verify( statement, never() ).executeUpdateAsync( "b" );
+
+        CompletableFuture<Long> retried = pipeline.executeUpdate( "b" );
+        pipeline.sync();
+        assertEquals( 2L, retried.get() );
+    }
+
+
+    @Test
+    public void closeAbortsQueuedStatements() throws Exception {
+        CompletableFuture<Long> a = pipeline.executeUpdate( "a" );
+        pipeline.close();
+
+        assertTrue( a.isCompletedExceptionally() );
+        assertFalse( a.isCancelled() );
+        assertThrows( SQLException.class, () -> pipeline.executeUpdate( "a" ) );
+    }
+
+
+    @Test
+    public void failureAbortsSentStatements() throws Exception {
+        CompletableFuture<Long> running = pipeline.executeUpdate( "slow" );
+        pipeline.executeUpdate( "bad" );
+
+        assertSame( failure, assertThrows( SQLException.class, pipeline::sync ) );
+        assertSame( failure, assertThrows( ExecutionException.class, running::get ).getCause().getCause() );
+        // the result of the running statement is discarded once it arrives
+        assertTrue( slow.isCancelled() );
+    }
+
+
+    @Test
+    public void preparedStatementsOfOtherConnectionsAreRejected() throws Exception {
+        PolyphenyPreparedStatement prepared = mock( PolyphenyPreparedStatement.class );
+        when( prepared.unwrap( PolyphenyPreparedStatement.class ) ).thenReturn( prepared );
+        when( prepared.getConnection() ).thenReturn( mock( PolyConnection.class ) );
+
+        assertThrows( SQLException.class, () -> pipeline.executeUpdate( prepared, 1 ) );
+        verify( prepared, never() ).newParameterRow();
+    }
+
+}
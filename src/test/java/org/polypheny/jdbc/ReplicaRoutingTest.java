@@ -0,0 +1,155 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.polypheny.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.polypheny.jdbc.meta.PolyphenyDatabaseMetadata;
+import org.polypheny.jdbc.properties.PolyphenyConnectionProperties;
+import org.polypheny.jdbc.properties.PolyphenyStatementProperties;
+import org.polypheny.jdbc.routing.HostAddress;
+import org.polypheny.prism.PreparedStatementSignature;
+import org.polypheny.prism.StatementResult;
+
+public class ReplicaRoutingTest {
+
+    private PrismInterfaceClient primary;
+    private PrismInterfaceClient replica;
+    private PolyphenyConnectionProperties properties;
+    private PolyConnection connection;
+
+
+    private static PrismInterfaceClient newClient( int statementId ) throws SQLException {
+        PrismInterfaceClient client = mock( PrismInterfaceClient.class );
+        when( client.prepareIndexedStatement( any(), any(), anyString(), anyInt() ) ).thenReturn( PreparedStatementSignature.newBuilder().setStatementId( statementId ).build() );
+        when( client.executeIndexedStatement( anyInt(), any( ParameterRow.class ), anyInt(), anyInt() ) ).thenReturn( StatementResult.newBuilder().setScalar( 1 ).build() );
+        return client;
+    }
+
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        primary = newClient( 1 );
+        replica = newClient( 2 );
+        properties = mock( PolyphenyConnectionProperties.class );
+        when( properties.getPrismInterfaceClient() ).thenReturn( primary );
+        when( properties.getReplicas() ).thenReturn( Collections.singletonList( new HostAddress( "replica", 20590 ) ) );
+        when( properties.toStatementProperties() ).thenAnswer( i -> new PolyphenyStatementProperties() );
+        when( properties.getNamespaceName() ).thenReturn( "public" );
+        connection = spy( new PolyConnection( properties, mock( PolyphenyDatabaseMetadata.class ) ) );
+    }
+
+
+    private void setReadOnly( boolean readOnly ) throws SQLException {
+        when( properties.isReadOnly() ).thenReturn( readOnly );
+        connection.setReadOnly( readOnly );
+    }
+
+
+    @Test
+    public void readOnlyStatementsAreSentToReplica() throws SQLException {
+        doReturn( replica ).when( connection ).openClient( any() );
+        setReadOnly( true );
+
+        assertSame( replica, connection.getPrismInterfaceClient() );
+        connection.prepareStatement( "SELECT * FROM emps" ).executeUpdate();
+        verify( replica ).prepareIndexedStatement( any(), any(), eq( "SELECT * FROM emps" ), anyInt() );
+        verify( replica ).executeIndexedStatement( eq( 2 ), any( ParameterRow.class ), anyInt(), anyInt() );
+        verify( primary, never() ).prepareIndexedStatement( any(), any(), anyString(), anyInt() );
+
+        setReadOnly( false );
+        assertSame( primary, connection.getPrismInterfaceClient() );
+    }
+
+
+    @Test
+    public void readOnlyStatementsFallBackToPrimaryWithoutReachableReplica() throws SQLException {
+        doThrow( new PrismInterfaceServiceException( PrismInterfaceErrors.CONNECTION_LOST, "Could not connect to any of the hosts" ) ).when( connection ).openClient( any() );
+        setReadOnly( true );
+
+        assertSame( primary, connection.getPrismInterfaceClient() );
+        connection.prepareStatement( "SELECT * FROM emps" ).executeUpdate();
+        verify( primary ).executeIndexedStatement( eq( 1 ), any( ParameterRow.class ), anyInt(), anyInt() );
+    }
+
+
+    @Test
+    public void statementsStayOnTheServerTheyWerePreparedOn() throws SQLException {
+        // no transaction keeps the connection from switching between read-only and writable
+        when( properties.isAutoCommit() ).thenReturn( true );
+        doReturn( replica ).when( connection ).openClient( any() );
+        PreparedStatement update = connection.prepareStatement( "UPDATE emps SET salary = 0" );
+        setReadOnly( true );
+        PreparedStatement query = connection.prepareStatement( "SELECT * FROM emps" );
+        setReadOnly( false );
+
+        query.executeUpdate();
+        verify( replica ).executeIndexedStatement( eq( 2 ), any( ParameterRow.class ), anyInt(), anyInt() );
+        setReadOnly( true );
+        update.executeUpdate();
+        verify( primary ).executeIndexedStatement( eq( 1 ), any( ParameterRow.class ), anyInt(), anyInt() );
+        verify( primary, never() ).executeIndexedStatement( eq( 2 ), any( ParameterRow.class ), anyInt(), anyInt() );
+        verify( replica, never() ).executeIndexedStatement( eq( 1 ), any( ParameterRow.class ), anyInt(), anyInt() );
+    }
+
+
+    @Test
+    public void transactionsEndOnEveryServerThatTookPart() throws SQLException {
+        doReturn( replica ).when( connection ).openClient( any() );
+        setReadOnly( true );
+        PreparedStatement query = connection.prepareStatement( "SELECT * FROM emps" );
+        setReadOnly( false );
+        PreparedStatement update = connection.prepareStatement( "UPDATE emps SET salary = 0" );
+
+        query.executeUpdate();
+        update.executeUpdate();
+        connection.commit();
+        verify( primary ).commitTransaction( anyInt() );
+        verify( replica ).commitTransaction( anyInt() );
+
+        query.executeUpdate();
+        update.executeUpdate();
+        connection.rollback();
+        verify( primary ).rollbackTransaction( anyInt() );
+        verify( replica ).rollbackTransaction( anyInt() );
+
+        // only the servers used since the end of the last transaction take part
+        update.executeUpdate();
+        connection.commit();
+        verify( primary, times( 2 ) ).commitTransaction( anyInt() );
+        verify( replica ).commitTransaction( anyInt() );
+    }
+
+}
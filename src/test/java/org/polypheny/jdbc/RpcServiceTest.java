@@ -0,0 +1,233 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.polypheny.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.polypheny.jdbc.transport.Transport;
+import org.polypheny.jdbc.types.TypedValue;
+import org.polypheny.prism.CloseResultRequest;
+import org.polypheny.prism.CloseStatementRequest;
+import org.polypheny.prism.CloseStatementResponse;
+import org.polypheny.prism.CommitRequest;
+import org.polypheny.prism.CommitResponse;
+import org.polypheny.prism.ErrorDetails;
+import org.polypheny.prism.ExecuteIndexedStatementBatchRequest;
+import org.polypheny.prism.ExecuteIndexedStatementRequest;
+import org.polypheny.prism.IndexedParameters;
+import org.polypheny.prism.Request;
+import org.polypheny.prism.Request.TypeCase;
+import org.polypheny.prism.Response;
+import org.polypheny.prism.StatementBatchResponse;
+import org.polypheny.prism.StatementResult;
+
+public class RpcServiceTest {
+
+    private RecordingTransport transport;
+    private RpcService rpc;
+
+
+    private void start( Function<Request, Response.Builder> handler ) {
+        transport = new RecordingTransport( handler );
+        rpc = new RpcService( transport, null );
+    }
+
+
+    @AfterEach
+    public void tearDown() {
+        rpc.close();
+    }
+
+
+    @Test
+    public void deferredRequestsAreSentBeforeNextRequest() throws PrismInterfaceServiceException {
+        start( r -> r.getTypeCase() == TypeCase.COMMIT_REQUEST
+                ? Response.newBuilder().setCommitResponse( CommitResponse.newBuilder() )
+                : Response.newBuilder().setCloseStatementResponse( CloseStatementResponse.newBuilder() ) );
+
+        rpc.closeStatementDeferred( CloseStatementRequest.newBuilder().setStatementId( 1 ).build() );
+        rpc.closeStatementDeferred( CloseStatementRequest.newBuilder().setStatementId( 2 ).build() );
+        assertEquals( 0, transport.requests.size() );
+
+        rpc.commit( CommitRequest.newBuilder().build(), 1000 );
+        assertEquals( 3, transport.requests.size() );
+        assertEquals( TypeCase.CLOSE_STATEMENT_REQUEST, transport.requests.get( 0 ).getTypeCase() );
+        assertEquals( TypeCase.CLOSE_STATEMENT_REQUEST, transport.requests.get( 1 ).getTypeCase() );
+        assertEquals( TypeCase.COMMIT_REQUEST, transport.requests.get( 2 ).getTypeCase() );
+    }
+
+
+    @Test
+    public void deferredErrorIsReportedLater() throws PrismInterfaceServiceException {
+        start( r -> Response.newBuilder().setErrorResponse( ErrorDetails.newBuilder().setMessage( "unknown statement" ) ) );
+
+        rpc.closeResultDeferred( CloseResultRequest.newBuilder().setStatementId( 7 ).build() );
+        rpc.awaitDeferred( 7, 1000 );
+
+        PrismInterfaceServiceException e = assertThrows( PrismInterfaceServiceException.class, rpc::throwIfDeferredFailed );
+        assertEquals( "unknown statement", e.getMessage() );
+        rpc.throwIfDeferredFailed();
+    }
+
+
+    @Test
+    public void lostConnectionIsReported() throws InterruptedException {
+        CountDownLatch lost = new CountDownLatch( 1 );
+        transport = new RecordingTransport( r -> Response.newBuilder() );
+        rpc = new RpcService( transport, null, lost::countDown );
+
+        transport.fail();
+        assertTrue( lost.await( 5, TimeUnit.SECONDS ) );
+        assertTrue( rpc.isClosed() );
+    }
+
+
+    @Test
+    public void closingIsNotReportedAsLoss() {
+        AtomicBoolean lost = new AtomicBoolean();
+        transport = new RecordingTransport( r -> Response.newBuilder() );
+        rpc = new RpcService( transport, null, () -> lost.set( true ) );
+
+        rpc.close();
+        assertFalse( lost.get() );
+    }
+
+
+    @Test
+    public void encodedBatchParametersAreAppendedToRequest() throws Exception {
+        start( r -> Response.newBuilder().setStatementBatchResponse( StatementBatchResponse.newBuilder().addScalars( 1 ).addScalars( 1 ) ) );
+        ExecuteIndexedStatementBatchRequest parameters = ExecuteIndexedStatementBatchRequest.newBuilder()
+                .addParameters( IndexedParameters.newBuilder().addParameters( TypedValue.fromInteger( 1 ).serialize() ) )
+                .addParameters( IndexedParameters.newBuilder().addParameters( TypedValue.fromInteger( 2 ).serialize() ) )
+                .build();
+
+        StatementBatchResponse response = rpc.executeIndexedStatementBatchAsync( 5, parameters.toByteString() ).get( 5, TimeUnit.SECONDS );
+
+        assertEquals( 2, response.getScalarsCount() );
+        ExecuteIndexedStatementBatchRequest sent = transport.requests.get( 0 ).getExecuteIndexedStatementBatchRequest();
+        assertEquals( 5, sent.getStatementId() );
+        assertEquals( parameters.getParametersList(), sent.getParametersList() );
+    }
+
+
+    @Test
+    public void parameterRowIsEncodedIntoRequest() throws Exception {
+        start( r -> Response.newBuilder().setStatementResult( StatementResult.newBuilder().setScalar( 1 ) ) );
+        ParameterRow row = new ParameterRow( 6 );
+        row.setInteger( 0, -7 );
+        row.setLong( 1, 0 );
+        row.setDouble( 2, 2.5 );
+        row.setString( 3, "välü€ \uD83D\uDE00" );
+        row.setNull( 4 );
+        row.setValue( 5, TypedValue.fromBoolean( true ) );
+        IndexedParameters.Builder expected = IndexedParameters.newBuilder();
+        for ( int i = 0; i < row.size(); i++ ) {
+            expected.addParameters( row.toTypedValue( i ).serialize() );
+        }
+
+        StatementResult result = rpc.executeIndexedStatementAsync( rpc.encodeIndexedStatement( 5, row, 100 ) ).get( 5, TimeUnit.SECONDS );
+
+        assertEquals( 1, result.getScalar() );
+        ExecuteIndexedStatementRequest sent = transport.requests.get( 0 ).getExecuteIndexedStatementRequest();
+        assertEquals( 5, sent.getStatementId() );
+        assertEquals( 100, sent.getFetchSize() );
+        assertEquals( expected.build(), sent.getParameters() );
+    }
+
+
+    @Test
+    public void unsetParameterIsRejected() {
+        start( r -> Response.newBuilder().setStatementResult( StatementResult.newBuilder() ) );
+        ParameterRow row = new ParameterRow( 2 );
+        row.setInteger( 0, 1 );
+
+        assertThrows( SQLException.class, () -> rpc.encodeIndexedStatement( 5, row, 100 ) );
+        assertEquals( 0, transport.requests.size() );
+    }
+
+
+    private static class RecordingTransport implements Transport {
+
+        private static final byte[] CLOSED = new byte[0];
+        private static final byte[] FAILED = new byte[0];
+
+        private final Function<Request, Response.Builder> handler;
+        private final List<Request> requests = new CopyOnWriteArrayList<>();
+        private final BlockingQueue<byte[]> responses = new LinkedBlockingQueue<>();
+
+
+        private RecordingTransport( Function<Request, Response.Builder> handler ) {
+            this.handler = handler;
+        }
+
+
+        @Override
+        public void sendMessage( byte[] message ) throws IOException {
+            Request request = Request.parseFrom( message );
+            requests.add( request );
+            responses.add( handler.apply( request ).setId( request.getId() ).setLast( true ).build().toByteArray() );
+        }
+
+
+        @Override
+        public byte[] receiveMessage() throws IOException {
+            try {
+                byte[] message = responses.take();
+                if ( message == CLOSED ) {
+                    throw new ClosedChannelException();
+                }
+                if ( message == FAILED ) {
+                    throw new EOFException();
+                }
+                return message;
+            } catch ( InterruptedException e ) {
+                throw new ClosedChannelException();
+            }
+        }
+
+
+        private void fail() {
+            responses.add( FAILED );
+        }
+
+
+        @Override
+        public void close() {
+            responses.add( CLOSED );
+        }
+
+    }
+
+}
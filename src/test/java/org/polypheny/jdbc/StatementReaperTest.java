@@ -0,0 +1,64 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.polypheny.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.SQLException;
+import org.junit.jupiter.api.Test;
+import org.polypheny.jdbc.properties.PolyphenyStatementProperties;
+
+public class StatementReaperTest {
+
+    private PolyConnection mockConnection( PrismInterfaceClient client, LeakStatistics statistics ) {
+        PolyConnection connection = mock( PolyConnection.class );
+        when( connection.getPrismInterfaceClient() ).thenReturn( client );
+        when( connection.getLeakStatistics() ).thenReturn( statistics );
+        return connection;
+    }
+
+
+    private void leakStatement( PolyConnection connection, int statementId ) throws SQLException {
+        PolyphenyStatement statement = new PolyphenyStatement( connection, new PolyphenyStatementProperties() );
+        statement.setStatementId( statementId );
+    }
+
+
+    private void collectUntil( LeakStatistics statistics, long leaked ) throws InterruptedException {
+        for ( int i = 0; i < 100 && statistics.getLeaked() < leaked; i++ ) {
+            System.gc();
+            Thread.sleep( 50 );
+        }
+    }
+
+
+    @Test
+    public void leakedStatementIsClosedOnServer() throws SQLException, InterruptedException {
+        PrismInterfaceClient client = mock( PrismInterfaceClient.class );
+        LeakStatistics statistics = new LeakStatistics();
+        leakStatement( mockConnection( client, statistics ), 5 );
+
+        collectUntil( statistics, 1 );
+        verify( client ).closeStatementDeferred( 5 );
+        assertEquals( 1, statistics.getLeaked() );
+        assertEquals( 1, statistics.getReclaimed() );
+    }
+
+}
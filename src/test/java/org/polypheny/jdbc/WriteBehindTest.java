@@ -0,0 +1,127 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.polypheny.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.protobuf.ByteString;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.polypheny.prism.ExecuteIndexedStatementBatchRequest;
+import org.polypheny.prism.IndexedParameters;
+import org.polypheny.prism.StatementBatchResponse;
+
+public class WriteBehindTest {
+
+    private final List<Integer> sentRows = new ArrayList<>();
+
+
+    private PrismInterfaceClient echoClient() {
+        PrismInterfaceClient client = mock( PrismInterfaceClient.class );
+        when( client.executeIndexedStatementBatchAsync( anyInt(), any( ByteString.class ) ) ).thenAnswer( i -> {
+            ExecuteIndexedStatementBatchRequest chunk = ExecuteIndexedStatementBatchRequest.parseFrom( i.<ByteString>getArgument( 1 ) );
+            StatementBatchResponse.Builder response = StatementBatchResponse.newBuilder();
+            for ( IndexedParameters row : chunk.getParametersList() ) {
+                sentRows.add( row.getParameters( 0 ).getInteger().getInteger() );
+                response.addScalars( 1 );
+            }
+            return CompletableFuture.completedFuture( response.build() );
+        } );
+        return client;
+    }
+
+
+    private PolyConnection mockConnection() {
+        PolyConnection connection = mock( PolyConnection.class );
+        when( connection.getBatchChunkBytes() ).thenReturn( 1 << 20 );
+        when( connection.getBatchWindow() ).thenReturn( 4 );
+        return connection;
+    }
+
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void updatesAreSentTogetherOnFlush() throws Exception {
+        PrismInterfaceClient client = echoClient();
+        PolyConnection connection = mockConnection();
+        WriteBehind writeBehind = new WriteBehind( connection, new int[]{ Types.INTEGER }, 60_000 );
+        ParameterRow row = new ParameterRow( 1 );
+
+        for ( int i = 0; i < 3; i++ ) {
+            row.setInteger( 0, i );
+            writeBehind.add( row, client, 7 );
+        }
+        verify( client, never() ).executeIndexedStatementBatchAsync( anyInt(), any( ByteString.class ) );
+
+        writeBehind.flush();
+        writeBehind.flush();
+        verify( client, times( 1 ) ).executeIndexedStatementBatchAsync( anyInt(), any( ByteString.class ) );
+        assertEquals( Arrays.asList( 0, 1, 2 ), sentRows );
+
+        ArgumentCaptor<CompletableFuture<List<Long>>> result = ArgumentCaptor.forClass( CompletableFuture.class );
+        verify( connection ).writeBehindSent( result.capture() );
+        assertEquals( Arrays.asList( 1L, 1L, 1L ), result.getValue().get() );
+    }
+
+
+    @Test
+    public void changingTheStatementSendsBufferedUpdates() throws Exception {
+        PrismInterfaceClient client = echoClient();
+        PolyConnection connection = mockConnection();
+        WriteBehind writeBehind = new WriteBehind( connection, new int[]{ Types.INTEGER }, 60_000 );
+        ParameterRow row = new ParameterRow( 1 );
+
+        row.setInteger( 0, 1 );
+        writeBehind.add( row, client, 7 );
+        row.setInteger( 0, 2 );
+        writeBehind.add( row, client, 8 );
+        assertEquals( Arrays.asList( 1 ), sentRows );
+
+        writeBehind.discard();
+        writeBehind.flush();
+        assertEquals( Arrays.asList( 1 ), sentRows );
+    }
+
+
+    @Test
+    public void updatesAreSentAfterTheDelay() throws Exception {
+        PrismInterfaceClient client = echoClient();
+        PolyConnection connection = mockConnection();
+        WriteBehind writeBehind = new WriteBehind( connection, new int[]{ Types.INTEGER }, 10 );
+        ParameterRow row = new ParameterRow( 1 );
+
+        row.setInteger( 0, 1 );
+        writeBehind.add( row, client, 7 );
+        verify( connection, timeout( 5000 ) ).writeBehindSent( any() );
+        assertEquals( Arrays.asList( 1 ), sentRows );
+    }
+
+}
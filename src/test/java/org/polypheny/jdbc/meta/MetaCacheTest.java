@@ -0,0 +1,169 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.polypheny.jdbc.meta;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+import org.polypheny.jdbc.ConnectionString;
+import org.polypheny.jdbc.PrismInterfaceClient;
+import org.polypheny.jdbc.PrismInterfaceErrors;
+import org.polypheny.jdbc.PrismInterfaceServiceException;
+import org.polypheny.prism.Entity;
+import org.polypheny.prism.Namespace;
+import org.polypheny.prism.Table;
+
+public class MetaCacheTest {
+
+    private static final Namespace PUBLIC = Namespace.newBuilder()
+            .setNamespaceName( "public" )
+            .setIsCaseSensitive( false )
+            .build();
+
+
+    private static Entity table( String name ) {
+        return Entity.newBuilder().setTable( Table.newBuilder().setTableName( name ).setNamespaceName( "public" ) ).build();
+    }
+
+
+    private static PrismInterfaceClient mockClient() throws SQLException {
+        PrismInterfaceClient client = mock( PrismInterfaceClient.class );
+        when( client.searchNamespaces( isNull(), any(), anyInt() ) ).thenReturn( Collections.singletonList( PUBLIC ) );
+        when( client.searchEntitiesAsync( eq( "public" ), isNull() ) ).thenAnswer( i -> CompletableFuture.completedFuture( Arrays.asList( table( "emps" ), table( "depts" ), table( "emp_history" ) ) ) );
+        return client;
+    }
+
+
+    @Test
+    public void patternsAreResolvedAgainstSnapshot() throws SQLException {
+        PrismInterfaceClient client = mockClient();
+        MetaCache cache = new MetaCache( 60_000 );
+
+        List<Table> tables = cache.getTables( client, PUBLIC, "emp%", 0 );
+        assertEquals( 2, tables.size() );
+        tables = cache.getTables( client, PUBLIC, "DEPTS", 0 );
+        assertEquals( 1, tables.size() );
+        assertEquals( 1, cache.getNamespaces( client, "pub%", "RELATIONAL", 0 ).size() );
+        assertEquals( 0, cache.getNamespaces( client, "private", "RELATIONAL", 0 ).size() );
+
+        verify( client, times( 1 ) ).searchEntitiesAsync( eq( "public" ), isNull() );
+        verify( client, times( 1 ) ).searchNamespaces( isNull(), eq( "RELATIONAL" ), anyInt() );
+    }
+
+
+    @Test
+    public void invalidateForcesReload() throws SQLException {
+        PrismInterfaceClient client = mockClient();
+        MetaCache cache = new MetaCache( 60_000 );
+
+        cache.getTables( client, PUBLIC, null, 0 );
+        cache.invalidate();
+        cache.getTables( client, PUBLIC, null, 0 );
+
+        verify( client, times( 2 ) ).searchEntitiesAsync( eq( "public" ), isNull() );
+    }
+
+
+    @Test
+    public void expiredEntriesAreReloaded() throws SQLException, InterruptedException {
+        PrismInterfaceClient client = mockClient();
+        MetaCache cache = new MetaCache( 1 );
+
+        cache.getTables( client, PUBLIC, null, 0 );
+        Thread.sleep( 5 );
+        cache.getTables( client, PUBLIC, null, 0 );
+
+        verify( client, times( 2 ) ).searchEntitiesAsync( eq( "public" ), isNull() );
+    }
+
+
+    @Test
+    public void missingNamespacesAreLoadedTogether() throws SQLException {
+        PrismInterfaceClient client = mockClient();
+        Namespace other = Namespace.newBuilder().setNamespaceName( "other" ).setIsCaseSensitive( false ).build();
+        when( client.searchEntitiesAsync( eq( "other" ), isNull() ) ).thenAnswer( i -> CompletableFuture.completedFuture( Collections.singletonList( table( "emps" ) ) ) );
+        MetaCache cache = new MetaCache( 60_000 );
+
+        cache.getTables( client, PUBLIC, null, 0 );
+        List<List<Table>> tables = cache.getTables( client, Arrays.asList( other, PUBLIC ), "emps", 4, 0 );
+        assertEquals( 2, tables.size() );
+        assertEquals( 1, tables.get( 0 ).size() );
+        assertEquals( 1, tables.get( 1 ).size() );
+
+        verify( client, times( 1 ) ).searchEntitiesAsync( eq( "public" ), isNull() );
+        verify( client, times( 1 ) ).searchEntitiesAsync( eq( "other" ), isNull() );
+    }
+
+
+    @Test
+    public void matchesPatternTreatsOtherCharactersLiterally() {
+        assertTrue( MetaUtils.matchesPattern( "emp_history", MetaUtils.compilePattern( "emp\\_history", true ) ) );
+        assertTrue( MetaUtils.matchesPattern( "empxhistory", MetaUtils.compilePattern( "emp_history", true ) ) );
+        assertFalse( MetaUtils.matchesPattern( "empxhistory", MetaUtils.compilePattern( "emp\\_history", true ) ) );
+        assertFalse( MetaUtils.matchesPattern( "emps", MetaUtils.compilePattern( "e.ps", true ) ) );
+        assertFalse( MetaUtils.matchesPattern( "EMPS", MetaUtils.compilePattern( "emps", true ) ) );
+        assertTrue( MetaUtils.matchesPattern( "EMPS", MetaUtils.compilePattern( "emps", false ) ) );
+        assertTrue( MetaUtils.matchesPattern( "anything", MetaUtils.compilePattern( null, true ) ) );
+    }
+
+
+    @Test
+    public void sharedCacheIsDroppedWithItsLastConnection() {
+        MetaCache first = MetaCache.getShared( "localhost:20590/pa", 60_000 );
+        MetaCache second = MetaCache.getShared( "localhost:20590/pa", 60_000 );
+        assertSame( first, second );
+
+        first.release();
+        second.release();
+        MetaCache third = MetaCache.getShared( "localhost:20590/pa", 60_000 );
+        assertNotSame( first, third );
+        third.release();
+    }
+
+
+    @Test
+    public void malformedCachePropertiesAreRejected() throws SQLException {
+        String[][] parameters = { { "metacachettl", "10s" }, { "metaconcurrency", "many" }, { "metaconcurrency", "0" } };
+        for ( String[] parameter : parameters ) {
+            Properties properties = new Properties();
+            properties.setProperty( parameter[0], parameter[1] );
+            ConnectionString target = new ConnectionString( "jdbc:polypheny://localhost:20590", properties );
+            PrismInterfaceServiceException e = assertThrows( PrismInterfaceServiceException.class, () -> new PolyphenyDatabaseMetadata( null, target ) );
+            assertEquals( PrismInterfaceErrors.VALUE_ILLEGAL.errorCode, e.getErrorCode() );
+        }
+    }
+
+}
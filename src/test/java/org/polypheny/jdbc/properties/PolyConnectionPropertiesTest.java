@@ -157,13 +157,32 @@ public void toStatementProperties_Defaults_Conversion() throws SQLException {
 
 
     @Test
-    public void setNamespaceName_Valid_Sync() throws SQLException {
+    public void setNamespaceName_Valid_DeferredSync() throws SQLException {
         PolyphenyConnectionProperties connectionProperties = new PolyphenyConnectionProperties( connectionString, PRISM_INTERFACE_CLIENT );
         String namespaceName = "testNamespace";
 
         connectionProperties.setNamespaceName( namespaceName );
 
         assertEquals( namespaceName, connectionProperties.getNamespaceName() );
+        verify( PRISM_INTERFACE_CLIENT, times( 0 ) ).setConnectionProperties( connectionProperties, connectionProperties.getNetworkTimeout() );
+        connectionProperties.flush();
+        verify( PRISM_INTERFACE_CLIENT, times( 1 ) ).setConnectionProperties( connectionProperties, connectionProperties.getNetworkTimeout() );
+        connectionProperties.flush();
+        verify( PRISM_INTERFACE_CLIENT, times( 1 ) ).setConnectionProperties( connectionProperties, connectionProperties.getNetworkTimeout() );
+    }
+
+
+    @Test
+    public void multipleChanges_Coalesced_SingleSync() throws SQLException {
+        PolyphenyConnectionProperties connectionProperties = new PolyphenyConnectionProperties( connectionString, PRISM_INTERFACE_CLIENT );
+
+        connectionProperties.setAutoCommit( false );
+        connectionProperties.setNamespaceName( "first" );
+        connectionProperties.setNamespaceName( "second" );
+        assertTrue( connectionProperties.isDirty() );
+        connectionProperties.flush();
+
+        assertFalse( connectionProperties.isDirty() );
         verify( PRISM_INTERFACE_CLIENT, times( 1 ) ).setConnectionProperties( connectionProperties, connectionProperties.getNetworkTimeout() );
     }
 
@@ -194,7 +213,7 @@ public void setTransactionIsolation_Invalid_Error() throws SQLException {
 
 
     @Test
-    public void setTransactionIsolation_Valid_Sync() throws SQLException {
+    public void setTransactionIsolation_Unchanged_NoSync() throws SQLException {
         PolyphenyConnectionProperties connectionProperties = new PolyphenyConnectionProperties( connectionString, PRISM_INTERFACE_CLIENT );
         int transactionIsolation = Connection.TRANSACTION_READ_COMMITTED;
 
@@ -204,8 +223,10 @@ public void setTransactionIsolation_Valid_Sync() throws SQLException {
             fail( "Should not throw an exception" );
         }
 
+        connectionProperties.flush();
+
         assertEquals( transactionIsolation, connectionProperties.getTransactionIsolation() );
-        verify( PRISM_INTERFACE_CLIENT, times( 1 ) ).setConnectionProperties( connectionProperties, connectionProperties.getNetworkTimeout() );
+        verify( PRISM_INTERFACE_CLIENT, times( 0 ) ).setConnectionProperties( connectionProperties, connectionProperties.getNetworkTimeout() );
     }
 
 
@@ -215,6 +236,7 @@ public void setNetworkTimeout_Valid_Sync() throws SQLException {
         int networkTimeout = 5000;
 
         connectionProperties.setNetworkTimeout( networkTimeout );
+        connectionProperties.flush();
 
         verify( PRISM_INTERFACE_CLIENT, times( 1 ) ).setConnectionProperties( connectionProperties, connectionProperties.getNetworkTimeout() );
         assertEquals( connectionProperties.getNetworkTimeout(), networkTimeout );
@@ -245,12 +267,13 @@ public void setResultSetHoldability_Valid_NoSync() throws SQLException {
 
 
     @Test
-    public void setReadOnly_False_Sync() throws SQLException {
+    public void setReadOnly_Unchanged_NoSync() throws SQLException {
         PolyphenyConnectionProperties connectionProperties = new PolyphenyConnectionProperties( connectionString, PRISM_INTERFACE_CLIENT );
         connectionProperties.setReadOnly( false );
+        connectionProperties.flush();
 
         assertFalse( connectionProperties.isReadOnly() );
-        verify( PRISM_INTERFACE_CLIENT, times( 1 ) ).setConnectionProperties( connectionProperties, connectionProperties.getNetworkTimeout() );
+        verify( PRISM_INTERFACE_CLIENT, times( 0 ) ).setConnectionProperties( connectionProperties, connectionProperties.getNetworkTimeout() );
     }
 
 
@@ -258,6 +281,7 @@ public void setReadOnly_False_Sync() throws SQLException {
     public void setReadOnly_True_Sync() throws SQLException {
         PolyphenyConnectionProperties connectionProperties = new PolyphenyConnectionProperties( connectionString, PRISM_INTERFACE_CLIENT );
         connectionProperties.setReadOnly( true );
+        connectionProperties.flush();
 
         assertTrue( connectionProperties.isReadOnly() );
         verify( PRISM_INTERFACE_CLIENT, times( 1 ) ).setConnectionProperties( connectionProperties, connectionProperties.getNetworkTimeout() );
@@ -268,6 +292,7 @@ public void setReadOnly_True_Sync() throws SQLException {
     public void setAutoCommit_False_Sync() throws SQLException {
         PolyphenyConnectionProperties connectionProperties = new PolyphenyConnectionProperties( connectionString, PRISM_INTERFACE_CLIENT );
         connectionProperties.setAutoCommit( false );
+        connectionProperties.flush();
 
         assertFalse( connectionProperties.isAutoCommit() );
         verify( PRISM_INTERFACE_CLIENT, times( 1 ) ).setConnectionProperties( connectionProperties, connectionProperties.getNetworkTimeout() );
@@ -275,12 +300,13 @@ public void setAutoCommit_False_Sync() throws SQLException {
 
 
     @Test
-    public void setAutoCommit_True_Sync() throws SQLException {
+    public void setAutoCommit_Unchanged_NoSync() throws SQLException {
         PolyphenyConnectionProperties connectionProperties = new PolyphenyConnectionProperties( connectionString, PRISM_INTERFACE_CLIENT );
         connectionProperties.setAutoCommit( true );
+        connectionProperties.flush();
 
         assertTrue( connectionProperties.isAutoCommit() );
-        verify( PRISM_INTERFACE_CLIENT, times( 1 ) ).setConnectionProperties( connectionProperties, connectionProperties.getNetworkTimeout() );
+        verify( PRISM_INTERFACE_CLIENT, times( 0 ) ).setConnectionProperties( connectionProperties, connectionProperties.getNetworkTimeout() );
     }
 
 }
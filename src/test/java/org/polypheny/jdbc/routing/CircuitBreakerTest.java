@@ -0,0 +1,59 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.polypheny.jdbc.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.polypheny.jdbc.routing.CircuitBreaker.State;
+
+public class CircuitBreakerTest {
+
+    @Test
+    public void openBreakerRejectsAttempts() {
+        CircuitBreaker breaker = new CircuitBreaker();
+        assertTrue( breaker.tryAcquire() );
+        breaker.recordFailure();
+        assertEquals( State.CLOSED, breaker.getState() );
+        assertTrue( breaker.tryAcquire() );
+        breaker.recordFailure();
+
+        assertEquals( State.OPEN, breaker.getState() );
+        assertFalse( breaker.allowsAttempt() );
+        assertFalse( breaker.tryAcquire() );
+
+        breaker.recordSuccess();
+        assertEquals( State.CLOSED, breaker.getState() );
+        assertTrue( breaker.tryAcquire() );
+    }
+
+
+    @Test
+    public void successResetsFailureCount() {
+        CircuitBreaker breaker = new CircuitBreaker();
+        breaker.recordFailure();
+        breaker.recordSuccess();
+        breaker.recordFailure();
+
+        assertEquals( State.CLOSED, breaker.getState() );
+        assertTrue( breaker.allowsAttempt() );
+    }
+
+}
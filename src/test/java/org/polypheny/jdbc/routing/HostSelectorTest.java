@@ -0,0 +1,78 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.polypheny.jdbc.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class HostSelectorTest {
+
+    @Test
+    public void roundRobinRotatesStartHost() {
+        List<HostAddress> hosts = Arrays.asList( new HostAddress( "rr1", 1 ), new HostAddress( "rr2", 1 ) );
+        HostSelector selector = new HostSelector( hosts, HostSelector.Strategy.ROUND_ROBIN );
+
+        HostStats first = selector.candidates().get( 0 );
+        HostStats second = selector.candidates().get( 0 );
+        assertNotEquals( first.getAddress(), second.getAddress() );
+    }
+
+
+    @Test
+    public void leastOutstandingPrefersIdleHost() {
+        HostAddress busy = new HostAddress( "lo1", 1 );
+        HostAddress idle = new HostAddress( "lo2", 1 );
+        HostSelector selector = new HostSelector( Arrays.asList( busy, idle ), HostSelector.Strategy.LEAST_OUTSTANDING );
+        HostStats.of( busy ).requestStarted();
+
+        for ( int i = 0; i < 4; i++ ) {
+            assertEquals( idle, selector.candidates().get( 0 ).getAddress() );
+        }
+        HostStats.of( busy ).requestFinished( 1000 );
+    }
+
+
+    @Test
+    public void unhealthyHostsAreTriedLast() {
+        HostAddress down = new HostAddress( "uh1", 1 );
+        HostAddress up = new HostAddress( "uh2", 1 );
+        HostSelector selector = new HostSelector( Arrays.asList( down, up ), HostSelector.Strategy.ROUND_ROBIN );
+        for ( int i = 0; i < CircuitBreaker.FAILURE_THRESHOLD; i++ ) {
+            HostStats.of( down ).markUnhealthy();
+        }
+
+        for ( int i = 0; i < 4; i++ ) {
+            List<HostStats> candidates = selector.candidates();
+            assertEquals( up, candidates.get( 0 ).getAddress() );
+            assertEquals( down, candidates.get( 1 ).getAddress() );
+        }
+        HostStats.of( down ).markHealthy();
+    }
+
+
+    @Test
+    public void parseListUsesDefaultPort() throws Exception {
+        List<HostAddress> hosts = HostAddress.parseList( "a:1, b", 20590 );
+        assertEquals( Arrays.asList( new HostAddress( "a", 1 ), new HostAddress( "b", 20590 ) ), hosts );
+    }
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.polypheny.jdbc.sharding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+public class ShardingTest {
+
+    @Test
+    public void rangesAreAssignedInOrder() throws SQLException {
+        RangeShardingStrategy<Integer> strategy = new RangeShardingStrategy<>( Arrays.asList( 100, 200 ) );
+        assertEquals( 0, strategy.getShard( -5, 3 ) );
+        assertEquals( 0, strategy.getShard( 99, 3 ) );
+        assertEquals( 1, strategy.getShard( 100, 3 ) );
+        assertEquals( 2, strategy.getShard( 200, 3 ) );
+        assertEquals( 2, strategy.getShard( 5000, 3 ) );
+    }
+
+
+    @Test
+    public void unorderedRangesAreRejected() {
+        assertThrows( SQLException.class, () -> new RangeShardingStrategy<>( Arrays.asList( 200, 100 ) ) );
+    }
+
+
+    @Test
+    public void hashSpreadsConsecutiveKeys() {
+        HashShardingStrategy strategy = new HashShardingStrategy();
+        Set<Integer> shards = new HashSet<>();
+        for ( int tenant = 0; tenant < 64; tenant++ ) {
+            int shard = strategy.getShard( tenant, 4 );
+            assertEquals( shard, strategy.getShard( String.valueOf( tenant ), 4 ) );
+            shards.add( shard );
+        }
+        assertEquals( 4, shards.size() );
+    }
+
+
+    @Test
+    public void shardOfKeyIsLookedUp() throws SQLException {
+        PolyphenyShardedDataSource dataSource = new PolyphenyShardedDataSource(
+                Arrays.asList( "jdbc:polypheny://a:20590", "jdbc:polypheny://b:20590" ),
+                new RangeShardingStrategy<>( Arrays.asList( "m" ) ),
+                null );
+        assertEquals( 0, dataSource.getShard( "alice" ) );
+        assertEquals( 1, dataSource.getShard( "zoe" ) );
+        assertThrows( SQLException.class, () -> dataSource.getShard( null ) );
+    }
+
+
+    @Test
+    public void hintsAreScopedToTheThread() {
+        try ( ShardHint outer = ShardHint.of( "a" ) ) {
+            try ( ShardHint inner = ShardHint.of( "b" ) ) {
+                assertEquals( "b", ShardHint.current() );
+            }
+            assertEquals( "a", ShardHint.current() );
+        }
+        assertNull( ShardHint.current() );
+    }
+
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.polypheny.jdbc.transport;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.ServerSocket;
+import java.net.SocketTimeoutException;
+import org.junit.jupiter.api.Test;
+
+public class PlainTransportTest {
+
+    @Test
+    public void silentServerFailsHandshakeInTime() throws Exception {
+        // accepts connections in the backlog but never sends the version
+        try ( ServerSocket server = new ServerSocket( 0 ) ) {
+            long start = System.nanoTime();
+            assertThrows( SocketTimeoutException.class, () -> new PlainTransport( "localhost", server.getLocalPort(), 1000, 200 ) );
+            assertTrue( System.nanoTime() - start < 5_000_000_000L );
+        }
+    }
+
+}
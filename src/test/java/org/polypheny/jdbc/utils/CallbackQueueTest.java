@@ -0,0 +1,54 @@
+/*
+ * Copyright 2019-2024 The Polypheny Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.polypheny.jdbc.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.io.EOFException;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.polypheny.jdbc.PrismInterfaceServiceException;
+import org.polypheny.prism.Response;
+
+public class CallbackQueueTest {
+
+    @Test
+    public void errorBeforeTakeIsThrown() {
+        CallbackQueue<Response> queue = new CallbackQueue<>( r -> r );
+        queue.onError( new EOFException() );
+
+        assertTimeoutPreemptively( Duration.ofSeconds( 5 ), () -> {
+            assertThrows( PrismInterfaceServiceException.class, queue::takeNext );
+            queue.awaitCompletion();
+        } );
+    }
+
+
+    @Test
+    public void lockIsReleasedAfterFailedTake() throws PrismInterfaceServiceException {
+        CallbackQueue<Response> queue = new CallbackQueue<>( r -> r );
+        queue.onError( new EOFException() );
+        assertThrows( PrismInterfaceServiceException.class, queue::takeNext );
+
+        // the response handler must still be able to deliver messages
+        assertTimeoutPreemptively( Duration.ofSeconds( 5 ), () -> queue.onNext( Response.newBuilder().setId( 3 ).build() ) );
+        assertEquals( 3, queue.takeNext().getId() );
+    }
+
+}